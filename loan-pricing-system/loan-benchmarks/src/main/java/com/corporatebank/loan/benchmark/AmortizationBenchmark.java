@@ -0,0 +1,70 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.corporatebank.loan.service.AmortizationEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a repayment schedule: computing it from scratch, a cache hit, and streaming it out as JSON or CSV to a
+ * discarding stream (serialization only, no network).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmortizationBenchmark {
+
+    @Param({"12", "120", "360"})
+    private int months;
+
+    @Param({"EMI", "EQUAL_PRINCIPAL"})
+    private RepaymentStructure structure;
+
+    private AmortizationEngine engine;
+    private AmortizationSchedule schedule;
+
+    @Setup
+    public void setUp() {
+        engine = new AmortizationEngine(JsonMapper.builder().build(), new PricingProperties(), 1000);
+        schedule = engine.schedule(2_500_000.0, 8.65, months, structure);
+    }
+
+    @Benchmark
+    public AmortizationSchedule compute() {
+        return AmortizationEngine.compute(2_500_000.0, 8.65, months, structure);
+    }
+
+    @Benchmark
+    public AmortizationSchedule cached() {
+        return engine.schedule(2_500_000.0, 8.65, months, structure);
+    }
+
+    @Benchmark
+    public void writeJson() throws IOException {
+        engine.write(schedule, AmortizationEngine.Format.JSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeCsv() throws IOException {
+        engine.write(schedule, AmortizationEngine.Format.CSV, OutputStream.nullOutputStream());
+    }
+}
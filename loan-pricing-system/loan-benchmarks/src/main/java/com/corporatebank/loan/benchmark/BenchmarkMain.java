@@ -0,0 +1,28 @@
+package com.corporatebank.loan.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: plain JMH, except that results are written as JSON to
+ * {@code results/jmh-<label>.json} unless {@code -rf}/{@code -rff} is given. Label a run with
+ * {@code -Dbench.label=1.4.0} and compare two runs with {@link JmhResultDiff}.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(List.of(args));
+        if (!jmhArgs.contains("-rf") && !jmhArgs.contains("-rff")) {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String label = System.getProperty("bench.label", "local");
+            jmhArgs.addAll(List.of("-rf", "json", "-rff", results.resolve("jmh-" + label + ".json").toString()));
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
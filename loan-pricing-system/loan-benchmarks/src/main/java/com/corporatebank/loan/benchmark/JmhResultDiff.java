@@ -0,0 +1,99 @@
+package com.corporatebank.loan.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (including parameters) and exits with status 1 when
+ * any score, or allocation per op when both runs used {@code -prof gc}, got worse by more than the threshold:
+ * <pre>
+ * java -cp target/benchmarks.jar com.corporatebank.loan.benchmark.JmhResultDiff \
+ *     results/jmh-1.3.0.json results/jmh-1.4.0.json [thresholdPercent, default 10]
+ * </pre>
+ */
+public final class JmhResultDiff {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private JmhResultDiff() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: JmhResultDiff <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        ObjectMapper mapper = JsonMapper.builder().build();
+        Map<String, JsonNode> baseline = byKey(mapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = byKey(mapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-80s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %14s%n", entry.getKey(), "(new)");
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.get("mode").asString());
+            regressions += report(entry.getKey(), after.get("primaryMetric").get("scoreUnit").asString(),
+                    score(before.get("primaryMetric")), score(after.get("primaryMetric")), higherIsBetter, threshold);
+            JsonNode allocBefore = allocation(before);
+            JsonNode allocAfter = allocation(after);
+            if (allocBefore != null && allocAfter != null) {
+                regressions += report(entry.getKey() + ":" + ALLOCATION, "B/op",
+                        score(allocBefore), score(allocAfter), false, threshold);
+            }
+        }
+        System.out.printf("%d regression(s) beyond %.0f%%%n", regressions, threshold * 100);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static int report(String name, String unit, double before, double after, boolean higherIsBetter,
+                              double threshold) {
+        double change = before == 0 ? 0 : (after - before) / before;
+        boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+        System.out.printf("%-80s %14.3f %14.3f %+8.1f%% %s%s%n", name, before, after, change * 100, unit,
+                regressed ? "  REGRESSION" : "");
+        return regressed ? 1 : 0;
+    }
+
+    private static Map<String, JsonNode> byKey(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            String benchmark = result.get("benchmark").asString();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                params.properties().forEach(param ->
+                        key.append(' ').append(param.getKey()).append('=').append(param.getValue().asString()));
+            }
+            byKey.put(key.toString(), result);
+        }
+        return byKey;
+    }
+
+    private static JsonNode allocation(JsonNode result) {
+        JsonNode secondary = result.get("secondaryMetrics");
+        if (secondary == null) {
+            return null;
+        }
+        for (Map.Entry<String, JsonNode> metric : secondary.properties()) {
+            if (metric.getKey().endsWith(ALLOCATION)) {
+                return metric.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static double score(JsonNode metric) {
+        return metric.get("score").asDouble();
+    }
+}
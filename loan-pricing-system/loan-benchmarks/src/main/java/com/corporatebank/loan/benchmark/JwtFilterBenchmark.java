@@ -0,0 +1,82 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.JwtFilter;
+import com.corporatebank.loan.config.JwtUtil;
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.model.enums.Role;
+import com.corporatebank.loan.repository.inmemory.InMemoryUserRepository;
+import com.corporatebank.loan.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JwtFilter} end to end for one authenticated request: header parsing, verification, role resolution
+ * and populating the security context. Each invocation builds a fresh mock request, as the filter runs once
+ * per request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String EMAIL = "user@bank.com";
+
+    // verified-token cache size (0 = off) and whether the role is re-checked against the user cache
+    @Param({"0", "10000"})
+    private int tokenCacheSize;
+
+    @Param({"false", "true"})
+    private boolean userLookup;
+
+    private JwtFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(JwtVerificationBenchmark.SECRET, 3600000, tokenCacheSize);
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setRole(Role.USER);
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        users.save(user);
+        UserService userService = new UserService(users,
+                Duration.ofSeconds(30), 10000);
+        filter = new JwtFilter(jwtUtil, userService, userLookup, new SimpleMeterRegistry());
+        authorization = "Bearer " + jwtUtil.generateToken(EMAIL, "USER");
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
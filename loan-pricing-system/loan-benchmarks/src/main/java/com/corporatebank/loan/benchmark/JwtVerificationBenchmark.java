@@ -0,0 +1,78 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.JwtPrincipal;
+import com.corporatebank.loan.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the filter's original verification path (three full parses, each rebuilding the HMAC key and
+ * parser) against {@link JwtUtil#verify} with and without the verified-token cache, plus the cost of issuing a
+ * token at login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    static final String SECRET = "ThisIsAVeryLongSecretKeyForTheCorporateBankingAppToSatisfyHS256Requirements";
+
+    private JwtUtil cached;
+    private JwtUtil uncached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtUtil(SECRET, 3600000, 10000);
+        uncached = new JwtUtil(SECRET, 3600000, 0);
+        token = cached.generateToken("user@bank.com", "USER");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncached.generateToken("user@bank.com", "USER");
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String email = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(email)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> singlePassUncached() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> singlePassCached() {
+        return cached.verify(token);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
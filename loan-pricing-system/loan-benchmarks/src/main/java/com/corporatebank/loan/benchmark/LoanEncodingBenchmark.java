@@ -0,0 +1,162 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the API's bodies in each negotiable format: a single {@link Loan} (GET and POST
+ * /api/loans/{id}) and a {@code Page<LoanSummary>} (GET /api/loans) at the UI's 20 rows and a batch consumer's 500.
+ * Decoding is what a client does with the body: the loan into {@link Loan}, the page into its rows ({@code pageSize}
+ * does not affect the single-loan benchmarks). Payload sizes per format are printed once per trial, as "payload
+ * format=... loan=...B page(n)=...B".
+ *
+ * <p>Measured on JDK 17.0.9 with a single CPU, so the error bars are wide, by
+ * {@code java -jar loan-benchmarks/target/benchmarks.jar LoanEncodingBenchmark -rf json -rff encoding.json}
+ * after {@code mvn -B -q install -DskipTests} here and in loan-benchmarks (us/op):
+ * <pre>
+ * format  encodeLoan  decodeLoan  encodePage(20)  decodePage(20)  encodePage(500)  decodePage(500)
+ * json         4.5         9.4          45.5            79.9           1138.9           1617.7
+ * cbor         3.0        10.0          21.8            76.0            626.4           1641.4
+ * smile        3.5         8.5          21.8            47.5            481.1           1210.3
+ *
+ * payload  loan   page(20)  page(500)
+ * json     610B   7237B     176296B
+ * cbor     543B   6527B     158614B
+ * smile    561B   3896B      89739B
+ * </pre>
+ * Both binary formats encode a page in about half the JSON time. Smile's back-references to repeated property names
+ * halve the page size and decode it 1.3-1.7x faster; CBOR decodes at JSON speed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanEncodingBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"20", "500"})
+    private int pageSize;
+
+    private ObjectMapper mapper;
+    private Loan loan;
+    private Page<LoanSummary> page;
+    private byte[] loanBytes;
+    private byte[] pageBytes;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+            case "smile" -> SmileMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+            default -> JsonMapper.builder().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+        };
+        loan = loan(0);
+        List<LoanSummary> rows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            LoanSummary row = new LoanSummary();
+            BeanUtils.copyProperties(loan(i), row);
+            rows.add(row);
+        }
+        page = new PageImpl<>(rows, PageRequest.of(0, pageSize, Sort.by("createdAt").descending()), 40_000);
+        loanBytes = mapper.writeValueAsBytes(loan);
+        pageBytes = mapper.writeValueAsBytes(page);
+        System.out.printf("%npayload format=%s loan=%dB page(%d)=%dB%n",
+                format, loanBytes.length, pageSize, pageBytes.length);
+    }
+
+    @Benchmark
+    public byte[] encodeLoan() {
+        return mapper.writeValueAsBytes(loan);
+    }
+
+    @Benchmark
+    public Loan decodeLoan() {
+        return mapper.readValue(loanBytes, Loan.class);
+    }
+
+    @Benchmark
+    public byte[] encodePage() {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public SummaryPage decodePage() {
+        return mapper.readValue(pageBytes, SummaryPage.class);
+    }
+
+    /**
+     * The part of a page body a consumer reads.
+     */
+    public static class SummaryPage {
+        private List<LoanSummary> content;
+
+        public List<LoanSummary> getContent() {
+            return content;
+        }
+
+        public void setContent(List<LoanSummary> content) {
+            this.content = content;
+        }
+    }
+
+    private static Loan loan(int i) {
+        Instant created = Instant.parse("2024-03-01T09:00:00Z").plusSeconds(i * 3600L);
+        Loan loan = new Loan();
+        loan.setId(String.format("65f1c0a2b3c4d5e6f7a8%04x", i));
+        loan.setVersion(3L);
+        loan.setClientName("Client " + i + " Holdings Ltd");
+        loan.setLoanType(LoanType.values()[i % LoanType.values().length]);
+        loan.setRequestedAmount(1_000_000.0 + i * 25_137.45);
+        loan.setProposedInterestRate(9.25);
+        loan.setTenureMonths(60);
+        loan.setStatus(LoanStatus.APPROVED);
+        loan.setIndicativeRate(8.65);
+        loan.setPricedAt(created.plusSeconds(60));
+        loan.setSanctionedAmount(950_000.0 + i * 23_880.58);
+        loan.setApprovedInterestRate(8.7);
+        loan.setApprovedBy("admin@bank.com");
+        loan.setApprovedAt(created.plusSeconds(7200));
+        loan.setCreatedBy("user@bank.com");
+        loan.setCreatedAt(created);
+        Loan.Financials financials = new Loan.Financials();
+        financials.setRevenue(25_000_000.0);
+        financials.setEbitda(3_100_000.0);
+        financials.setRating("B");
+        loan.setFinancials(financials);
+        loan.setLastAction(new LoanAction("admin@bank.com", "APPROVED", created.plusSeconds(7200)));
+        return loan;
+    }
+}
@@ -0,0 +1,108 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanSearchKeys;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.repository.inmemory.InMemoryLoanActionRepository;
+import com.corporatebank.loan.repository.inmemory.InMemoryLoanRepository;
+import com.corporatebank.loan.repository.inmemory.InMemoryPortfolioSummaryRepository;
+import com.corporatebank.loan.service.LoanAuditService;
+import com.corporatebank.loan.service.LoanMetrics;
+import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
+import com.corporatebank.loan.service.PricingEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoanService#searchLoans} latency distribution (sample mode, so p99 is reported) over an
+ * {@link InMemoryLoanRepository} whose (searchName, id) and (searchKey, searchName, id) indexes mirror the MongoDB
+ * ones. Client names are three words drawn from fixed vocabularies, so a one-word prefix matches a large share of
+ * the book and the query still only reads one page of index entries: {@code commonPrefix} ("a", whole-name tier
+ * alone), {@code twoWords} ("north ste", both tiers), {@code deepPage} (page 49 of 20, the deepest a search goes)
+ * and {@code rare} (a name nobody has, both tiers empty).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LoanSearchBenchmark {
+
+    private static final String[] FIRST = {"Acme", "Apex", "Atlas", "Beacon", "Cedar", "Crown", "Delta", "Eagle",
+            "Falcon", "Granite", "Harbor", "Horizon", "Iron", "Jade", "Keystone", "Liberty", "Maple", "Meridian",
+            "North", "Oak", "Pacific", "Pinnacle", "Quartz", "Sterling", "Titan", "Union", "Vertex", "Summit", "Zenith"};
+    private static final String[] SECOND = {"Steel", "Foods", "Logistics", "Energy", "Textiles", "Pharma", "Motors",
+            "Chemicals", "Cement", "Paper", "Glass", "Agro", "Shipping", "Mining", "Software", "Retail", "North"};
+    private static final String[] SUFFIX = {"Ltd", "Limited", "Holdings", "Industries", "Group", "Works", "Corp"};
+
+    @Param({"10000", "100000"})
+    private int loans;
+
+    private LoanService service;
+
+    @Setup
+    public void setUp() {
+        InMemoryLoanRepository store = new InMemoryLoanRepository();
+        service = new LoanService(store, new PricingEngine(new PricingProperties()),
+                new LoanMetrics(new SimpleMeterRegistry()),
+                new PortfolioService(new InMemoryPortfolioSummaryRepository(), store,
+                        TransactionOperations.withoutTransaction()),
+                new LoanAuditService(new InMemoryLoanActionRepository(50)),
+                TransactionOperations.withoutTransaction());
+        Random random = new Random(42);
+        Instant created = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < loans; i++) {
+            Loan loan = new Loan();
+            loan.setClientName(FIRST[random.nextInt(FIRST.length)] + " " + SECOND[random.nextInt(SECOND.length)]
+                    + " " + SUFFIX[random.nextInt(SUFFIX.length)]);
+            loan.setLoanType(LoanType.TERM_LOAN);
+            loan.setRequestedAmount(1_000_000.0);
+            loan.setStatus(LoanStatus.DRAFT);
+            loan.setCreatedAt(created.plusSeconds(i));
+            LoanSearchKeys.stamp(loan);
+            store.insert(loan);
+        }
+    }
+
+    @Benchmark
+    public Slice<LoanSummary> commonPrefix() {
+        return service.searchLoans("a", PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Slice<LoanSummary> twoWords() {
+        return service.searchLoans("north ste", PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Slice<LoanSummary> deepPage() {
+        return service.searchLoans("steel", PageRequest.of(49, 20));
+    }
+
+    @Benchmark
+    public Slice<LoanSummary> rare() {
+        return service.searchLoans("nonexistent client", PageRequest.of(0, 20));
+    }
+}
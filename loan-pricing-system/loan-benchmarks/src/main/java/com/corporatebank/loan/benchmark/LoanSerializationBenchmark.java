@@ -0,0 +1,111 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response serialization of a single {@link Loan} (GET /api/loans/{id}), of a default 20-loan {@code Page<Loan>}
+ * (GET /api/loans, rendered directly as the app does) and of the first 20-entry page of its audit trail
+ * (GET /api/loans/{id}/actions), as the action history grows. Loans only carry their last action, so only the
+ * history page should grow, and only up to its page size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanSerializationBenchmark {
+
+    private static final String[] ACTIONS = {"CREATED", "UPDATED", "SUBMITTED", "REPRICED", "APPROVED"};
+
+    // a fresh loan, a typical one after review, and one with a long repricing history
+    @Param({"1", "8", "50"})
+    private int actions;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private Loan loan;
+    private Page<Loan> page;
+    private Page<LoanAction> history;
+
+    @Setup
+    public void setUp() {
+        loan = loan(0, actions);
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            loans.add(loan(i, actions));
+        }
+        page = new PageImpl<>(loans, PageRequest.of(0, 20, Sort.by("createdAt").descending()), 4_000);
+        List<LoanAction> newestFirst = new ArrayList<>();
+        for (int a = actions - 1; a >= 0 && newestFirst.size() < 20; a--) {
+            newestFirst.add(action(a, loan.getCreatedAt()));
+        }
+        history = new PageImpl<>(newestFirst, PageRequest.of(0, 20), actions);
+    }
+
+    @Benchmark
+    public byte[] loan() {
+        return objectMapper.writeValueAsBytes(loan);
+    }
+
+    @Benchmark
+    public byte[] page() {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] history() {
+        return objectMapper.writeValueAsBytes(history);
+    }
+
+    private static Loan loan(int i, int actions) {
+        Instant created = Instant.parse("2024-03-01T09:00:00Z").plusSeconds(i * 3600L);
+        Loan loan = new Loan();
+        loan.setId(String.format("65f1c0a2b3c4d5e6f7a8%04x", i));
+        loan.setClientName("Client " + i + " Holdings Ltd");
+        loan.setLoanType(LoanType.values()[i % LoanType.values().length]);
+        loan.setRequestedAmount(1_000_000.0 + i * 25_000);
+        loan.setProposedInterestRate(9.25);
+        loan.setTenureMonths(60);
+        loan.setStatus(LoanStatus.SUBMITTED);
+        loan.setIndicativeRate(8.65);
+        loan.setPricedAt(created.plusSeconds(60));
+        loan.setCreatedBy("user@bank.com");
+        loan.setCreatedAt(created);
+        Loan.Financials financials = new Loan.Financials();
+        financials.setRevenue(25_000_000.0);
+        financials.setEbitda(3_100_000.0);
+        financials.setRating("B");
+        loan.setFinancials(financials);
+        loan.setLastAction(action(actions - 1, created));
+        return loan;
+    }
+
+    private static LoanAction action(int a, Instant created) {
+        return new LoanAction("user@bank.com", ACTIONS[Math.min(a, ACTIONS.length - 1)], created.plusSeconds(a * 60L));
+    }
+}
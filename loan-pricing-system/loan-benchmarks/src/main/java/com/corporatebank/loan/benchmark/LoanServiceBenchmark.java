@@ -0,0 +1,89 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.repository.inmemory.InMemoryLoanActionRepository;
+import com.corporatebank.loan.repository.inmemory.InMemoryLoanRepository;
+import com.corporatebank.loan.repository.inmemory.InMemoryPortfolioSummaryRepository;
+import com.corporatebank.loan.service.LoanAuditService;
+import com.corporatebank.loan.service.LoanMetrics;
+import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
+import com.corporatebank.loan.service.PricingEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoanService} lifecycle transitions over an {@link InMemoryLoanRepository}: update building, status checks,
+ * pricing on submit, action history and portfolio counters, without a database. {@code lifecycle} walks one loan
+ * from creation to approval and then drops it, so the store stays the same size across iterations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    private static final String USER = "user@bank.com";
+    private static final String ADMIN = "admin@bank.com";
+
+    private InMemoryLoanRepository store;
+    private LoanService service;
+    private String existingId;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryLoanRepository();
+        service = new LoanService(store, new PricingEngine(new PricingProperties()),
+                new LoanMetrics(new SimpleMeterRegistry()),
+                new PortfolioService(new InMemoryPortfolioSummaryRepository(), store,
+                        TransactionOperations.withoutTransaction()),
+                new LoanAuditService(new InMemoryLoanActionRepository(50)),
+                TransactionOperations.withoutTransaction());
+        existingId = service.createLoan(newLoan(), USER).getId();
+    }
+
+    @Benchmark
+    public Loan getLoan() {
+        return service.getLoan(existingId);
+    }
+
+    @Benchmark
+    public Loan lifecycle() {
+        String id = service.createLoan(newLoan(), USER).getId();
+        service.updateLoan(id, newLoan(), USER);
+        service.submit(id, USER);
+        Loan approved = service.approve(id, ADMIN, 900_000.0, null, true);
+        store.deleteById(id);
+        return approved;
+    }
+
+    private static Loan newLoan() {
+        Loan loan = new Loan();
+        loan.setClientName("Acme Manufacturing");
+        loan.setLoanType(LoanType.TERM_LOAN);
+        loan.setRequestedAmount(1_000_000.0);
+        loan.setTenureMonths(36);
+        Loan.Financials financials = new Loan.Financials();
+        financials.setRevenue(5_000_000.0);
+        financials.setEbitda(600_000.0);
+        financials.setRating("A");
+        loan.setFinancials(financials);
+        return loan;
+    }
+}
@@ -0,0 +1,74 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.PricingQuote;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.service.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote path of {@link PricingEngine} over a rotating set of varied loans. Run with {@code -prof gc} to confirm
+ * {@code rate} allocates 0 B/op; {@code quote} shows the cost of building the breakdown object.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+    private static final String[] RATINGS = {"A", "A+", "a-", "B", "B-", "b+", "C", "C+", "D", "NR", null};
+
+    private PricingEngine engine;
+    private Loan[] loans;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        engine = new PricingEngine(new PricingProperties());
+        SplittableRandom random = new SplittableRandom(42);
+        loans = new Loan[1024];
+        for (int i = 0; i < loans.length; i++) {
+            Loan loan = new Loan();
+            loan.setLoanType(LoanType.values()[random.nextInt(LoanType.values().length)]);
+            loan.setTenureMonths(random.nextInt(6, 300));
+            loan.setRequestedAmount((double) random.nextInt(100_000, 50_000_000));
+            Loan.Financials financials = new Loan.Financials();
+            financials.setRevenue((double) random.nextInt(1_000_000, 500_000_000));
+            financials.setEbitda(financials.getRevenue() * (random.nextDouble() * 0.4 - 0.05));
+            financials.setRating(RATINGS[random.nextInt(RATINGS.length)]);
+            loan.setFinancials(financials);
+            loans[i] = loan;
+        }
+    }
+
+    @Benchmark
+    public double rate() {
+        return engine.rate(nextLoan());
+    }
+
+    @Benchmark
+    public PricingQuote quote() {
+        return engine.quote(nextLoan());
+    }
+
+    private Loan nextLoan() {
+        Loan loan = loans[next];
+        next = (next + 1) & (loans.length - 1);
+        return loan;
+    }
+}
@@ -0,0 +1,255 @@
+package com.corporatebank.loan.benchmark;
+
+import com.corporatebank.loan.LoanApplication;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP load harness comparing the platform-thread and virtual-thread request models. For each mode it boots the
+ * application on a random port against an in-process MongoDB stand-in, logs in, creates a loan and then has
+ * {@code --concurrency} closed-loop clients fetch it ({@code GET /api/loans/{id}}) for {@code --duration}
+ * seconds after a {@code --warmup}. The stand-in answers in microseconds, so every Mongo command is delayed by
+ * {@code --mongo-latency-ms} on the calling thread to model a real network round trip; that blocking is what
+ * exhausts Tomcat's 200 platform threads. The Mongo pool is raised to the client count in both modes so it is
+ * not the bottleneck.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.corporatebank.loan.benchmark.ThreadModelBenchmark \
+ *     --concurrency=1000 --warmup=10 --duration=30 --mongo-latency-ms=10
+ * </pre>
+ *
+ * With {@code --store=inmemory} the application runs on the {@code inmemory} profile's repositories instead, so
+ * there is no Mongo latency at all and the run measures the web, security and serialization layers alone.
+ *
+ * The virtual-thread run needs Java 21+ and is skipped on older runtimes. Latencies are measured per request by
+ * closed-loop clients, so under saturation p99 understates what an open-loop arrival rate would see.
+ */
+public final class ThreadModelBenchmark {
+
+    private static final ObjectMapper JSON = JsonMapper.builder().build();
+
+    private ThreadModelBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        long mongoLatencyMs = Long.parseLong(options.getOrDefault("mongo-latency-ms", "10"));
+        boolean inMemory = "inmemory".equals(options.getOrDefault("store", "mongo"));
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongo.bind();
+        List<Result> results = new ArrayList<>();
+        try {
+            for (boolean virtual : new boolean[] {false, true}) {
+                if (virtual && Runtime.version().feature() < 21) {
+                    System.out.println("Skipping virtual threads: requires Java 21+, running " + Runtime.version());
+                    continue;
+                }
+                String uri = "mongodb://" + address.getHostString() + ":" + address.getPort()
+                        + "/bench_" + (virtual ? "virtual" : "platform") + "?maxPoolSize=" + concurrency;
+                results.add(run(virtual, uri, inMemory, mongoLatencyMs, concurrency, warmupSeconds, durationSeconds));
+            }
+        } finally {
+            mongo.shutdownNow();
+        }
+
+        System.out.printf("%nconcurrency=%d duration=%ds store=%s mongo-latency=%dms java=%s%n",
+                concurrency, durationSeconds, inMemory ? "inmemory" : "mongo", mongoLatencyMs, Runtime.version());
+        System.out.printf("%-10s %12s %12s %10s %10s %10s %8s%n",
+                "mode", "requests", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (Result r : results) {
+            System.out.printf("%-10s %12d %12.0f %10.2f %10.2f %10.2f %8d%n",
+                    r.mode, r.requests, r.throughput, r.p50Ms, r.p99Ms, r.maxMs, r.errors);
+        }
+    }
+
+    private static Result run(boolean virtual, String mongoUri, boolean inMemory, long mongoLatencyMs,
+                              int concurrency, int warmupSeconds, int durationSeconds) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        System.out.println("Starting application with " + mode + " threads");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LoanApplication.class)
+                .initializers(ctx -> ((GenericApplicationContext) ctx).registerBean(
+                        MongoClientSettingsBuilderCustomizer.class,
+                        () -> settings -> settings.addCommandListener(new NetworkLatency(mongoLatencyMs))))
+                // passed as arguments so they override application.properties
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.mongodb.uri=" + mongoUri,
+                        "--spring.profiles.active=" + (inMemory ? "inmemory" : "default"),
+                        "--spring.threads.virtual.enabled=" + virtual);
+        try {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String token = login(client, base);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/api/loans/" + createLoan(client, base, token)))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+
+            load(client, request, concurrency, warmupSeconds);
+            return summarize(mode, load(client, request, concurrency, durationSeconds), durationSeconds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static List<Recorder> load(HttpClient client, HttpRequest request, int concurrency, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Recorder> recorders = new ArrayList<>(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                recorder.record(System.nanoTime() - start);
+                            } else {
+                                recorder.errors++;
+                            }
+                        } catch (Exception e) {
+                            recorder.errors++;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+        return recorders;
+    }
+
+    private static Result summarize(String mode, List<Recorder> recorders, int seconds) {
+        int total = recorders.stream().mapToInt(r -> r.count).sum();
+        long errors = recorders.stream().mapToLong(r -> r.errors).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (Recorder r : recorders) {
+            System.arraycopy(r.latencies, 0, all, offset, r.count);
+            offset += r.count;
+        }
+        Arrays.sort(all);
+        return new Result(mode, total, (double) total / seconds,
+                percentileMs(all, 0.50), percentileMs(all, 0.99), total == 0 ? 0 : all[total - 1] / 1e6, errors);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String login(HttpClient client, String base) throws Exception {
+        String credentials = "{\"email\":\"bench@bank.com\",\"password\":\"bench-password\"}";
+        send(client, HttpRequest.newBuilder(URI.create(base + "/api/auth/register?role=USER"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)).build());
+        String body = send(client, HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials)).build());
+        return JSON.readTree(body).get("token").asString();
+    }
+
+    private static String createLoan(HttpClient client, String base, String token) throws Exception {
+        String loan = "{\"clientName\":\"Bench Corp\",\"loanType\":\"TERM_LOAN\",\"requestedAmount\":1000000,"
+                + "\"tenureMonths\":36,\"financials\":{\"revenue\":5000000,\"ebitda\":500000,\"rating\":\"A\"}}";
+        String body = send(client, HttpRequest.newBuilder(URI.create(base + "/api/loans"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .POST(HttpRequest.BodyPublishers.ofString(loan)).build());
+        return JSON.readTree(body).get("id").asString();
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(request.uri() + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Blocks the thread issuing each command, as waiting on a remote server would. Called with the pooled
+     * connection checked out, so it also holds the connection for that long.
+     */
+    private record NetworkLatency(long millis) implements CommandListener {
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (millis > 0) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // written by one load thread, read after the latch
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+
+    private record Result(String mode, int requests, double throughput, double p50Ms, double p99Ms, double maxMs,
+                          long errors) {
+    }
+}
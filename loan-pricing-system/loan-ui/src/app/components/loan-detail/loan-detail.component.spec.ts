@@ -33,7 +33,8 @@ describe('LoanDetailComponent', () => {
   };
 
   beforeEach(async () => {
-    const loanServiceSpy = jasmine.createSpyObj('LoanService', ['getLoanById', 'submitLoan', 'approveLoan', 'rejectLoan']);
+    const loanServiceSpy = jasmine.createSpyObj('LoanService', ['getLoanById', 'getLoanActions', 'submitLoan', 'approveLoan', 'rejectLoan']);
+    loanServiceSpy.getLoanActions.and.returnValue(of({ content: [], last: true }));
     const authServiceSpy = jasmine.createSpyObj('AuthService', ['isAdmin']);
     const routerSpy = jasmine.createSpyObj('Router', ['navigate']);
 
@@ -78,6 +79,21 @@ describe('LoanDetailComponent', () => {
     expect(component.loading).toBeFalse();
   });
 
+  it('should load the audit trail page by page', () => {
+    loanService.getLoanById.and.returnValue(of(mockLoan));
+    loanService.getLoanActions.and.returnValues(
+      of({ content: [{ by: 'admin@bank.com', action: 'APPROVED', timestamp: '2024-01-02' }], last: false }),
+      of({ content: [{ by: 'user@bank.com', action: 'CREATED', timestamp: '2024-01-01' }], last: true })
+    );
+
+    component.ngOnInit();
+    component.loadMoreActions();
+
+    expect(loanService.getLoanActions).toHaveBeenCalledWith('123', 1);
+    expect(component.actions.map(a => a.action)).toEqual(['APPROVED', 'CREATED']);
+    expect(component.hasMoreActions).toBeFalse();
+  });
+
   it('should handle load loan error', () => {
     loanService.getLoanById.and.returnValue(throwError(() => ({ error: 'Error' })));
 
@@ -4,7 +4,7 @@ import { CommonModule } from '@angular/common';
 import { FormsModule, ReactiveFormsModule, FormBuilder, FormGroup, Validators } from '@angular/forms';
 import { LoanService } from '../../services/loan.service';
 import { AuthService } from '../../services/auth.service';
-import { Loan } from '../../models/loan.model';
+import { AuditAction, Loan } from '../../models/loan.model';
 
 @Component({
   selector: 'app-loan-detail',
@@ -15,6 +15,9 @@ import { Loan } from '../../models/loan.model';
 })
 export class LoanDetailComponent implements OnInit {
   loan: Loan | null = null;
+  actions: AuditAction[] = [];
+  actionsPage = 0;
+  hasMoreActions = false;
   loading = false;
   error: string | null = null;
   isAdmin = false;
@@ -54,6 +57,7 @@ export class LoanDetailComponent implements OnInit {
       next: (res: Loan) => {
         this.loan = res;
         this.loading = false;
+        this.loadActions(id, 0);
       },
       error: (err: any) => {
         this.loading = false;
@@ -63,6 +67,25 @@ export class LoanDetailComponent implements OnInit {
     });
   }
 
+  loadActions(id: string, page: number): void {
+    this.loanService.getLoanActions(id, page).subscribe({
+      next: (res: any) => {
+        const content: AuditAction[] = res?.content || [];
+        this.actions = page === 0 ? content : [...this.actions, ...content];
+        this.actionsPage = page;
+        this.hasMoreActions = res?.page ? page + 1 < res.page.totalPages : !res?.last;
+      },
+      error: (err: any) => console.error(err)
+    });
+  }
+
+  loadMoreActions(): void {
+    const loanId = this.loan?.id || this.loan?._id;
+    if (loanId) {
+      this.loadActions(loanId, this.actionsPage + 1);
+    }
+  }
+
   submitLoan(): void {
     if (!this.loan) return;
     
@@ -100,13 +100,15 @@ export class LoanEditComponent implements OnInit {
       }
     };
 
-    this.loanService.updateLoan(this.loanId, loanData).subscribe({
+    this.loanService.updateLoan(this.loanId, loanData, this.loan?.version).subscribe({
       next: () => {
         this.router.navigate(['/loans', this.loanId]);
       },
       error: (err: any) => {
         this.loading = false;
-        this.error = err?.error?.message || 'Failed to update loan';
+        this.error = err?.status === 412
+          ? 'This loan was changed by someone else. Reload it to see the latest version before editing.'
+          : err?.error?.message || 'Failed to update loan';
         console.error(err);
       }
     });
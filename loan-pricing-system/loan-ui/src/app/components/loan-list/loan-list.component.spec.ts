@@ -5,7 +5,8 @@ import { LoanListComponent } from './loan-list.component';
 import { LoanService } from '../../services/loan.service';
 import { AuthService } from '../../services/auth.service';
 import { Loan } from '../../models/loan.model';
-import { of, throwError } from 'rxjs';
+import { of, Subject, throwError } from 'rxjs';
+import { LoanEvent } from '../../models/loan.model';
 
 describe('LoanListComponent', () => {
   let component: LoanListComponent;
@@ -40,7 +41,8 @@ describe('LoanListComponent', () => {
   ];
 
   beforeEach(async () => {
-    const loanServiceSpy = jasmine.createSpyObj('LoanService', ['getLoans', 'deleteLoan', 'submitLoan']);
+    const loanServiceSpy = jasmine.createSpyObj('LoanService', ['getLoans', 'searchLoans', 'deleteLoan', 'submitLoan', 'loanEvents']);
+    loanServiceSpy.loanEvents.and.returnValue(of());
     const authServiceSpy = jasmine.createSpyObj('AuthService', ['isAdmin', 'getEmail']);
     const routerSpy = jasmine.createSpyObj('Router', ['navigate']);
 
@@ -112,6 +114,69 @@ describe('LoanListComponent', () => {
     expect(loanService.getLoans).toHaveBeenCalled();
   });
 
+  it('should ask the backend for the user\'s own loans in the selected status', () => {
+    component.isAdmin = false;
+    authService.getEmail.and.returnValue('user@bank.com');
+    loanService.getLoans.and.returnValue(of({ content: [] }));
+
+    component.statusFilter = 'APPROVED';
+    component.onStatusFilterChange();
+
+    expect(loanService.getLoans).toHaveBeenCalledWith(0, 1000, 'APPROVED', 'createdAt', 'user@bank.com');
+  });
+
+  it('should list search matches instead of all loans', () => {
+    component.isAdmin = true;
+    loanService.searchLoans.and.returnValue(of({ content: [mockLoans[0]] }));
+
+    component.searchQuery = ' acme ';
+    component.onSearch();
+
+    expect(component.page).toBe(0);
+    expect(loanService.searchLoans).toHaveBeenCalledWith('acme', 0, 1000);
+    expect(loanService.getLoans).not.toHaveBeenCalled();
+    expect(component.loans.length).toBe(1);
+  });
+
+  it('should patch a listed loan from a change event', () => {
+    authService.isAdmin.and.returnValue(true);
+    const events = new Subject<LoanEvent | null>();
+    loanService.loanEvents.and.returnValue(events);
+    loanService.getLoans.and.returnValue(of({ content: mockLoans.map(loan => ({ ...loan })) }));
+    component.ngOnInit();
+
+    events.next({ ...mockLoans[1], operation: 'update', at: '2024-01-01T00:00:00Z', loanId: '2', status: 'APPROVED', sanctionedAmount: 1500000 });
+
+    expect(component.loans[1].status).toBe('APPROVED');
+    expect(component.loans[1].sanctionedAmount).toBe(1500000);
+    expect(loanService.getLoans).toHaveBeenCalledTimes(1);
+  });
+
+  it('should reload when a loan is created or the stream resets', () => {
+    authService.isAdmin.and.returnValue(true);
+    const events = new Subject<LoanEvent | null>();
+    loanService.loanEvents.and.returnValue(events);
+    loanService.getLoans.and.returnValue(of({ content: mockLoans }));
+    component.ngOnInit();
+
+    events.next({ ...mockLoans[0], operation: 'insert', at: '2024-01-01T00:00:00Z', loanId: '3' });
+    events.next(null);
+
+    expect(loanService.getLoans).toHaveBeenCalledTimes(3);
+  });
+
+  it('should stop listening on destroy', () => {
+    authService.isAdmin.and.returnValue(true);
+    const events = new Subject<LoanEvent | null>();
+    loanService.loanEvents.and.returnValue(events);
+    loanService.getLoans.and.returnValue(of({ content: mockLoans }));
+    component.ngOnInit();
+
+    component.ngOnDestroy();
+
+    expect(events.observed).toBeFalse();
+  });
+
   it('should view loan details', () => {
     component.viewLoan(mockLoans[0]);
     expect(router.navigate).toHaveBeenCalledWith(['/loans', '1']);
@@ -1,10 +1,11 @@
-import { Component, OnInit } from '@angular/core';
+import { Component, OnDestroy, OnInit } from '@angular/core';
 import { Router } from '@angular/router';
 import { CommonModule } from '@angular/common';
 import { FormsModule } from '@angular/forms';
 import { LoanService } from '../../services/loan.service';
 import { AuthService } from '../../services/auth.service';
-import { Loan } from '../../models/loan.model';
+import { Subscription } from 'rxjs';
+import { Loan, LoanEvent } from '../../models/loan.model';
 
 @Component({
   selector: 'app-loan-list',
@@ -13,15 +14,17 @@ import { Loan } from '../../models/loan.model';
   templateUrl: './loan-list.component.html',
   styleUrl: './loan-list.component.scss'
 })
-export class LoanListComponent implements OnInit {
+export class LoanListComponent implements OnInit, OnDestroy {
   loans: Loan[] = [];
   loading = false;
   error: string | null = null;
   statusFilter: string = '';
+  searchQuery: string = '';
   page = 0;
   size = 10;
   totalElements = 0;
   isAdmin = false;
+  private events?: Subscription;
 
   statuses = ['DRAFT', 'SUBMITTED', 'UNDER_REVIEW', 'APPROVED', 'REJECTED'];
 
@@ -35,14 +38,46 @@ export class LoanListComponent implements OnInit {
 
   ngOnInit(): void {
     this.loadLoans();
+    this.events = this.loanService.loanEvents().subscribe(event => this.onLoanEvent(event));
+  }
+
+  ngOnDestroy(): void {
+    this.events?.unsubscribe();
+  }
+
+  // Rows on this page are patched in place; anything that changes membership reloads the page
+  onLoanEvent(event: LoanEvent | null): void {
+    const row = event ? this.loans.find(loan => (loan.id || loan._id) === event.loanId) : undefined;
+    if (!event || !row || event.deleted || (this.statusFilter && event.status !== this.statusFilter)) {
+      if (!event || event.operation === 'insert' || row) {
+        this.loadLoans();
+      }
+      return;
+    }
+    Object.assign(row, {
+      clientName: event.clientName,
+      loanType: event.loanType,
+      requestedAmount: event.requestedAmount,
+      status: event.status,
+      sanctionedAmount: event.sanctionedAmount,
+      approvedInterestRate: event.approvedInterestRate,
+      approvedBy: event.approvedBy,
+      lastAction: event.lastAction
+    });
   }
 
   loadLoans(): void {
     this.loading = true;
     this.error = null;
     
-    // Get all loans (backend doesn't filter by user, so we get all and filter on frontend)
-    this.loanService.getLoans(0, 1000).subscribe({
+    // Status and (for users) owner are filtered by the backend; a search query swaps in the server's ranked
+    // matches, which it caps at 1000, and is narrowed the same way below
+    const query = this.searchQuery.trim();
+    const createdBy = this.isAdmin ? undefined : this.auth.getEmail() || undefined;
+    const loans$ = query
+      ? this.loanService.searchLoans(query, 0, 1000)
+      : this.loanService.getLoans(0, 1000, this.statusFilter || undefined, 'createdAt', createdBy);
+    loans$.subscribe({
       next: (res: any) => {
         let allLoans = Array.isArray(res) ? res : (res?.content || []);
         
@@ -72,6 +107,11 @@ export class LoanListComponent implements OnInit {
     });
   }
 
+  onSearch(): void {
+    this.page = 0;
+    this.loadLoans();
+  }
+
   onStatusFilterChange(): void {
     this.page = 0;
     this.loadLoans();
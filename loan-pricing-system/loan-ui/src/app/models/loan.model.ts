@@ -1,6 +1,7 @@
 export interface Loan {
   id?: string;
   _id?: string; // For compatibility
+  version?: number; // the loan's ETag; send it back in If-Match when editing
   clientName: string;
   loanType: 'TERM_LOAN' | 'WORKING_CAPITAL' | 'OVERDRAFT';
   requestedAmount: number;
@@ -13,11 +14,28 @@ export interface Loan {
   createdBy?: string;
   approvedBy?: string;
   approvedAt?: Date | string;
-  actions?: AuditAction[];
+  lastAction?: AuditAction;
   createdAt?: Date | string;
   deleted?: boolean;
 }
 
+// A change pushed by GET /api/loans/events
+export interface LoanEvent {
+  operation: 'insert' | 'update' | 'replace';
+  at: Date | string;
+  loanId: string;
+  clientName: string;
+  loanType: Loan['loanType'];
+  requestedAmount: number;
+  status: Loan['status'];
+  sanctionedAmount?: number;
+  approvedInterestRate?: number;
+  approvedBy?: string;
+  createdBy?: string;
+  deleted?: boolean;
+  lastAction?: AuditAction;
+}
+
 export interface Financials {
   revenue: number;
   ebitda: number;
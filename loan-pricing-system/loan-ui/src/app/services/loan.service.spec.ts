@@ -60,6 +60,26 @@ describe('LoanService', () => {
     req.flush(mockResponse);
   });
 
+  it('should get loans created by a user', () => {
+    service.getLoans(0, 10, undefined, 'createdAt', 'user@bank.com').subscribe();
+
+    const req = httpMock.expectOne(req => req.url === 'http://localhost:9090/api/loans');
+    expect(req.request.params.get('createdBy')).toBe('user@bank.com');
+    expect(req.request.params.has('status')).toBeFalse();
+    req.flush({ content: [] });
+  });
+
+  it('should search loans by client name', () => {
+    service.searchLoans('acme ste', 0, 20).subscribe(response => {
+      expect(response.content.length).toBe(1);
+    });
+
+    const req = httpMock.expectOne(req => req.url === 'http://localhost:9090/api/loans/search');
+    expect(req.request.params.get('q')).toBe('acme ste');
+    expect(req.request.params.get('size')).toBe('20');
+    req.flush({ content: [{ id: '1', clientName: 'Acme Steel' }], last: true });
+  });
+
   it('should get loan by id', () => {
     const mockLoan: Loan = {
       id: '123',
@@ -86,6 +106,37 @@ describe('LoanService', () => {
     req.flush(mockLoan);
   });
 
+  it('should get a page of loan actions', () => {
+    service.getLoanActions('123', 1).subscribe(page => {
+      expect(page.content.length).toBe(1);
+    });
+
+    const req = httpMock.expectOne('http://localhost:9090/api/loans/123/actions?page=1&size=20');
+    expect(req.request.method).toBe('GET');
+    req.flush({ content: [{ by: 'user@bank.com', action: 'CREATED', timestamp: '2024-01-01' }] });
+  });
+
+  it('should stream loan events with the bearer token', (done) => {
+    localStorage.setItem('token', 'jwt-token');
+    const body = ': heartbeat\n\nid: t1\nevent: loan\ndata: {"loanId":"1","status":"APPROVED"}\n\nevent: reset\ndata: \n\n';
+    const fetchSpy = spyOn(window, 'fetch').and.returnValue(Promise.resolve(new Response(body)));
+    const received: any[] = [];
+
+    const subscription = service.loanEvents().subscribe(event => {
+      received.push(event);
+      if (received.length === 2) {
+        subscription.unsubscribe();
+        expect(received[0].loanId).toBe('1');
+        expect(received[0].status).toBe('APPROVED');
+        expect(received[1]).toBeNull();
+        const init = fetchSpy.calls.mostRecent().args[1] as RequestInit;
+        expect((init.headers as Record<string, string>)['Authorization']).toBe('Bearer jwt-token');
+        localStorage.removeItem('token');
+        done();
+      }
+    });
+  });
+
   it('should create a loan', () => {
     const loanData: Partial<Loan> = {
       clientName: 'New Corp',
@@ -135,9 +186,18 @@ describe('LoanService', () => {
 
     const req = httpMock.expectOne('http://localhost:9090/api/loans/123');
     expect(req.request.method).toBe('PUT');
+    expect(req.request.headers.has('If-Match')).toBeFalse();
     req.flush(mockLoan);
   });
 
+  it('should send the loaded version as If-Match', () => {
+    service.updateLoan('123', { clientName: 'Updated Corp' }, 4).subscribe();
+
+    const req = httpMock.expectOne('http://localhost:9090/api/loans/123');
+    expect(req.request.headers.get('If-Match')).toBe('"4"');
+    req.flush({});
+  });
+
   it('should submit a loan', () => {
     const mockLoan: Loan = {
       id: '123',
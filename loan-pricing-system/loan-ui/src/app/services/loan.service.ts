@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Loan } from '../models/loan.model';
+import { AuditAction, Loan, LoanEvent } from '../models/loan.model';
 
 @Injectable({ providedIn: 'root' })
 export class LoanService {
@@ -11,7 +11,7 @@ export class LoanService {
   constructor(private http: HttpClient) {}
 
   // Get all loans with pagination and filters
-  getLoans(page: number = 0, size: number = 10, status?: string, sortBy: string = 'createdAt'): Observable<any> {
+  getLoans(page: number = 0, size: number = 10, status?: string, sortBy: string = 'createdAt', createdBy?: string): Observable<any> {
     let params = new HttpParams()
       .set('page', page.toString())
       .set('size', size.toString())
@@ -20,23 +20,124 @@ export class LoanService {
     if (status) {
       params = params.set('status', status);
     }
+    if (createdBy) {
+      params = params.set('createdBy', createdBy);
+    }
     
     return this.http.get<any>(this.apiUrl, { params });
   }
 
+  // Client-name search: whole-name prefix matches first, then names where every word starts a word
+  searchLoans(q: string, page: number = 0, size: number = 20): Observable<any> {
+    const params = new HttpParams()
+      .set('q', q)
+      .set('page', page.toString())
+      .set('size', size.toString());
+    return this.http.get<any>(`${this.apiUrl}/search`, { params });
+  }
+
   // Get single loan by ID
   getLoanById(id: string): Observable<Loan> {
     return this.http.get<Loan>(`${this.apiUrl}/${id}`);
   }
 
+  // Audit trail of a loan, newest first
+  getLoanActions(id: string, page: number = 0, size: number = 20): Observable<any> {
+    const params = new HttpParams()
+      .set('page', page.toString())
+      .set('size', size.toString());
+    return this.http.get<any>(`${this.apiUrl}/${id}/actions`, { params });
+  }
+
+  // Live loan changes; emits null when the server asks for a full reload.
+  // EventSource cannot send the bearer token, so the stream is read with fetch.
+  loanEvents(): Observable<LoanEvent | null> {
+    return new Observable<LoanEvent | null>(subscriber => {
+      const controller = new AbortController();
+      let lastEventId: string | null = null;
+      let retry: any;
+
+      const connect = async () => {
+        try {
+          const headers: Record<string, string> = { Accept: 'text/event-stream' };
+          const token = localStorage.getItem('token');
+          if (token) {
+            headers['Authorization'] = `Bearer ${token}`;
+          }
+          if (lastEventId) {
+            headers['Last-Event-ID'] = lastEventId;
+          }
+          const response = await fetch(`${this.apiUrl}/events`, { headers, signal: controller.signal });
+          if (!response.ok || !response.body) {
+            throw new Error(`Loan events failed: ${response.status}`);
+          }
+          const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+          let buffer = '';
+          while (true) {
+            const { value, done } = await reader.read();
+            if (done) {
+              break;
+            }
+            buffer += value;
+            let end: number;
+            while ((end = buffer.indexOf('\n\n')) >= 0) {
+              const message = this.parseEvent(buffer.substring(0, end));
+              buffer = buffer.substring(end + 2);
+              if (message.id) {
+                lastEventId = message.id;
+              }
+              if (message.event === 'loan' && message.data) {
+                subscriber.next(JSON.parse(message.data));
+              } else if (message.event === 'reset') {
+                subscriber.next(null);
+              }
+            }
+          }
+        } catch (err) {
+          if (controller.signal.aborted) {
+            return;
+          }
+          console.error(err);
+        }
+        // the server closes idle streams; pick up where we left off
+        retry = setTimeout(connect, 3000);
+      };
+
+      connect();
+      return () => {
+        clearTimeout(retry);
+        controller.abort();
+      };
+    });
+  }
+
+  private parseEvent(block: string): { id?: string; event?: string; data?: string } {
+    const message: { id?: string; event?: string; data?: string } = {};
+    for (const line of block.split('\n')) {
+      const colon = line.indexOf(':');
+      if (colon <= 0) {
+        continue; // blank line or heartbeat comment
+      }
+      const field = line.substring(0, colon);
+      const value = line.substring(colon + 1).replace(/^ /, '');
+      if (field === 'data') {
+        message.data = message.data ? `${message.data}\n${value}` : value;
+      } else if (field === 'id' || field === 'event') {
+        message[field] = value;
+      }
+    }
+    return message;
+  }
+
   // Create new loan (USER)
   createLoan(data: Partial<Loan>): Observable<Loan> {
     return this.http.post<Loan>(this.apiUrl, data);
   }
 
-  // Update loan (USER - DRAFT only, ADMIN - always)
-  updateLoan(id: string, data: Partial<Loan>): Observable<Loan> {
-    return this.http.put<Loan>(`${this.apiUrl}/${id}`, data);
+  // Update loan (USER - DRAFT only, ADMIN - always); with a version the server answers 412 if the loan changed since
+  updateLoan(id: string, data: Partial<Loan>, version?: number): Observable<Loan> {
+    const headers: Record<string, string> = version != null ? { 'If-Match': `"${version}"` } : {};
+    return this.http.put<Loan>(`${this.apiUrl}/${id}`, data, { headers });
   }
 
   // Submit loan for approval (USER)
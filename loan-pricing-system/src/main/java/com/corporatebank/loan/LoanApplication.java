@@ -2,8 +2,10 @@ package com.corporatebank.loan;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LoanApplication {
     public static void main(String[] args) {
         SpringApplication.run(LoanApplication.class, args);
@@ -1,12 +1,14 @@
 package com.corporatebank.loan.config;
 
-import com.corporatebank.loan.repository.UserRepository;
 import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,38 +18,69 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final UserService userService;
+
+    // When false (default) the signed "role" claim is trusted as-is and no user lookup happens.
+    private final boolean userLookup;
+
+    // bearer-token handling time, by whether it ended in an authenticated request
+    private final Timer authenticated;
+    private final Timer rejected;
+
+    public JwtFilter(JwtUtil jwtUtil, UserService userService,
+                     @Value("${auth.user-lookup.enabled:false}") boolean userLookup,
+                     MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.userService = userService;
+        this.userLookup = userLookup;
+        this.authenticated = verificationTimer(meterRegistry, "authenticated");
+        this.rejected = verificationTimer(meterRegistry, "rejected");
+    }
+
+    private static Timer verificationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("jwt.verification")
+                .description("Bearer token verification and role resolution")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String email = null;
-        String jwt = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwt = authHeader.substring(7);
-            email = jwtUtil.extractUsername(jwt);
-        }
-
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwt, email)) {
-                User user = userRepository.findByEmail(email).orElseThrow();
-                
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            Optional<JwtPrincipal> principal = jwtUtil.verify(authHeader.substring(7));
+            String role = principal.map(this::resolveRole).orElse(null);
+            if (role != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        email, null, List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
-                
+                        principal.get().subject(), null, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
+            (role != null ? authenticated : rejected).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private String resolveRole(JwtPrincipal principal) {
+        if (!userLookup) {
+            return principal.role();
+        }
+        return userService.findByEmail(principal.subject())
+                .filter(User::isActive)
+                .map(user -> user.getRole().name())
+                .orElse(null);
+    }
+}
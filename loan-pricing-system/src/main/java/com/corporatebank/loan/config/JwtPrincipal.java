@@ -0,0 +1,9 @@
+package com.corporatebank.loan.config;
+
+import java.time.Instant;
+
+/**
+ * Identity carried by a verified JWT: the subject (user email), its role claim and expiry.
+ */
+public record JwtPrincipal(String subject, String role, Instant expiresAt) {
+}
@@ -0,0 +1,141 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.LoanActionBucket;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the audit trail of loans written before {@link LoanActionBucket} existed out of the loan document: each
+ * embedded {@code actions} array becomes {@code loan.actions.bucket-size} sized buckets, the loan keeps its last
+ * entry as {@code lastAction} (unless a newer action was recorded since) and the array is removed. Legacy buckets
+ * get fixed ids and are only inserted, never replaced, so an interrupted run can simply be repeated. On by default
+ * ({@code loan.actions.migrate}), as the history endpoint only reads buckets; the lookup for loans with an array
+ * cannot use an index, so a run that completes is recorded in {@link MigrationMarkers} and later starts skip it.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+public class LoanActionMigration implements ApplicationRunner {
+
+    static final String MIGRATION = "loan-actions-to-buckets";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int bucketSize;
+
+    public LoanActionMigration(MongoTemplate mongoTemplate,
+                               @Value("${loan.actions.migrate:true}") boolean enabled,
+                               @Value("${loan.actions.bucket-size:50}") int bucketSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.bucketSize = Math.max(1, bucketSize);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (MigrationMarkers.isDone(mongoTemplate, MIGRATION)) {
+                return;
+            }
+            migrate();
+            MigrationMarkers.markDone(mongoTemplate, MIGRATION);
+        } catch (MongoException | DataAccessException e) {
+            // loans not yet migrated keep their embedded array until the next start
+            log.warn("Could not migrate embedded loan actions: {}", e.getMessage());
+        }
+    }
+
+    long migrate() {
+        String buckets = mongoTemplate.getCollectionName(LoanActionBucket.class);
+        long migrated = 0;
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection("loans")
+                .find(Filters.exists("actions"))
+                .projection(Projections.include("actions"))
+                .batchSize(BATCH_SIZE)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == BATCH_SIZE || !cursor.hasNext()) {
+                    write(batch, buckets);
+                    migrated += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (migrated > 0) {
+            log.info("Moved the embedded audit trail of {} loans into {}", migrated, buckets);
+        }
+        return migrated;
+    }
+
+    private void write(List<Document> loans, String buckets) {
+        BulkOperations bucketOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, buckets);
+        BulkOperations loanOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "loans");
+        boolean anyBucket = false;
+        for (Document loan : loans) {
+            String loanId = loan.get("_id").toString();
+            List<Document> actions = loan.getList("actions", Document.class, List.of());
+            // legacy buckets are numbered up to -1, so they come before any bucket appended since
+            int legacyBuckets = (actions.size() + bucketSize - 1) / bucketSize;
+            for (int from = 0, n = 0; from < actions.size(); from += bucketSize, n++) {
+                List<Document> slice = actions.subList(from, Math.min(from + bucketSize, actions.size()));
+                bucketOps.upsert(new Query(Criteria.where("_id").is(legacyBucketId(loanId, n))), new Update()
+                        .setOnInsert("loanId", loanId)
+                        .setOnInsert("sequence", n - legacyBuckets)
+                        .setOnInsert("count", slice.size())
+                        .setOnInsert("firstAt", slice.get(0).get("timestamp"))
+                        .setOnInsert("lastAt", slice.get(slice.size() - 1).get("timestamp"))
+                        .setOnInsert("actions", new ArrayList<>(slice)));
+                anyBucket = true;
+            }
+            if (actions.isEmpty()) {
+                loanOps.updateOne(new Query(Criteria.where("_id").is(loan.get("_id"))), new Update().unset("actions"));
+                continue;
+            }
+            // a transition since the cursor read wrote a newer lastAction; keep it and only drop the array
+            Document last = actions.get(actions.size() - 1);
+            Object legacyAt = last.get("timestamp");
+            Criteria notNewer = legacyAt == null
+                    ? Criteria.where("lastAction").exists(false)
+                    : new Criteria().orOperator(Criteria.where("lastAction").exists(false),
+                            Criteria.where("lastAction.timestamp").lte(legacyAt));
+            loanOps.updateOne(new Query(Criteria.where("_id").is(loan.get("_id")).andOperator(notNewer)),
+                    new Update().set("lastAction", last).unset("actions"));
+            loanOps.updateOne(new Query(Criteria.where("_id").is(loan.get("_id")).and("actions").exists(true)
+                    .norOperator(notNewer)), new Update().unset("actions"));
+        }
+        // buckets first: a loan only loses its array once the buckets holding it are stored
+        if (anyBucket) {
+            bucketOps.execute();
+        }
+        loanOps.execute();
+    }
+
+    static String legacyBucketId(String loanId, int n) {
+        return loanId + ":legacy:" + n;
+    }
+}
@@ -0,0 +1,102 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.LoanSearchKeys;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives loans written before client-name search existed their {@code searchName} and {@code searchKeys}, which
+ * {@code GET /api/loans/search} needs to find them. Each write is conditional on the client name it was derived
+ * from, so a loan edited meanwhile keeps the keys its edit stored, and the version is not bumped. Off by default
+ * ({@code loan.search.backfill}); the lookup for loans without a {@code searchName} cannot use an index, so a run
+ * that completes is recorded in {@link MigrationMarkers} and later starts skip it.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+public class LoanSearchKeyMigration implements ApplicationRunner {
+
+    static final String MIGRATION = "loan-search-keys";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    public LoanSearchKeyMigration(MongoTemplate mongoTemplate,
+                                  @Value("${loan.search.backfill:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (MigrationMarkers.isDone(mongoTemplate, MIGRATION)) {
+                return;
+            }
+            backfill();
+            MigrationMarkers.markDone(mongoTemplate, MIGRATION);
+        } catch (MongoException | DataAccessException e) {
+            // loans without keys stay out of search results until the next start
+            log.warn("Could not backfill loan search keys: {}", e.getMessage());
+        }
+    }
+
+    long backfill() {
+        long stamped = 0;
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection("loans")
+                .find(Filters.exists("searchName", false))
+                .projection(Projections.include("clientName"))
+                .batchSize(BATCH_SIZE)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == BATCH_SIZE || !cursor.hasNext()) {
+                    write(batch);
+                    stamped += batch.size();
+                    batch.clear();
+                }
+            }
+        }
+        if (stamped > 0) {
+            log.info("Stamped search keys on {} loans", stamped);
+        }
+        return stamped;
+    }
+
+    private void write(List<Document> loans) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "loans");
+        for (Document loan : loans) {
+            String clientName = loan.getString("clientName");
+            List<String> words = LoanSearchKeys.words(clientName);
+            ops.updateOne(new Query(Criteria.where("_id").is(loan.get("_id")).and("clientName").is(clientName)),
+                    new Update()
+                            .set("searchName", LoanSearchKeys.name(words))
+                            .set("searchKeys", LoanSearchKeys.keys(words)));
+        }
+        ops.execute();
+    }
+}
@@ -0,0 +1,32 @@
+package com.corporatebank.loan.config;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+/**
+ * One document per completed one-off data migration in the {@code migrations} collection, so a migration whose
+ * lookup has to scan a collection runs that scan until it finishes once and never again.
+ */
+final class MigrationMarkers {
+
+    static final String COLLECTION = "migrations";
+
+    private MigrationMarkers() {
+    }
+
+    static boolean isDone(MongoTemplate mongoTemplate, String migration) {
+        return mongoTemplate.exists(byId(migration), COLLECTION);
+    }
+
+    static void markDone(MongoTemplate mongoTemplate, String migration) {
+        mongoTemplate.upsert(byId(migration), new Update().set("completedAt", Instant.now()), COLLECTION);
+    }
+
+    private static Query byId(String migration) {
+        return new Query(Criteria.where("_id").is(migration));
+    }
+}
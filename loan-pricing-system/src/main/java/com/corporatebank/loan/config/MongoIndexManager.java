@@ -0,0 +1,255 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanActionBucket;
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the indexes declared on {@link Loan}, {@link User}, {@link LoanActionBucket} and {@link RepricingJob} at
+ * startup (createIndex is a no-op when an identical index exists). With {@code loan.mongo.indexes.verify=true} it
+ * also explains every query shape the repositories issue and refuses to start if any of them would scan the whole
+ * collection.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+public class MongoIndexManager implements ApplicationRunner {
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(Loan.class, User.class, LoanActionBucket.class,
+            RepricingJob.class);
+
+    /** Repository methods that write without a filter and so have no plan to check. */
+    static final Set<String> UNFILTERED = Set.of("LoanRepository.insertUnordered");
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean create;
+    private final boolean verify;
+
+    public MongoIndexManager(MongoTemplate mongoTemplate,
+                             @Value("${loan.mongo.indexes.create:true}") boolean create,
+                             @Value("${loan.mongo.indexes.verify:false}") boolean verify) {
+        this.mongoTemplate = mongoTemplate;
+        this.create = create;
+        this.verify = verify;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (create) {
+            createIndexes();
+        }
+        if (verify) {
+            verifyQueryPlans();
+        }
+    }
+
+    void createIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            try {
+                resolver.resolveIndexFor(entity).forEach(indexOps::createIndex);
+            } catch (DataAccessException e) {
+                log.warn("Could not create indexes for {}: {}", entity.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    void verifyQueryPlans() {
+        List<String> collScans = new ArrayList<>();
+        for (QueryShape shape : queryShapes()) {
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", shape.command()).append("verbosity", "queryPlanner"));
+            // a pipeline's plan is either top-level or under its first stage's $cursor, so search the whole reply
+            if (!containsCollScan(explain)) {
+                continue;
+            }
+            if (shape.oneOff()) {
+                log.info("{} scans the collection; it runs once, until its migration marker is written", shape.name());
+            } else {
+                collScans.add(shape.name());
+            }
+        }
+        if (!collScans.isEmpty()) {
+            throw new IllegalStateException("Queries without a supporting index (COLLSCAN): " + collScans);
+        }
+        log.info("Verified query plans: no collection scans");
+    }
+
+    /**
+     * Representative commands for every query the repositories run, named {@code Repository.method} (plus a
+     * variant in parentheses). MongoIndexManagerTest fails when a repository method has no shape here and is not
+     * in {@link #UNFILTERED}.
+     */
+    static List<QueryShape> queryShapes() {
+        Document active = new Document("deleted", false);
+        Document namePrefix = new Document("deleted", false)
+                .append("searchName", new Document("$gte", "acme").append("$lt", "acmf"));
+        Document byName = new Document("searchName", 1).append("_id", 1);
+        Date now = new Date();
+        Document keysetAfter = new Document("deleted", false).append("$or", List.of(
+                new Document("createdAt", new Document("$lt", now)),
+                new Document("createdAt", now).append("_id", new Document("$lt", new ObjectId())),
+                new Document("createdAt", null)));
+        Document newestFirst = new Document("createdAt", -1).append("_id", -1);
+        Document repricing = new Document("deleted", false)
+                .append("status", new Document("$in", List.of("SUBMITTED", "UNDER_REVIEW")))
+                .append("$or", List.of(new Document("pricedAt", new Document("$lt", now)),
+                        new Document("pricedAt", null)));
+        Document inStatus = new Document("_id", new ObjectId()).append("deleted", false)
+                .append("status", new Document("$in", List.of("SUBMITTED", "UNDER_REVIEW")));
+        Document bumpVersion = new Document("$inc", new Document("version", 1));
+        Document someIds = new Document("$in", List.of(new ObjectId()));
+
+        return List.of(
+                find("UserRepository.findByEmail", "users", new Document("email", "probe@bank.com"), null),
+                find("LoanRepository.findByIdAndDeletedFalse", "loans",
+                        new Document("_id", new ObjectId()).append("deleted", false), null),
+                find("LoanRepository.findVersion", "loans",
+                        new Document("_id", new ObjectId()).append("deleted", false), null),
+                find("LoanRepository.findByDeletedFalse", "loans", active, new Document("createdAt", -1)),
+                find("LoanRepository.findSummaryByDeletedFalse", "loans", active, new Document("createdAt", -1)),
+                find("LoanRepository.findActiveWithFields", "loans", active, new Document("createdAt", -1)),
+                count("LoanRepository.countByDeletedFalse", "loans", active),
+                find("LoanRepository.findActiveAfter", "loans", keysetAfter, newestFirst),
+                find("LoanRepository.findActiveAfter (undated cursor)", "loans",
+                        new Document("deleted", false).append("createdAt", null)
+                                .append("_id", new Document("$lt", new ObjectId())), newestFirst),
+                find("LoanRepository.streamActive", "loans",
+                        new Document("deleted", false).append("createdAt", new Document("$gte", now).append("$lt", now)),
+                        new Document("createdAt", -1)),
+                findAndModify("LoanRepository.updateIfStatus", "loans", inStatus, bumpVersion),
+                findAndModify("LoanRepository.updateIfStatusReturningPrevious", "loans",
+                        new Document(inStatus).append("version", 3L), bumpVersion),
+                update("LoanRepository.updateEachIfStatus", "loans", inStatus, bumpVersion),
+                update("LoanRepository.updateEachAtVersion", "loans",
+                        new Document(inStatus).append("version", 3L), bumpVersion),
+                find("LoanRepository.findForRepricing", "loans",
+                        new Document(repricing).append("_id", new Document("$gt", new ObjectId())),
+                        new Document("_id", 1)),
+                count("LoanRepository.countForRepricing", "loans", repricing),
+                find("LoanRepository.findSummaries (status)", "loans",
+                        new Document("deleted", false).append("status", "SUBMITTED"), new Document("createdAt", -1)),
+                find("LoanRepository.findSummaries (loanType)", "loans",
+                        new Document("deleted", false).append("loanType", "TERM_LOAN"), new Document("createdAt", -1)),
+                find("LoanRepository.findSummaries (createdBy)", "loans",
+                        new Document("deleted", false).append("createdBy", "probe@bank.com"),
+                        new Document("createdAt", -1)),
+                find("LoanRepository.findSummaries (createdBy, amount range)", "loans",
+                        new Document("deleted", false).append("createdBy", "probe@bank.com")
+                                .append("requestedAmount", new Document("$gte", 1.0).append("$lte", 2.0)),
+                        new Document("createdAt", -1)),
+                find("LoanRepository.findSummaries (approvedBy, approvedAt range)", "loans",
+                        new Document("deleted", false).append("approvedBy", "probe@bank.com")
+                                .append("approvedAt", new Document("$gte", now).append("$lt", now)),
+                        new Document("createdAt", -1)),
+                aggregate("LoanRepository.portfolioStats", "loans", List.of(
+                        new Document("$match", new Document("deleted", false)
+                                .append("createdAt", new Document("$gte", now).append("$lt", now))),
+                        new Document("$group", new Document("_id", "$status")
+                                .append("requestedAmount", new Document("$sum", "$requestedAmount"))))),
+                aggregate("LoanRepository.portfolioCounters", "loans", List.of(
+                        new Document("$match", new Document("deleted", false)),
+                        new Document("$group", new Document("_id",
+                                new Document("status", "$status").append("loanType", "$loanType"))
+                                .append("count", new Document("$sum", 1))))),
+                find("LoanRepository.findIdsPricedAt", "loans",
+                        new Document("_id", someIds).append("deleted", false).append("pricedAt", now), null),
+                find("LoanRepository.findForDecision", "loans",
+                        new Document("_id", someIds).append("deleted", false), null),
+                find("LoanRepository.findIdsDecidedIn", "loans",
+                        new Document("deleted", false).append("decisionBatch", new ObjectId().toHexString())
+                                .append("$or", List.of(new Document("_id", new ObjectId()).append("version", 4L),
+                                        new Document("_id", new ObjectId()).append("version", 1L))),
+                        null),
+                find("LoanRepository.searchNamePrefix", "loans", namePrefix, byName),
+                count("LoanRepository.countNamePrefix", "loans", namePrefix),
+                find("LoanRepository.searchNameKeys", "loans",
+                        new Document("deleted", false).append("searchKeys", new Document("$all", List.of("steel", "no")))
+                                .append("$or", List.of(
+                                        new Document("searchName", new Document("$lt", "steel no")),
+                                        new Document("searchName", new Document("$gte", "steel np")))),
+                        byName),
+                aggregate("LoanActionRepository.append (newest buckets)", "loan_actions", List.of(
+                        new Document("$match", new Document("loanId", new Document("$in", List.of("probe")))),
+                        new Document("$sort", new Document("loanId", 1).append("sequence", -1)),
+                        new Document("$group", new Document("_id", "$loanId")
+                                .append("sequence", new Document("$first", "$sequence"))
+                                .append("count", new Document("$first", "$count"))))),
+                find("LoanActionRepository.append (open bucket)", "loan_actions", new Document("loanId", "probe")
+                        .append("sequence", 0).append("count", new Document("$lt", 50)), null),
+                find("LoanActionRepository.findHistory", "loan_actions", new Document("loanId", "probe"),
+                        new Document("sequence", -1)),
+                update("PortfolioSummaryRepository.increment", "portfolio_summary",
+                        new Document("_id", "portfolio"), new Document("$inc", new Document("total.count", 1))),
+                // the migrations look for what no index holds; each scans once and then records a marker
+                oneOff(find("LoanActionMigration (loans with legacy actions)", "loans",
+                        new Document("actions", new Document("$exists", true)), null)),
+                oneOff(find("LoanSearchKeyMigration (loans without searchName)", "loans",
+                        new Document("searchName", new Document("$exists", false)), null)));
+    }
+
+    private static QueryShape find(String name, String collection, Document filter, Document sort) {
+        Document command = new Document("find", collection).append("filter", filter);
+        if (sort != null) {
+            command.append("sort", sort);
+        }
+        return new QueryShape(name, command, false);
+    }
+
+    private static QueryShape aggregate(String name, String collection, List<Document> pipeline) {
+        return new QueryShape(name, new Document("aggregate", collection).append("pipeline", pipeline)
+                .append("cursor", new Document()), false);
+    }
+
+    private static QueryShape count(String name, String collection, Document filter) {
+        return new QueryShape(name, new Document("count", collection).append("query", filter), false);
+    }
+
+    private static QueryShape findAndModify(String name, String collection, Document filter, Document update) {
+        return new QueryShape(name, new Document("findAndModify", collection).append("query", filter)
+                .append("update", update), false);
+    }
+
+    private static QueryShape update(String name, String collection, Document filter, Document update) {
+        return new QueryShape(name, new Document("update", collection)
+                .append("updates", List.of(new Document("q", filter).append("u", update))), false);
+    }
+
+    private static QueryShape oneOff(QueryShape shape) {
+        return new QueryShape(shape.name(), shape.command(), true);
+    }
+
+    static boolean containsCollScan(Object node) {
+        if (node instanceof Document doc) {
+            return "COLLSCAN".equals(doc.get("stage"))
+                    || doc.values().stream().anyMatch(MongoIndexManager::containsCollScan);
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(MongoIndexManager::containsCollScan);
+        }
+        return false;
+    }
+
+    /** {@code oneOff} shapes are allowed to scan: they are logged rather than failing the verification. */
+    record QueryShape(String name, Document command, boolean oneOff) {
+    }
+}
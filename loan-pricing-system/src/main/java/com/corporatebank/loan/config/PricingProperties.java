@@ -0,0 +1,55 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.enums.LoanType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rate grids for {@link com.corporatebank.loan.service.PricingEngine}, bound from {@code loan.pricing.*}. All
+ * rates and spreads are in percent per annum. Map entries set in properties are merged over these defaults.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "loan.pricing")
+public class PricingProperties {
+
+    /** Base rate by tenor in months; linearly interpolated between points and flat beyond the ends. */
+    private Map<Integer, Double> baseCurve = new TreeMap<>(Map.of(
+            12, 7.00, 36, 7.40, 60, 7.85, 120, 8.60, 240, 9.20));
+
+    /**
+     * Credit spread by rating, on the A (best) to D (worst) scale loans are captured with; notched ratings (A+, C-)
+     * fall back to their letter grade.
+     */
+    private Map<String, Double> ratingSpreads = new LinkedHashMap<>(Map.of(
+            "A", 0.70, "B", 1.60, "C", 3.20, "D", 6.50));
+
+    /** Spread for a missing or unknown rating. */
+    private double unratedSpread = 4.50;
+
+    private Map<LoanType, Double> typeSpreads = new EnumMap<>(Map.of(
+            LoanType.TERM_LOAN, 0.35, LoanType.WORKING_CAPITAL, 0.60, LoanType.OVERDRAFT, 1.25));
+
+    /**
+     * EBITDA / revenue bands: below the first break uses the first adjustment, and so on, so there is one more
+     * adjustment than breaks. Missing financials get the first (worst) adjustment.
+     */
+    private double[] ebitdaMarginBreaks = {0.0, 0.08, 0.15, 0.25};
+    private double[] ebitdaMarginAdjustments = {1.50, 0.50, 0.0, -0.15, -0.35};
+
+    /** requestedAmount / revenue bands, laid out like the margin bands; missing revenue gets the last (worst). */
+    private double[] exposureBreaks = {0.10, 0.25, 0.50};
+    private double[] exposureAdjustments = {0.0, 0.20, 0.55, 1.10};
+
+    /** Tenor used when a loan has none (typically overdrafts). */
+    private int defaultTenureMonths = 12;
+
+    private double minRate = 6.50;
+    private double maxRate = 24.00;
+}
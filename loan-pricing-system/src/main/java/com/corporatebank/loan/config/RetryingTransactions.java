@@ -0,0 +1,58 @@
+package com.corporatebank.loan.config;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs each callback in a transaction and runs it again, in a new one, when MongoDB aborted it with a
+ * {@code TransientTransactionError} (a write conflict with a concurrent transaction, a failover). Such an abort
+ * means nothing was written, so the callback may simply repeat its writes. A commit whose outcome is unknown is not
+ * retried: it may have applied.
+ */
+@Slf4j
+final class RetryingTransactions implements TransactionOperations {
+
+    static final int MAX_ATTEMPTS = 5;
+
+    // upper bound of the random pause before the second attempt, doubled for each one after
+    private static final long BACKOFF_MICROS = 2_000;
+
+    private final TransactionOperations transactions;
+
+    RetryingTransactions(TransactionOperations transactions) {
+        this.transactions = transactions;
+    }
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(action);
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || !isTransient(e)) {
+                    throw e;
+                }
+                log.debug("Transaction aborted on attempt {}, retrying: {}", attempt, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(
+                        ThreadLocalRandom.current().nextLong(BACKOFF_MICROS << (attempt - 1))));
+            }
+        }
+    }
+
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,5 +1,7 @@
 package com.corporatebank.loan.config;
 
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -32,8 +34,15 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable()) // ✅ CRITICAL for Postman
             .cors(cors -> cors.configurationSource(corsConfigurationSource())) // ✅ Allow Angular
             .authorizeHttpRequests(auth -> auth
+                // async dispatches (e.g. when an SSE stream ends) belong to a request that was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll() // ✅ Open Login/Register to everyone
                 .requestMatchers("/api/loans/**").authenticated() // Lock loans
+                // decisions, deletes, repricing jobs, portfolio reconciliation and cache stats
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/health").permitAll() // probes
+                // internal traffic and pool figures; the scraper sends a bearer token like any client
+                .requestMatchers("/actuator/prometheus").authenticated()
                 .requestMatchers(
                 	    "/swagger-ui/**",
                 	    "/v3/api-docs/**",
@@ -54,6 +63,7 @@ public class SecurityConfig {
         config.setAllowedOrigins(List.of("http://localhost:4200")); // Allow Angular
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")); // Added PATCH for submit/approve endpoints
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("ETag")); // readable by the UI, sent back in If-Match
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -61,9 +71,10 @@ public class SecurityConfig {
         return source;
     }
 
+    // bcrypt cost (log2 rounds); stored hashes at another cost are re-hashed on the user's next login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.password.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -0,0 +1,44 @@
+package com.corporatebank.loan.config;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.TransactionOptions;
+import com.mongodb.WriteConcern;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transactions for loan writes that move the portfolio counters, so the loan and its {@code $inc} commit or fail
+ * together (MongoDB needs a replica set for them; docker-compose runs one). Snapshot reads let the portfolio
+ * reconciliation compare the counters with the loans at one point in time. Every such write also writes the one
+ * portfolio summary document, so concurrent ones abort each other; {@link RetryingTransactions} runs them again.
+ * The {@code inmemory} profile has nothing to roll back and runs the callbacks directly.
+ */
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    @Profile("!inmemory")
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory, TransactionOptions.builder()
+                .readConcern(ReadConcern.SNAPSHOT)
+                .writeConcern(WriteConcern.MAJORITY)
+                .build());
+    }
+
+    @Bean
+    @Profile("!inmemory")
+    public TransactionOperations loanTransactions(MongoTransactionManager transactionManager) {
+        return new RetryingTransactions(new TransactionTemplate(transactionManager));
+    }
+
+    @Bean
+    @Profile("inmemory")
+    public TransactionOperations inMemoryTransactions() {
+        return TransactionOperations.withoutTransaction();
+    }
+}
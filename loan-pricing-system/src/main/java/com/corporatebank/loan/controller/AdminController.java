@@ -1,11 +1,22 @@
 package com.corporatebank.loan.controller;
 
+import com.corporatebank.loan.dto.LoanDecision;
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.dto.PortfolioReconciliation;
+import com.corporatebank.loan.dto.UserCacheStats;
 import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.RepricingJob;
 import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
+import com.corporatebank.loan.service.RepricingService;
+import com.corporatebank.loan.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
@@ -13,6 +24,9 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
 
     private final LoanService service;
+    private final UserService userService;
+    private final RepricingService repricingService;
+    private final PortfolioService portfolioService;
 
     @PatchMapping("/loans/{id}/decision")
     public Loan decision(
@@ -24,8 +38,49 @@ public class AdminController {
         return service.approve(id, auth.getName(), amount, rate, approved);
     }
 
+    // Month-end committee batch: [{"id": "...", "approved": true, "amount": 900000, "rate": 9.1}, ...] applied with
+    // one read and one bulk write; the response has one outcome per item, in request order
+    @PatchMapping("/loans/decisions")
+    public List<LoanDecisionResult> decisions(@RequestBody List<LoanDecision> decisions, Authentication auth) {
+        return service.decideAll(decisions, auth.getName());
+    }
+
     @DeleteMapping("/loans/{id}")
     public void delete(@PathVariable String id, Authentication auth) {
         service.softDelete(id, auth.getName());
     }
+
+    // Rebuild the portfolio counters from the loans; the response lists the drift that was corrected
+    @PostMapping("/portfolio/reconcile")
+    public PortfolioReconciliation reconcilePortfolio() {
+        return portfolioService.reconcile();
+    }
+
+    @GetMapping("/cache/users")
+    public UserCacheStats userCacheStats() {
+        return userService.stats();
+    }
+
+    // Re-price all SUBMITTED/UNDER_REVIEW loans in the background; poll the returned job for progress
+    @PostMapping("/repricing")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public RepricingJob startRepricing(Authentication auth) {
+        return repricingService.start(auth.getName());
+    }
+
+    @PostMapping("/repricing/{id}/resume")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public RepricingJob resumeRepricing(@PathVariable String id) {
+        return repricingService.resume(id);
+    }
+
+    @GetMapping("/repricing/{id}")
+    public RepricingJob repricingJob(@PathVariable String id) {
+        return repricingService.getJob(id);
+    }
+
+    @GetMapping("/repricing")
+    public List<RepricingJob> repricingJobs() {
+        return repricingService.recentJobs();
+    }
 }
@@ -1,12 +1,47 @@
 package com.corporatebank.loan.controller;
 
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.dto.CursorPage;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.exception.CustomException;
 import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.corporatebank.loan.service.AmortizationEngine;
+import com.corporatebank.loan.service.LoanEventService;
+import com.corporatebank.loan.service.LoanExportService;
+import com.corporatebank.loan.service.LoanImportService;
 import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -14,30 +49,229 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = "http://localhost:4200")
 public class LoanController {
 
+    private static final int MAX_SCROLL_SIZE = 200;
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
     private final LoanService service;
+    private final LoanImportService importService;
+    private final LoanExportService exportService;
+    private final AmortizationEngine amortizationEngine;
+    private final PortfolioService portfolioService;
+    private final LoanEventService eventService;
 
     @PostMapping
     public Loan create(@RequestBody Loan loan, Authentication auth) {
         return service.createLoan(loan, auth.getName());
     }
 
+    // Bulk create: one loan JSON object per line in, one result per line (plus a summary line) out, as it goes
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void bulkCreate(HttpServletRequest request, HttpServletResponse response, Authentication auth)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        importService.importLoans(request.getInputStream(), response.getOutputStream(), auth.getName());
+    }
+
+    // The ETag covers the rows' ids and versions and the total, so an unchanged page is a 304 and is not serialized.
+    // Filtered: GET /api/loans?status=APPROVED&approvedBy=a@bank.com&minAmount=1000000&approvedFrom=2024-01-01T00:00:00Z
     @GetMapping
-    public Page<Loan> list(Pageable pageable) {
-        return service.getAllLoans(pageable);
+    public ResponseEntity<Page<LoanSummary>> list(
+            LoanFilter filter,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
+            WebRequest request) {
+        Page<LoanSummary> page = filter.equals(new LoanFilter())
+                ? service.getLoanSummaries(pageable)
+                : service.getLoanSummaries(filter, pageable);
+        String etag = representation(pageEtag(page), request);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    // Field selection: GET /api/loans?fields=clientName,status,sanctionedAmount
+    @GetMapping(params = "fields")
+    public Page<Map<String, Object>> listFields(
+            @RequestParam List<String> fields,
+            @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        return service.getLoanFields(fields, pageable);
+    }
+
+    // fields pages by number and cursor by keyset; rather than pick one, say so
+    @GetMapping(params = {"fields", "cursor"})
+    public void fieldsWithCursor() {
+        throw new CustomException(HttpStatus.BAD_REQUEST, "fields cannot be combined with cursor");
     }
 
+    // Keyset mode: GET /api/loans?cursor= for the first slice, then ?cursor=<nextCursor>
+    @GetMapping(params = "cursor")
+    public CursorPage<LoanSummary> scroll(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return service.scrollLoans(cursor, Math.max(1, Math.min(size, MAX_SCROLL_SIZE)), includeTotal);
+    }
+
+    // Client-name search, whole-name prefix matches first: GET /api/loans/search?q=acme%20ste&page=0&size=20
+    @GetMapping("/search")
+    public Slice<LoanSummary> search(@RequestParam String q, @PageableDefault(size = 20) Pageable pageable) {
+        return service.searchLoans(q, pageable);
+    }
+
+    // Whole (filtered) book in one call: GET /api/loans/export?format=csv&status=APPROVED&createdFrom=2024-01-01T00:00:00Z
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, LoanFilter filter,
+                       HttpServletResponse response) throws IOException {
+        LoanExportService.Format exportFormat = LoanExportService.Format.of(format);
+        // the headers go on only once the query has run, so a failure is answered as JSON
+        exportService.export(filter, exportFormat, () -> {
+            response.setContentType(exportFormat.contentType());
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=\"loans." + exportFormat.extension() + "\"");
+            return response.getOutputStream();
+        });
+    }
+
+    // Dashboard totals, aggregated in MongoDB: GET /api/loans/stats?createdBy=a@bank.com&createdFrom=2024-01-01T00:00:00Z
+    @GetMapping("/stats")
+    public PortfolioStats stats(LoanFilter filter) {
+        return service.getPortfolioStats(filter);
+    }
+
+    // Whole-book counters per status and loan type, maintained on every write: one document read
+    @GetMapping("/portfolio")
+    public PortfolioSummary portfolio() {
+        return portfolioService.getSummary();
+    }
+
+    // Server-sent loan changes the caller may see (admins: all, users: their own); resumes from Last-Event-ID
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             Authentication auth) {
+        boolean admin = auth.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        return eventService.subscribe(auth.getName(), admin, lastEventId);
+    }
+
+    // Revalidation (If-None-Match) reads only the version; the loan is read and serialized only when it changed
     @GetMapping("/{id}")
-    public Loan getOne(@PathVariable String id) {
-        return service.getLoan(id);
+    public ResponseEntity<Loan> getOne(@PathVariable String id, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && request.checkNotModified(representation(etag(service.getLoanVersion(id)), request))) {
+            return null;
+        }
+        Loan loan = service.getLoan(id);
+        return ResponseEntity.ok().eTag(representation(etag(loan.getVersion()), request)).body(loan);
+    }
+
+    // Audit trail, always newest first (a sort parameter is ignored)
+    @GetMapping("/{id}/actions")
+    public Page<LoanAction> actions(@PathVariable String id, @PageableDefault(size = 20) Pageable pageable) {
+        return service.getLoanActions(id, pageable);
     }
 
+    // Repayment schedule at the loan's sanctioned (or requested) terms; structure defaults to the loan type's
+    @GetMapping("/{id}/schedule")
+    public void schedule(@PathVariable String id, @RequestParam(required = false) RepaymentStructure structure,
+                         @RequestParam(defaultValue = "json") String format,
+                         HttpServletResponse response) throws IOException {
+        AmortizationEngine.Format scheduleFormat = AmortizationEngine.Format.of(format);
+        // computed first: a missing loan or unschedulable terms are answered as JSON, not under the schedule's type
+        AmortizationSchedule schedule = amortizationEngine.schedule(service.getLoan(id), structure);
+        response.setContentType(scheduleFormat.contentType());
+        response.setCharacterEncoding("UTF-8");
+        amortizationEngine.write(schedule, scheduleFormat, response.getOutputStream());
+    }
+
+    // If-Match: "<version>" (or "<version>+cbor" etc.) from an earlier ETag makes the edit fail with 412 if someone
+    // else changed the loan
     @PutMapping("/{id}")
-    public Loan update(@PathVariable String id, @RequestBody Loan loan, Authentication auth) {
-        return service.updateLoan(id, loan, auth.getName());
+    public ResponseEntity<Loan> update(@PathVariable String id, @RequestBody Loan loan,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       Authentication auth, WebRequest request) {
+        Loan updated = service.updateLoan(id, loan, auth.getName(), expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(representation(etag(updated.getVersion()), request)).body(updated);
     }
 
     @PatchMapping("/{id}/submit")
     public Loan submit(@PathVariable String id, Authentication auth) {
         return service.submit(id, auth.getName());
     }
+
+    private static String etag(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    private static String pageEtag(Page<LoanSummary> page) {
+        StringBuilder key = new StringBuilder().append(page.getTotalElements());
+        for (LoanSummary loan : page.getContent()) {
+            key.append(',').append(loan.getId()).append(':').append(loan.getVersion() == null ? 0 : loan.getVersion());
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * The tag of the representation Accept selects: JSON keeps the bare tag, CBOR and Smile bodies append
+     * {@code +cbor} / {@code +smile}, so a cache never revalidates one format with another's body. Adds
+     * {@code Vary: Accept} to the response, 304s included.
+     */
+    private static String representation(String etag, WebRequest request) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        String suffix = representationSuffix(request.getHeader(HttpHeaders.ACCEPT));
+        return suffix.isEmpty() ? etag : etag.substring(0, etag.length() - 1) + suffix + "\"";
+    }
+
+    // mirrors the converter order: JSON first, so wildcards and unparseable Accept headers get JSON
+    private static String representationSuffix(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return "+cbor";
+            }
+            if (type.isCompatibleWith(SMILE)) {
+                return "+smile";
+            }
+        }
+        return "";
+    }
+
+    // If-Match compares strongly: only a quoted version matches; "*" asks only that the loan exists
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String version = tag.substring(1, tag.length() - 1).replaceFirst("\\+(cbor|smile)$", "");
+            try {
+                return Long.parseLong(version);
+            } catch (NumberFormatException e) {
+                // not one of our tags; falls through to 412
+            }
+        }
+        throw new CustomException(HttpStatus.PRECONDITION_FAILED, "If-Match does not name a version of this loan.");
+    }
 }
@@ -0,0 +1,43 @@
+package com.corporatebank.loan.controller;
+
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.dto.PricingQuote;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.corporatebank.loan.service.AmortizationEngine;
+import com.corporatebank.loan.service.PricingEngine;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/pricing")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200")
+public class PricingController {
+
+    private final PricingEngine pricingEngine;
+    private final AmortizationEngine amortizationEngine;
+
+    // Takes the same body as POST /api/loans; nothing is stored
+    @PostMapping("/quote")
+    public PricingQuote quote(@RequestBody Loan loan) {
+        return pricingEngine.quote(loan);
+    }
+
+    // Ad hoc schedule: GET /api/pricing/schedule?amount=1000000&rate=8.65&tenureMonths=60&structure=EMI
+    @GetMapping("/schedule")
+    public void schedule(@RequestParam Double amount, @RequestParam Double rate, @RequestParam Integer tenureMonths,
+                         @RequestParam(defaultValue = "EMI") RepaymentStructure structure,
+                         @RequestParam(defaultValue = "json") String format,
+                         HttpServletResponse response) throws IOException {
+        AmortizationEngine.Format scheduleFormat = AmortizationEngine.Format.of(format);
+        // validated and computed before the content type is set, so a 400 goes out as JSON
+        AmortizationSchedule schedule = amortizationEngine.schedule(amount, rate, tenureMonths, structure);
+        response.setContentType(scheduleFormat.contentType());
+        response.setCharacterEncoding("UTF-8");
+        amortizationEngine.write(schedule, scheduleFormat, response.getOutputStream());
+    }
+}
@@ -0,0 +1,80 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+
+/**
+ * Monthly repayment schedule held as parallel primitive arrays, one entry per instalment (month {@code i + 1}).
+ * Amounts are rounded to cents and the last instalment clears the balance exactly. Instances are cached and
+ * shared, so the arrays are never exposed.
+ */
+public final class AmortizationSchedule {
+
+    private final double amount;
+    private final double annualRate;
+    private final RepaymentStructure structure;
+    private final double[] payment;
+    private final double[] principal;
+    private final double[] interest;
+    private final double[] balance;
+    private final double totalPayment;
+    private final double totalInterest;
+
+    public AmortizationSchedule(double amount, double annualRate, RepaymentStructure structure,
+                                double[] payment, double[] principal, double[] interest, double[] balance) {
+        this.amount = amount;
+        this.annualRate = annualRate;
+        this.structure = structure;
+        this.payment = payment;
+        this.principal = principal;
+        this.interest = interest;
+        this.balance = balance;
+        double paid = 0;
+        double charged = 0;
+        for (int i = 0; i < payment.length; i++) {
+            paid += payment[i];
+            charged += interest[i];
+        }
+        this.totalPayment = Math.round(paid * 100) / 100.0;
+        this.totalInterest = Math.round(charged * 100) / 100.0;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public double getAnnualRate() {
+        return annualRate;
+    }
+
+    public RepaymentStructure getStructure() {
+        return structure;
+    }
+
+    public int getMonths() {
+        return payment.length;
+    }
+
+    public double getTotalPayment() {
+        return totalPayment;
+    }
+
+    public double getTotalInterest() {
+        return totalInterest;
+    }
+
+    public double payment(int row) {
+        return payment[row];
+    }
+
+    public double principal(int row) {
+        return principal[row];
+    }
+
+    public double interest(int row) {
+        return interest[row];
+    }
+
+    public double balance(int row) {
+        return balance[row];
+    }
+}
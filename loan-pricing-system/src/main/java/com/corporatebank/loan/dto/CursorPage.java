@@ -0,0 +1,19 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. Pass {@code nextCursor} back as {@code cursor} to fetch the
+ * following slice; {@code totalElements} is only filled in when explicitly requested.
+ */
+@AllArgsConstructor
+@Data
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+}
@@ -0,0 +1,35 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.exception.CustomException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in the (createdAt desc, id desc) ordering of loans, exchanged with clients as an opaque token. Loans
+ * without a createdAt sort after every dated loan, as MongoDB orders a missing value in a descending sort; their
+ * cursor has a null {@code createdAt}.
+ */
+public record LoanCursor(Instant createdAt, String id) {
+
+    private static final String UNDATED = "-";
+
+    public String encode() {
+        String raw = (createdAt == null ? UNDATED : String.valueOf(createdAt.toEpochMilli())) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LoanCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            String createdAt = raw.substring(0, sep);
+            return new LoanCursor(UNDATED.equals(createdAt) ? null : Instant.ofEpochMilli(Long.parseLong(createdAt)),
+                    raw.substring(sep + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One item of a batch decision, with the same meaning as the single-loan decision parameters: {@code amount} is
+ * the sanctioned amount and {@code rate} the approved rate (the loan's indicative rate when omitted); both are
+ * ignored on a rejection.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class LoanDecision {
+    private String id;
+    private boolean approved;
+    private Double amount;
+    private Double rate;
+}
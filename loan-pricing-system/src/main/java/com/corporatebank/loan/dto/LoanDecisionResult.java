@@ -0,0 +1,42 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one item of a batch decision: {@code APPLIED} with the loan's new status, {@code CONFLICT} with the
+ * status that prevented it, {@code NOT_FOUND}, or {@code INVALID}; all but {@code APPLIED} carry the reason.
+ */
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoanDecisionResult {
+
+    public static final String APPLIED = "APPLIED";
+    public static final String CONFLICT = "CONFLICT";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID = "INVALID";
+
+    private String id;
+    private String outcome;
+    private LoanStatus status;
+    private String error;
+
+    public static LoanDecisionResult applied(String id, LoanStatus status) {
+        return new LoanDecisionResult(id, APPLIED, status, null);
+    }
+
+    public static LoanDecisionResult conflict(String id, LoanStatus status, String error) {
+        return new LoanDecisionResult(id, CONFLICT, status, error);
+    }
+
+    public static LoanDecisionResult notFound(String id) {
+        return new LoanDecisionResult(id, NOT_FOUND, null, "Loan not found");
+    }
+
+    public static LoanDecisionResult invalid(String id, String error) {
+        return new LoanDecisionResult(id, INVALID, null, error);
+    }
+}
@@ -0,0 +1,49 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * One loan change as pushed on {@code GET /api/loans/events}: the operation ({@code insert}, {@code update} or
+ * {@code replace}) and the loan's state right after it, enough for a list row or detail header to update in place
+ * without re-reading the loan.
+ */
+@Data
+public class LoanEvent {
+    private String operation;
+    private Instant at;
+    private String loanId;
+    private String clientName;
+    private LoanType loanType;
+    private Double requestedAmount;
+    private LoanStatus status;
+    private Double sanctionedAmount;
+    private Double approvedInterestRate;
+    private String approvedBy;
+    private String createdBy;
+    private boolean deleted;
+    private LoanAction lastAction;
+
+    public static LoanEvent of(String operation, Instant at, Loan loan) {
+        LoanEvent event = new LoanEvent();
+        event.setOperation(operation);
+        event.setAt(at);
+        event.setLoanId(loan.getId());
+        event.setClientName(loan.getClientName());
+        event.setLoanType(loan.getLoanType());
+        event.setRequestedAmount(loan.getRequestedAmount());
+        event.setStatus(loan.getStatus());
+        event.setSanctionedAmount(loan.getSanctionedAmount());
+        event.setApprovedInterestRate(loan.getApprovedInterestRate());
+        event.setApprovedBy(loan.getApprovedBy());
+        event.setCreatedBy(loan.getCreatedBy());
+        event.setDeleted(loan.isDeleted());
+        event.setLastAction(loan.getLastAction());
+        return event;
+    }
+}
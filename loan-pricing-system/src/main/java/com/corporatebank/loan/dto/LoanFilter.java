@@ -0,0 +1,26 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Optional restrictions on non-deleted loans, bound from query parameters. Null fields do not filter;
+ * {@code createdFrom} and {@code approvedFrom} are inclusive, {@code createdTo} and {@code approvedTo} exclusive,
+ * and {@code minAmount} and {@code maxAmount} (on the requested amount) both inclusive.
+ */
+@Data
+public class LoanFilter {
+    private LoanStatus status;
+    private LoanType loanType;
+    private String createdBy;
+    private String approvedBy;
+    private Instant createdFrom;
+    private Instant createdTo;
+    private Instant approvedFrom;
+    private Instant approvedTo;
+    private Double minAmount;
+    private Double maxAmount;
+}
@@ -0,0 +1,31 @@
+package com.corporatebank.loan.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one NDJSON line of a bulk import: {@code CREATED} with the new loan id, or {@code REJECTED} with the
+ * reason. Line numbers are 1-based and count blank lines.
+ */
+@AllArgsConstructor
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoanImportResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    private long line;
+    private String status;
+    private String id;
+    private String error;
+
+    public static LoanImportResult created(long line, String id) {
+        return new LoanImportResult(line, CREATED, id, null);
+    }
+
+    public static LoanImportResult rejected(long line, String error) {
+        return new LoanImportResult(line, REJECTED, null, error);
+    }
+}
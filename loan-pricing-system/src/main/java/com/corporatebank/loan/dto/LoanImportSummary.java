@@ -0,0 +1,15 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Totals written as the last line of a bulk import report.
+ */
+@AllArgsConstructor
+@Data
+public class LoanImportSummary {
+    private long received;
+    private long created;
+    private long rejected;
+}
@@ -0,0 +1,29 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * List-row view of a loan. Used as a repository projection, so MongoDB only returns these fields and never
+ * sends {@code financials} or {@code lastAction}.
+ */
+@Data
+public class LoanSummary {
+    private String id;
+    private Long version;
+    private String clientName;
+    private LoanType loanType;
+    private Double requestedAmount;
+    private Integer tenureMonths;
+    private Double proposedInterestRate;
+    private Double indicativeRate;
+    private LoanStatus status;
+    private Double sanctionedAmount;
+    private Double approvedInterestRate;
+    private String createdBy;
+    private Instant createdAt;
+}
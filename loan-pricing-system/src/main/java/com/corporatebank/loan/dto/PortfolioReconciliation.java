@@ -0,0 +1,23 @@
+package com.corporatebank.loan.dto;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Outcome of rebuilding the portfolio summary from the loans: {@code drift} holds, per bucket, what had to be
+ * added to the stored counters to match (negative when they were ahead). Empty when they already agreed.
+ */
+@AllArgsConstructor
+@Data
+public class PortfolioReconciliation {
+    private Instant reconciledAt;
+    private Map<String, PortfolioSummary.Counter> drift;
+
+    public boolean isInSync() {
+        return drift.isEmpty();
+    }
+}
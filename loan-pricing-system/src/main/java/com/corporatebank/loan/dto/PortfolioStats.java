@@ -0,0 +1,37 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Portfolio totals over the non-deleted loans matching a {@link LoanFilter}, overall and grouped by status, loan
+ * type and financials rating. Groups are ordered by key, loans without one first under a null key.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class PortfolioStats {
+    private Bucket totals = new Bucket();
+    private List<Bucket> byStatus = new ArrayList<>();
+    private List<Bucket> byLoanType = new ArrayList<>();
+    private List<Bucket> byRating = new ArrayList<>();
+
+    /**
+     * Amounts are sums over the group (a missing amount counts as zero); {@code avgApprovedInterestRate} averages
+     * the loans that have one and is null when none do.
+     */
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Data
+    public static class Bucket {
+        private String key;
+        private long count;
+        private double requestedAmount;
+        private double sanctionedAmount;
+        private Double avgApprovedInterestRate;
+    }
+}
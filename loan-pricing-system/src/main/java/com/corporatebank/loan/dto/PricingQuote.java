@@ -0,0 +1,19 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Rate quoted by the pricing engine and the components it was built from, in percent per annum. {@code rate} is
+ * the sum of the components, clamped to the configured floor and cap and rounded to a basis point.
+ */
+@AllArgsConstructor
+@Data
+public class PricingQuote {
+    private double baseRate;
+    private double ratingSpread;
+    private double typeSpread;
+    private double marginAdjustment;
+    private double exposureAdjustment;
+    private double rate;
+}
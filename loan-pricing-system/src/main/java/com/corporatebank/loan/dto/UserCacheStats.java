@@ -0,0 +1,13 @@
+package com.corporatebank.loan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@AllArgsConstructor
+@Data
+public class UserCacheStats {
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long size;
+}
@@ -1,5 +1,27 @@
 package com.corporatebank.loan.exception;
 
-public class CustomException {
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
 
+import java.time.Duration;
+
+/**
+ * Business error carrying the HTTP status the API should answer with, and for a temporary refusal how long the
+ * client should wait before retrying (sent as {@code Retry-After}).
+ */
+@Getter
+public class CustomException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public CustomException(HttpStatus status, String message) {
+        this(status, message, null);
+    }
+
+    public CustomException(HttpStatus status, String message, Duration retryAfter) {
+        super(message);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
 }
@@ -2,25 +2,65 @@ package com.corporatebank.loan.model;
 
 import com.corporatebank.loan.model.enums.LoanStatus;
 import com.corporatebank.loan.model.enums.LoanType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 
 @Document(collection = "loans")
+@CompoundIndexes({
+        // "deleted" leads the key so plain {deleted: false} finds and counts can use it too
+        @CompoundIndex(name = "active_createdAt", def = "{'deleted': 1, 'createdAt': -1, '_id': -1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "active_status_createdAt", def = "{'status': 1, 'createdAt': -1}",
+                partialFilter = "{'deleted': false}"),
+        // repricing walks SUBMITTED/UNDER_REVIEW loans in _id order
+        @CompoundIndex(name = "active_status_id", def = "{'status': 1, '_id': 1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "active_loanType_createdAt", def = "{'loanType': 1, 'createdAt': -1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "active_createdBy_createdAt", def = "{'createdBy': 1, 'createdAt': -1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "active_approvedBy_createdAt", def = "{'approvedBy': 1, 'createdAt': -1}",
+                partialFilter = "{'deleted': false}"),
+        // covers the portfolio stats aggregation: the date range and every grouped or summed field are keys
+        @CompoundIndex(name = "active_stats", def = "{'deleted': 1, 'createdAt': -1, 'status': 1, 'loanType': 1, "
+                + "'financials.rating': 1, 'requestedAmount': 1, 'sanctionedAmount': 1, 'approvedInterestRate': 1}",
+                partialFilter = "{'deleted': false}"),
+        // client-name search (LoanSearchKeys): whole-name prefix, then every word a prefix; both in name order
+        @CompoundIndex(name = "active_searchName", def = "{'searchName': 1, '_id': 1}",
+                partialFilter = "{'deleted': false}"),
+        @CompoundIndex(name = "active_searchKeys", def = "{'searchKeys': 1, 'searchName': 1, '_id': 1}",
+                partialFilter = "{'deleted': false}")
+})
 @Data
 public class Loan {
     @Id
     private String id;
+    // 0 on insert, +1 on every write; the HTTP ETag. Loans written before it existed have none and count as 0
+    @Version
+    private Long version;
     private String clientName;
+    // derived from clientName by LoanSearchKeys on every write of it; internal, never part of the API
+    @JsonIgnore
+    private String searchName;
+    @JsonIgnore
+    private List<String> searchKeys;
     private LoanType loanType;
     private Double requestedAmount;
     private Integer tenureMonths;
     private Double proposedInterestRate;
 
+    // set by the pricing engine when the loan is submitted
+    private Double indicativeRate;
+    private Instant pricedAt;
+
     private Financials financials;
 
     private LoanStatus status = LoanStatus.DRAFT;
@@ -30,12 +70,17 @@ public class Loan {
     private Double approvedInterestRate;
     private String approvedBy;
     private Instant approvedAt;
+    // the decideAll batch that last decided the loan, written with the decision so the batch can tell its own writes
+    // apart; internal, never part of the API
+    @JsonIgnore
+    private String decisionBatch;
 
     private String createdBy;
     private Instant createdAt = Instant.now();
 
     private boolean deleted = false;
-    private List<LoanAction> actions = new ArrayList<>();
+    // the full history is kept in loan_actions (LoanActionBucket)
+    private LoanAction lastAction;
 
     @Data
     public static class Financials {
@@ -0,0 +1,32 @@
+package com.corporatebank.loan.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A run of up to {@code loan.actions.bucket-size} consecutive audit entries of one loan, oldest first. New entries
+ * are pushed onto the loan's open (not yet full) bucket, or start a new one, so the trail is append-only and no
+ * document grows without bound. {@code sequence} numbers a loan's buckets in order (buckets migrated from the
+ * legacy embedded array count up to -1, new ones from 0); it is unique per loan, so two writers opening a bucket at
+ * once cannot both create one.
+ */
+@Document("loan_actions")
+@CompoundIndex(name = "loanId_sequence", def = "{'loanId': 1, 'sequence': -1}", unique = true)
+@Data
+public class LoanActionBucket {
+
+    @Id
+    private String id;
+    private String loanId;
+    private int sequence;
+    private int count;
+    private Instant firstAt;
+    private Instant lastAt;
+    private List<LoanAction> actions = new ArrayList<>();
+}
@@ -0,0 +1,84 @@
+package com.corporatebank.loan.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The normalized forms of a client name that {@code GET /api/loans/search} matches on: lower case, accents removed,
+ * split into words of letters and digits. {@code searchName} is those words joined by single spaces, so a
+ * whole-name prefix is an index range; {@code searchKeys} holds every prefix of every word (up to {@link
+ * #MAX_PREFIX} characters), so a word-prefix match is an equality lookup in a multikey index. Queries are
+ * normalized the same way.
+ */
+public final class LoanSearchKeys {
+
+    // longer words are indexed, and matched, by their first MAX_PREFIX characters
+    static final int MAX_PREFIX = 24;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private LoanSearchKeys() {
+    }
+
+    /**
+     * Sets {@code searchName} and {@code searchKeys} from the loan's client name.
+     */
+    public static void stamp(Loan loan) {
+        List<String> words = words(loan.getClientName());
+        loan.setSearchName(name(words));
+        loan.setSearchKeys(keys(words));
+    }
+
+    public static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded)).filter(word -> !word.isEmpty()).toList();
+    }
+
+    public static String name(List<String> words) {
+        return String.join(" ", words);
+    }
+
+    public static List<String> keys(List<String> words) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String word : words) {
+            int length = word.codePointCount(0, word.length());
+            for (int n = 1; n <= Math.min(length, MAX_PREFIX); n++) {
+                keys.add(word.substring(0, word.offsetByCodePoints(0, n)));
+            }
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * The keys a name must all have to match every query word as a word prefix, longest (most selective) first.
+     */
+    public static List<String> queryKeys(List<String> words) {
+        return words.stream()
+                .map(word -> word.codePointCount(0, word.length()) <= MAX_PREFIX ? word
+                        : word.substring(0, word.offsetByCodePoints(0, MAX_PREFIX)))
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toList();
+    }
+
+    /**
+     * The smallest string greater than every string starting with {@code prefix}: names starting with it are exactly
+     * the range [prefix, prefixEnd(prefix)).
+     */
+    public static String prefixEnd(String prefix) {
+        int last = prefix.offsetByCodePoints(prefix.length(), -1);
+        return prefix.substring(0, last) + new String(Character.toChars(prefix.codePointAt(last) + 1));
+    }
+}
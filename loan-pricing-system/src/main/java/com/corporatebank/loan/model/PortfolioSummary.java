@@ -0,0 +1,53 @@
+package com.corporatebank.loan.model;
+
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running totals of the non-deleted loans, one {@link Counter} per status and loan type, kept in a single
+ * document so a dashboard reads the whole portfolio with one fetch by id. Every loan write applies its change as
+ * an {@code $inc}; a reconciliation rebuilds the totals from the loans themselves.
+ */
+@Document("portfolio_summary")
+@Data
+public class PortfolioSummary {
+
+    public static final String ID = "portfolio";
+
+    // bucket key of loans without a loan type
+    public static final String NO_TYPE = "NONE";
+
+    @Id
+    private String id = ID;
+
+    // keyed by key(status, loanType)
+    private Map<String, Counter> buckets = new TreeMap<>();
+
+    private Instant updatedAt;
+
+    public static String key(LoanStatus status, LoanType loanType) {
+        return status + ":" + (loanType == null ? NO_TYPE : loanType.name());
+    }
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Data
+    public static class Counter {
+        private long count;
+        private double requestedAmount;
+        private double sanctionedAmount;
+
+        public boolean isZero() {
+            return count == 0 && requestedAmount == 0 && sanctionedAmount == 0;
+        }
+    }
+}
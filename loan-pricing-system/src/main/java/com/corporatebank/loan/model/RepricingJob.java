@@ -0,0 +1,46 @@
+package com.corporatebank.loan.model;
+
+import com.corporatebank.loan.model.enums.JobStatus;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Progress record of one repricing run. Loans priced before {@code startedAt} are the job's work list, so a
+ * loan repriced by it drops out of that list; {@code lastLoanId} is the keyset checkpoint a resumed run continues
+ * from, and every loan up to it has been written.
+ * <p>
+ * The instance running a job holds its lease: {@code leaseOwner}, renewed in {@code heartbeatAt} at every
+ * checkpoint. Another instance may take a job over only once that heartbeat is older than the lease.
+ */
+@Document("repricing_jobs")
+// at most one RUNNING job across all instances: a second start or resume fails on this index
+@CompoundIndex(name = "running", def = "{'status': 1}", unique = true, partialFilter = "{'status': 'RUNNING'}")
+@Data
+public class RepricingJob {
+
+    @Id
+    private String id;
+
+    private JobStatus status = JobStatus.RUNNING;
+    private String startedBy;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    // loans eligible when the job started
+    private long total;
+    private long processed;
+    private long repriced;
+    // loans that could not be priced (missing type or amount) or were decided while the job ran
+    private long skipped;
+
+    private String lastLoanId;
+    private String error;
+
+    private String leaseOwner;
+    private Instant heartbeatAt;
+}
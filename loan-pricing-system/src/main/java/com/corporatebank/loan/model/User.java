@@ -3,6 +3,7 @@ package com.corporatebank.loan.model;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.corporatebank.loan.model.enums.Role;
@@ -18,6 +19,7 @@ public class User {
     private String id;
 
     @Email
+    @Indexed(unique = true)
     private String email;
 
     private String password;
@@ -0,0 +1,7 @@
+package com.corporatebank.loan.model.enums;
+
+public enum JobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,18 @@
+package com.corporatebank.loan.model.enums;
+
+public enum RepaymentStructure {
+    // equal monthly instalments (annuity)
+    EMI,
+    // same principal every month, interest on the falling balance
+    EQUAL_PRINCIPAL,
+    // interest only, principal repaid with the last instalment
+    BULLET;
+
+    public static RepaymentStructure forType(LoanType type) {
+        return switch (type) {
+            case TERM_LOAN -> EMI;
+            case WORKING_CAPITAL -> EQUAL_PRINCIPAL;
+            case OVERDRAFT -> BULLET;
+        };
+    }
+}
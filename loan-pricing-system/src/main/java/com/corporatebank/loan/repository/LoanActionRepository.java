@@ -0,0 +1,7 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.LoanActionBucket;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface LoanActionRepository extends MongoRepository<LoanActionBucket, String>, LoanActionRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.LoanAction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+
+public interface LoanActionRepositoryCustom {
+
+    /**
+     * Appends each loan's action to that loan's open bucket, creating the next one when it is full, in one unordered
+     * bulkWrite of upserts. A loan whose bucket filled up or was opened by a concurrent append is appended again.
+     */
+    void append(Map<String, LoanAction> actionsByLoanId);
+
+    /**
+     * The loan's audit trail newest first. Only the buckets overlapping the requested page are read.
+     */
+    Page<LoanAction> findHistory(String loanId, Pageable pageable);
+}
@@ -0,0 +1,136 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanActionBucket;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class LoanActionRepositoryCustomImpl implements LoanActionRepositoryCustom {
+
+    // rounds of appends a loan gets when its bucket keeps filling up under it
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final MongoTemplate mongoTemplate;
+    private final int bucketSize;
+
+    public LoanActionRepositoryCustomImpl(MongoTemplate mongoTemplate,
+                                          @Value("${loan.actions.bucket-size:50}") int bucketSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.bucketSize = Math.max(1, bucketSize);
+    }
+
+    @Override
+    public void append(Map<String, LoanAction> actionsByLoanId) {
+        Map<String, LoanAction> pending = actionsByLoanId;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            Map<String, Integer> open = openSequences(pending.keySet());
+            List<String> loanIds = new ArrayList<>(pending.keySet());
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LoanActionBucket.class);
+            for (String loanId : loanIds) {
+                LoanAction action = pending.get(loanId);
+                // an upsert copies loanId and sequence from the filter into the new bucket; if that bucket filled up
+                // since it was looked up, the insert collides with it on the unique (loanId, sequence) index
+                bulk.upsert(new Query(Criteria.where("loanId").is(loanId)
+                                .and("sequence").is(open.getOrDefault(loanId, 0))
+                                .and("count").lt(bucketSize)),
+                        new Update().push("actions", action)
+                                .inc("count", 1)
+                                .min("firstAt", action.getTimestamp())
+                                .max("lastAt", action.getTimestamp()));
+            }
+            try {
+                bulk.execute();
+                return;
+            } catch (BulkOperationException e) {
+                Map<String, LoanAction> collided = new LinkedHashMap<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    if (attempt == MAX_ATTEMPTS
+                            || ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                        throw e;
+                    }
+                    String loanId = loanIds.get(error.getIndex());
+                    collided.put(loanId, pending.get(loanId));
+                }
+                pending = collided;
+            }
+        }
+    }
+
+    // the sequence of each loan's open bucket: its newest if not full, else the next one
+    private Map<String, Integer> openSequences(Collection<String> loanIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("loanId").in(loanIds)),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "loanId").and(Sort.by(Sort.Direction.DESC, "sequence"))),
+                Aggregation.group("loanId").first("sequence").as("sequence").first("count").as("count"));
+        Map<String, Integer> open = new HashMap<>();
+        for (Document newest : mongoTemplate.aggregate(aggregation, LoanActionBucket.class, Document.class)) {
+            int sequence = newest.getInteger("sequence", 0);
+            open.put(newest.getString("_id"), newest.getInteger("count", 0) < bucketSize ? sequence : sequence + 1);
+        }
+        return open;
+    }
+
+    @Override
+    public Page<LoanAction> findHistory(String loanId, Pageable pageable) {
+        // bucket sizes first, newest bucket first, to find which buckets hold the page
+        Query sizes = new Query(Criteria.where("loanId").is(loanId))
+                .with(Sort.by(Sort.Direction.DESC, "sequence"));
+        sizes.fields().include("count");
+        List<LoanActionBucket> buckets = mongoTemplate.find(sizes, LoanActionBucket.class);
+        long total = buckets.stream().mapToLong(LoanActionBucket::getCount).sum();
+
+        long from = pageable.isPaged() ? pageable.getOffset() : 0;
+        long to = pageable.isPaged() ? from + pageable.getPageSize() : total;
+        List<String> needed = new ArrayList<>();
+        long start = 0;
+        long skipped = 0;
+        for (LoanActionBucket bucket : buckets) {
+            long end = start + bucket.getCount();
+            if (end <= from) {
+                skipped = end;
+            } else if (start < to) {
+                needed.add(bucket.getId());
+            }
+            start = end;
+        }
+        if (needed.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+
+        Map<String, LoanActionBucket> byId = mongoTemplate.find(
+                        new Query(Criteria.where("id").in(needed)), LoanActionBucket.class).stream()
+                .collect(Collectors.toMap(LoanActionBucket::getId, Function.identity()));
+        List<LoanAction> newestFirst = new ArrayList<>();
+        for (String id : needed) {
+            List<LoanAction> actions = byId.get(id).getActions();
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                newestFirst.add(actions.get(i));
+            }
+        }
+        int offset = (int) Math.min(from - skipped, newestFirst.size());
+        int limit = (int) Math.min(to - skipped, newestFirst.size());
+        return new PageImpl<>(new ArrayList<>(newestFirst.subList(offset, limit)), pageable, total);
+    }
+}
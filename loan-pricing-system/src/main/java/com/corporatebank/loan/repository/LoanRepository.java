@@ -1,5 +1,6 @@
 package com.corporatebank.loan.repository;
 
+import com.corporatebank.loan.dto.LoanSummary;
 import com.corporatebank.loan.model.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,7 +8,9 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface LoanRepository extends MongoRepository<Loan, String> {
+public interface LoanRepository extends MongoRepository<Loan, String>, LoanRepositoryCustom {
     Page<Loan> findByDeletedFalse(Pageable pageable);
+    Page<LoanSummary> findSummaryByDeletedFalse(Pageable pageable);
     Optional<Loan> findByIdAndDeletedFalse(String id);
+    long countByDeletedFalse();
 }
@@ -0,0 +1,160 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface LoanRepositoryCustom {
+
+    /**
+     * A copy of {@code update} that also increments the version, as every update method here writes it. The caller's
+     * Update is left as it was, so it can be applied again: to several loans, or by a retried transaction.
+     */
+    static Update versioned(Update update) {
+        Document operations = new Document();
+        // the operator documents too are copied, so a $inc of the caller's is not the one the version joins
+        update.getUpdateObject().forEach((operator, fields) ->
+                operations.put(operator, fields instanceof Document document ? new Document(document) : fields));
+        return Update.fromDocument(operations).inc("version", 1);
+    }
+
+    /**
+     * Applies {@code update} to the non-deleted loan {@code id} in a single findAndModify, but only while its
+     * status is one of {@code fromStatuses} (any status when empty) and it matches {@code condition} when given.
+     * The loan's version is incremented. Returns the updated loan, or empty if no document matched.
+     */
+    Optional<Loan> updateIfStatus(String id, Collection<LoanStatus> fromStatuses, Criteria condition, Update update);
+
+    /**
+     * Same write as {@link #updateIfStatus}, but returns the loan as it was just before the update, read atomically
+     * by the same findAndModify, or empty if no document matched.
+     */
+    Optional<Loan> updateIfStatusReturningPrevious(String id, Collection<LoanStatus> fromStatuses, Criteria condition,
+                                                   Update update);
+
+    /**
+     * Version of the non-deleted loan {@code id}, read with a projection of just that field, or empty if there is
+     * no such loan. A loan stored without a version reports 0.
+     */
+    Optional<Long> findVersion(String id);
+
+    /**
+     * Non-deleted loans whose {@code searchName} starts with {@code prefix}, in (searchName, id) order, {@code skip}
+     * rows in. Reads the {@code active_searchName} index range.
+     */
+    List<LoanSummary> searchNamePrefix(String prefix, long skip, int limit);
+
+    /**
+     * Number of loans {@link #searchNamePrefix} finds, counting no further than {@code limit}.
+     */
+    long countNamePrefix(String prefix, long limit);
+
+    /**
+     * Non-deleted loans having every one of {@code keys} in {@code searchKeys} and whose {@code searchName} does not
+     * start with {@code excludedPrefix} (when given), in (searchName, id) order, {@code skip} rows in. The first key
+     * is looked up in the {@code active_searchKeys} index, so it should be the most selective.
+     */
+    List<LoanSummary> searchNameKeys(List<String> keys, String excludedPrefix, long skip, int limit);
+
+    /**
+     * Keyset page over non-deleted loans ordered by createdAt desc, id desc: up to {@code limit} loans strictly
+     * after {@code after}, or from the newest loan when {@code after} is null. Never counts or skips.
+     */
+    List<LoanSummary> findActiveAfter(LoanCursor after, int limit);
+
+    /**
+     * Page of non-deleted loans where only {@code fields} (top-level Loan properties) are fetched from MongoDB.
+     * Properties that were not requested keep their Java defaults on the returned instances.
+     */
+    Page<Loan> findActiveWithFields(Collection<String> fields, Pageable pageable);
+
+    /**
+     * Page of non-deleted loans matching {@code filter} as list rows, from one query (plus a count with the same
+     * criteria when the page does not reveal the total).
+     */
+    Page<LoanSummary> findSummaries(LoanFilter filter, Pageable pageable);
+
+    /**
+     * Inserts {@code loans} with one unordered insertMany, so a bad document does not stop the rest of the batch.
+     * Returns the error message of every loan that was not written, keyed by its index in {@code loans}.
+     */
+    Map<Integer, String> insertUnordered(List<Loan> loans);
+
+    /**
+     * Non-deleted loans matching {@code filter}, newest first, read lazily from a server cursor. The caller must
+     * close the stream.
+     */
+    Stream<Loan> streamActive(LoanFilter filter);
+
+    /**
+     * Counts, amount totals and the average approved rate of the non-deleted loans matching {@code filter},
+     * computed by the database in one aggregation rather than by reading the loans.
+     */
+    PortfolioStats portfolioStats(LoanFilter filter);
+
+    /**
+     * Count and amount sums of all non-deleted loans per {@link PortfolioSummary#key(LoanStatus,
+     * com.corporatebank.loan.model.enums.LoanType) bucket}, aggregated from scratch.
+     */
+    Map<String, PortfolioSummary.Counter> portfolioCounters();
+
+    /**
+     * Keyset chunk of non-deleted loans in {@code statuses} that were never priced or priced before
+     * {@code pricedBefore}, ordered by id and starting after {@code afterId} (from the start when null). Only
+     * the pricing inputs are fetched.
+     */
+    List<Loan> findForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore, String afterId, int limit);
+
+    /**
+     * Number of loans {@link #findForRepricing} would walk through from the start.
+     */
+    long countForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore);
+
+    /**
+     * Applies each update to its loan in one unordered bulkWrite, matching like {@link #updateIfStatus} plus
+     * {@code condition} when given. Returns how many loans were modified.
+     */
+    long updateEachIfStatus(Map<String, Update> updatesById, Collection<LoanStatus> fromStatuses, Criteria condition);
+
+    /**
+     * Ids among {@code ids} of the non-deleted loans whose pricedAt is exactly {@code pricedAt}.
+     */
+    List<String> findIdsPricedAt(Collection<String> ids, Instant pricedAt);
+
+    /**
+     * The non-deleted loans among {@code ids}, in one query, with only what a decision reads: version, status, the
+     * portfolio bucket fields and the pricing inputs.
+     */
+    List<Loan> findForDecision(Collection<String> ids);
+
+    /**
+     * Applies each update to its loan in one unordered bulkWrite, matching like {@link #updateIfStatus} and only at
+     * the loan's version in {@code versionsById} (0 also matches a loan stored without one), so a loan written
+     * since it was read is left alone. Returns how many loans were modified.
+     */
+    long updateEachAtVersion(Map<String, Update> updatesById, Map<String, Long> versionsById,
+                             Collection<LoanStatus> fromStatuses);
+
+    /**
+     * Ids among the keys of {@code versionsById} of the non-deleted loans that {@link #updateEachAtVersion} wrote for
+     * {@code batch}: marked with it as their decisionBatch and now one version past the one in the map (0 standing
+     * for a loan stored without one).
+     */
+    List<String> findIdsDecidedIn(Map<String, Long> versionsById, String batch);
+}
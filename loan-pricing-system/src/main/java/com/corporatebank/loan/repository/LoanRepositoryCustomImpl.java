@@ -0,0 +1,382 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanSearchKeys;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class LoanRepositoryCustomImpl implements LoanRepositoryCustom {
+
+    // documents per getMore while streaming; bounds what the driver buffers at any time
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final Sort BY_SEARCH_NAME = Sort.by("searchName", "id");
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Loan> updateIfStatus(String id, Collection<LoanStatus> fromStatuses, Criteria condition,
+                                         Update update) {
+        return findAndModify(id, fromStatuses, condition, update, true);
+    }
+
+    @Override
+    public Optional<Loan> updateIfStatusReturningPrevious(String id, Collection<LoanStatus> fromStatuses,
+                                                          Criteria condition, Update update) {
+        return findAndModify(id, fromStatuses, condition, update, false);
+    }
+
+    private Optional<Loan> findAndModify(String id, Collection<LoanStatus> fromStatuses, Criteria condition,
+                                         Update update, boolean returnNew) {
+        Query query = new Query(inStatus(id, fromStatuses));
+        if (condition != null) {
+            query.addCriteria(condition);
+        }
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, LoanRepositoryCustom.versioned(update),
+                FindAndModifyOptions.options().returnNew(returnNew), Loan.class));
+    }
+
+    @Override
+    public Optional<Long> findVersion(String id) {
+        Query query = new Query(Criteria.where("id").is(id).and("deleted").is(false));
+        query.fields().include("version");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Loan.class))
+                .map(loan -> loan.getVersion() == null ? 0L : loan.getVersion());
+    }
+
+    @Override
+    public List<LoanSummary> searchNamePrefix(String prefix, long skip, int limit) {
+        Query query = new Query(namePrefix(prefix)).with(BY_SEARCH_NAME).skip(skip).limit(limit);
+        return mongoTemplate.query(Loan.class).as(LoanSummary.class).matching(query).all();
+    }
+
+    @Override
+    public long countNamePrefix(String prefix, long limit) {
+        return mongoTemplate.count(new Query(namePrefix(prefix)).limit((int) limit), Loan.class);
+    }
+
+    @Override
+    public List<LoanSummary> searchNameKeys(List<String> keys, String excludedPrefix, long skip, int limit) {
+        Criteria criteria = Criteria.where("deleted").is(false).and("searchKeys").all(keys);
+        if (excludedPrefix != null) {
+            criteria.orOperator(Criteria.where("searchName").lt(excludedPrefix),
+                    Criteria.where("searchName").gte(LoanSearchKeys.prefixEnd(excludedPrefix)));
+        }
+        Query query = new Query(criteria).with(BY_SEARCH_NAME).skip(skip).limit(limit);
+        return mongoTemplate.query(Loan.class).as(LoanSummary.class).matching(query).all();
+    }
+
+    private static Criteria namePrefix(String prefix) {
+        return Criteria.where("deleted").is(false)
+                .and("searchName").gte(prefix).lt(LoanSearchKeys.prefixEnd(prefix));
+    }
+
+    @Override
+    public List<LoanSummary> findActiveAfter(LoanCursor after, int limit) {
+        Criteria criteria = Criteria.where("deleted").is(false);
+        // loans without a createdAt come last; null matches them whether the field is null or missing
+        if (after != null && after.createdAt() != null) {
+            criteria.orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("id").lt(after.id()),
+                    Criteria.where("createdAt").is(null));
+        } else if (after != null) {
+            criteria.and("createdAt").is(null).and("id").lt(after.id());
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(limit);
+        return mongoTemplate.query(Loan.class).as(LoanSummary.class).matching(query).all();
+    }
+
+    @Override
+    public Page<Loan> findActiveWithFields(Collection<String> fields, Pageable pageable) {
+        Query query = new Query(Criteria.where("deleted").is(false)).with(pageable);
+        query.fields().include(fields.toArray(String[]::new));
+        List<Loan> loans = mongoTemplate.find(query, Loan.class);
+        return PageableExecutionUtils.getPage(loans, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Loan.class));
+    }
+
+    @Override
+    public Page<LoanSummary> findSummaries(LoanFilter filter, Pageable pageable) {
+        Query query = new Query(activeCriteria(filter)).with(pageable);
+        List<LoanSummary> loans = mongoTemplate.query(Loan.class).as(LoanSummary.class).matching(query).all();
+        return PageableExecutionUtils.getPage(loans, pageable,
+                () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Loan.class));
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Loan> loans) {
+        List<Document> documents = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            // written past MongoTemplate, so the version is initialised here as save() would
+            if (loan.getVersion() == null) {
+                loan.setVersion(0L);
+            }
+            Document document = new Document();
+            mongoTemplate.getConverter().write(loan, document);
+            documents.add(document);
+        }
+        try {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(Loan.class))
+                    .insertMany(documents, new InsertManyOptions().ordered(false));
+            return Map.of();
+        } catch (MongoBulkWriteException e) {
+            return e.getWriteErrors().stream()
+                    .collect(Collectors.toMap(BulkWriteError::getIndex, BulkWriteError::getMessage));
+        }
+    }
+
+    @Override
+    public Stream<Loan> streamActive(LoanFilter filter) {
+        Query query = new Query(activeCriteria(filter))
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .cursorBatchSize(STREAM_BATCH_SIZE);
+        return mongoTemplate.stream(query, Loan.class);
+    }
+
+    @Override
+    public PortfolioStats portfolioStats(LoanFilter filter) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(activeCriteria(filter)),
+                // only keys of the active_stats index from here on, so the match needs no document fetches
+                Aggregation.project("status", "loanType", "requestedAmount", "sanctionedAmount", "approvedInterestRate")
+                        .and("financials.rating").as("rating")
+                        .andExclude("_id"),
+                Aggregation.facet(statsGroup()).as("totals")
+                        .and(statsGroup("status"), Aggregation.sort(Sort.Direction.ASC, "_id")).as("byStatus")
+                        .and(statsGroup("loanType"), Aggregation.sort(Sort.Direction.ASC, "_id")).as("byLoanType")
+                        .and(statsGroup("rating"), Aggregation.sort(Sort.Direction.ASC, "_id")).as("byRating"));
+        Document result = mongoTemplate.aggregate(aggregation, Loan.class, Document.class).getUniqueMappedResult();
+
+        PortfolioStats stats = new PortfolioStats();
+        if (result == null) {
+            return stats;
+        }
+        // $group emits nothing for an empty input, so the totals facet is then an empty list
+        List<PortfolioStats.Bucket> totals = buckets(result, "totals");
+        if (!totals.isEmpty()) {
+            stats.setTotals(totals.get(0));
+        }
+        stats.setByStatus(buckets(result, "byStatus"));
+        stats.setByLoanType(buckets(result, "byLoanType"));
+        stats.setByRating(buckets(result, "byRating"));
+        return stats;
+    }
+
+    @Override
+    public Map<String, PortfolioSummary.Counter> portfolioCounters() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("deleted").is(false)),
+                // covered by active_stats like portfolioStats
+                Aggregation.project("status", "loanType", "requestedAmount", "sanctionedAmount").andExclude("_id"),
+                Aggregation.group("status", "loanType")
+                        .count().as("count")
+                        .sum("requestedAmount").as("requestedAmount")
+                        .sum("sanctionedAmount").as("sanctionedAmount"));
+        Map<String, PortfolioSummary.Counter> counters = new TreeMap<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, Loan.class, Document.class)) {
+            Document key = group.get("_id", Document.class);
+            String status = key.getString("status");
+            String loanType = key.getString("loanType");
+            counters.put(PortfolioSummary.key(status == null ? null : LoanStatus.valueOf(status),
+                            loanType == null ? null : LoanType.valueOf(loanType)),
+                    new PortfolioSummary.Counter(((Number) group.get("count")).longValue(),
+                            ((Number) group.get("requestedAmount")).doubleValue(),
+                            ((Number) group.get("sanctionedAmount")).doubleValue()));
+        }
+        return counters;
+    }
+
+    private static AggregationOperation statsGroup(String... key) {
+        return Aggregation.group(key)
+                .count().as("count")
+                .sum("requestedAmount").as("requestedAmount")
+                .sum("sanctionedAmount").as("sanctionedAmount")
+                .avg("approvedInterestRate").as("avgApprovedInterestRate");
+    }
+
+    private static List<PortfolioStats.Bucket> buckets(Document result, String facet) {
+        List<PortfolioStats.Bucket> buckets = new ArrayList<>();
+        for (Document group : result.getList(facet, Document.class, List.of())) {
+            Object key = group.get("_id");
+            Number avgRate = (Number) group.get("avgApprovedInterestRate");
+            buckets.add(new PortfolioStats.Bucket(key == null ? null : key.toString(),
+                    ((Number) group.get("count")).longValue(),
+                    ((Number) group.get("requestedAmount")).doubleValue(),
+                    ((Number) group.get("sanctionedAmount")).doubleValue(),
+                    avgRate == null ? null : avgRate.doubleValue()));
+        }
+        return buckets;
+    }
+
+    /**
+     * One query for {@code filter}, with its predicates in the order of the index keys that can answer them: the
+     * equality fields that lead a {@code {field, createdAt}} index, then the createdAt range those indexes (and
+     * {@code active_createdAt}) bound, then the ranges that are only checked on the fetched loans.
+     */
+    static Criteria activeCriteria(LoanFilter filter) {
+        Criteria criteria = Criteria.where("deleted").is(false);
+        if (filter.getCreatedBy() != null) {
+            criteria.and("createdBy").is(filter.getCreatedBy());
+        }
+        if (filter.getApprovedBy() != null) {
+            criteria.and("approvedBy").is(filter.getApprovedBy());
+        }
+        if (filter.getStatus() != null) {
+            criteria.and("status").is(filter.getStatus());
+        }
+        if (filter.getLoanType() != null) {
+            criteria.and("loanType").is(filter.getLoanType());
+        }
+        range(criteria, "createdAt", filter.getCreatedFrom(), filter.getCreatedTo(), false);
+        range(criteria, "approvedAt", filter.getApprovedFrom(), filter.getApprovedTo(), false);
+        range(criteria, "requestedAmount", filter.getMinAmount(), filter.getMaxAmount(), true);
+        return criteria;
+    }
+
+    private static void range(Criteria criteria, String field, Object from, Object to, boolean toInclusive) {
+        if (from == null && to == null) {
+            return;
+        }
+        Criteria bounds = criteria.and(field);
+        if (from != null) {
+            bounds.gte(from);
+        }
+        if (to != null) {
+            if (toInclusive) {
+                bounds.lte(to);
+            } else {
+                bounds.lt(to);
+            }
+        }
+    }
+
+    @Override
+    public List<Loan> findForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore, String afterId,
+                                       int limit) {
+        Criteria criteria = repricingCriteria(statuses, pricedBefore);
+        if (afterId != null) {
+            criteria.and("id").gt(afterId);
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(limit);
+        query.fields().include("loanType", "tenureMonths", "requestedAmount", "financials", "indicativeRate");
+        return mongoTemplate.find(query, Loan.class);
+    }
+
+    @Override
+    public long countForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore) {
+        return mongoTemplate.count(new Query(repricingCriteria(statuses, pricedBefore)), Loan.class);
+    }
+
+    @Override
+    public List<String> findIdsPricedAt(Collection<String> ids, Instant pricedAt) {
+        Query query = new Query(Criteria.where("id").in(ids).and("deleted").is(false).and("pricedAt").is(pricedAt));
+        query.fields().include("id");
+        return mongoTemplate.find(query, Loan.class).stream().map(Loan::getId).toList();
+    }
+
+    private static Criteria repricingCriteria(Collection<LoanStatus> statuses, Instant pricedBefore) {
+        return Criteria.where("deleted").is(false).and("status").in(statuses)
+                .orOperator(Criteria.where("pricedAt").lt(pricedBefore), Criteria.where("pricedAt").is(null));
+    }
+
+    @Override
+    public long updateEachIfStatus(Map<String, Update> updatesById, Collection<LoanStatus> fromStatuses,
+                                   Criteria condition) {
+        if (updatesById.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class);
+        updatesById.forEach((id, update) -> {
+            Query query = new Query(inStatus(id, fromStatuses));
+            if (condition != null) {
+                query.addCriteria(condition);
+            }
+            bulk.updateOne(query, LoanRepositoryCustom.versioned(update));
+        });
+        return bulk.execute().getModifiedCount();
+    }
+
+    private static Criteria inStatus(String id, Collection<LoanStatus> statuses) {
+        Criteria criteria = Criteria.where("id").is(id).and("deleted").is(false);
+        if (!statuses.isEmpty()) {
+            criteria.and("status").in(statuses);
+        }
+        return criteria;
+    }
+
+    @Override
+    public List<Loan> findForDecision(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids).and("deleted").is(false));
+        query.fields().include("version", "status", "loanType", "requestedAmount", "sanctionedAmount",
+                "indicativeRate", "tenureMonths", "financials");
+        return mongoTemplate.find(query, Loan.class);
+    }
+
+    @Override
+    public long updateEachAtVersion(Map<String, Update> updatesById, Map<String, Long> versionsById,
+                                    Collection<LoanStatus> fromStatuses) {
+        if (updatesById.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class);
+        updatesById.forEach((id, update) -> {
+            long version = versionsById.get(id);
+            Criteria criteria = inStatus(id, fromStatuses);
+            // a loan stored without a version is at version 0
+            criteria = version == 0 ? criteria.and("version").in(0L, null) : criteria.and("version").is(version);
+            bulk.updateOne(new Query(criteria), LoanRepositoryCustom.versioned(update));
+        });
+        return bulk.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<String> findIdsDecidedIn(Map<String, Long> versionsById, String batch) {
+        if (versionsById.isEmpty()) {
+            return List.of();
+        }
+        Criteria[] written = versionsById.entrySet().stream()
+                .map(e -> Criteria.where("id").is(e.getKey()).and("version").is(e.getValue() + 1))
+                .toArray(Criteria[]::new);
+        Query query = new Query(Criteria.where("deleted").is(false).and("decisionBatch").is(batch)
+                .orOperator(written));
+        query.fields().include("id");
+        return mongoTemplate.find(query, Loan.class).stream().map(Loan::getId).toList();
+    }
+}
@@ -0,0 +1,8 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface PortfolioSummaryRepository extends MongoRepository<PortfolioSummary, String>,
+        PortfolioSummaryRepositoryCustom {
+}
@@ -0,0 +1,15 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+
+import java.time.Instant;
+import java.util.Map;
+
+public interface PortfolioSummaryRepositoryCustom {
+
+    /**
+     * Adds each delta to its bucket of the summary document in one upserting {@code $inc}, creating the document
+     * and any missing bucket at zero first, and stamps {@code updatedAt}.
+     */
+    void increment(Map<String, PortfolioSummary.Counter> deltas, Instant at);
+}
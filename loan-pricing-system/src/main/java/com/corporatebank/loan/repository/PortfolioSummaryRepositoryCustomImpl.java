@@ -0,0 +1,29 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PortfolioSummaryRepositoryCustomImpl implements PortfolioSummaryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void increment(Map<String, PortfolioSummary.Counter> deltas, Instant at) {
+        Update update = new Update().set("updatedAt", at);
+        deltas.forEach((key, delta) -> {
+            String bucket = "buckets." + key + ".";
+            update.inc(bucket + "count", delta.getCount())
+                    .inc(bucket + "requestedAmount", delta.getRequestedAmount())
+                    .inc(bucket + "sanctionedAmount", delta.getSanctionedAmount());
+        });
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(PortfolioSummary.ID)), update, PortfolioSummary.class);
+    }
+}
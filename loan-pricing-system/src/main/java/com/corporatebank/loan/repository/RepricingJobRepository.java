@@ -0,0 +1,13 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface RepricingJobRepository extends MongoRepository<RepricingJob, String>, RepricingJobRepositoryCustom {
+    Optional<RepricingJob> findFirstByStatus(JobStatus status);
+    List<RepricingJob> findTop20ByOrderByStartedAtDesc();
+}
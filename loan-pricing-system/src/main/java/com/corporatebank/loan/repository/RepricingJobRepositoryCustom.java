@@ -0,0 +1,23 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.RepricingJob;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RepricingJobRepositoryCustom {
+
+    /**
+     * Marks the job RUNNING under {@code owner}'s lease in one findAndModify, if it has not completed and nobody
+     * holds its lease: no owner, or a heartbeat before {@code expiredBefore}. Returns the claimed job, or empty when
+     * it cannot be claimed. Throws {@link org.springframework.dao.DuplicateKeyException} while another job is
+     * RUNNING.
+     */
+    Optional<RepricingJob> claimLease(String id, String owner, Instant now, Instant expiredBefore);
+
+    /**
+     * Replaces the stored job with {@code job} if {@code owner} still holds its lease; false when another instance
+     * has taken it over.
+     */
+    boolean saveIfLeased(RepricingJob job, String owner);
+}
@@ -0,0 +1,40 @@
+package com.corporatebank.loan.repository;
+
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class RepricingJobRepositoryCustomImpl implements RepricingJobRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<RepricingJob> claimLease(String id, String owner, Instant now, Instant expiredBefore) {
+        // jobs recorded before leases existed have no owner and are free
+        Query query = new Query(Criteria.where("id").is(id).and("status").ne(JobStatus.COMPLETED)
+                .orOperator(Criteria.where("leaseOwner").is(null), Criteria.where("heartbeatAt").lt(expiredBefore)));
+        Update update = new Update()
+                .set("status", JobStatus.RUNNING)
+                .set("leaseOwner", owner)
+                .set("heartbeatAt", now)
+                .set("updatedAt", now)
+                .unset("error");
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), RepricingJob.class));
+    }
+
+    @Override
+    public boolean saveIfLeased(RepricingJob job, String owner) {
+        Query query = new Query(Criteria.where("id").is(job.getId()).and("leaseOwner").is(owner));
+        return mongoTemplate.findAndReplace(query, job) != null;
+    }
+}
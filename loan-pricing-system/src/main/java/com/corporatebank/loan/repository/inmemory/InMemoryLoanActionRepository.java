@@ -0,0 +1,134 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanActionBucket;
+import com.corporatebank.loan.repository.LoanActionRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link LoanActionRepository} for the {@code inmemory} profile. Bucket ids are indexed per loan, and appends to a
+ * loan run under that loan's index entry, so each loan's buckets fill one at a time, in {@code sequence} order, as
+ * the upserts on the unique (loanId, sequence) index do in MongoDB.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryLoanActionRepository extends InMemoryRepository<LoanActionBucket>
+        implements LoanActionRepository {
+
+    private static final Comparator<LoanActionBucket> NEWEST_FIRST =
+            Comparator.comparingInt(LoanActionBucket::getSequence).reversed();
+
+    private final Map<String, List<String>> bucketIdsByLoan = new ConcurrentHashMap<>();
+    private final int bucketSize;
+
+    public InMemoryLoanActionRepository(@Value("${loan.actions.bucket-size:50}") int bucketSize) {
+        this.bucketSize = Math.max(1, bucketSize);
+    }
+
+    @Override
+    protected String idOf(LoanActionBucket bucket) {
+        return bucket.getId();
+    }
+
+    @Override
+    protected void assignId(LoanActionBucket bucket, String id) {
+        bucket.setId(id);
+    }
+
+    @Override
+    protected LoanActionBucket copy(LoanActionBucket bucket) {
+        LoanActionBucket copy = new LoanActionBucket();
+        BeanUtils.copyProperties(bucket, copy, "actions");
+        bucket.getActions().forEach(action -> copy.getActions().add(
+                new LoanAction(action.getBy(), action.getAction(), action.getTimestamp())));
+        return copy;
+    }
+
+    @Override
+    protected void reindex(LoanActionBucket before, LoanActionBucket after) {
+        if (before != null && (after == null || !Objects.equals(before.getLoanId(), after.getLoanId()))) {
+            bucketIdsByLoan.computeIfPresent(before.getLoanId(), (loanId, ids) -> {
+                List<String> remaining = new ArrayList<>(ids);
+                remaining.remove(before.getId());
+                return remaining.isEmpty() ? null : List.copyOf(remaining);
+            });
+        }
+        if (after != null && (before == null || !Objects.equals(before.getLoanId(), after.getLoanId()))) {
+            bucketIdsByLoan.merge(after.getLoanId(), List.of(after.getId()), (ids, added) -> {
+                List<String> all = new ArrayList<>(ids);
+                all.addAll(added);
+                return List.copyOf(all);
+            });
+        }
+    }
+
+    @Override
+    public void append(Map<String, LoanAction> actionsByLoanId) {
+        actionsByLoanId.forEach((loanId, action) -> bucketIdsByLoan.compute(loanId, (key, ids) -> {
+            List<String> bucketIds = ids == null ? List.of() : ids;
+            LoanActionBucket newest = bucketIds.stream()
+                    .map(documents::get)
+                    .filter(Objects::nonNull)
+                    .min(NEWEST_FIRST)
+                    .orElse(null);
+            if (newest != null && newest.getCount() < bucketSize) {
+                LoanActionBucket updated = copy(newest);
+                push(updated, action);
+                documents.put(updated.getId(), updated);
+                return bucketIds;
+            }
+            LoanActionBucket bucket = new LoanActionBucket();
+            bucket.setId(new ObjectId().toHexString());
+            bucket.setLoanId(loanId);
+            bucket.setSequence(newest == null ? 0 : newest.getSequence() + 1);
+            push(bucket, action);
+            documents.put(bucket.getId(), bucket);
+            List<String> all = new ArrayList<>(bucketIds);
+            all.add(bucket.getId());
+            return List.copyOf(all);
+        }));
+    }
+
+    private static void push(LoanActionBucket bucket, LoanAction action) {
+        bucket.getActions().add(new LoanAction(action.getBy(), action.getAction(), action.getTimestamp()));
+        bucket.setCount(bucket.getCount() + 1);
+        if (bucket.getFirstAt() == null || action.getTimestamp().isBefore(bucket.getFirstAt())) {
+            bucket.setFirstAt(action.getTimestamp());
+        }
+        if (bucket.getLastAt() == null || action.getTimestamp().isAfter(bucket.getLastAt())) {
+            bucket.setLastAt(action.getTimestamp());
+        }
+    }
+
+    @Override
+    public Page<LoanAction> findHistory(String loanId, Pageable pageable) {
+        List<LoanActionBucket> buckets = new ArrayList<>();
+        bucketIdsByLoan.getOrDefault(loanId, List.of()).forEach(id -> findById(id).ifPresent(buckets::add));
+        buckets.sort(NEWEST_FIRST);
+        List<LoanAction> newestFirst = new ArrayList<>();
+        for (LoanActionBucket bucket : buckets) {
+            List<LoanAction> actions = bucket.getActions();
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                newestFirst.add(actions.get(i));
+            }
+        }
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long limit = pageable.isPaged() ? pageable.getPageSize() : Long.MAX_VALUE;
+        List<LoanAction> content = newestFirst.stream().skip(offset).limit(limit).toList();
+        return new PageImpl<>(new ArrayList<>(content), pageable, newestFirst.size());
+    }
+}
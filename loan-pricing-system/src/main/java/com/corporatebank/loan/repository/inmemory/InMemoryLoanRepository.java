@@ -0,0 +1,585 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanSearchKeys;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.repository.LoanRepositoryCustom;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link LoanRepository} over a concurrent map, for the {@code inmemory} profile. Like the partial MongoDB
+ * indexes on {@link Loan}, the secondary indexes cover non-deleted loans only: (createdAt, id) for the default
+ * newest-first listing, keyset scrolling and export, status to ids for the repricing walk, and (searchName, id)
+ * and (searchKey, searchName, id) for client-name search. Pages sorted by
+ * createdAt are read straight off the index; any other sort falls back to sorting the active loans, as MongoDB
+ * would with an in-memory SORT stage.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryLoanRepository extends InMemoryRepository<Loan> implements LoanRepository {
+
+    private static final String CREATED_AT = "createdAt";
+
+    private final NavigableSet<CreatedKey> activeByCreatedAt = new ConcurrentSkipListSet<>();
+    private final Map<LoanStatus, NavigableSet<String>> activeByStatus = new EnumMap<>(LoanStatus.class);
+    private final AtomicLong activeCount = new AtomicLong();
+    private final NavigableSet<NameKey> activeBySearchName = new ConcurrentSkipListSet<>();
+    private final NavigableSet<SearchKey> activeBySearchKey = new ConcurrentSkipListSet<>();
+
+    public InMemoryLoanRepository() {
+        for (LoanStatus status : LoanStatus.values()) {
+            activeByStatus.put(status, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    @Override
+    protected String idOf(Loan loan) {
+        return loan.getId();
+    }
+
+    @Override
+    protected void assignId(Loan loan, String id) {
+        loan.setId(id);
+    }
+
+    @Override
+    protected Loan copy(Loan loan) {
+        Loan copy = new Loan();
+        BeanUtils.copyProperties(loan, copy, "financials", "lastAction", "searchKeys");
+        if (loan.getSearchKeys() != null) {
+            copy.setSearchKeys(new ArrayList<>(loan.getSearchKeys()));
+        }
+        if (loan.getFinancials() != null) {
+            Loan.Financials financials = new Loan.Financials();
+            BeanUtils.copyProperties(loan.getFinancials(), financials);
+            copy.setFinancials(financials);
+        }
+        LoanAction last = loan.getLastAction();
+        if (last != null) {
+            copy.setLastAction(new LoanAction(last.getBy(), last.getAction(), last.getTimestamp()));
+        }
+        return copy;
+    }
+
+    @Override
+    protected void reindex(Loan before, Loan after) {
+        if (before != null && !before.isDeleted()) {
+            activeByCreatedAt.remove(new CreatedKey(before.getCreatedAt(), before.getId()));
+            if (before.getStatus() != null) {
+                activeByStatus.get(before.getStatus()).remove(before.getId());
+            }
+            searchIndex(before, false);
+            activeCount.decrementAndGet();
+        }
+        if (after != null && !after.isDeleted()) {
+            activeByCreatedAt.add(new CreatedKey(after.getCreatedAt(), after.getId()));
+            if (after.getStatus() != null) {
+                activeByStatus.get(after.getStatus()).add(after.getId());
+            }
+            searchIndex(after, true);
+            activeCount.incrementAndGet();
+        }
+    }
+
+    private void searchIndex(Loan loan, boolean add) {
+        if (loan.getSearchName() == null) {
+            return;
+        }
+        NameKey name = new NameKey(loan.getSearchName(), loan.getId());
+        if (add) {
+            activeBySearchName.add(name);
+        } else {
+            activeBySearchName.remove(name);
+        }
+        if (loan.getSearchKeys() != null) {
+            for (String key : loan.getSearchKeys()) {
+                SearchKey entry = new SearchKey(key, loan.getSearchName(), loan.getId());
+                if (add) {
+                    activeBySearchKey.add(entry);
+                } else {
+                    activeBySearchKey.remove(entry);
+                }
+            }
+        }
+    }
+
+    // a new loan starts at version 0, as MongoTemplate does on insert
+    @Override
+    public <S extends Loan> S save(S loan) {
+        if (loan.getVersion() == null) {
+            loan.setVersion(0L);
+        }
+        return super.save(loan);
+    }
+
+    @Override
+    public <S extends Loan> S insert(S loan) {
+        if (loan.getVersion() == null) {
+            loan.setVersion(0L);
+        }
+        return super.insert(loan);
+    }
+
+    @Override
+    public Page<Loan> findByDeletedFalse(Pageable pageable) {
+        return activePage(pageable);
+    }
+
+    @Override
+    public Page<LoanSummary> findSummaryByDeletedFalse(Pageable pageable) {
+        return activePage(pageable).map(InMemoryLoanRepository::summary);
+    }
+
+    @Override
+    public Optional<Loan> findByIdAndDeletedFalse(String id) {
+        return Optional.ofNullable(documents.get(id)).filter(loan -> !loan.isDeleted()).map(this::copy);
+    }
+
+    @Override
+    public long countByDeletedFalse() {
+        return activeCount.get();
+    }
+
+    @Override
+    public Optional<Loan> updateIfStatus(String id, Collection<LoanStatus> fromStatuses, Criteria condition,
+                                         Update update) {
+        return updateOne(id, inStatus(fromStatuses, condition), LoanRepositoryCustom.versioned(update));
+    }
+
+    @Override
+    public Optional<Loan> updateIfStatusReturningPrevious(String id, Collection<LoanStatus> fromStatuses,
+                                                          Criteria condition, Update update) {
+        return updateOne(id, inStatus(fromStatuses, condition), LoanRepositoryCustom.versioned(update), false);
+    }
+
+    @Override
+    public Optional<Long> findVersion(String id) {
+        return Optional.ofNullable(documents.get(id))
+                .filter(loan -> !loan.isDeleted())
+                .map(loan -> loan.getVersion() == null ? 0L : loan.getVersion());
+    }
+
+    @Override
+    public List<LoanSummary> searchNamePrefix(String prefix, long skip, int limit) {
+        return namePrefix(prefix).skip(skip).limit(limit).map(InMemoryLoanRepository::summary).toList();
+    }
+
+    @Override
+    public long countNamePrefix(String prefix, long limit) {
+        return namePrefix(prefix).limit(limit).count();
+    }
+
+    @Override
+    public List<LoanSummary> searchNameKeys(List<String> keys, String excludedPrefix, long skip, int limit) {
+        // walk the first key's entries, already in (searchName, id) order, and check the rest on the loan
+        String first = keys.get(0);
+        String excludedEnd = excludedPrefix == null ? null : LoanSearchKeys.prefixEnd(excludedPrefix);
+        return activeBySearchKey.tailSet(new SearchKey(first, "", ""), true).stream()
+                .takeWhile(entry -> entry.key().equals(first))
+                .filter(entry -> excludedPrefix == null || entry.searchName().compareTo(excludedPrefix) < 0
+                        || entry.searchName().compareTo(excludedEnd) >= 0)
+                .map(entry -> documents.get(entry.id()))
+                .filter(loan -> loan != null && !loan.isDeleted() && loan.getSearchKeys() != null
+                        && loan.getSearchKeys().containsAll(keys))
+                .skip(skip)
+                .limit(limit)
+                .map(InMemoryLoanRepository::summary)
+                .toList();
+    }
+
+    // stored non-deleted loans whose searchName starts with prefix, off the (searchName, id) index
+    private Stream<Loan> namePrefix(String prefix) {
+        return activeBySearchName
+                .subSet(new NameKey(prefix, ""), true, new NameKey(LoanSearchKeys.prefixEnd(prefix), ""), false)
+                .stream()
+                .map(key -> documents.get(key.id()))
+                .filter(loan -> loan != null && !loan.isDeleted());
+    }
+
+    @Override
+    public List<LoanSummary> findActiveAfter(LoanCursor after, int limit) {
+        // createdAt desc, id desc, so loans without a createdAt come last, as in MongoDB
+        NavigableSet<CreatedKey> newestFirst = activeByCreatedAt.descendingSet();
+        Stream<CreatedKey> keys = after == null
+                ? newestFirst.stream()
+                : newestFirst.tailSet(new CreatedKey(after.createdAt(), after.id()), false).stream();
+        return active(keys).limit(limit).map(InMemoryLoanRepository::summary).toList();
+    }
+
+    @Override
+    public Page<Loan> findActiveWithFields(Collection<String> fields, Pageable pageable) {
+        return activePage(pageable).map(loan -> project(loan, fields));
+    }
+
+    /**
+     * A createdAt sort (either direction, optionally then id) reads the page straight off the (createdAt, id) index,
+     * like {@link #findActiveAfter}; any other sort sorts the matches. Either way the total is only counted when
+     * the page does not reveal it.
+     */
+    @Override
+    public Page<LoanSummary> findSummaries(LoanFilter filter, Pageable pageable) {
+        Sort.Direction direction = indexDirection(pageable.getSort());
+        if (direction == null) {
+            return page(matching(filter), pageable, () -> matching(filter).count()).map(InMemoryLoanRepository::summary);
+        }
+        Stream<Loan> ordered = matching(filter, direction);
+        if (pageable.isPaged()) {
+            ordered = ordered.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<LoanSummary> content = ordered.map(this::copy).map(InMemoryLoanRepository::summary).toList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> matching(filter, direction).count());
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Loan> loans) {
+        Map<Integer, String> errors = new HashMap<>();
+        for (int i = 0; i < loans.size(); i++) {
+            try {
+                insert(loans.get(i));
+            } catch (DuplicateKeyException e) {
+                errors.put(i, e.getMessage());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public Stream<Loan> streamActive(LoanFilter filter) {
+        return matching(filter).map(this::copy);
+    }
+
+    @Override
+    public PortfolioStats portfolioStats(LoanFilter filter) {
+        StatsGroup totals = new StatsGroup();
+        Map<String, StatsGroup> byStatus = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        Map<String, StatsGroup> byLoanType = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        Map<String, StatsGroup> byRating = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        matching(filter).forEach(loan -> {
+            totals.add(loan);
+            byStatus.computeIfAbsent(loan.getStatus() == null ? null : loan.getStatus().name(),
+                    key -> new StatsGroup()).add(loan);
+            byLoanType.computeIfAbsent(loan.getLoanType() == null ? null : loan.getLoanType().name(),
+                    key -> new StatsGroup()).add(loan);
+            byRating.computeIfAbsent(loan.getFinancials() == null ? null : loan.getFinancials().getRating(),
+                    key -> new StatsGroup()).add(loan);
+        });
+        PortfolioStats stats = new PortfolioStats();
+        if (totals.count > 0) {
+            stats.setTotals(totals.bucket(null));
+        }
+        stats.setByStatus(StatsGroup.buckets(byStatus));
+        stats.setByLoanType(StatsGroup.buckets(byLoanType));
+        stats.setByRating(StatsGroup.buckets(byRating));
+        return stats;
+    }
+
+    @Override
+    public Map<String, PortfolioSummary.Counter> portfolioCounters() {
+        Map<String, PortfolioSummary.Counter> counters = new TreeMap<>();
+        active(activeByCreatedAt.stream()).forEach(loan -> {
+            PortfolioSummary.Counter counter = counters.computeIfAbsent(
+                    PortfolioSummary.key(loan.getStatus(), loan.getLoanType()), key -> new PortfolioSummary.Counter());
+            counter.setCount(counter.getCount() + 1);
+            counter.setRequestedAmount(counter.getRequestedAmount()
+                    + (loan.getRequestedAmount() == null ? 0 : loan.getRequestedAmount()));
+            counter.setSanctionedAmount(counter.getSanctionedAmount()
+                    + (loan.getSanctionedAmount() == null ? 0 : loan.getSanctionedAmount()));
+        });
+        return counters;
+    }
+
+    // stored (uncopied) non-deleted loans matching filter, newest first, off the createdAt index
+    private Stream<Loan> matching(LoanFilter filter) {
+        return matching(filter, Sort.Direction.DESC);
+    }
+
+    // as above, in createdAt (then id) order in the given direction
+    private Stream<Loan> matching(LoanFilter filter, Sort.Direction direction) {
+        NavigableSet<CreatedKey> keys = activeByCreatedAt;
+        boolean ranged = filter.getCreatedFrom() != null || filter.getCreatedTo() != null;
+        if (filter.getCreatedFrom() != null) {
+            keys = keys.tailSet(new CreatedKey(filter.getCreatedFrom(), ""), true);
+        }
+        if (filter.getCreatedTo() != null) {
+            keys = keys.headSet(new CreatedKey(filter.getCreatedTo(), ""), false);
+        }
+        Stream<CreatedKey> ordered = direction.isAscending() ? keys.stream() : keys.descendingSet().stream();
+        return active(ordered.filter(key -> !ranged || key.createdAt() != null))
+                .filter(loan -> filter.getStatus() == null || filter.getStatus() == loan.getStatus())
+                .filter(loan -> filter.getLoanType() == null || filter.getLoanType() == loan.getLoanType())
+                .filter(loan -> filter.getCreatedBy() == null || filter.getCreatedBy().equals(loan.getCreatedBy()))
+                .filter(loan -> filter.getApprovedBy() == null || filter.getApprovedBy().equals(loan.getApprovedBy()))
+                .filter(loan -> within(loan.getApprovedAt(), filter.getApprovedFrom(), filter.getApprovedTo()))
+                .filter(loan -> (filter.getMinAmount() == null && filter.getMaxAmount() == null)
+                        || (loan.getRequestedAmount() != null
+                        && (filter.getMinAmount() == null || loan.getRequestedAmount() >= filter.getMinAmount())
+                        && (filter.getMaxAmount() == null || loan.getRequestedAmount() <= filter.getMaxAmount())));
+    }
+
+    // [from, to); like a MongoDB range, never matches a loan without the date
+    private static boolean within(Instant at, Instant from, Instant to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return at != null && (from == null || !at.isBefore(from)) && (to == null || at.isBefore(to));
+    }
+
+    @Override
+    public List<Loan> findForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore, String afterId,
+                                       int limit) {
+        // each status set is already in id order: take up to limit from each, then merge
+        List<Loan> candidates = new ArrayList<>();
+        for (LoanStatus status : statuses) {
+            NavigableSet<String> ids = activeByStatus.get(status);
+            if (afterId != null) {
+                ids = ids.tailSet(afterId, false);
+            }
+            Iterator<String> it = ids.iterator();
+            int taken = 0;
+            while (taken < limit && it.hasNext()) {
+                Loan loan = documents.get(it.next());
+                if (loan != null && !loan.isDeleted() && pricedBefore(loan, pricedBefore)) {
+                    candidates.add(loan);
+                    taken++;
+                }
+            }
+        }
+        candidates.sort((a, b) -> a.getId().compareTo(b.getId()));
+        List<String> fields = List.of("loanType", "tenureMonths", "requestedAmount", "financials", "indicativeRate");
+        return candidates.stream().limit(limit).map(loan -> project(loan, fields)).toList();
+    }
+
+    @Override
+    public long countForRepricing(Collection<LoanStatus> statuses, Instant pricedBefore) {
+        return statuses.stream()
+                .flatMap(status -> activeByStatus.get(status).stream())
+                .map(documents::get)
+                .filter(loan -> loan != null && !loan.isDeleted() && pricedBefore(loan, pricedBefore))
+                .count();
+    }
+
+    @Override
+    public List<String> findIdsPricedAt(Collection<String> ids, Instant pricedAt) {
+        return ids.stream()
+                .map(documents::get)
+                .filter(loan -> loan != null && !loan.isDeleted() && Objects.equals(loan.getPricedAt(), pricedAt))
+                .map(Loan::getId)
+                .toList();
+    }
+
+    private static boolean pricedBefore(Loan loan, Instant pricedBefore) {
+        return loan.getPricedAt() == null || loan.getPricedAt().isBefore(pricedBefore);
+    }
+
+    @Override
+    public long updateEachIfStatus(Map<String, Update> updatesById, Collection<LoanStatus> fromStatuses,
+                                   Criteria condition) {
+        Predicate<Loan> filter = inStatus(fromStatuses, condition);
+        long modified = 0;
+        for (Map.Entry<String, Update> entry : updatesById.entrySet()) {
+            if (updateOne(entry.getKey(), filter, LoanRepositoryCustom.versioned(entry.getValue())).isPresent()) {
+                modified++;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public List<Loan> findForDecision(Collection<String> ids) {
+        List<String> fields = List.of("version", "status", "loanType", "requestedAmount", "sanctionedAmount",
+                "indicativeRate", "tenureMonths", "financials");
+        return ids.stream()
+                .distinct()
+                .map(documents::get)
+                .filter(loan -> loan != null && !loan.isDeleted())
+                .map(loan -> project(loan, fields))
+                .toList();
+    }
+
+    @Override
+    public long updateEachAtVersion(Map<String, Update> updatesById, Map<String, Long> versionsById,
+                                    Collection<LoanStatus> fromStatuses) {
+        long modified = 0;
+        for (Map.Entry<String, Update> entry : updatesById.entrySet()) {
+            long version = versionsById.get(entry.getKey());
+            Predicate<Loan> filter = inStatus(fromStatuses, null)
+                    .and(loan -> (loan.getVersion() == null ? 0 : loan.getVersion()) == version);
+            if (updateOne(entry.getKey(), filter, LoanRepositoryCustom.versioned(entry.getValue())).isPresent()) {
+                modified++;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public List<String> findIdsDecidedIn(Map<String, Long> versionsById, String batch) {
+        return versionsById.entrySet().stream()
+                .filter(e -> {
+                    Loan loan = documents.get(e.getKey());
+                    return loan != null && !loan.isDeleted() && batch.equals(loan.getDecisionBatch())
+                            && loan.getVersion() != null && loan.getVersion() == e.getValue() + 1;
+                })
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static Predicate<Loan> inStatus(Collection<LoanStatus> statuses, Criteria condition) {
+        Predicate<Loan> filter =
+                loan -> !loan.isDeleted() && (statuses.isEmpty() || statuses.contains(loan.getStatus()));
+        return condition == null ? filter
+                : filter.and(loan -> InMemoryQueries.matches(loan, condition.getCriteriaObject()));
+    }
+
+    /**
+     * Page of non-deleted loans. A sort on createdAt alone (either direction, optionally then id) walks the
+     * (createdAt, id) index and copies only the requested page, like an IXSCAN with skip and limit.
+     */
+    private Page<Loan> activePage(Pageable pageable) {
+        Sort.Direction direction = indexDirection(pageable.getSort());
+        if (direction == null) {
+            return page(active(activeByCreatedAt.stream()), pageable, activeCount::get);
+        }
+        NavigableSet<CreatedKey> keys = direction.isAscending() ? activeByCreatedAt : activeByCreatedAt.descendingSet();
+        Stream<Loan> ordered = active(keys.stream());
+        if (pageable.isPaged()) {
+            ordered = ordered.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<Loan> content = ordered.map(this::copy).toList();
+        return PageableExecutionUtils.getPage(content, pageable, activeCount::get);
+    }
+
+    // direction when the sort is createdAt [, id] in one direction, i.e. what the index order answers
+    private static Sort.Direction indexDirection(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty() || orders.size() > 2 || !orders.get(0).getProperty().equals(CREATED_AT)) {
+            return null;
+        }
+        Sort.Direction direction = orders.get(0).getDirection();
+        if (orders.size() == 2) {
+            String second = orders.get(1).getProperty();
+            if (!(second.equals("id") || second.equals("_id")) || orders.get(1).getDirection() != direction) {
+                return null;
+            }
+        }
+        return direction;
+    }
+
+    private Stream<Loan> active(Stream<CreatedKey> keys) {
+        // an entry can change between the index read and the lookup; re-check it like a FETCH stage would
+        return keys.map(key -> documents.get(key.id())).filter(Objects::nonNull).filter(loan -> !loan.isDeleted());
+    }
+
+    private static LoanSummary summary(Loan loan) {
+        LoanSummary summary = new LoanSummary();
+        BeanUtils.copyProperties(loan, summary);
+        return summary;
+    }
+
+    /**
+     * Running $group accumulators: $sum skips missing amounts and $avg averages only the present rates.
+     */
+    private static final class StatsGroup {
+        private long count;
+        private double requestedAmount;
+        private double sanctionedAmount;
+        private double rateSum;
+        private long rateCount;
+
+        void add(Loan loan) {
+            count++;
+            requestedAmount += loan.getRequestedAmount() == null ? 0 : loan.getRequestedAmount();
+            sanctionedAmount += loan.getSanctionedAmount() == null ? 0 : loan.getSanctionedAmount();
+            if (loan.getApprovedInterestRate() != null) {
+                rateSum += loan.getApprovedInterestRate();
+                rateCount++;
+            }
+        }
+
+        PortfolioStats.Bucket bucket(String key) {
+            return new PortfolioStats.Bucket(key, count, requestedAmount, sanctionedAmount,
+                    rateCount == 0 ? null : rateSum / rateCount);
+        }
+
+        static List<PortfolioStats.Bucket> buckets(Map<String, StatsGroup> groups) {
+            List<PortfolioStats.Bucket> buckets = new ArrayList<>(groups.size());
+            groups.forEach((key, group) -> buckets.add(group.bucket(key)));
+            return buckets;
+        }
+    }
+
+    /**
+     * Key of the (searchName, id) index.
+     */
+    record NameKey(String searchName, String id) implements Comparable<NameKey> {
+
+        @Override
+        public int compareTo(NameKey other) {
+            int byName = searchName.compareTo(other.searchName);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Entry of the multikey (searchKeys, searchName, id) index: one per key of each loan.
+     */
+    record SearchKey(String key, String searchName, String id) implements Comparable<SearchKey> {
+
+        @Override
+        public int compareTo(SearchKey other) {
+            int byKey = key.compareTo(other.key);
+            if (byKey != 0) {
+                return byKey;
+            }
+            int byName = searchName.compareTo(other.searchName);
+            return byName != 0 ? byName : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Key of the (createdAt, id) index: MongoDB order, with a missing createdAt before any date.
+     */
+    record CreatedKey(Instant createdAt, String id) implements Comparable<CreatedKey> {
+
+        @Override
+        public int compareTo(CreatedKey other) {
+            int byCreatedAt = createdAt == null
+                    ? (other.createdAt == null ? 0 : -1)
+                    : (other.createdAt == null ? 1 : createdAt.compareTo(other.createdAt));
+            return byCreatedAt != 0 ? byCreatedAt : id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.repository.PortfolioSummaryRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link PortfolioSummaryRepository} for the {@code inmemory} profile: the single summary document, incremented
+ * under its map entry's lock.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryPortfolioSummaryRepository extends InMemoryRepository<PortfolioSummary>
+        implements PortfolioSummaryRepository {
+
+    @Override
+    protected String idOf(PortfolioSummary summary) {
+        return summary.getId();
+    }
+
+    @Override
+    protected void assignId(PortfolioSummary summary, String id) {
+        summary.setId(id);
+    }
+
+    @Override
+    protected PortfolioSummary copy(PortfolioSummary summary) {
+        PortfolioSummary copy = new PortfolioSummary();
+        BeanUtils.copyProperties(summary, copy, "buckets");
+        Map<String, PortfolioSummary.Counter> buckets = new TreeMap<>();
+        summary.getBuckets().forEach((key, counter) -> buckets.put(key, new PortfolioSummary.Counter(
+                counter.getCount(), counter.getRequestedAmount(), counter.getSanctionedAmount())));
+        copy.setBuckets(buckets);
+        return copy;
+    }
+
+    @Override
+    protected void reindex(PortfolioSummary before, PortfolioSummary after) {
+    }
+
+    @Override
+    public void increment(Map<String, PortfolioSummary.Counter> deltas, Instant at) {
+        documents.compute(PortfolioSummary.ID, (id, stored) -> {
+            PortfolioSummary summary = stored == null ? new PortfolioSummary() : copy(stored);
+            deltas.forEach((key, delta) -> {
+                PortfolioSummary.Counter counter =
+                        summary.getBuckets().computeIfAbsent(key, k -> new PortfolioSummary.Counter());
+                counter.setCount(counter.getCount() + delta.getCount());
+                counter.setRequestedAmount(counter.getRequestedAmount() + delta.getRequestedAmount());
+                counter.setSanctionedAmount(counter.getSanctionedAmount() + delta.getSanctionedAmount());
+            });
+            summary.setUpdatedAt(at);
+            return summary;
+        });
+    }
+}
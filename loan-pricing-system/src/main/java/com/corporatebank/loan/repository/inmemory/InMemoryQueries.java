@@ -0,0 +1,598 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import org.bson.Document;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.UntypedExampleMatcher;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.beans.PropertyDescriptor;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * The slice of MongoDB query semantics the in-memory repositories need, applied to entities through their bean
+ * properties: BSON comparison order for sorting, {@link org.springframework.data.mongodb.core.query.Criteria}
+ * documents and {@link Example}s for filtering and {@link Update} documents for writes. Operators that need a
+ * server-side index or engine ($text, geo queries, $where, $expr, $jsonSchema) and unknown operators are rejected
+ * with {@link InvalidDataAccessApiUsageException}, as MongoDB rejects them, rather than silently matching
+ * differently.
+ */
+final class InMemoryQueries {
+
+    private InMemoryQueries() {
+    }
+
+    static Object value(Object entity, String path) {
+        try {
+            return PropertyAccessorFactory.forBeanPropertyAccess(entity).getPropertyValue(property(path));
+        } catch (BeansException e) {
+            // a null intermediate object reads as a missing field, as in MongoDB
+            return null;
+        }
+    }
+
+    private static String property(String path) {
+        return "_id".equals(path) ? "id" : path;
+    }
+
+    /**
+     * BSON sort order: null (and missing) first, then numbers, strings, other objects, booleans and dates.
+     * Enums compare by name because they are stored as strings.
+     */
+    static int compare(Object a, Object b) {
+        int byType = Integer.compare(typeRank(a), typeRank(b));
+        if (byType != 0 || a == null) {
+            return byType;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Enum<?> || b instanceof Enum<?>) {
+            return asString(a).compareTo(asString(b));
+        }
+        if (a instanceof Date || b instanceof Date) {
+            return asInstant(a).compareTo(asInstant(b));
+        }
+        if (a instanceof Comparable<?> && a.getClass() == b.getClass()) {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> comparable = (Comparable<Object>) a;
+            return comparable.compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static int typeRank(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return 1;
+        }
+        if (value instanceof CharSequence || value instanceof Enum<?>) {
+            return 2;
+        }
+        if (value instanceof Boolean) {
+            return 4;
+        }
+        if (value instanceof Instant || value instanceof Date) {
+            return 5;
+        }
+        return 3;
+    }
+
+    private static String asString(Object value) {
+        return value instanceof Enum<?> e ? e.name() : value.toString();
+    }
+
+    private static Instant asInstant(Object value) {
+        return value instanceof Date date ? date.toInstant() : (Instant) value;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : b != null && compare(a, b) == 0;
+    }
+
+    /**
+     * Orders entities like a MongoDB sort on {@code sort}, breaking ties by {@code _id} ascending (natural
+     * order). Sort keys are read once per entity rather than once per comparison.
+     */
+    static <T> List<T> sorted(Collection<T> entities, Sort sort, Function<T, String> idOf) {
+        List<Sort.Order> orders = sort.toList();
+        record Row<T>(T entity, Object[] keys, String id) {
+        }
+        List<Row<T>> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+            Object[] keys = new Object[orders.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = read(wrapper, orders.get(i).getProperty());
+            }
+            rows.add(new Row<>(entity, keys, idOf.apply(entity)));
+        }
+        Comparator<Row<T>> comparator = (x, y) -> {
+            for (int i = 0; i < orders.size(); i++) {
+                int result = compare(x.keys()[i], y.keys()[i]);
+                if (result != 0) {
+                    return orders.get(i).isAscending() ? result : -result;
+                }
+            }
+            return x.id().compareTo(y.id());
+        };
+        rows.sort(comparator);
+        List<T> result = new ArrayList<>(rows.size());
+        rows.forEach(row -> result.add(row.entity()));
+        return result;
+    }
+
+    private static Object read(BeanWrapper wrapper, String path) {
+        try {
+            return wrapper.getPropertyValue(property(path));
+        } catch (BeansException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Whether {@code entity} matches a criteria document ({@code Criteria#getCriteriaObject()}). Supports
+     * equality (null also matching a missing field), $eq, $ne, $lt, $lte, $gt, $gte, $in, $nin, $exists, $regex
+     * (with $options) and regex values, $all, $size, $elemMatch, $not, $mod, $type, the $bits operators,
+     * $and/$or/$nor and $comment.
+     */
+    static boolean matches(Object entity, Document criteria) {
+        for (Map.Entry<String, Object> entry : criteria.entrySet()) {
+            String key = entry.getKey();
+            boolean matched = switch (key) {
+                case "$and" -> clauses(entry.getValue()).stream().allMatch(clause -> matches(entity, clause));
+                case "$or" -> clauses(entry.getValue()).stream().anyMatch(clause -> matches(entity, clause));
+                case "$nor" -> clauses(entry.getValue()).stream().noneMatch(clause -> matches(entity, clause));
+                case "$comment" -> true;
+                default -> {
+                    if (key.startsWith("$")) {
+                        throw unknownOperator(key);
+                    }
+                    yield matchesField(value(entity, key), entry.getValue());
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filter for a query by example, built the way MongoDB's example mapping builds its query: every non-null probe
+     * property is a condition (nested objects property by property, arrays and maps as whole values), strings are
+     * compared per the matcher's {@link ExampleMatcher.StringMatcher} and case setting, and the conditions are
+     * combined per matchAll/matchAny. Unless the matcher is untyped, only the probe's type (or a subtype) matches.
+     */
+    static Predicate<Object> example(Example<?> example) {
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(example.getMatcher());
+        List<Predicate<Object>> conditions = new ArrayList<>();
+        addExampleConditions(example.getProbe(), "", accessor, conditions);
+        boolean matchAll = example.getMatcher().isAllMatching();
+        Class<?> type = example.getMatcher() instanceof UntypedExampleMatcher ? Object.class : example.getProbeType();
+        return entity -> type.isInstance(entity) && (conditions.isEmpty() || (matchAll
+                ? conditions.stream().allMatch(condition -> condition.test(entity))
+                : conditions.stream().anyMatch(condition -> condition.test(entity))));
+    }
+
+    private static void addExampleConditions(Object probe, String prefix, ExampleMatcherAccessor accessor,
+                                             List<Predicate<Object>> conditions) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(probe);
+        for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
+            // stored properties only, which leaves out getClass()
+            if (descriptor.getReadMethod() == null || descriptor.getWriteMethod() == null) {
+                continue;
+            }
+            String path = prefix + descriptor.getName();
+            if (accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Object value = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(wrapper.getPropertyValue(descriptor.getName()))).orElse(null);
+            if (value == null) {
+                if (accessor.getNullHandler() == ExampleMatcher.NullHandler.INCLUDE) {
+                    conditions.add(entity -> value(entity, path) == null);
+                }
+            } else if (value instanceof String text) {
+                Object expected = stringCondition(text, accessor.getStringMatcherForPath(path),
+                        accessor.isIgnoreCaseForPath(path));
+                conditions.add(entity -> matchesValue(value(entity, path), expected));
+            } else if (value instanceof Collection<?> || value instanceof Map<?, ?> || value.getClass().isArray()) {
+                conditions.add(entity -> Objects.deepEquals(value(entity, path), value));
+            } else if (BeanUtils.isSimpleValueType(value.getClass())) {
+                conditions.add(entity -> matchesValue(value(entity, path), value));
+            } else {
+                addExampleConditions(value, path + ".", accessor, conditions);
+            }
+        }
+    }
+
+    // the string itself for a case-sensitive exact match, otherwise the regex MongoDB's example mapping would use
+    private static Object stringCondition(String text, ExampleMatcher.StringMatcher matcher, boolean ignoreCase) {
+        String regex = switch (matcher) {
+            case DEFAULT, EXACT -> ignoreCase ? "^" + Pattern.quote(text) + "$" : null;
+            case STARTING -> "^" + Pattern.quote(text);
+            case ENDING -> Pattern.quote(text) + "$";
+            case CONTAINING -> Pattern.quote(text);
+            case REGEX -> text;
+        };
+        if (regex == null) {
+            return text;
+        }
+        return Pattern.compile(regex, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> clauses(Object value) {
+        return (List<Document>) value;
+    }
+
+    private static boolean matchesField(Object actual, Object condition) {
+        if (isOperators(condition)) {
+            Document operators = (Document) condition;
+            for (Map.Entry<String, Object> operator : operators.entrySet()) {
+                String key = operator.getKey();
+                boolean matched = switch (key) {
+                    // $options only qualifies its sibling $regex
+                    case "$options" -> true;
+                    case "$regex" -> matchesValue(actual, pattern(operator.getValue(), operators.getString("$options")));
+                    default -> matchesOperator(actual, key, operator.getValue());
+                };
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return matchesValue(actual, condition);
+    }
+
+    private static boolean isOperators(Object condition) {
+        return condition instanceof Document operators && !operators.isEmpty()
+                && operators.keySet().iterator().next().startsWith("$");
+    }
+
+    // an $elemMatch or $pull condition: operators on the element itself, or a criteria document on its fields
+    private static boolean matchesElement(Object element, Object condition) {
+        if (isOperators(condition)) {
+            return matchesField(element, condition);
+        }
+        return condition instanceof Document criteria ? element != null && matches(element, criteria)
+                : matchesValue(element, condition);
+    }
+
+    private static Pattern pattern(Object regex, String options) {
+        if (regex instanceof Pattern pattern && options == null) {
+            return pattern;
+        }
+        int flags = regex instanceof Pattern pattern ? pattern.flags() : 0;
+        if (options != null) {
+            for (char option : options.toCharArray()) {
+                flags |= switch (option) {
+                    case 'i' -> Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                    case 'm' -> Pattern.MULTILINE;
+                    case 's' -> Pattern.DOTALL;
+                    case 'x' -> Pattern.COMMENTS;
+                    default -> throw new InvalidDataAccessApiUsageException("Invalid $options flag: " + option);
+                };
+            }
+        }
+        return Pattern.compile(regex instanceof Pattern pattern ? pattern.pattern() : regex.toString(), flags);
+    }
+
+    // an array field matches when any element does, as in MongoDB
+    private static boolean matchesValue(Object actual, Object expected) {
+        if (actual instanceof Collection<?> elements && !(expected instanceof Collection<?>)) {
+            return elements.stream().anyMatch(element -> matchesValue(element, expected));
+        }
+        if (expected instanceof Pattern pattern) {
+            return actual != null && pattern.matcher(asString(actual)).find();
+        }
+        return equal(actual, expected);
+    }
+
+    private static boolean matchesOperator(Object actual, String operator, Object operand) {
+        return switch (operator) {
+            case "$eq" -> matchesValue(actual, operand);
+            case "$ne" -> !matchesValue(actual, operand);
+            case "$lt" -> comparable(actual, operand) && compare(actual, operand) < 0;
+            case "$lte" -> comparable(actual, operand) && compare(actual, operand) <= 0;
+            case "$gt" -> comparable(actual, operand) && compare(actual, operand) > 0;
+            case "$gte" -> comparable(actual, operand) && compare(actual, operand) >= 0;
+            case "$in" -> ((Collection<?>) operand).stream().anyMatch(candidate -> matchesValue(actual, candidate));
+            case "$nin" -> ((Collection<?>) operand).stream().noneMatch(candidate -> matchesValue(actual, candidate));
+            case "$exists" -> (actual != null) == Boolean.TRUE.equals(operand);
+            case "$all" -> actual instanceof Collection<?>
+                    && ((Collection<?>) operand).stream().allMatch(candidate -> matchesValue(actual, candidate));
+            case "$size" -> actual instanceof Collection<?> elements && elements.size() == ((Number) operand).intValue();
+            case "$elemMatch" -> actual instanceof Collection<?> elements
+                    && elements.stream().anyMatch(element -> matchesElement(element, operand));
+            case "$not" -> !matchesField(actual, operand);
+            case "$mod" -> {
+                List<?> divisorAndRemainder = (List<?>) operand;
+                long divisor = ((Number) divisorAndRemainder.get(0)).longValue();
+                long remainder = ((Number) divisorAndRemainder.get(1)).longValue();
+                yield anyNumber(actual, number -> number.longValue() % divisor == remainder);
+            }
+            case "$type" -> {
+                Collection<?> types = operand instanceof Collection<?> list ? list : List.of(operand);
+                yield types.stream().anyMatch(type -> hasType(actual, type));
+            }
+            case "$bitsAllSet" -> anyNumber(actual, number -> (number.longValue() & mask(operand)) == mask(operand));
+            case "$bitsAnySet" -> anyNumber(actual, number -> (number.longValue() & mask(operand)) != 0);
+            case "$bitsAllClear" -> anyNumber(actual, number -> (number.longValue() & mask(operand)) == 0);
+            case "$bitsAnyClear" -> anyNumber(actual, number -> (number.longValue() & mask(operand)) != mask(operand));
+            default -> throw unknownOperator(operator);
+        };
+    }
+
+    // arithmetic and bitwise operators test a number, or any number in an array
+    private static boolean anyNumber(Object actual, Predicate<Number> test) {
+        if (actual instanceof Collection<?> elements) {
+            return elements.stream().anyMatch(element -> anyNumber(element, test));
+        }
+        return actual instanceof Number number && test.test(number);
+    }
+
+    // a $bits operand is a bitmask or a list of bit positions
+    private static long mask(Object operand) {
+        if (operand instanceof Collection<?> positions) {
+            long mask = 0;
+            for (Object position : positions) {
+                mask |= 1L << ((Number) position).intValue();
+            }
+            return mask;
+        }
+        return ((Number) operand).longValue();
+    }
+
+    // $type by BSON alias or number; an array matches "array" or when any element has the type
+    private static boolean hasType(Object actual, Object type) {
+        String alias = type instanceof Number number ? switch (number.intValue()) {
+            case 1 -> "double";
+            case 2 -> "string";
+            case 3 -> "object";
+            case 4 -> "array";
+            case 8 -> "bool";
+            case 9 -> "date";
+            case 10 -> "null";
+            case 16 -> "int";
+            case 18 -> "long";
+            case 19 -> "decimal";
+            default -> "";
+        } : type.toString();
+        if (actual instanceof Collection<?> elements) {
+            return "array".equals(alias) || elements.stream().anyMatch(element -> hasType(element, alias));
+        }
+        return switch (alias) {
+            case "number" -> actual instanceof Number;
+            case "double" -> actual instanceof Double || actual instanceof Float;
+            case "int" -> actual instanceof Integer || actual instanceof Short || actual instanceof Byte;
+            case "long" -> actual instanceof Long;
+            case "decimal" -> actual instanceof BigDecimal;
+            case "string" -> actual instanceof CharSequence || actual instanceof Enum<?>;
+            case "bool" -> actual instanceof Boolean;
+            case "date" -> actual instanceof Instant || actual instanceof Date;
+            case "null" -> actual == null;
+            case "object" -> actual != null && typeRank(actual) == 3;
+            default -> false;
+        };
+    }
+
+    private static InvalidDataAccessApiUsageException unknownOperator(String operator) {
+        return new InvalidDataAccessApiUsageException("Query operator " + operator
+                + " needs a MongoDB server; the in-memory repositories do not evaluate it");
+    }
+
+    // range operators only match values of the same BSON type
+    private static boolean comparable(Object actual, Object operand) {
+        return actual != null && operand != null && typeRank(actual) == typeRank(operand);
+    }
+
+    private static Number increment(Number current, Number delta) {
+        if (current == null) {
+            return delta;
+        }
+        if (isIntegral(current) && isIntegral(delta)) {
+            return current.longValue() + delta.longValue();
+        }
+        return current.doubleValue() + delta.doubleValue();
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long || number instanceof Short;
+    }
+
+    /**
+     * Applies {@code update} to {@code entity}: $set, $unset, $inc, $mul, $min, $max, $rename, $currentDate, $bit,
+     * $push (with $each, $position, $sort and $slice), $addToSet (plain or $each), $pop, $pull and $pullAll.
+     * $setOnInsert is a no-op, as on any update that does not insert.
+     */
+    static void apply(Object entity, Update update) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        wrapper.setAutoGrowNestedPaths(true);
+        for (Map.Entry<String, Object> operation : update.getUpdateObject().entrySet()) {
+            Document fields = (Document) operation.getValue();
+            for (Map.Entry<String, Object> field : fields.entrySet()) {
+                String path = property(field.getKey());
+                Object value = field.getValue();
+                switch (operation.getKey()) {
+                    case "$set" -> wrapper.setPropertyValue(path, value);
+                    case "$unset" -> wrapper.setPropertyValue(path, null);
+                    case "$setOnInsert" -> {
+                    }
+                    case "$inc" -> wrapper.setPropertyValue(path,
+                            increment((Number) wrapper.getPropertyValue(path), (Number) value));
+                    case "$mul" -> wrapper.setPropertyValue(path,
+                            multiply((Number) wrapper.getPropertyValue(path), (Number) value));
+                    case "$min", "$max" -> {
+                        Object current = wrapper.getPropertyValue(path);
+                        int order = compare(value, current);
+                        if (current == null || ("$min".equals(operation.getKey()) ? order < 0 : order > 0)) {
+                            wrapper.setPropertyValue(path, value);
+                        }
+                    }
+                    case "$rename" -> {
+                        String target = property(value.toString());
+                        wrapper.setPropertyValue(target, wrapper.getPropertyValue(path));
+                        wrapper.setPropertyValue(path, null);
+                    }
+                    case "$currentDate" -> wrapper.setPropertyValue(path,
+                            Date.class.equals(wrapper.getPropertyType(path)) ? new Date() : Instant.now());
+                    case "$bit" -> wrapper.setPropertyValue(path,
+                            bitwise((Number) wrapper.getPropertyValue(path), (Document) value));
+                    case "$push" -> wrapper.setPropertyValue(path, push(array(wrapper, path), value));
+                    case "$addToSet" -> {
+                        List<Object> target = array(wrapper, path);
+                        Collection<Object> values = value instanceof Update.Modifier each && "$each".equals(each.getKey())
+                                ? Arrays.asList((Object[]) each.getValue()) : List.of(value);
+                        for (Object candidate : values) {
+                            if (target.stream().noneMatch(element -> sameValue(element, candidate))) {
+                                target.add(candidate);
+                            }
+                        }
+                        wrapper.setPropertyValue(path, target);
+                    }
+                    case "$pop" -> {
+                        List<Object> target = array(wrapper, path);
+                        if (!target.isEmpty()) {
+                            target.remove(((Number) value).intValue() < 0 ? 0 : target.size() - 1);
+                        }
+                        wrapper.setPropertyValue(path, target);
+                    }
+                    case "$pull" -> {
+                        List<Object> target = array(wrapper, path);
+                        target.removeIf(element -> matchesElement(element, value));
+                        wrapper.setPropertyValue(path, target);
+                    }
+                    case "$pullAll" -> {
+                        List<Object> target = array(wrapper, path);
+                        Collection<?> values = (Collection<?>) value;
+                        target.removeIf(element -> values.stream().anyMatch(candidate -> sameValue(element, candidate)));
+                        wrapper.setPropertyValue(path, target);
+                    }
+                    default -> throw new InvalidDataAccessApiUsageException(
+                            "Update operator " + operation.getKey() + " is not a MongoDB update operator");
+                }
+            }
+        }
+    }
+
+    // a modifiable copy of the array at path, empty when missing; the caller sets it back
+    @SuppressWarnings("unchecked")
+    private static List<Object> array(BeanWrapper wrapper, String path) {
+        Collection<Object> current = (Collection<Object>) wrapper.getPropertyValue(path);
+        return current == null ? new ArrayList<>() : new ArrayList<>(current);
+    }
+
+    // $push applies $each at $position, then $sort, then $slice, as MongoDB does
+    private static List<Object> push(List<Object> target, Object value) {
+        if (!(value instanceof Update.Modifiers modifiers)) {
+            target.add(value);
+            return target;
+        }
+        List<Object> each = List.of();
+        Integer position = null;
+        Integer slice = null;
+        Object sort = null;
+        for (Update.Modifier modifier : modifiers.getModifiers()) {
+            switch (modifier.getKey()) {
+                case "$each" -> each = Arrays.asList((Object[]) modifier.getValue());
+                case "$position" -> position = ((Number) modifier.getValue()).intValue();
+                case "$slice" -> slice = ((Number) modifier.getValue()).intValue();
+                case "$sort" -> sort = modifier.getValue();
+                default -> throw new InvalidDataAccessApiUsageException(
+                        "$push modifier " + modifier.getKey() + " is not a MongoDB $push modifier");
+            }
+        }
+        int size = target.size();
+        int at = position == null ? size : position >= 0 ? Math.min(position, size) : Math.max(0, size + position);
+        target.addAll(at, each);
+        if (sort != null) {
+            target.sort(elementOrder(sort));
+        }
+        if (slice != null) {
+            int keep = Math.min(Math.abs(slice), target.size());
+            List<Object> kept = slice >= 0 ? target.subList(0, keep) : target.subList(target.size() - keep, target.size());
+            return new ArrayList<>(kept);
+        }
+        return target;
+    }
+
+    // $sort of a $push: 1/-1 orders the elements themselves, a Sort or {field: 1} document orders them by fields
+    private static Comparator<Object> elementOrder(Object sort) {
+        if (sort instanceof Number direction) {
+            return (a, b) -> direction.intValue() * compare(a, b);
+        }
+        List<Sort.Order> orders = sort instanceof Sort bySort ? bySort.toList()
+                : ((Document) sort).entrySet().stream()
+                        .map(entry -> ((Number) entry.getValue()).intValue() < 0
+                                ? Sort.Order.desc(entry.getKey()) : Sort.Order.asc(entry.getKey()))
+                        .toList();
+        return (a, b) -> {
+            for (Sort.Order order : orders) {
+                int result = compare(value(a, order.getProperty()), value(b, order.getProperty()));
+                if (result != 0) {
+                    return order.isAscending() ? result : -result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    // array element equality for $addToSet and $pullAll: BSON comparison for scalars, equals() for documents
+    private static boolean sameValue(Object a, Object b) {
+        if (a == null || b == null || typeRank(a) == 3 || typeRank(b) == 3) {
+            return Objects.equals(a, b);
+        }
+        return equal(a, b);
+    }
+
+    private static Number multiply(Number current, Number factor) {
+        if (current == null) {
+            // a missing field becomes 0 of the factor's type
+            return isIntegral(factor) ? (Number) 0L : (Number) 0.0;
+        }
+        if (isIntegral(current) && isIntegral(factor)) {
+            return current.longValue() * factor.longValue();
+        }
+        return current.doubleValue() * factor.doubleValue();
+    }
+
+    private static Number bitwise(Number current, Document operation) {
+        long result = current == null ? 0 : current.longValue();
+        for (Map.Entry<String, Object> entry : operation.entrySet()) {
+            long operand = ((Number) entry.getValue()).longValue();
+            result = switch (entry.getKey()) {
+                case "and" -> result & operand;
+                case "or" -> result | operand;
+                case "xor" -> result ^ operand;
+                default -> throw new InvalidDataAccessApiUsageException("$bit operation " + entry.getKey()
+                        + " is not one of and, or, xor");
+            };
+        }
+        return current instanceof Integer ? (Number) (int) result : (Number) result;
+    }
+}
@@ -0,0 +1,443 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.OffsetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Map-backed {@link MongoRepository} for the {@code inmemory} profile. Entities are stored as private copies and
+ * handed out as fresh copies, so, as with MongoDB, changing an object after saving or reading it does not change
+ * what is stored. Writes to one id are serialized through {@link ConcurrentHashMap#compute}, which is also where
+ * subclasses keep their secondary indexes in step ({@link #reindex}). Query by example scans the stored entities,
+ * as MongoDB does for an example without a supporting index.
+ */
+abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    protected final ConcurrentHashMap<String, T> documents = new ConcurrentHashMap<>();
+
+    protected abstract String idOf(T entity);
+
+    protected abstract void assignId(T entity, String id);
+
+    protected abstract T copy(T entity);
+
+    /**
+     * Called while {@code id}'s entry is locked: {@code before} is null on insert and {@code after} null on
+     * delete. Throwing leaves the stored entity unchanged.
+     */
+    protected abstract void reindex(T before, T after);
+
+    @Override
+    public <S extends T> S save(S entity) {
+        T stored = copy(withId(entity));
+        documents.compute(idOf(entity), (id, before) -> {
+            reindex(before, stored);
+            return stored;
+        });
+        return entity;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        T stored = copy(withId(entity));
+        documents.compute(idOf(entity), (id, before) -> {
+            if (before != null) {
+                throw new DuplicateKeyException("E11000 duplicate key error dup key: { _id: \"" + id + "\" }");
+            }
+            reindex(null, stored);
+            return stored;
+        });
+        return entity;
+    }
+
+    private <S extends T> S withId(S entity) {
+        if (idOf(entity) == null) {
+            assignId(entity, new ObjectId().toHexString());
+        }
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        return Optional.ofNullable(documents.get(id)).map(this::copy);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return documents.containsKey(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return findAll(Sort.unsorted());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        List<T> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return documents.size();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        documents.computeIfPresent(id, (key, before) -> {
+            reindex(before, null);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        documents.keySet().forEach(this::deleteById);
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        return sorted(documents.values().stream(), sort);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        return page(documents.values().stream(), pageable, documents::size);
+    }
+
+    /**
+     * Copies of {@code candidates} in {@code sort} order (natural {@code _id} order when unsorted).
+     */
+    protected List<T> sorted(Stream<T> candidates, Sort sort) {
+        List<T> matching = candidates.toList();
+        List<T> ordered = InMemoryQueries.sorted(matching, sort, this::idOf);
+        List<T> copies = new ArrayList<>(ordered.size());
+        ordered.forEach(entity -> copies.add(copy(entity)));
+        return copies;
+    }
+
+    /**
+     * Sorts and slices {@code candidates} the way a paged repository query does, including when the total is
+     * counted (only if the page does not already reveal it).
+     */
+    protected Page<T> page(Stream<T> candidates, Pageable pageable, LongSupplier total) {
+        List<T> ordered = InMemoryQueries.sorted(candidates.toList(), pageable.getSort(), this::idOf);
+        List<T> content = new ArrayList<>();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long limit = pageable.isPaged() ? pageable.getPageSize() : Long.MAX_VALUE;
+        ordered.stream().skip(offset).limit(limit).forEach(entity -> content.add(copy(entity)));
+        return PageableExecutionUtils.getPage(content, pageable, total);
+    }
+
+    /**
+     * Atomically applies {@code update} to {@code id} if the stored entity matches {@code filter}; returns a copy
+     * of the updated entity, or empty when nothing matched (findAndModify with returnNew).
+     */
+    protected Optional<T> updateOne(String id, Predicate<T> filter, Update update) {
+        return updateOne(id, filter, update, true);
+    }
+
+    // returnNew as in findAndModify: the document after the update, or as it was before it
+    protected Optional<T> updateOne(String id, Predicate<T> filter, Update update, boolean returnNew) {
+        List<T> updated = new ArrayList<>(1);
+        documents.computeIfPresent(id, (key, before) -> {
+            if (!filter.test(before)) {
+                return before;
+            }
+            T working = copy(before);
+            InMemoryQueries.apply(working, update);
+            T stored = copy(working);
+            reindex(before, stored);
+            updated.add(returnNew ? working : copy(before));
+            return stored;
+        });
+        return updated.stream().findFirst();
+    }
+
+    /**
+     * A fresh instance holding only {@code fields} (top-level properties) and the id of {@code entity}, as a
+     * MongoDB projection returns it.
+     */
+    @SuppressWarnings("unchecked")
+    protected T project(T entity, Collection<String> fields) {
+        T projected = BeanUtils.instantiateClass((Class<T>) entity.getClass());
+        assignId(projected, idOf(entity));
+        BeanWrapper source = PropertyAccessorFactory.forBeanPropertyAccess(copy(entity));
+        BeanWrapper target = PropertyAccessorFactory.forBeanPropertyAccess(projected);
+        for (String field : fields) {
+            target.setPropertyValue(field, source.getPropertyValue(field));
+        }
+        return projected;
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        return byExample(example).first();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        return byExample(example).all();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        return byExample(example).sortBy(sort).all();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return byExample(example).page(pageable);
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        return byExample(example).count();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        return byExample(example).exists();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example,
+                                     Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(byExample(example));
+    }
+
+    private <S extends T> FluentQuery.FetchableFluentQuery<S> byExample(Example<S> example) {
+        Predicate<Object> filter = InMemoryQueries.example(example);
+        return new ExampleQuery<>(filter::test, Sort.unsorted(), 0, example.getProbeType(), List.of());
+    }
+
+    /**
+     * Query-by-example results over a scan of the stored entities, with the sort, limit, projection and result
+     * type applied as MongoDB's fluent example query applies them.
+     */
+    private final class ExampleQuery<R> implements FluentQuery.FetchableFluentQuery<R> {
+
+        private final Predicate<T> filter;
+        private final Sort sort;
+        private final int limit;
+        private final Class<R> resultType;
+        private final Collection<String> fields;
+
+        ExampleQuery(Predicate<T> filter, Sort sort, int limit, Class<R> resultType, Collection<String> fields) {
+            this.filter = filter;
+            this.sort = sort;
+            this.limit = limit;
+            this.resultType = resultType;
+            this.fields = fields;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> sortBy(Sort sort) {
+            return new ExampleQuery<>(filter, this.sort.and(sort), limit, resultType, fields);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> limit(int limit) {
+            Assert.isTrue(limit >= 0, "Limit must not be negative");
+            return new ExampleQuery<>(filter, sort, limit, resultType, fields);
+        }
+
+        @Override
+        public <N> FluentQuery.FetchableFluentQuery<N> as(Class<N> resultType) {
+            return new ExampleQuery<>(filter, sort, limit, resultType, fields);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<R> project(Collection<String> properties) {
+            return new ExampleQuery<>(filter, sort, limit, resultType, List.copyOf(properties));
+        }
+
+        @Override
+        public R oneValue() {
+            List<T> found = ordered(sort).limit(2).toList();
+            if (found.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, found.size());
+            }
+            return found.isEmpty() ? null : result(found.get(0));
+        }
+
+        @Override
+        public R firstValue() {
+            return ordered(sort).findFirst().map(this::result).orElse(null);
+        }
+
+        @Override
+        public List<R> all() {
+            return limited(ordered(sort)).map(this::result).toList();
+        }
+
+        @Override
+        public Window<R> scroll(ScrollPosition position) {
+            if (position instanceof OffsetScrollPosition offset) {
+                long skip = offset.isInitial() ? 0 : offset.getOffset() + 1;
+                List<T> rows = withLookahead(ordered(sort).skip(skip));
+                return window(rows, offset.positionFunction());
+            }
+            KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+            // keyset order always ends in _id so every position is unique; backwards walks it reversed
+            Sort keys = sort.getOrderFor("_id") != null || sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("_id"));
+            Sort walked = keyset.scrollsForward() ? keys : Sort.by(keys.stream()
+                    .map(order -> order.with(order.getDirection().isAscending()
+                            ? Sort.Direction.DESC : Sort.Direction.ASC))
+                    .toList());
+            Stream<T> candidates = ordered(walked);
+            if (!keyset.isInitial()) {
+                candidates = candidates.filter(entity -> afterKeys(entity, keyset.getKeys(), walked));
+            }
+            List<T> rows = new ArrayList<>(withLookahead(candidates));
+            if (keyset.scrollsBackward()) {
+                boolean more = limit > 0 && rows.size() > limit;
+                List<T> page = new ArrayList<>(more ? rows.subList(0, limit) : rows);
+                Collections.reverse(page);
+                return Window.from(page.stream().map(this::result).toList(),
+                        index -> ScrollPosition.of(keysOf(page.get(index), keys), keyset.getDirection()), more);
+            }
+            return window(rows, index -> ScrollPosition.of(keysOf(rows.get(index), keys), keyset.getDirection()));
+        }
+
+        @Override
+        public Page<R> page(Pageable pageable) {
+            Stream<T> ordered = ordered(sort.and(pageable.getSort()));
+            if (pageable.isPaged()) {
+                ordered = ordered.skip(pageable.getOffset()).limit(pageable.getPageSize());
+            }
+            return PageableExecutionUtils.getPage(ordered.map(this::result).toList(), pageable, this::count);
+        }
+
+        @Override
+        public Stream<R> stream() {
+            return all().stream();
+        }
+
+        @Override
+        public long count() {
+            return limited(documents.values().stream().filter(filter)).count();
+        }
+
+        @Override
+        public boolean exists() {
+            return documents.values().stream().anyMatch(filter);
+        }
+
+        // stored (uncopied) matches in order
+        private Stream<T> ordered(Sort order) {
+            return InMemoryQueries.sorted(documents.values().stream().filter(filter).toList(), order,
+                    InMemoryRepository.this::idOf).stream();
+        }
+
+        private Stream<T> limited(Stream<T> rows) {
+            return limit > 0 ? rows.limit(limit) : rows;
+        }
+
+        // one row past the limit tells whether the window has a next one
+        private List<T> withLookahead(Stream<T> rows) {
+            return (limit > 0 ? rows.limit(limit + 1L) : rows).toList();
+        }
+
+        private Window<R> window(List<T> rows, IntFunction<? extends ScrollPosition> positions) {
+            boolean more = limit > 0 && rows.size() > limit;
+            List<T> page = more ? rows.subList(0, limit) : rows;
+            return Window.from(page.stream().map(this::result).toList(), positions, more);
+        }
+
+        private boolean afterKeys(T entity, Map<String, Object> keys, Sort order) {
+            for (Sort.Order key : order) {
+                int result = InMemoryQueries.compare(InMemoryQueries.value(entity, key.getProperty()),
+                        keys.get(key.getProperty()));
+                if (result != 0) {
+                    return key.isAscending() ? result > 0 : result < 0;
+                }
+            }
+            return false;
+        }
+
+        private Map<String, Object> keysOf(T entity, Sort order) {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            order.forEach(key -> keys.put(key.getProperty(), InMemoryQueries.value(entity, key.getProperty())));
+            return keys;
+        }
+
+        private R result(T stored) {
+            T entity = fields.isEmpty() ? copy(stored) : InMemoryRepository.this.project(stored, fields);
+            if (resultType.isInstance(entity)) {
+                return resultType.cast(entity);
+            }
+            if (resultType.isInterface()) {
+                return PROJECTIONS.createProjection(resultType, entity);
+            }
+            R result = BeanUtils.instantiateClass(resultType);
+            BeanUtils.copyProperties(entity, result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import com.corporatebank.loan.repository.RepricingJobRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * {@link RepricingJobRepository} for the {@code inmemory} profile. There are only ever a handful of jobs, so
+ * queries scan. Leases are claimed and checked under the job's map entry lock; with a single instance there is no
+ * second RUNNING job to refuse, RepricingService already runs one at a time.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryRepricingJobRepository extends InMemoryRepository<RepricingJob>
+        implements RepricingJobRepository {
+
+    @Override
+    protected String idOf(RepricingJob job) {
+        return job.getId();
+    }
+
+    @Override
+    protected void assignId(RepricingJob job, String id) {
+        job.setId(id);
+    }
+
+    @Override
+    protected RepricingJob copy(RepricingJob job) {
+        RepricingJob copy = new RepricingJob();
+        BeanUtils.copyProperties(job, copy);
+        return copy;
+    }
+
+    @Override
+    protected void reindex(RepricingJob before, RepricingJob after) {
+    }
+
+    @Override
+    public Optional<RepricingJob> findFirstByStatus(JobStatus status) {
+        return documents.values().stream()
+                .filter(job -> job.getStatus() == status)
+                .findFirst()
+                .map(this::copy);
+    }
+
+    @Override
+    public Optional<RepricingJob> claimLease(String id, String owner, Instant now, Instant expiredBefore) {
+        return updateOne(id, job -> job.getStatus() != JobStatus.COMPLETED && (job.getLeaseOwner() == null
+                        || job.getHeartbeatAt() == null || job.getHeartbeatAt().isBefore(expiredBefore)),
+                new Update()
+                        .set("status", JobStatus.RUNNING)
+                        .set("leaseOwner", owner)
+                        .set("heartbeatAt", now)
+                        .set("updatedAt", now)
+                        .unset("error"));
+    }
+
+    @Override
+    public boolean saveIfLeased(RepricingJob job, String owner) {
+        RepricingJob replacement = copy(job);
+        List<RepricingJob> replaced = new ArrayList<>(1);
+        documents.computeIfPresent(job.getId(), (id, stored) -> {
+            if (!Objects.equals(stored.getLeaseOwner(), owner)) {
+                return stored;
+            }
+            replaced.add(stored);
+            return replacement;
+        });
+        return !replaced.isEmpty();
+    }
+
+    @Override
+    public List<RepricingJob> findTop20ByOrderByStartedAtDesc() {
+        return sorted(documents.values().stream(), Sort.by(Sort.Direction.DESC, "startedAt")).stream()
+                .limit(20)
+                .toList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.repository.UserRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UserRepository} over a concurrent map with a unique email index, for the {@code inmemory} profile.
+ * Saving a second user with a taken email fails with {@link DuplicateKeyException}, as the unique MongoDB index
+ * does.
+ */
+@Repository
+@Profile("inmemory")
+public class InMemoryUserRepository extends InMemoryRepository<User> implements UserRepository {
+
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+
+    @Override
+    protected String idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void assignId(User user, String id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    @Override
+    protected void reindex(User before, User after) {
+        if (after != null && after.getEmail() != null) {
+            String owner = idsByEmail.putIfAbsent(after.getEmail(), after.getId());
+            if (owner != null && !owner.equals(after.getId())) {
+                throw new DuplicateKeyException("E11000 duplicate key error index: email dup key: { email: \""
+                        + after.getEmail() + "\" }");
+            }
+        }
+        if (before != null && before.getEmail() != null
+                && (after == null || !before.getEmail().equals(after.getEmail()))) {
+            idsByEmail.remove(before.getEmail(), before.getId());
+        }
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        String id = idsByEmail.get(email);
+        return id == null ? Optional.empty() : findById(id);
+    }
+}
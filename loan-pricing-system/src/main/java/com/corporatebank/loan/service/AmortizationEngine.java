@@ -0,0 +1,198 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Builds repayment schedules (EMI, equal-principal or bullet) into primitive arrays and writes them row by row,
+ * so a 360-month schedule never becomes a list of row objects. Schedules are cached by
+ * (amount, rate, tenure, structure), bounded by {@code loan.schedule.cache.max-size} entries.
+ */
+@Service
+public class AmortizationEngine {
+
+    static final int MAX_MONTHS = 600;
+
+    static final String CSV_HEADER = "month,payment,principal,interest,balance";
+
+    private final Cache<ScheduleKey, AmortizationSchedule> schedules;
+    private final ObjectMapper objectMapper;
+    private final int defaultTenureMonths;
+
+    public AmortizationEngine(ObjectMapper objectMapper, PricingProperties pricingProperties,
+                              @Value("${loan.schedule.cache.max-size:1000}") long cacheMaxSize) {
+        this.objectMapper = objectMapper;
+        this.defaultTenureMonths = pricingProperties.getDefaultTenureMonths();
+        this.schedules = Caffeine.newBuilder().maximumSize(cacheMaxSize).build();
+    }
+
+    /**
+     * Schedule for a stored loan: sanctioned amount and approved rate once approved, otherwise the requested
+     * amount and indicative (or proposed) rate. {@code structure} defaults to the loan type's, and a loan without a
+     * tenure (typically an overdraft) runs over {@code loan.pricing.default-tenure-months}, the tenor it was priced at.
+     */
+    public AmortizationSchedule schedule(Loan loan, RepaymentStructure structure) {
+        Double amount = loan.getSanctionedAmount() != null ? loan.getSanctionedAmount() : loan.getRequestedAmount();
+        Double rate = loan.getApprovedInterestRate() != null ? loan.getApprovedInterestRate()
+                : loan.getIndicativeRate() != null ? loan.getIndicativeRate() : loan.getProposedInterestRate();
+        if (rate == null) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "Loan has no interest rate to schedule");
+        }
+        if (structure == null) {
+            if (loan.getLoanType() == null) {
+                throw new CustomException(HttpStatus.BAD_REQUEST, "loanType is required for a schedule");
+            }
+            structure = RepaymentStructure.forType(loan.getLoanType());
+        }
+        int months = loan.getTenureMonths() != null ? loan.getTenureMonths() : defaultTenureMonths;
+        return schedule(amount, rate, months, structure);
+    }
+
+    public AmortizationSchedule schedule(Double amount, Double annualRate, Integer months, RepaymentStructure structure) {
+        if (amount == null || !Double.isFinite(amount) || amount <= 0) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "amount must be positive");
+        }
+        if (annualRate == null || !Double.isFinite(annualRate) || annualRate < 0) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "rate must not be negative");
+        }
+        if (months == null || months <= 0 || months > MAX_MONTHS) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "tenureMonths must be between 1 and " + MAX_MONTHS);
+        }
+        return schedules.get(new ScheduleKey(amount, annualRate, months, structure),
+                key -> compute(key.amount(), key.annualRate(), key.months(), key.structure()));
+    }
+
+    // uncached; callers normally go through schedule()
+    public static AmortizationSchedule compute(double amount, double annualRate, int months, RepaymentStructure structure) {
+        double monthlyRate = annualRate / 1200.0;
+        double[] payment = new double[months];
+        double[] principal = new double[months];
+        double[] interest = new double[months];
+        double[] balance = new double[months];
+
+        double emi = monthlyRate == 0
+                ? amount / months
+                : amount * monthlyRate / (1 - Math.pow(1 + monthlyRate, -months));
+        double fixedPrincipal = amount / months;
+        double remaining = cents(amount);
+        for (int i = 0; i < months; i++) {
+            double charged = cents(remaining * monthlyRate);
+            double repaid = switch (structure) {
+                case EMI -> cents(emi) - charged;
+                case EQUAL_PRINCIPAL -> cents(fixedPrincipal);
+                case BULLET -> 0;
+            };
+            if (i == months - 1 || repaid > remaining) {
+                repaid = remaining;
+            }
+            remaining = cents(remaining - repaid);
+            interest[i] = charged;
+            principal[i] = cents(repaid);
+            payment[i] = cents(charged + repaid);
+            balance[i] = remaining;
+        }
+        return new AmortizationSchedule(cents(amount), annualRate, structure, payment, principal, interest, balance);
+    }
+
+    private static double cents(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    public void write(AmortizationSchedule schedule, Format format, OutputStream out) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(schedule, out);
+        } else {
+            writeJson(schedule, out);
+        }
+    }
+
+    void writeJson(AmortizationSchedule schedule, OutputStream out) {
+        try (JsonGenerator json = objectMapper.writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(out)) {
+            json.writeStartObject();
+            json.writeNumberProperty("amount", schedule.getAmount());
+            json.writeNumberProperty("annualRate", schedule.getAnnualRate());
+            json.writeStringProperty("structure", schedule.getStructure().name());
+            json.writeNumberProperty("months", schedule.getMonths());
+            json.writeNumberProperty("totalPayment", schedule.getTotalPayment());
+            json.writeNumberProperty("totalInterest", schedule.getTotalInterest());
+            json.writeName("rows");
+            json.writeStartArray();
+            for (int i = 0; i < schedule.getMonths(); i++) {
+                json.writeStartObject();
+                json.writeNumberProperty("month", i + 1);
+                json.writeNumberProperty("payment", schedule.payment(i));
+                json.writeNumberProperty("principal", schedule.principal(i));
+                json.writeNumberProperty("interest", schedule.interest(i));
+                json.writeNumberProperty("balance", schedule.balance(i));
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    void writeCsv(AmortizationSchedule schedule, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        StringBuilder row = new StringBuilder(64);
+        for (int i = 0; i < schedule.getMonths(); i++) {
+            row.setLength(0);
+            row.append(i + 1).append(',')
+                    .append(schedule.payment(i)).append(',')
+                    .append(schedule.principal(i)).append(',')
+                    .append(schedule.interest(i)).append(',')
+                    .append(schedule.balance(i)).append('\n');
+            writer.append(row);
+        }
+        writer.flush();
+    }
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON_VALUE),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(HttpStatus.BAD_REQUEST, "Unsupported schedule format: " + name);
+            }
+        }
+    }
+
+    private record ScheduleKey(double amount, double annualRate, int months, RepaymentStructure structure) {
+    }
+}
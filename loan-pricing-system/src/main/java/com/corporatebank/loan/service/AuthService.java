@@ -3,27 +3,33 @@ package com.corporatebank.loan.service;
 import com.corporatebank.loan.config.JwtUtil;
 import com.corporatebank.loan.dto.LoginRequest;
 import com.corporatebank.loan.dto.LoginResponse;
+import com.corporatebank.loan.exception.CustomException;
 import com.corporatebank.loan.model.User;
 import com.corporatebank.loan.model.enums.Role; // ✅ Import Role
 import com.corporatebank.loan.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepo;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder encoder;
+    private final PasswordHashingService hashing;
+    private final UserService userService;
 
     public LoginResponse login(LoginRequest req) {
         User user = userRepo.findByEmail(req.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!encoder.matches(req.getPassword(), user.getPassword()))
+        if (!hashing.matches(req.getPassword(), user.getPassword()))
             throw new RuntimeException("Invalid credentials");
+        if (hashing.needsRehash(user.getPassword()))
+            rehash(user, req.getPassword());
 
         return new LoginResponse(
                 jwtUtil.generateToken(user.getEmail(), user.getRole().name()),
@@ -38,8 +44,21 @@ public class AuthService {
         }
         User user = new User();
         user.setEmail(email);
-        user.setPassword(encoder.encode(password));
+        user.setPassword(hashing.encode(password));
         user.setRole(Role.valueOf(role)); // "ADMIN" or "USER"
-        return userRepo.save(user);
+        User saved = userRepo.save(user);
+        userService.invalidate(email);
+        return saved;
+    }
+
+    // moves the stored hash to the configured bcrypt cost; best effort, the next login tries again
+    private void rehash(User user, String password) {
+        try {
+            user.setPassword(hashing.encode(password));
+            userRepo.save(user);
+            userService.invalidate(user.getEmail());
+        } catch (CustomException | DataAccessException e) {
+            log.warn("Password hash for {} not upgraded: {}", user.getEmail(), e.getMessage());
+        }
     }
 }
\ No newline at end of file
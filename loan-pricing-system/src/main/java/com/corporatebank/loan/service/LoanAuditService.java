@@ -0,0 +1,63 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.repository.LoanActionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Appends loan actions to the bucketed {@code loan_actions} trail. The loan document only keeps its
+ * {@link Loan#getLastAction() latest action}, written together with the change itself; the trail is appended
+ * right after the loan write succeeds. If that append fails the loan write stands and the error is logged.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoanAuditService {
+
+    private final LoanActionRepository actionRepo;
+
+    /**
+     * Appends the {@code lastAction} of each of {@code loans}.
+     */
+    public void recorded(Collection<Loan> loans) {
+        Map<String, LoanAction> actions = new LinkedHashMap<>();
+        loans.stream()
+                .filter(loan -> loan.getLastAction() != null)
+                .forEach(loan -> actions.put(loan.getId(), loan.getLastAction()));
+        append(actions);
+    }
+
+    /**
+     * Appends the same {@code action} to each of {@code loanIds}.
+     */
+    public void recorded(Collection<String> loanIds, LoanAction action) {
+        Map<String, LoanAction> actions = new LinkedHashMap<>();
+        loanIds.forEach(id -> actions.put(id, action));
+        append(actions);
+    }
+
+    public Page<LoanAction> history(String loanId, Pageable pageable) {
+        return actionRepo.findHistory(loanId, pageable);
+    }
+
+    private void append(Map<String, LoanAction> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+        try {
+            actionRepo.append(actions);
+        } catch (DataAccessException e) {
+            log.error("Audit trail not appended for loans {}", actions.keySet(), e);
+        }
+    }
+}
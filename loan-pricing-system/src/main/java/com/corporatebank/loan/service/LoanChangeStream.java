@@ -0,0 +1,179 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanEvent;
+import com.corporatebank.loan.model.Loan;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one change stream on the {@code loans} collection this instance keeps open, read on its own thread and
+ * handed to a {@link Listener}. Only the fields a {@link LoanEvent} carries are requested. The stream is opened on
+ * the first {@link #start}, so instances without SSE clients (or on a standalone server, where change streams are
+ * not available) never open it. After an error the stream is reopened from the last resume token; if the oplog
+ * no longer reaches back that far the stream starts over from now and the listener is told to {@link
+ * Listener#reset reset}.
+ */
+@Slf4j
+@Component
+@Profile("!inmemory")
+public class LoanChangeStream {
+
+    // the server could not resume: the token fell off the oplog (ChangeStreamHistoryLost) or is invalid
+    private static final List<Integer> NOT_RESUMABLE = List.of(286, 280, 260);
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    public interface Listener {
+
+        /**
+         * A change, with the resume token that identifies it.
+         */
+        void changed(String token, LoanEvent event);
+
+        /**
+         * Changes may have been missed; clients should re-read what they show.
+         */
+        void reset();
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final long maxAwaitMs;
+
+    private Thread reader;
+    private volatile boolean running;
+    private BsonDocument resumeToken;
+
+    public LoanChangeStream(MongoTemplate mongoTemplate,
+                            @Value("${loan.events.max-await-ms:1000}") long maxAwaitMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.maxAwaitMs = maxAwaitMs;
+    }
+
+    /**
+     * Starts reading into {@code listener}; later calls do nothing while the stream is running.
+     */
+    public synchronized void start(Listener listener) {
+        if (running) {
+            return;
+        }
+        running = true;
+        reader = new Thread(() -> read(listener), "loan-change-stream");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    private void read(Listener listener) {
+        long backoff = 500;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+                log.info("Loan change stream open{}", resumeToken != null ? " (resumed)" : "");
+                backoff = 500;
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+                    if (change == null) {
+                        // the post-batch token moves past changes the pipeline filtered out
+                        if (cursor.getResumeToken() != null) {
+                            resumeToken = cursor.getResumeToken();
+                        }
+                        continue;
+                    }
+                    resumeToken = change.getResumeToken();
+                    deliver(listener, change);
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof MongoCommandException command && NOT_RESUMABLE.contains(command.getErrorCode())) {
+                    log.warn("Loan change stream cannot resume ({}); restarting from now", e.getMessage());
+                    resumeToken = null;
+                    listener.reset();
+                } else {
+                    log.warn("Loan change stream interrupted, retrying in {} ms: {}", backoff, e.getMessage());
+                }
+                if (!pause(backoff)) {
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    // a change the listener cannot handle is skipped, not retried
+    private void deliver(Listener listener, ChangeStreamDocument<Document> change) {
+        if (change.getFullDocument() == null) {
+            return;
+        }
+        try {
+            listener.changed(token(change.getResumeToken()), toEvent(change));
+        } catch (RuntimeException e) {
+            log.error("Loan change {} not delivered", change.getDocumentKey(), e);
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Loan.class))
+                .watch(List.of(
+                        Aggregates.match(Filters.in("operationType", "insert", "update", "replace")),
+                        // _id (the resume token) stays included, the stream cannot resume without it
+                        Aggregates.project(Projections.include("operationType", "clusterTime", "documentKey",
+                                "fullDocument._id", "fullDocument.clientName", "fullDocument.loanType",
+                                "fullDocument.requestedAmount", "fullDocument.status",
+                                "fullDocument.sanctionedAmount", "fullDocument.approvedInterestRate",
+                                "fullDocument.approvedBy", "fullDocument.createdBy", "fullDocument.deleted",
+                                "fullDocument.lastAction"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    LoanEvent toEvent(ChangeStreamDocument<Document> change) {
+        Loan loan = mongoTemplate.getConverter().read(Loan.class, change.getFullDocument());
+        Instant at = change.getClusterTime() != null
+                ? Instant.ofEpochSecond(change.getClusterTime().getTime())
+                : Instant.now();
+        return LoanEvent.of(change.getOperationTypeString(), at, loan);
+    }
+
+    static String token(BsonDocument resumeToken) {
+        return resumeToken.getString("_data").getValue();
+    }
+
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server-sent loan events. Every client is fed from the instance's single {@link LoanChangeStream}, opened when
+ * the first client connects, and only receives changes to loans it may see: an admin all of them, anyone else the
+ * loans they created (as in the loan list). Each event's SSE id is its change-stream resume token. The last
+ * {@code loan.events.replay-size} events are kept, so a client reconnecting with {@code Last-Event-ID} first gets
+ * what it missed; if that id is no longer kept it gets a {@code reset} event and should reload instead.
+ * <p>
+ * The change-stream thread never writes to a client: it queues each event on every subscriber that may see it, and
+ * each subscriber's queue is sent, one send at a time, on this service's own executor rather than the application
+ * task executor, so clients stalled in a send cannot hold up the repricing job or the other way round. With
+ * virtual threads every subscriber's sends get a thread of their own; otherwise {@code loan.events.send-threads}
+ * threads take turns, and past {@code loan.events.max-subscribers} subscribers waiting for one the newest are
+ * disconnected. A client that lets {@code loan.events.queue-size} events pile up is disconnected too; either way it
+ * reconnects with its {@code Last-Event-ID}.
+ */
+@Slf4j
+@Service
+public class LoanEventService implements LoanChangeStream.Listener {
+
+    static final String LOAN_EVENT = "loan";
+    static final String RESET_EVENT = "reset";
+
+    private final ObjectProvider<LoanChangeStream> changeStream;
+    private final ObjectMapper objectMapper;
+    private final Executor sendExecutor;
+    private final long timeoutMs;
+    private final int replaySize;
+    private final int queueSize;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // guards recent, and orders a subscriber's replay before any event queued after it; held only to queue
+    private final ReentrantLock lock = new ReentrantLock();
+    // newest last
+    private final Deque<Delivered> recent = new ArrayDeque<>();
+
+    @Autowired
+    public LoanEventService(ObjectProvider<LoanChangeStream> changeStream,
+                            ObjectMapper objectMapper,
+                            Environment environment,
+                            @Value("${loan.events.timeout:30m}") Duration timeout,
+                            @Value("${loan.events.replay-size:1000}") int replaySize,
+                            @Value("${loan.events.queue-size:256}") int queueSize,
+                            @Value("${loan.events.send-threads:4}") int sendThreads,
+                            @Value("${loan.events.max-subscribers:1000}") int maxSubscribers) {
+        this(changeStream, objectMapper, sendExecutor(environment, sendThreads, maxSubscribers), timeout, replaySize,
+                queueSize);
+    }
+
+    LoanEventService(ObjectProvider<LoanChangeStream> changeStream,
+                     ObjectMapper objectMapper,
+                     Executor sendExecutor,
+                     Duration timeout,
+                     int replaySize,
+                     int queueSize) {
+        this.changeStream = changeStream;
+        this.objectMapper = objectMapper;
+        this.sendExecutor = sendExecutor;
+        this.timeoutMs = timeout.toMillis();
+        this.replaySize = Math.max(0, replaySize);
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    private static Executor sendExecutor(Environment environment, int threads, int maxSubscribers) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("loan-events-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("loan-events-");
+        threadFactory.setDaemon(true);
+        int size = Math.max(1, threads);
+        // a subscriber has at most one send task queued or running
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxSubscribers)), threadFactory);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sendExecutor instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        } else if (sendExecutor instanceof SimpleAsyncTaskExecutor executor) {
+            executor.close();
+        }
+    }
+
+    public SseEmitter subscribe(String user, boolean admin, String lastEventId) {
+        return subscribe(new SseEmitter(timeoutMs), user, admin, lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String user, boolean admin, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, user, admin);
+        emitter.onCompletion(subscriber::gone);
+        emitter.onTimeout(subscriber::gone);
+        emitter.onError(e -> subscriber.gone());
+        lock.lock();
+        try {
+            // added under the lock, so no event is queued on it before its replay
+            subscribers.add(subscriber);
+            if (lastEventId != null && !lastEventId.isEmpty()) {
+                replay(subscriber, lastEventId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        changeStream.ifAvailable(stream -> stream.start(this));
+        return emitter;
+    }
+
+    // queues what the subscriber missed, or a reset if that is no longer kept or would not fit its queue
+    private void replay(Subscriber subscriber, String lastEventId) {
+        List<Delivered> missed = new ArrayList<>();
+        boolean found = false;
+        for (Delivered delivered : recent) {
+            if (found && subscriber.canSee(delivered.event())) {
+                missed.add(delivered);
+            }
+            found = found || delivered.token().equals(lastEventId);
+        }
+        if (!found || missed.size() > queueSize) {
+            subscriber.queue(SseEmitter.event().name(RESET_EVENT).data(""));
+            return;
+        }
+        missed.forEach(delivered -> subscriber.queue(delivered.sse()));
+    }
+
+    @Override
+    public void changed(String token, LoanEvent event) {
+        // serialized once here rather than once per subscriber
+        Delivered delivered = new Delivered(token, event, objectMapper.writeValueAsString(event));
+        lock.lock();
+        try {
+            if (replaySize > 0) {
+                if (recent.size() == replaySize) {
+                    recent.removeFirst();
+                }
+                recent.addLast(delivered);
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.canSee(event)) {
+                    subscriber.queue(delivered.sse());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void reset() {
+        lock.lock();
+        try {
+            recent.clear();
+            subscribers.forEach(subscriber -> subscriber.queue(SseEmitter.event().name(RESET_EVENT).data("")));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Comment lines keep idle connections from being closed by proxies and reveal clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${loan.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.queue(SseEmitter.event().comment("")));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String user;
+        private final boolean admin;
+        private final Queue<SseEmitter.SseEventBuilder> pending;
+        // set while a drain task is scheduled or running, so one subscriber's sends never overlap
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        // only touched by the drain task
+        private boolean completed;
+
+        private Subscriber(SseEmitter emitter, String user, boolean admin) {
+            this.emitter = emitter;
+            this.user = user;
+            this.admin = admin;
+            this.pending = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        boolean canSee(LoanEvent event) {
+            return admin || Objects.equals(user, event.getCreatedBy());
+        }
+
+        void queue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                // it reconnects with its Last-Event-ID and is replayed, or reset, from there
+                log.debug("Disconnecting loan event subscriber {}: {} events behind", user, queueSize);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        // the client or container ended the connection
+        void gone() {
+            subscribers.remove(this);
+            closed = true;
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            closed = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sendExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                log.warn("Dropping loan event subscriber {}: {}", user, e.getMessage());
+                subscribers.remove(this);
+                closed = true;
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = pending.poll()) != null) {
+                    send(event);
+                }
+                if (closed && !completed) {
+                    completed = true;
+                    pending.clear();
+                    completeQuietly();
+                }
+            } finally {
+                draining.set(false);
+            }
+            // picks up an event queued after the last poll but before the flag was cleared
+            if (closed ? !completed : !pending.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // the client went away; the container completes the emitter
+                log.debug("Dropping loan event subscriber {}: {}", user, e.getMessage());
+                subscribers.remove(this);
+                closed = true;
+                completed = true;
+            }
+        }
+
+        private void completeQuietly() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Loan event subscriber {} already closed: {}", user, e.getMessage());
+            }
+        }
+    }
+
+    private record Delivered(String token, LoanEvent event, String json) {
+        SseEmitter.SseEventBuilder sse() {
+            return SseEmitter.event().id(token).name(LOAN_EVENT).data(json);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Writes the loan book straight from a MongoDB cursor to an output stream, one loan at a time, so heap use does
+ * not depend on how many loans match. Output is flushed every {@value #FLUSH_EVERY} loans.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanExportService {
+
+    static final int FLUSH_EVERY = 500;
+
+    static final String CSV_HEADER = "id,clientName,loanType,requestedAmount,tenureMonths,proposedInterestRate,"
+            + "indicativeRate,status,sanctionedAmount,approvedInterestRate,approvedBy,approvedAt,createdBy,createdAt,"
+            + "revenue,ebitda,rating";
+
+    private final LoanRepository loanRepo;
+    private final ObjectMapper objectMapper;
+
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + name);
+            }
+        }
+    }
+
+    /**
+     * Where an export is written. It is opened once the query has run, so a caller that sets response headers here
+     * leaves the response untouched for an error when the query fails.
+     */
+    @FunctionalInterface
+    public interface Output {
+        OutputStream open() throws IOException;
+    }
+
+    /**
+     * Streams every non-deleted loan matching {@code filter}, newest first, and returns how many were written.
+     */
+    public long export(LoanFilter filter, Format format, Output output) throws IOException {
+        long count = 0;
+        try (Stream<Loan> loans = loanRepo.streamActive(filter)) {
+            Iterator<Loan> it = loans.iterator();
+            // fetches the first batch: a failing query throws before the output is opened
+            it.hasNext();
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output.open(), StandardCharsets.UTF_8));
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            while (it.hasNext()) {
+                Loan loan = it.next();
+                writer.write(format == Format.CSV ? csvRow(loan) : objectMapper.writeValueAsString(loan));
+                writer.write('\n');
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        }
+        return count;
+    }
+
+    static String csvRow(Loan loan) {
+        Loan.Financials financials = loan.getFinancials();
+        StringBuilder row = new StringBuilder(160);
+        append(row, loan.getId());
+        append(row, loan.getClientName());
+        append(row, loan.getLoanType());
+        append(row, loan.getRequestedAmount());
+        append(row, loan.getTenureMonths());
+        append(row, loan.getProposedInterestRate());
+        append(row, loan.getIndicativeRate());
+        append(row, loan.getStatus());
+        append(row, loan.getSanctionedAmount());
+        append(row, loan.getApprovedInterestRate());
+        append(row, loan.getApprovedBy());
+        append(row, loan.getApprovedAt());
+        append(row, loan.getCreatedBy());
+        append(row, loan.getCreatedAt());
+        append(row, financials == null ? null : financials.getRevenue());
+        append(row, financials == null ? null : financials.getEbitda());
+        append(row, financials == null ? null : financials.getRating());
+        row.setLength(row.length() - 1);
+        return row.toString();
+    }
+
+    // RFC 4180: quote values containing a separator, quote or line break; double embedded quotes
+    private static void append(StringBuilder row, Object value) {
+        if (value != null) {
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                row.append('"').append(text.replace("\"", "\"\"")).append('"');
+            } else {
+                row.append(text);
+            }
+        }
+        row.append(',');
+    }
+}
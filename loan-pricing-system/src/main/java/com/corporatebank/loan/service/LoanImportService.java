@@ -0,0 +1,297 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanImportResult;
+import com.corporatebank.loan.dto.LoanImportSummary;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.repository.LoanRepository;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk loan creation from NDJSON (one loan object per line). The upload is read one line at a time and written in
+ * unordered insertMany batches of {@code loan.import.batch-size}; the next batch is not read until the previous one
+ * is stored and its results flushed to the client, so memory stays at one batch and a slow database slows the
+ * upload instead of buffering it. A line longer than {@code loan.import.max-line-length} characters is rejected
+ * without being held in memory.
+ */
+@Service
+public class LoanImportService {
+
+    private static final byte NEWLINE = '\n';
+
+    private final LoanRepository loanRepo;
+    private final PortfolioService portfolio;
+    private final LoanAuditService audit;
+    private final ObjectMapper objectMapper;
+    private final TransactionOperations transactions;
+    private final int batchSize;
+    private final int maxLineLength;
+
+    public LoanImportService(LoanRepository loanRepo,
+                             PortfolioService portfolio,
+                             LoanAuditService audit,
+                             ObjectMapper objectMapper,
+                             TransactionOperations transactions,
+                             @Value("${loan.import.batch-size:500}") int batchSize,
+                             @Value("${loan.import.max-line-length:65536}") int maxLineLength) {
+        this.loanRepo = loanRepo;
+        this.portfolio = portfolio;
+        this.audit = audit;
+        this.objectMapper = objectMapper;
+        this.transactions = transactions;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxLineLength = Math.max(1, maxLineLength);
+    }
+
+    /**
+     * Reads loans from {@code in} and writes one {@link LoanImportResult} line per non-blank input line to
+     * {@code out}, followed by a {@link LoanImportSummary} line.
+     */
+    public LoanImportSummary importLoans(InputStream in, OutputStream out, String user) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8), maxLineLength);
+        Batch batch = new Batch();
+        long received = 0;
+        long created = 0;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!reader.tooLong() && line.isBlank()) {
+                continue;
+            }
+            received++;
+            batch.add(lineNumber, reader.tooLong()
+                    ? LoanImportResult.rejected(lineNumber, "Line exceeds " + maxLineLength + " characters")
+                    : parse(line, lineNumber, user));
+            if (batch.size() == batchSize) {
+                created += flush(batch, out);
+            }
+        }
+        created += flush(batch, out);
+
+        LoanImportSummary summary = new LoanImportSummary(received, created, received - created);
+        write(out, summary);
+        out.flush();
+        return summary;
+    }
+
+    /**
+     * Returns a stamped, ready-to-insert {@link Loan}, or the {@link LoanImportResult} rejecting the line.
+     */
+    private Object parse(String line, long lineNumber, String user) {
+        Loan loan;
+        try {
+            loan = objectMapper.readValue(line, Loan.class);
+        } catch (JacksonException e) {
+            return LoanImportResult.rejected(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (loan == null) {
+            return LoanImportResult.rejected(lineNumber, "Expected a loan object");
+        }
+        String error = validate(loan);
+        if (error != null) {
+            return LoanImportResult.rejected(lineNumber, error);
+        }
+        // ids are assigned here so results can be reported without reading the inserted documents back
+        loan.setId(new ObjectId().toHexString());
+        loan.setDeleted(false);
+        LoanService.stampCreated(loan, user, Instant.now());
+        return loan;
+    }
+
+    static String validate(Loan loan) {
+        if (loan.getClientName() == null || loan.getClientName().isBlank()) {
+            return "clientName is required";
+        }
+        if (loan.getLoanType() == null) {
+            return "loanType is required";
+        }
+        if (loan.getRequestedAmount() == null || loan.getRequestedAmount() <= 0) {
+            return "requestedAmount must be positive";
+        }
+        if (loan.getTenureMonths() != null && loan.getTenureMonths() <= 0) {
+            return "tenureMonths must be positive";
+        }
+        return null;
+    }
+
+    /**
+     * Inserts the batch's loans in one call and writes the results of all its lines, in input order.
+     */
+    private long flush(Batch batch, OutputStream out) throws IOException {
+        if (batch.size() == 0) {
+            return 0;
+        }
+        List<Loan> loans = new ArrayList<>(batch.size());
+        for (Object entry : batch.entries) {
+            if (entry instanceof Loan loan) {
+                loans.add(loan);
+            }
+        }
+        Map<Loan, String> errors = insert(loans);
+
+        List<Loan> created = new ArrayList<>(loans.size() - errors.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Object entry = batch.entries.get(i);
+            if (entry instanceof Loan loan) {
+                String error = errors.get(loan);
+                if (error == null) {
+                    created.add(loan);
+                }
+                entry = error == null
+                        ? LoanImportResult.created(batch.lines.get(i), loan.getId())
+                        : LoanImportResult.rejected(batch.lines.get(i), error);
+            }
+            write(out, entry);
+        }
+        if (!created.isEmpty()) {
+            audit.recorded(created);
+        }
+        out.flush();
+        batch.clear();
+        return loans.size() - errors.size();
+    }
+
+    /**
+     * Inserts {@code loans} and counts them in the portfolio in one transaction, returning the loans that were
+     * rejected with their errors. A write error aborts a MongoDB transaction, so a batch with one is rolled back
+     * and inserted again without the rejected loans; such errors are rare, as every loan gets a fresh id.
+     */
+    private Map<Loan, String> insert(List<Loan> loans) {
+        Map<Loan, String> rejected = new IdentityHashMap<>();
+        List<Loan> pending = loans;
+        while (!pending.isEmpty()) {
+            List<Loan> attempt = pending;
+            InsertAttempt result = transactions.execute(status -> {
+                Map<Integer, String> failed = loanRepo.insertUnordered(attempt);
+                if (!failed.isEmpty() && status.isNewTransaction()) {
+                    status.setRollbackOnly();
+                    return new InsertAttempt(failed, true);
+                }
+                // without a transaction to roll back, the loans that had no error are stored
+                List<Loan> inserted = new ArrayList<>(attempt.size() - failed.size());
+                for (int i = 0; i < attempt.size(); i++) {
+                    if (!failed.containsKey(i)) {
+                        inserted.add(attempt.get(i));
+                    }
+                }
+                portfolio.added(inserted);
+                return new InsertAttempt(failed, false);
+            });
+            result.errors().forEach((i, error) -> rejected.put(attempt.get(i), error));
+            pending = !result.rolledBack() ? List.of()
+                    : attempt.stream().filter(loan -> !rejected.containsKey(loan)).toList();
+        }
+        return rejected;
+    }
+
+    private record InsertAttempt(Map<Integer, String> errors, boolean rolledBack) {
+    }
+
+    private void write(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write(NEWLINE);
+    }
+
+    /**
+     * {@link java.io.BufferedReader#readLine()} for {@code \n} or {@code \r\n} terminated lines, but a line longer
+     * than {@code maxLength} is read to its end without being kept: it comes back empty, with {@link #tooLong()}
+     * set.
+     */
+    static final class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        /** The next line without its terminator, or null at the end of the input. */
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read ? finish() : null;
+                    }
+                }
+                read = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    return finish();
+                }
+                // one character of slack for the '\r' of a "\r\n" terminator
+                if (!tooLong && line.length() > maxLength) {
+                    tooLong = true;
+                    line.setLength(0);
+                }
+                if (!tooLong) {
+                    line.append(c);
+                }
+            }
+        }
+
+        boolean tooLong() {
+            return tooLong;
+        }
+
+        private String finish() {
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            if (line.length() > maxLength) {
+                tooLong = true;
+                line.setLength(0);
+            }
+            return line.toString();
+        }
+    }
+
+    // pending lines: a Loan waiting to be inserted, or the LoanImportResult that already rejected it
+    private static final class Batch {
+        private final List<Long> lines = new ArrayList<>();
+        private final List<Object> entries = new ArrayList<>();
+
+        void add(long line, Object entry) {
+            lines.add(line);
+            entries.add(entry);
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        void clear() {
+            lines.clear();
+            entries.clear();
+        }
+    }
+}
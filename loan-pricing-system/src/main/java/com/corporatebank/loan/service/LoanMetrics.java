@@ -0,0 +1,109 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Times {@link LoanService} lifecycle transitions as {@code loan.transitions{transition, outcome, status}}, where
+ * {@code status} is the loan's status after a successful transition ({@code NONE} on failure). Each timer is
+ * registered on first use and then read from an array, so recording is two {@code nanoTime} calls and no
+ * registry lookup or tag allocation. A {@link LoanService#decideAll} batch is timed once, as
+ * {@code loan.decisions.batches}, with its items counted as {@code loan.decisions{outcome}}.
+ */
+@Component
+public class LoanMetrics {
+
+    static final String TIMER = "loan.transitions";
+    static final String BATCH_TIMER = "loan.decisions.batches";
+    static final String DECISIONS = "loan.decisions";
+
+    public enum Transition { CREATE, UPDATE, SUBMIT, APPROVE, REJECT, DELETE }
+
+    enum Outcome { SUCCESS, CONFLICT, NOT_FOUND, INVALID, ERROR }
+
+    private static final Transition[] TRANSITIONS = Transition.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    // slot 0 is "no status"
+    private static final int STATUS_SLOTS = LoanStatus.values().length + 1;
+
+    private final MeterRegistry registry;
+    private final AtomicReferenceArray<Timer> timers =
+            new AtomicReferenceArray<>(TRANSITIONS.length * OUTCOMES.length * STATUS_SLOTS);
+
+    public LoanMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Loan record(Transition transition, Supplier<Loan> action) {
+        long start = System.nanoTime();
+        try {
+            Loan loan = action.get();
+            timer(transition, Outcome.SUCCESS, loan.getStatus()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return loan;
+        } catch (CustomException e) {
+            timer(transition, outcome(e.getStatus()), null).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (RuntimeException e) {
+            timer(transition, Outcome.ERROR, null).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * Records one decision batch: its duration, and how many of its items ended in each
+     * {@link LoanDecisionResult} outcome.
+     */
+    public void recordBatch(List<LoanDecisionResult> results, long nanos) {
+        Timer.builder(BATCH_TIMER)
+                .description("LoanService bulk decision batches")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        results.stream()
+                .collect(Collectors.groupingBy(LoanDecisionResult::getOutcome, Collectors.counting()))
+                .forEach((outcome, count) -> Counter.builder(DECISIONS)
+                        .description("Items of LoanService bulk decision batches")
+                        .tag("outcome", outcome.toLowerCase(Locale.ROOT))
+                        .register(registry)
+                        .increment(count));
+    }
+
+    private static Outcome outcome(HttpStatus status) {
+        return switch (status.value()) {
+            case 409 -> Outcome.CONFLICT;
+            case 404 -> Outcome.NOT_FOUND;
+            case 400 -> Outcome.INVALID;
+            default -> Outcome.ERROR;
+        };
+    }
+
+    private Timer timer(Transition transition, Outcome outcome, LoanStatus status) {
+        int slot = status == null ? 0 : status.ordinal() + 1;
+        int index = (transition.ordinal() * OUTCOMES.length + outcome.ordinal()) * STATUS_SLOTS + slot;
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            // registration is idempotent, so two threads racing here end up with the same meter
+            timer = Timer.builder(TIMER)
+                    .description("LoanService lifecycle transitions")
+                    .tag("transition", transition.name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .tag("status", status == null ? "NONE" : status.name())
+                    .register(registry);
+            timers.set(index, timer);
+        }
+        return timer;
+    }
+}
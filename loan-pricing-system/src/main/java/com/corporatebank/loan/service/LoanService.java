@@ -1,80 +1,537 @@
 package com.corporatebank.loan.service;
 
+import com.corporatebank.loan.dto.CursorPage;
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanDecision;
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.exception.CustomException;
 import com.corporatebank.loan.model.Loan;
 import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanSearchKeys;
 import com.corporatebank.loan.model.enums.LoanStatus;
 import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.service.LoanMetrics.Transition;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.beans.PropertyDescriptor;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LoanService {
 
+    private static final Set<LoanStatus> EDITABLE = EnumSet.of(LoanStatus.DRAFT);
+    private static final Set<LoanStatus> DECIDABLE = EnumSet.of(LoanStatus.SUBMITTED, LoanStatus.UNDER_REVIEW);
+    private static final Set<LoanStatus> ANY_STATUS = EnumSet.noneOf(LoanStatus.class);
+
+    private static final String SUBMIT_CONFLICT = "Only DRAFT loans can be submitted.";
+    private static final String DECISION_CONFLICT = "Only SUBMITTED or UNDER_REVIEW loans can be approved or rejected.";
+
+    // attempts at a write computed from the loan, each re-reading it after a concurrent write got in between
+    private static final int MAX_ATTEMPTS = 3;
+
+    // deepest result a search pages to; past it the query should be refined rather than paged
+    static final int MAX_SEARCH_RESULTS = 1000;
+
+    // decisions applied by one decideAll call, i.e. one bulk write
+    static final int MAX_DECISIONS = 1000;
+
+    // sort parameters are caller-controlled; stop remembering (and warning about) new shapes past this many
+    private static final int MAX_WARNED_SHAPES = 256;
+
+    // top-level Loan properties a caller may ask for with ?fields=
+    private static final Set<String> SELECTABLE_FIELDS = Arrays.stream(BeanUtils.getPropertyDescriptors(Loan.class))
+            .map(PropertyDescriptor::getName)
+            .filter(name -> !name.equals("class") && !name.equals("searchName") && !name.equals("searchKeys")
+                    && !name.equals("decisionBatch"))
+            .collect(Collectors.toUnmodifiableSet());
+
+    // filter and sort shapes already warned about, so a UI polling one view logs once
+    private final Set<String> unindexedShapes = ConcurrentHashMap.newKeySet();
+
     private final LoanRepository loanRepo;
+    private final PricingEngine pricingEngine;
+    private final LoanMetrics metrics;
+    private final PortfolioService portfolio;
+    private final LoanAuditService audit;
+    // each loan write and its portfolio counter change commit together
+    private final TransactionOperations transactions;
 
     public Loan createLoan(Loan loan, String user) {
+        return metrics.record(Transition.CREATE, () -> {
+            stampCreated(loan, user, Instant.now());
+            // insert rather than save: a transaction retried after an abort inserts the same, already stamped, loan
+            Loan saved = transactions.execute(status -> {
+                Loan inserted = loanRepo.insert(loan);
+                portfolio.added(List.of(inserted));
+                return inserted;
+            });
+            audit.recorded(List.of(saved));
+            return saved;
+        });
+    }
+
+    // shared with the bulk import so both paths create identical DRAFT loans
+    static void stampCreated(Loan loan, String user, Instant now) {
+        // a client-supplied version would make save() an update of a loan that does not exist
+        loan.setVersion(null);
         loan.setCreatedBy(user);
-        loan.setCreatedAt(Instant.now());
+        loan.setCreatedAt(now);
         loan.setStatus(LoanStatus.DRAFT);
-        loan.getActions().add(new LoanAction(user, "CREATED", Instant.now()));
-        return loanRepo.save(loan);
+        loan.setLastAction(new LoanAction(user, "CREATED", now));
+        LoanSearchKeys.stamp(loan);
     }
 
     public Page<Loan> getAllLoans(Pageable page) {
         return loanRepo.findByDeletedFalse(page);
     }
 
+    public Page<LoanSummary> getLoanSummaries(Pageable page) {
+        return loanRepo.findSummaryByDeletedFalse(page);
+    }
+
+    /**
+     * Page of the loans matching {@code filter}, from one query. The filter must pin an index: an equality on a field
+     * leading a {@code {field, createdAt}} index or a createdAt range. Amount and approval-date ranges alone would
+     * read every loan to check them, so they are a 400. A sort other than createdAt is still served, by sorting the
+     * matches in memory; that is logged once per filter and sort shape.
+     */
+    public Page<LoanSummary> getLoanSummaries(LoanFilter filter, Pageable page) {
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount() > filter.getMaxAmount()) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "minAmount must not be greater than maxAmount.");
+        }
+        if (!indexBounded(filter)) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "Amount and approval date ranges need a status, "
+                    + "loanType, createdBy, approvedBy or createdFrom/createdTo filter as well.");
+        }
+        if (!createdAtOrder(page.getSort())) {
+            String shape = filterShape(filter) + " sort " + page.getSort();
+            if (unindexedShapes.size() < MAX_WARNED_SHAPES && unindexedShapes.add(shape)) {
+                log.warn("Loan filter {} has no index in that order; matches are sorted in memory", shape);
+            }
+        }
+        return loanRepo.findSummaries(filter, page);
+    }
+
+    // an equality that leads a {field, createdAt} index on Loan, or a createdAt range on active_createdAt
+    private static boolean indexBounded(LoanFilter filter) {
+        return filter.getStatus() != null || filter.getLoanType() != null || filter.getCreatedBy() != null
+                || filter.getApprovedBy() != null || filter.getCreatedFrom() != null || filter.getCreatedTo() != null;
+    }
+
+    // what the {field, createdAt} indexes return without a SORT stage: createdAt, then optionally id, one direction
+    private static boolean createdAtOrder(Sort sort) {
+        List<Sort.Order> orders = sort.toList();
+        if (orders.isEmpty() || orders.size() > 2 || !orders.get(0).getProperty().equals("createdAt")) {
+            return orders.isEmpty();
+        }
+        return orders.size() == 1 || (orders.get(1).getProperty().equals("id")
+                && orders.get(1).getDirection() == orders.get(0).getDirection());
+    }
+
+    private static String filterShape(LoanFilter filter) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(filter);
+        return Arrays.stream(wrapper.getPropertyDescriptors())
+                .map(PropertyDescriptor::getName)
+                .filter(name -> !name.equals("class") && wrapper.getPropertyValue(name) != null)
+                .sorted()
+                .toList()
+                .toString();
+    }
+
+    /**
+     * Page of loans reduced to {@code fields} (plus {@code id}); only those fields are read from MongoDB.
+     */
+    public Page<Map<String, Object>> getLoanFields(Collection<String> fields, Pageable page) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields) {
+            String name = field.trim();
+            if (!SELECTABLE_FIELDS.contains(name)) {
+                throw new CustomException(HttpStatus.BAD_REQUEST, "Unknown field: " + name);
+            }
+            selected.add(name);
+        }
+        return loanRepo.findActiveWithFields(selected, page).map(loan -> {
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(loan);
+            Map<String, Object> row = new LinkedHashMap<>();
+            selected.forEach(name -> row.put(name, wrapper.getPropertyValue(name)));
+            return row;
+        });
+    }
+
+    /**
+     * Keyset alternative to {@link #getLoanSummaries}: cost does not grow with depth and no count runs unless
+     * {@code includeTotal} is set. A null or empty {@code cursor} starts from the newest loan.
+     */
+    public CursorPage<LoanSummary> scrollLoans(String cursor, int size, boolean includeTotal) {
+        LoanCursor after = cursor == null || cursor.isEmpty() ? null : LoanCursor.decode(cursor);
+        // one extra row tells whether another slice exists without counting
+        List<LoanSummary> loans = loanRepo.findActiveAfter(after, size + 1);
+        String nextCursor = null;
+        if (loans.size() > size) {
+            loans = loans.subList(0, size);
+            LoanSummary last = loans.get(size - 1);
+            nextCursor = new LoanCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        Long total = includeTotal ? loanRepo.countByDeletedFalse() : null;
+        return new CursorPage<>(loans, nextCursor, nextCursor != null, total);
+    }
+
+    /**
+     * Loans whose client name matches {@code q}, compared case- and accent-insensitively by word. Names starting with
+     * the whole query rank first, then names in which every query word starts some word ("north steel" finds "Steel
+     * Works North"); each tier is in name order. Both tiers are index range reads of the search keys, never a scan.
+     * Results page to {@link #MAX_SEARCH_RESULTS} and are returned as a slice, so nothing is counted in full.
+     */
+    public Slice<LoanSummary> searchLoans(String q, Pageable page) {
+        List<String> words = LoanSearchKeys.words(q);
+        if (words.isEmpty()) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "Search needs at least one letter or digit.");
+        }
+        long offset = page.getOffset();
+        int size = page.getPageSize();
+        if (offset + size > MAX_SEARCH_RESULTS) {
+            throw new CustomException(HttpStatus.BAD_REQUEST,
+                    "Search results are limited to the first " + MAX_SEARCH_RESULTS + "; refine the query.");
+        }
+        // one row past the page tells whether another exists
+        int wanted = size + 1;
+        String prefix = LoanSearchKeys.name(words);
+        long prefixMatches = loanRepo.countNamePrefix(prefix, offset + wanted);
+        List<LoanSummary> rows = new ArrayList<>(wanted);
+        if (offset < prefixMatches) {
+            rows.addAll(loanRepo.searchNamePrefix(prefix, offset, wanted));
+        }
+        if (rows.size() < wanted) {
+            long keyOffset = Math.max(0, offset - prefixMatches);
+            rows.addAll(loanRepo.searchNameKeys(LoanSearchKeys.queryKeys(words), prefix, keyOffset,
+                    wanted - rows.size()));
+        }
+        boolean hasNext = rows.size() > size && offset + size < MAX_SEARCH_RESULTS;
+        return new SliceImpl<>(rows.size() > size ? rows.subList(0, size) : rows, page, hasNext);
+    }
+
+    public PortfolioStats getPortfolioStats(LoanFilter filter) {
+        return loanRepo.portfolioStats(filter);
+    }
+
+    /**
+     * The loan's actions newest first; 404 if the loan does not exist or was deleted.
+     */
+    public Page<LoanAction> getLoanActions(String id, Pageable page) {
+        getLoan(id);
+        return audit.history(id, page);
+    }
+
     public Loan getLoan(String id) {
         return loanRepo.findByIdAndDeletedFalse(id)
-                .orElseThrow(() -> new RuntimeException("Loan not found"));
+                .orElseThrow(() -> new CustomException(HttpStatus.NOT_FOUND, "Loan not found"));
+    }
+
+    /**
+     * Current version of the loan, from a version-only read; 404 if it does not exist or was deleted.
+     */
+    public long getLoanVersion(String id) {
+        return loanRepo.findVersion(id)
+                .orElseThrow(() -> new CustomException(HttpStatus.NOT_FOUND, "Loan not found"));
     }
 
     public Loan updateLoan(String id, Loan updated, String user) {
-        Loan loan = getLoan(id);
-        if (loan.getStatus() != LoanStatus.DRAFT) {
-            throw new RuntimeException("Only DRAFT loans can be edited.");
-        }
-        loan.setClientName(updated.getClientName());
-        loan.setLoanType(updated.getLoanType());
-        loan.setRequestedAmount(updated.getRequestedAmount());
-        loan.setFinancials(updated.getFinancials());
-        loan.getActions().add(new LoanAction(user, "UPDATED", Instant.now()));
-        return loanRepo.save(loan);
+        return updateLoan(id, updated, user, null);
+    }
+
+    /**
+     * Edits a DRAFT loan. With an {@code expectedVersion} the edit only applies to that version of the loan and a
+     * stale version is a 412. The edit does not depend on the stored loan, so it is one findAndModify that returns
+     * the loan as it was, which is all the portfolio counters need.
+     */
+    public Loan updateLoan(String id, Loan updated, String user, Long expectedVersion) {
+        List<String> words = LoanSearchKeys.words(updated.getClientName());
+        String searchName = LoanSearchKeys.name(words);
+        List<String> searchKeys = LoanSearchKeys.keys(words);
+        LoanAction action = new LoanAction(user, "UPDATED", Instant.now());
+        Update update = new Update()
+                .set("clientName", updated.getClientName())
+                .set("searchName", searchName)
+                .set("searchKeys", searchKeys)
+                .set("loanType", updated.getLoanType())
+                .set("requestedAmount", updated.getRequestedAmount())
+                .set("financials", updated.getFinancials())
+                .set("lastAction", action);
+        return metrics.record(Transition.UPDATE, () -> transition(id, EDITABLE, expectedVersion, update, loan -> {
+            loan.setClientName(updated.getClientName());
+            loan.setSearchName(searchName);
+            loan.setSearchKeys(searchKeys);
+            loan.setLoanType(updated.getLoanType());
+            loan.setRequestedAmount(updated.getRequestedAmount());
+            loan.setFinancials(updated.getFinancials());
+            loan.setLastAction(action);
+        }, "Only DRAFT loans can be edited."));
     }
 
+    /**
+     * Moves a DRAFT loan to SUBMITTED and stamps the engine's {@code indicativeRate}, priced from the loan as it is
+     * when the write applies.
+     */
     public Loan submit(String id, String user) {
-        Loan loan = getLoan(id);
-        loan.setStatus(LoanStatus.SUBMITTED);
-        loan.getActions().add(new LoanAction(user, "SUBMITTED", Instant.now()));
-        return loanRepo.save(loan);
+        return metrics.record(Transition.SUBMIT, () -> transition(id, EDITABLE, loan -> {
+            Instant now = Instant.now();
+            return new Update()
+                    .set("status", LoanStatus.SUBMITTED)
+                    .set("indicativeRate", pricingEngine.rate(loan))
+                    .set("pricedAt", now)
+                    .set("lastAction", new LoanAction(user, "SUBMITTED", now));
+        }, SUBMIT_CONFLICT));
     }
 
+    /**
+     * Records the decision. An approval without an explicit {@code rate} takes the loan's indicative rate (pricing
+     * it now if it was submitted before the engine existed).
+     */
     public Loan approve(String id, String admin, Double amount, Double rate, boolean approved) {
-        Loan loan = getLoan(id);
-        if (approved) {
-            loan.setStatus(LoanStatus.APPROVED);
-            loan.setSanctionedAmount(amount);
-            loan.setApprovedInterestRate(rate);
-            loan.setApprovedBy(admin);
-            loan.setApprovedAt(Instant.now());
-            loan.getActions().add(new LoanAction(admin, "APPROVED", Instant.now()));
+        LoanDecision decision = new LoanDecision(id, approved, amount, rate);
+        return metrics.record(approved ? Transition.APPROVE : Transition.REJECT, () -> transition(id, DECIDABLE,
+                loan -> decisionUpdate(decided(loan, decision, admin, Instant.now())), DECISION_CONFLICT));
+    }
+
+    /**
+     * Applies up to {@link #MAX_DECISIONS} decisions with one read of the loans and one unordered bulk write, each
+     * write conditional on the version that was read, and returns an outcome per item in request order. An item
+     * fails on its own (unknown or deleted loan, status no longer SUBMITTED or UNDER_REVIEW, changed since the read,
+     * repeated id) without affecting the others; conflicts are not retried.
+     */
+    public List<LoanDecisionResult> decideAll(List<LoanDecision> decisions, String admin) {
+        if (decisions.size() > MAX_DECISIONS) {
+            throw new CustomException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_DECISIONS + " decisions can be applied at once.");
+        }
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        // written with every decision of this call, so a partly applied batch can find the writes that were its own
+        String batch = new ObjectId().toHexString();
+        LoanDecisionResult[] results = new LoanDecisionResult[decisions.size()];
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            String id = decisions.get(i).getId();
+            if (id == null || id.isBlank()) {
+                results[i] = LoanDecisionResult.invalid(id, "A loan id is required.");
+            } else if (positions.putIfAbsent(id, i) != null) {
+                results[i] = LoanDecisionResult.invalid(id, "Only one decision per loan in a batch.");
+            }
+        }
+        Map<String, Loan> current = new HashMap<>();
+        if (!positions.isEmpty()) {
+            loanRepo.findForDecision(positions.keySet()).forEach(loan -> current.put(loan.getId(), loan));
+        }
+
+        Map<String, Loan> decided = new LinkedHashMap<>();
+        Map<String, Update> updates = new LinkedHashMap<>();
+        Map<String, Long> versions = new HashMap<>();
+        positions.forEach((id, i) -> {
+            Loan loan = current.get(id);
+            if (loan == null) {
+                results[i] = LoanDecisionResult.notFound(id);
+            } else if (!DECIDABLE.contains(loan.getStatus())) {
+                results[i] = LoanDecisionResult.conflict(id, loan.getStatus(), DECISION_CONFLICT);
+            } else {
+                try {
+                    Loan after = decided(loan, decisions.get(i), admin, now);
+                    decided.put(id, after);
+                    updates.put(id, decisionUpdate(after).set("decisionBatch", batch));
+                    versions.put(id, versionOf(loan));
+                } catch (CustomException e) {
+                    // the loan cannot be priced for a default rate
+                    results[i] = LoanDecisionResult.invalid(id, e.getMessage());
+                }
+            }
+        });
+
+        Collection<String> applied = transactions.execute(status -> {
+            long modified = loanRepo.updateEachAtVersion(updates, versions, DECIDABLE);
+            Collection<String> written = modified == updates.size() ? updates.keySet()
+                    : Set.copyOf(loanRepo.findIdsDecidedIn(versions, batch));
+            portfolio.changed(written.stream().map(current::get).toList(),
+                    written.stream().map(decided::get).toList());
+            return written;
+        });
+        List<Loan> after = new ArrayList<>(applied.size());
+        decided.forEach((id, loan) -> {
+            int i = positions.get(id);
+            if (applied.contains(id)) {
+                after.add(loan);
+                results[i] = LoanDecisionResult.applied(id, loan.getStatus());
+            } else {
+                results[i] = LoanDecisionResult.conflict(id, null, "Loan was modified concurrently.");
+            }
+        });
+        audit.recorded(after);
+        List<LoanDecisionResult> outcomes = Arrays.asList(results);
+        metrics.recordBatch(outcomes, System.nanoTime() - start);
+        return outcomes;
+    }
+
+    // a copy of loan with the decision applied, as both decision paths write it
+    private Loan decided(Loan loan, LoanDecision decision, String admin, Instant now) {
+        Loan decided = new Loan();
+        BeanUtils.copyProperties(loan, decided);
+        decided.setApprovedBy(admin);
+        if (decision.isApproved()) {
+            decided.setStatus(LoanStatus.APPROVED);
+            decided.setSanctionedAmount(decision.getAmount());
+            decided.setApprovedInterestRate(decision.getRate() != null ? decision.getRate()
+                    : loan.getIndicativeRate() != null ? loan.getIndicativeRate() : pricingEngine.rate(loan));
+            decided.setApprovedAt(now);
+            decided.setLastAction(new LoanAction(admin, "APPROVED", now));
         } else {
-            loan.setStatus(LoanStatus.REJECTED);
-            loan.setApprovedBy(admin);
-            loan.getActions().add(new LoanAction(admin, "REJECTED", Instant.now()));
+            decided.setStatus(LoanStatus.REJECTED);
+            decided.setLastAction(new LoanAction(admin, "REJECTED", now));
         }
-        return loanRepo.save(loan);
+        return decided;
+    }
+
+    private static Update decisionUpdate(Loan decided) {
+        Update update = new Update()
+                .set("approvedBy", decided.getApprovedBy())
+                .set("status", decided.getStatus());
+        if (decided.getStatus() == LoanStatus.APPROVED) {
+            update.set("sanctionedAmount", decided.getSanctionedAmount())
+                    .set("approvedInterestRate", decided.getApprovedInterestRate())
+                    .set("approvedAt", decided.getApprovedAt());
+        }
+        return update.set("lastAction", decided.getLastAction());
     }
 
     public void softDelete(String id, String admin) {
-        Loan loan = getLoan(id);
-        loan.setDeleted(true);
-        loan.getActions().add(new LoanAction(admin, "DELETED", Instant.now()));
-        loanRepo.save(loan);
+        LoanAction action = new LoanAction(admin, "DELETED", Instant.now());
+        Update update = new Update()
+                .set("deleted", true)
+                .set("lastAction", action);
+        metrics.record(Transition.DELETE, () -> transition(id, ANY_STATUS, null, update, loan -> {
+            loan.setDeleted(true);
+            loan.setLastAction(action);
+        }, "Loan was modified concurrently."));
+    }
+
+    /**
+     * Applies a transition whose {@code update} does not depend on the stored loan as one findAndModify that returns
+     * the loan as it was before the write; {@code applied} makes the same change to a copy of it, giving the loan
+     * after the write without reading it again. Only when nothing matched is the loan read, to tell a missing loan
+     * (404), a stale {@code expectedVersion} (412) and a disallowed source status (409) apart.
+     */
+    private Loan transition(String id, Set<LoanStatus> from, Long expectedVersion, Update update,
+                            Consumer<Loan> applied, String conflictMessage) {
+        Criteria condition = expectedVersion == null ? null : atVersion(expectedVersion);
+        Optional<Loan> written = transactions.execute(status -> loanRepo
+                .updateIfStatusReturningPrevious(id, from, condition, update)
+                .map(before -> {
+                    Loan after = new Loan();
+                    BeanUtils.copyProperties(before, after);
+                    applied.accept(after);
+                    after.setVersion(versionOf(before) + 1);
+                    portfolio.changed(before, after);
+                    return after;
+                }));
+        if (written.isEmpty()) {
+            Loan current = getLoan(id);
+            if (expectedVersion != null) {
+                checkVersion(expectedVersion, versionOf(current));
+            }
+            if (!from.isEmpty() && !from.contains(current.getStatus())) {
+                throw conflict(conflictMessage, current);
+            }
+            throw new CustomException(HttpStatus.CONFLICT, "Loan was modified concurrently.");
+        }
+        return recorded(written.get());
+    }
+
+    /**
+     * Applies a transition whose update is computed from the stored loan (a price, a default rate). The loan is read
+     * and the update built from it is written only at the version that was read, so it never lands on a loan that
+     * changed in between; if one did, the loan is re-read and the update rebuilt from it. A missing loan is a 404 and
+     * one no longer in an allowed source status a 409.
+     */
+    private Loan transition(String id, Set<LoanStatus> from, Function<Loan, Update> change, String conflictMessage) {
+        Loan before = getLoan(id);
+        for (int attempt = 1; ; attempt++) {
+            if (!from.contains(before.getStatus())) {
+                throw conflict(conflictMessage, before);
+            }
+            Loan read = before;
+            Update update = change.apply(read);
+            Optional<Loan> after = transactions.execute(status -> loanRepo
+                    .updateIfStatus(id, EnumSet.of(read.getStatus()), atVersion(versionOf(read)), update)
+                    .map(written -> {
+                        portfolio.changed(read, written);
+                        return written;
+                    }));
+            if (after.isPresent()) {
+                return recorded(after.get());
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                throw new CustomException(HttpStatus.CONFLICT, "Loan was modified concurrently.");
+            }
+            before = getLoan(id);
+        }
+    }
+
+    private Loan recorded(Loan after) {
+        audit.recorded(List.of(after));
+        return after;
+    }
+
+    // a loan stored without a version is at version 0
+    private static Criteria atVersion(long version) {
+        return version == 0 ? Criteria.where("version").in(0L, null) : Criteria.where("version").is(version);
+    }
+
+    private static long versionOf(Loan loan) {
+        return loan.getVersion() == null ? 0 : loan.getVersion();
+    }
+
+    private static void checkVersion(long expected, long current) {
+        if (expected != current) {
+            throw new CustomException(HttpStatus.PRECONDITION_FAILED,
+                    "Loan was modified since version " + expected + ". Current version: " + current + ".");
+        }
+    }
+
+    private static CustomException conflict(String message, Loan current) {
+        return new CustomException(HttpStatus.CONFLICT, message + " Current status: " + current.getStatus() + ".");
     }
 }
@@ -0,0 +1,187 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.exception.CustomException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the {@link PasswordEncoder} (bcrypt, cost {@code auth.password.strength}) on a dedicated pool of
+ * {@code auth.hashing.threads} threads instead of the request thread, so a burst of logins queues behind that pool
+ * rather than occupying every request thread. At most {@code auth.hashing.queue-size} hashes wait; past that the
+ * caller gets a 503 straight away, as does one whose hash has not started within {@code auth.hashing.max-wait}. A
+ * hash that has started runs to the end and is returned: its cost is already paid. Each 503 carries a
+ * {@code Retry-After} of max-wait.
+ * <p>
+ * Metrics: the pool's executor gauges and timers as {@code executor_*{name="auth.hashing"}}, hash time per
+ * operation as {@code auth_hashing_seconds{operation}} and turned-away calls as {@code auth_hashing_rejected_total}.
+ */
+@Service
+public class PasswordHashingService implements MeterBinder {
+
+    static final String TIMER = "auth.hashing";
+
+    // $2a$10$..., $2b$12$...: the cost is the two digits after the version
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[abxy]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder encoder;
+    private final int strength;
+    private final Duration maxWait;
+    private final ThreadPoolExecutor pool;
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile Timer encodeTimer;
+    private volatile Timer matchTimer;
+
+    public PasswordHashingService(PasswordEncoder encoder,
+                                  @Value("${auth.password.strength:10}") int strength,
+                                  @Value("${auth.hashing.threads:0}") int threads,
+                                  @Value("${auth.hashing.queue-size:64}") int queueSize,
+                                  @Value("${auth.hashing.max-wait:2s}") Duration maxWait) {
+        this.encoder = encoder;
+        this.strength = strength;
+        this.maxWait = maxWait;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), new HashingThreads());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run(() -> time(encodeTimer, () -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> time(matchTimer, () -> encoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * Whether a bcrypt hash was made at a cost other than the configured one, i.e. should be replaced by
+     * {@link #encode} the next time its password is known. Anything that is not a bcrypt hash is left alone.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher cost = BCRYPT_COST.matcher(encodedPassword);
+        return cost.find() && Integer.parseInt(cost.group(1)) != strength;
+    }
+
+    private <T> T run(Callable<T> hash) {
+        QueuedHash<T> task = new QueuedHash<>(hash);
+        try {
+            pool.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            if (!task.awaitStart(maxWait) && task.abandon()) {
+                // frees its queue slot now rather than when a thread reaches it
+                pool.remove(task);
+                throw busy();
+            }
+            return task.get();
+        } catch (InterruptedException e) {
+            task.abandon();
+            pool.remove(task);
+            Thread.currentThread().interrupt();
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private CustomException busy() {
+        rejected.increment();
+        return new CustomException(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-ins in progress, please retry.",
+                maxWait);
+    }
+
+    private static <T> T time(Timer timer, Callable<T> hash) throws Exception {
+        return timer == null ? hash.call() : timer.recordCallable(hash);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(pool, TIMER, Tags.empty()).bindTo(registry);
+        encodeTimer = Timer.builder(TIMER).tag("operation", "encode").register(registry);
+        matchTimer = Timer.builder(TIMER).tag("operation", "matches").register(registry);
+        FunctionCounter.builder(TIMER + ".rejected", rejected, LongAdder::sum)
+                .description("Password hashes refused because the hashing pool was saturated")
+                .register(registry);
+    }
+
+    /**
+     * A hash that either a pool thread starts or its caller abandons, whichever comes first: an abandoned one is
+     * skipped when dequeued, a started one is no longer abandoned.
+     */
+    private static final class QueuedHash<T> extends FutureTask<T> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        QueuedHash(Callable<T> hash) {
+            super(hash);
+        }
+
+        @Override
+        public void run() {
+            if (claimed.compareAndSet(false, true)) {
+                started.countDown();
+                super.run();
+            }
+        }
+
+        boolean awaitStart(Duration timeout) throws InterruptedException {
+            return started.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        // false once a thread has started the hash
+        boolean abandon() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private static final class HashingThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.PortfolioReconciliation;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.repository.PortfolioSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps {@link PortfolioSummary} in step with the loans. Callers report each loan write with its before and after
+ * state, in the transaction that makes the write, and the difference is applied as one {@code $inc}, so the summary
+ * never needs the loans re-read. A failed increment fails the transaction, so the loan write is rolled back with
+ * it and the counters cannot drift; {@link #reconcile()} checks that they have not.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioService {
+
+    private final PortfolioSummaryRepository summaryRepo;
+    private final LoanRepository loanRepo;
+    private final TransactionOperations transactions;
+
+    public PortfolioSummary getSummary() {
+        return summaryRepo.findById(PortfolioSummary.ID).orElseGet(PortfolioSummary::new);
+    }
+
+    public void added(Collection<Loan> loans) {
+        Map<String, PortfolioSummary.Counter> deltas = new TreeMap<>();
+        loans.forEach(loan -> add(deltas, loan, 1));
+        increment(deltas);
+    }
+
+    public void changed(Loan before, Loan after) {
+        Map<String, PortfolioSummary.Counter> deltas = new TreeMap<>();
+        add(deltas, before, -1);
+        add(deltas, after, 1);
+        deltas.values().removeIf(PortfolioSummary.Counter::isZero);
+        increment(deltas);
+    }
+
+    /**
+     * Several loan writes reported as one increment: {@code before} and {@code after} hold the same loans' states.
+     */
+    public void changed(Collection<Loan> before, Collection<Loan> after) {
+        Map<String, PortfolioSummary.Counter> deltas = new TreeMap<>();
+        before.forEach(loan -> add(deltas, loan, -1));
+        after.forEach(loan -> add(deltas, loan, 1));
+        deltas.values().removeIf(PortfolioSummary.Counter::isZero);
+        increment(deltas);
+    }
+
+    /**
+     * Aggregates the counters from the loans and adds the difference to the stored ones, in one transaction: the
+     * stored counters and the loans are read at the same point in time, so a loan write committed meanwhile is on
+     * both sides or neither, and one committed after that conflicts with the correction and the reconciliation is
+     * run again. Runs on {@code loan.portfolio.reconcile.cron} and on demand from the admin endpoint.
+     */
+    @Scheduled(cron = "${loan.portfolio.reconcile.cron:0 30 2 * * *}")
+    public PortfolioReconciliation reconcile() {
+        PortfolioReconciliation result = transactions.execute(status -> {
+            Map<String, PortfolioSummary.Counter> stored = getSummary().getBuckets();
+            Map<String, PortfolioSummary.Counter> actual = loanRepo.portfolioCounters();
+            Map<String, PortfolioSummary.Counter> drift = new TreeMap<>();
+            Collection<String> keys = new TreeSet<>(stored.keySet());
+            keys.addAll(actual.keySet());
+            for (String key : keys) {
+                PortfolioSummary.Counter have = stored.getOrDefault(key, new PortfolioSummary.Counter());
+                PortfolioSummary.Counter want = actual.getOrDefault(key, new PortfolioSummary.Counter());
+                PortfolioSummary.Counter difference = new PortfolioSummary.Counter(
+                        want.getCount() - have.getCount(),
+                        cents(want.getRequestedAmount() - have.getRequestedAmount()),
+                        cents(want.getSanctionedAmount() - have.getSanctionedAmount()));
+                if (!difference.isZero()) {
+                    drift.put(key, difference);
+                }
+            }
+            Instant now = Instant.now();
+            if (!drift.isEmpty()) {
+                summaryRepo.increment(drift, now);
+            }
+            return new PortfolioReconciliation(now, drift);
+        });
+        if (result.isInSync()) {
+            log.info("Portfolio summary reconciled: in sync");
+        } else {
+            log.warn("Portfolio summary reconciled: corrected drift {}", result.getDrift());
+        }
+        return result;
+    }
+
+    // runs in the caller's transaction; a failure rolls back the loan write it belongs to
+    private void increment(Map<String, PortfolioSummary.Counter> deltas) {
+        if (!deltas.isEmpty()) {
+            summaryRepo.increment(deltas, Instant.now());
+        }
+    }
+
+    // deleted loans are not counted, so soft-deleting one just takes it out of its bucket
+    private static void add(Map<String, PortfolioSummary.Counter> deltas, Loan loan, int sign) {
+        if (loan == null || loan.isDeleted()) {
+            return;
+        }
+        PortfolioSummary.Counter delta = deltas.computeIfAbsent(
+                PortfolioSummary.key(loan.getStatus(), loan.getLoanType()), key -> new PortfolioSummary.Counter());
+        delta.setCount(delta.getCount() + sign);
+        delta.setRequestedAmount(delta.getRequestedAmount() + sign * amount(loan.getRequestedAmount()));
+        delta.setSanctionedAmount(delta.getSanctionedAmount() + sign * amount(loan.getSanctionedAmount()));
+    }
+
+    private static double amount(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    // floating-point sums drift by fractions of a cent depending on the order they were added in
+    private static double cents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
@@ -0,0 +1,206 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.PricingQuote;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Risk-based rate: base curve at the loan's tenor + rating spread + loan-type spread + EBITDA-margin and
+ * exposure (requested amount / revenue) adjustments, clamped to [minRate, maxRate].
+ * <p>
+ * The configured grids are compiled once into primitive arrays (the base curve into one entry per month), so
+ * {@link #rate} is a handful of array reads and does not allocate. {@link #quote} adds the breakdown for display.
+ */
+@Service
+public class PricingEngine {
+
+    // curve is tabulated monthly up to at least this tenor; longer tenors use the last entry
+    private static final int MIN_CURVE_MONTHS = 360;
+
+    private final double[] baseByMonth;
+    private final String[] ratingCodes;
+    private final double[] ratingSpreads;
+    private final double unratedSpread;
+    private final double[] typeSpreads;
+    private final double[] marginBreaks;
+    private final double[] marginAdjustments;
+    private final double[] exposureBreaks;
+    private final double[] exposureAdjustments;
+    private final int defaultTenureMonths;
+    private final double minRate;
+    private final double maxRate;
+
+    public PricingEngine(PricingProperties properties) {
+        this.baseByMonth = compileCurve(properties.getBaseCurve());
+        this.ratingCodes = properties.getRatingSpreads().keySet().toArray(String[]::new);
+        this.ratingSpreads = properties.getRatingSpreads().values().stream().mapToDouble(Double::doubleValue).toArray();
+        this.unratedSpread = properties.getUnratedSpread();
+        this.typeSpreads = new double[LoanType.values().length];
+        for (LoanType type : LoanType.values()) {
+            Double spread = properties.getTypeSpreads().get(type);
+            if (spread == null) {
+                throw new IllegalStateException("loan.pricing.type-spreads has no entry for " + type);
+            }
+            typeSpreads[type.ordinal()] = spread;
+        }
+        this.marginBreaks = checkBands("ebitda-margin", properties.getEbitdaMarginBreaks(),
+                properties.getEbitdaMarginAdjustments());
+        this.marginAdjustments = properties.getEbitdaMarginAdjustments().clone();
+        this.exposureBreaks = checkBands("exposure", properties.getExposureBreaks(),
+                properties.getExposureAdjustments());
+        this.exposureAdjustments = properties.getExposureAdjustments().clone();
+        this.defaultTenureMonths = properties.getDefaultTenureMonths();
+        this.minRate = properties.getMinRate();
+        this.maxRate = properties.getMaxRate();
+    }
+
+    /**
+     * Rate for {@code loan} in percent, rounded to a basis point. Allocation-free.
+     */
+    public double rate(Loan loan) {
+        requirePriceable(loan);
+        Loan.Financials financials = loan.getFinancials();
+        return rate(loan.getLoanType(),
+                loan.getTenureMonths() == null ? defaultTenureMonths : loan.getTenureMonths(),
+                loan.getRequestedAmount(),
+                financials == null || financials.getRevenue() == null ? Double.NaN : financials.getRevenue(),
+                financials == null || financials.getEbitda() == null ? Double.NaN : financials.getEbitda(),
+                financials == null ? null : financials.getRating());
+    }
+
+    /**
+     * Primitive form of {@link #rate(Loan)}; pass {@code NaN} for unknown revenue or EBITDA and null for no rating.
+     */
+    public double rate(LoanType type, int tenureMonths, double requestedAmount, double revenue, double ebitda,
+                       String rating) {
+        return finish(baseRate(tenureMonths)
+                + ratingSpread(rating)
+                + typeSpreads[type.ordinal()]
+                + marginAdjustment(revenue, ebitda)
+                + exposureAdjustment(requestedAmount, revenue));
+    }
+
+    /**
+     * {@link #rate(Loan)} with its components. Throws 400 if the loan lacks a type or a positive amount.
+     */
+    public PricingQuote quote(Loan loan) {
+        requirePriceable(loan);
+        Loan.Financials financials = loan.getFinancials();
+        int tenure = loan.getTenureMonths() == null ? defaultTenureMonths : loan.getTenureMonths();
+        double revenue = financials == null || financials.getRevenue() == null ? Double.NaN : financials.getRevenue();
+        double ebitda = financials == null || financials.getEbitda() == null ? Double.NaN : financials.getEbitda();
+
+        double base = baseRate(tenure);
+        double rating = ratingSpread(financials == null ? null : financials.getRating());
+        double type = typeSpreads[loan.getLoanType().ordinal()];
+        double margin = marginAdjustment(revenue, ebitda);
+        double exposure = exposureAdjustment(loan.getRequestedAmount(), revenue);
+        return new PricingQuote(base, rating, type, margin, exposure, finish(base + rating + type + margin + exposure));
+    }
+
+    private void requirePriceable(Loan loan) {
+        if (loan.getLoanType() == null) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "loanType is required for pricing");
+        }
+        if (loan.getRequestedAmount() == null || loan.getRequestedAmount() <= 0) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "requestedAmount must be positive for pricing");
+        }
+        if (loan.getTenureMonths() != null && loan.getTenureMonths() <= 0) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "tenureMonths must be positive for pricing");
+        }
+    }
+
+    double baseRate(int tenureMonths) {
+        return baseByMonth[Math.min(Math.max(tenureMonths, 0), baseByMonth.length - 1)];
+    }
+
+    double ratingSpread(String rating) {
+        if (rating == null || rating.isEmpty()) {
+            return unratedSpread;
+        }
+        int index = ratingIndex(rating, rating.length());
+        if (index < 0) {
+            char notch = rating.charAt(rating.length() - 1);
+            if ((notch == '+' || notch == '-') && rating.length() > 1) {
+                index = ratingIndex(rating, rating.length() - 1);
+            }
+        }
+        return index < 0 ? unratedSpread : ratingSpreads[index];
+    }
+
+    private int ratingIndex(String rating, int length) {
+        for (int i = 0; i < ratingCodes.length; i++) {
+            String code = ratingCodes[i];
+            if (code.length() == length && code.regionMatches(true, 0, rating, 0, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    double marginAdjustment(double revenue, double ebitda) {
+        if (!(revenue > 0) || Double.isNaN(ebitda)) {
+            return marginAdjustments[0];
+        }
+        return band(marginBreaks, marginAdjustments, ebitda / revenue);
+    }
+
+    double exposureAdjustment(double requestedAmount, double revenue) {
+        if (!(revenue > 0)) {
+            return exposureAdjustments[exposureAdjustments.length - 1];
+        }
+        return band(exposureBreaks, exposureAdjustments, requestedAmount / revenue);
+    }
+
+    private static double band(double[] breaks, double[] adjustments, double value) {
+        int i = 0;
+        while (i < breaks.length && value >= breaks[i]) {
+            i++;
+        }
+        return adjustments[i];
+    }
+
+    private double finish(double rate) {
+        return Math.round(Math.min(Math.max(rate, minRate), maxRate) * 100) / 100.0;
+    }
+
+    private static double[] compileCurve(Map<Integer, Double> curve) {
+        if (curve.isEmpty()) {
+            throw new IllegalStateException("loan.pricing.base-curve must have at least one point");
+        }
+        TreeMap<Integer, Double> points = new TreeMap<>(curve);
+        double[] table = new double[Math.max(points.lastKey(), MIN_CURVE_MONTHS) + 1];
+        for (int month = 0; month < table.length; month++) {
+            Map.Entry<Integer, Double> below = points.floorEntry(month);
+            Map.Entry<Integer, Double> above = points.ceilingEntry(month);
+            if (below == null) {
+                table[month] = above.getValue();
+            } else if (above == null || above.getKey().equals(below.getKey())) {
+                table[month] = below.getValue();
+            } else {
+                double t = (double) (month - below.getKey()) / (above.getKey() - below.getKey());
+                table[month] = below.getValue() + t * (above.getValue() - below.getValue());
+            }
+        }
+        return table;
+    }
+
+    private static double[] checkBands(String name, double[] breaks, double[] adjustments) {
+        if (adjustments.length != breaks.length + 1) {
+            throw new IllegalStateException("loan.pricing." + name + " needs one more adjustment than breaks");
+        }
+        for (int i = 1; i < breaks.length; i++) {
+            if (breaks[i] <= breaks[i - 1]) {
+                throw new IllegalStateException("loan.pricing." + name + "-breaks must be ascending");
+            }
+        }
+        return breaks.clone();
+    }
+}
@@ -0,0 +1,315 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.repository.RepricingJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+/**
+ * Re-prices every open (SUBMITTED / UNDER_REVIEW) loan after the pricing grids change. The book is read in
+ * keyset chunks of {@code loan.repricing.chunk-size}; each chunk is priced in parallel on a dedicated fork-join
+ * pool and written back with one unordered bulkWrite, with up to {@code loan.repricing.write-concurrency} writes
+ * in flight while the next chunk is read and priced.
+ * <p>
+ * Progress is saved on the {@link RepricingJob} after every chunk. A write only applies while the loan is still
+ * open and priced before the job started, so concurrent decisions are never overwritten and a resumed job skips
+ * whatever it already repriced.
+ * <p>
+ * A job runs under this instance's lease on it, renewed at every checkpoint. Another instance can resume it only
+ * after {@code loan.repricing.lease-ms} without a checkpoint, and a unique index on RUNNING jobs stops two instances
+ * from starting one each; an instance that finds its lease taken over stops.
+ */
+@Slf4j
+@Service
+public class RepricingService {
+
+    static final Set<LoanStatus> REPRICEABLE = EnumSet.of(LoanStatus.SUBMITTED, LoanStatus.UNDER_REVIEW);
+
+    private final LoanRepository loanRepo;
+    private final RepricingJobRepository jobRepo;
+    private final PricingEngine pricingEngine;
+    private final LoanAuditService audit;
+    private final TaskExecutor taskExecutor;
+    private final ForkJoinPool pricingPool;
+    private final int chunkSize;
+    private final int writeConcurrency;
+    private final Duration leaseDuration;
+
+    // lease owner for the jobs this instance runs; the random part tells a restarted process from its predecessor
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + new ObjectId();
+
+    // held by activeJob while a new job is being recorded and has no id yet
+    private static final String NEW_JOB = "(new)";
+
+    // id of the job this instance is running, if any; claimed before the job is saved as RUNNING
+    private final AtomicReference<String> activeJob = new AtomicReference<>();
+
+    public RepricingService(LoanRepository loanRepo,
+                            RepricingJobRepository jobRepo,
+                            PricingEngine pricingEngine,
+                            LoanAuditService audit,
+                            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                            @Value("${loan.repricing.chunk-size:5000}") int chunkSize,
+                            @Value("${loan.repricing.write-concurrency:4}") int writeConcurrency,
+                            @Value("${loan.repricing.parallelism:0}") int parallelism,
+                            @Value("${loan.repricing.lease-ms:300000}") long leaseMillis) {
+        this.loanRepo = loanRepo;
+        this.jobRepo = jobRepo;
+        this.pricingEngine = pricingEngine;
+        this.audit = audit;
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.writeConcurrency = Math.max(1, writeConcurrency);
+        this.leaseDuration = Duration.ofMillis(leaseMillis);
+        this.pricingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pricingPool.shutdownNow();
+    }
+
+    /**
+     * Records a new job under this instance's lease and runs it in the background. Only one job may be RUNNING at a
+     * time, across all instances.
+     */
+    public RepricingJob start(String admin) {
+        claim(NEW_JOB);
+        RepricingJob job;
+        try {
+            jobRepo.findFirstByStatus(JobStatus.RUNNING).ifPresent(running -> {
+                throw new CustomException(HttpStatus.CONFLICT, leaseExpired(running)
+                        ? "Repricing job " + running.getId() + " stopped without finishing; resume it."
+                        : "Repricing job " + running.getId() + " is still running.");
+            });
+            job = new RepricingJob();
+            job.setStartedBy(admin);
+            job.setStartedAt(Instant.now());
+            job.setUpdatedAt(job.getStartedAt());
+            job.setLeaseOwner(instanceId);
+            job.setHeartbeatAt(job.getStartedAt());
+            job.setTotal(loanRepo.countForRepricing(REPRICEABLE, job.getStartedAt()));
+            job = jobRepo.insert(job);
+        } catch (DuplicateKeyException e) {
+            // another instance recorded its job between the check above and the insert
+            activeJob.set(null);
+            throw new CustomException(HttpStatus.CONFLICT, "A repricing job is already running.");
+        } catch (RuntimeException e) {
+            activeJob.set(null);
+            throw e;
+        }
+        activeJob.set(job.getId());
+        return launch(job);
+    }
+
+    /**
+     * Continues a job that stopped before completing (failed, or left RUNNING by a crashed instance whose lease has
+     * expired) from its last checkpoint.
+     */
+    public RepricingJob resume(String id) {
+        claim(id);
+        RepricingJob job;
+        try {
+            if (getJob(id).getStatus() == JobStatus.COMPLETED) {
+                throw new CustomException(HttpStatus.CONFLICT, "Repricing job " + id + " has already completed.");
+            }
+            Instant now = Instant.now();
+            job = jobRepo.claimLease(id, instanceId, now, now.minus(leaseDuration)).orElseThrow(() ->
+                    new CustomException(HttpStatus.CONFLICT, "Repricing job " + id + " is still running."));
+        } catch (DuplicateKeyException e) {
+            activeJob.set(null);
+            throw new CustomException(HttpStatus.CONFLICT, "Another repricing job is running.");
+        } catch (RuntimeException e) {
+            activeJob.set(null);
+            throw e;
+        }
+        return launch(job);
+    }
+
+    public RepricingJob getJob(String id) {
+        return jobRepo.findById(id)
+                .orElseThrow(() -> new CustomException(HttpStatus.NOT_FOUND, "Repricing job not found"));
+    }
+
+    public List<RepricingJob> recentJobs() {
+        return jobRepo.findTop20ByOrderByStartedAtDesc();
+    }
+
+    private boolean leaseExpired(RepricingJob job) {
+        return job.getHeartbeatAt() == null || job.getHeartbeatAt().isBefore(Instant.now().minus(leaseDuration));
+    }
+
+    // taken before anything is saved, so a refused start or resume leaves no job RUNNING and no checkpoint rewritten
+    private void claim(String id) {
+        if (!activeJob.compareAndSet(null, id)) {
+            String active = activeJob.get();
+            throw new CustomException(HttpStatus.CONFLICT, NEW_JOB.equals(active)
+                    ? "A repricing job is starting." : "Repricing job " + active + " is still running.");
+        }
+    }
+
+    // runs the claimed, RUNNING job and releases the claim when it ends
+    private RepricingJob launch(RepricingJob job) {
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    run(job);
+                } finally {
+                    activeJob.set(null);
+                }
+            });
+        } catch (RuntimeException e) {
+            // nothing will run it, so it must not stay RUNNING and block later starts
+            activeJob.set(null);
+            failed(job, e);
+            throw e;
+        }
+        return job;
+    }
+
+    void run(RepricingJob job) {
+        Criteria pricedBeforeJob = new Criteria().orOperator(
+                Criteria.where("pricedAt").lt(job.getStartedAt()), Criteria.where("pricedAt").is(null));
+        Deque<PendingWrite> inFlight = new ArrayDeque<>();
+        try {
+            String after = job.getLastLoanId();
+            List<Loan> chunk;
+            while (!(chunk = loanRepo.findForRepricing(REPRICEABLE, job.getStartedAt(), after, chunkSize)).isEmpty()) {
+                // MongoDB keeps milliseconds, so the stored pricedAt equals this one exactly
+                LoanAction action = new LoanAction(job.getStartedBy(), "REPRICED",
+                        Instant.now().truncatedTo(ChronoUnit.MILLIS));
+                Map<String, Update> updates = price(chunk, action);
+                after = chunk.get(chunk.size() - 1).getId();
+                long skipped = chunk.size() - updates.size();
+                CompletableFuture<Long> write = CompletableFuture.supplyAsync(
+                        () -> write(updates, pricedBeforeJob, action), taskExecutor);
+                inFlight.addLast(new PendingWrite(write, chunk.size(), updates.size(), skipped, after));
+                while (inFlight.size() >= writeConcurrency || (!inFlight.isEmpty() && inFlight.peekFirst().done())) {
+                    checkpoint(job, inFlight.removeFirst());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                checkpoint(job, inFlight.removeFirst());
+            }
+            job.setStatus(JobStatus.COMPLETED);
+            job.setFinishedAt(Instant.now());
+            job.setUpdatedAt(job.getFinishedAt());
+            release(job);
+            log.info("Repricing job {} completed: {} repriced, {} skipped", job.getId(), job.getRepriced(), job.getSkipped());
+        } catch (RuntimeException e) {
+            // writes already in flight may still land; a resume re-reads from the last checkpoint and skips them
+            log.error("Repricing job {} failed after {} loans", job.getId(), job.getProcessed(), e);
+            failed(job, e);
+        }
+    }
+
+    private void failed(RepricingJob job, RuntimeException e) {
+        job.setStatus(JobStatus.FAILED);
+        job.setError(e.getMessage());
+        job.setUpdatedAt(Instant.now());
+        release(job);
+    }
+
+    // saves the job's final state and gives up its lease, so a failed job can be resumed at once
+    private void release(RepricingJob job) {
+        job.setLeaseOwner(null);
+        if (!jobRepo.saveIfLeased(job, instanceId)) {
+            log.warn("Repricing job {} was taken over by another instance; its state there is kept", job.getId());
+        }
+    }
+
+    /**
+     * Prices the chunk on the fork-join pool and builds one update per loan that could be priced.
+     */
+    private Map<String, Update> price(List<Loan> chunk, LoanAction action) {
+        double[] rates = new double[chunk.size()];
+        pricingPool.submit(() -> IntStream.range(0, rates.length).parallel()
+                .forEach(i -> rates[i] = safeRate(chunk.get(i)))).join();
+
+        Map<String, Update> updates = new LinkedHashMap<>(chunk.size() * 2);
+        for (int i = 0; i < rates.length; i++) {
+            if (!Double.isNaN(rates[i])) {
+                updates.put(chunk.get(i).getId(), new Update()
+                        .set("indicativeRate", rates[i])
+                        .set("pricedAt", action.getTimestamp())
+                        .set("lastAction", action));
+            }
+        }
+        return updates;
+    }
+
+    /**
+     * Writes the chunk and appends the REPRICED action to the trail of every loan it modified. Those are all of
+     * them unless some were decided or repriced in the meantime, in which case they are looked up by the
+     * {@code pricedAt} this chunk stamped.
+     */
+    private long write(Map<String, Update> updates, Criteria pricedBeforeJob, LoanAction action) {
+        long modified = loanRepo.updateEachIfStatus(updates, REPRICEABLE, pricedBeforeJob);
+        if (modified > 0) {
+            audit.recorded(modified == updates.size() ? updates.keySet()
+                    : loanRepo.findIdsPricedAt(updates.keySet(), action.getTimestamp()), action);
+        }
+        return modified;
+    }
+
+    private double safeRate(Loan loan) {
+        try {
+            return pricingEngine.rate(loan);
+        } catch (CustomException e) {
+            return Double.NaN;
+        }
+    }
+
+    // chunks complete in submission order here, so lastLoanId only ever covers fully written chunks
+    private void checkpoint(RepricingJob job, PendingWrite write) {
+        long modified = write.future().join();
+        job.setProcessed(job.getProcessed() + write.size());
+        job.setRepriced(job.getRepriced() + modified);
+        job.setSkipped(job.getSkipped() + write.skipped() + (write.updates() - modified));
+        job.setLastLoanId(write.lastLoanId());
+        job.setUpdatedAt(Instant.now());
+        job.setHeartbeatAt(job.getUpdatedAt());
+        if (!jobRepo.saveIfLeased(job, instanceId)) {
+            throw new IllegalStateException("Repricing job " + job.getId() + " was taken over by another instance.");
+        }
+        log.debug("Repricing job {}: {}/{} loans", job.getId(), job.getProcessed(), job.getTotal());
+    }
+
+    private record PendingWrite(CompletableFuture<Long> future, int size, int updates, long skipped,
+                                String lastLoanId) {
+        boolean done() {
+            return future.isDone();
+        }
+    }
+}
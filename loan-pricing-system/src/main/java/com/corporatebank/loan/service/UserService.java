@@ -1,5 +1,79 @@
 package com.corporatebank.loan.service;
 
-public class UserService {
+import com.corporatebank.loan.dto.UserCacheStats;
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache in front of {@link UserRepository#findByEmail}. Entries live for
+ * {@code auth.user-cache.ttl}; anything that changes a user must call {@link #invalidate}.
+ */
+@Service
+public class UserService implements MeterBinder {
+
+    private final UserRepository userRepo;
+    private final Cache<String, User> users;
+    // bumped by every invalidation, so a load that overlapped one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public UserService(UserRepository userRepo,
+                       @Value("${auth.user-cache.ttl:30s}") Duration ttl,
+                       @Value("${auth.user-cache.max-size:10000}") long maxSize) {
+        this.userRepo = userRepo;
+        this.users = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> findByEmail(String email) {
+        User cached = users.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // the Mongo read runs outside the cache: a loader inside Caffeine's compute would hold the map's bin lock
+        // for the whole read, pinning a virtual thread's carrier on the JDK 21 runtime. The user is cached only if
+        // no invalidate() ran since the read began; the check and the put share one compute, so an invalidate()
+        // either bumps the generation first or removes the entry after. Unknown emails are not cached, so a later
+        // registration is visible immediately.
+        long observed = generation.get();
+        User loaded = userRepo.findByEmail(email).orElse(null);
+        if (loaded != null) {
+            users.asMap().compute(email, (key, current) -> generation.get() == observed ? loaded : current);
+        }
+        return Optional.ofNullable(loaded);
+    }
+
+    public void invalidate(String email) {
+        generation.incrementAndGet();
+        users.invalidate(email);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, users, "auth.users");
+    }
+
+    public UserCacheStats stats() {
+        CacheStats stats = users.stats();
+        return new UserCacheStats(stats.hitCount(), stats.missCount(), stats.hitRate(), users.estimatedSize());
+    }
 }
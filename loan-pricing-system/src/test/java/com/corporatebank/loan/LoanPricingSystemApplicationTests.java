@@ -3,7 +3,9 @@ package com.corporatebank.loan;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// no MongoDB here: skip the startup index creation, action migration and search backfill that would wait for a server
+@SpringBootTest(properties = {"loan.mongo.indexes.create=false", "loan.actions.migrate=false",
+        "loan.search.backfill=false"})
 class LoanPricingSystemApplicationTests {
 
 	@Test
@@ -0,0 +1,120 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.model.enums.Role;
+import com.corporatebank.loan.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtFilterTest {
+
+    private static final String SECRET = "ThisIsAVeryLongSecretKeyForTheCorporateBankingAppToSatisfyHS256Requirements";
+
+    @Mock
+    private UserService userService;
+
+    private JwtUtil jwtUtil;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRoleFromClaims_NoUserLookup() throws Exception {
+        // Arrange
+        JwtFilter filter = new JwtFilter(jwtUtil, userService, false, meterRegistry);
+        MockHttpServletRequest request = bearer(jwtUtil.generateToken("admin@bank.com", "ADMIN"));
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        assertEquals("admin@bank.com", auth.getName());
+        assertEquals("ROLE_ADMIN", auth.getAuthorities().iterator().next().getAuthority());
+        verify(userService, never()).findByEmail(anyString());
+        assertEquals(1, meterRegistry.get("jwt.verification").tag("outcome", "authenticated").timer().count());
+    }
+
+    @Test
+    void testUserLookup_UsesStoredRole() throws Exception {
+        // Arrange
+        JwtFilter filter = new JwtFilter(jwtUtil, userService, true, meterRegistry);
+        User user = new User();
+        user.setEmail("user@bank.com");
+        user.setRole(Role.USER);
+        when(userService.findByEmail("user@bank.com")).thenReturn(Optional.of(user));
+
+        // Act
+        filter.doFilter(bearer(jwtUtil.generateToken("user@bank.com", "ADMIN")),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("ROLE_USER", auth.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void testUserLookup_InactiveUserNotAuthenticated() throws Exception {
+        // Arrange
+        JwtFilter filter = new JwtFilter(jwtUtil, userService, true, meterRegistry);
+        User user = new User();
+        user.setEmail("user@bank.com");
+        user.setRole(Role.USER);
+        user.setActive(false);
+        when(userService.findByEmail("user@bank.com")).thenReturn(Optional.of(user));
+
+        // Act
+        filter.doFilter(bearer(jwtUtil.generateToken("user@bank.com", "USER")),
+                new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testInvalidToken_NotAuthenticated() throws Exception {
+        // Arrange
+        JwtFilter filter = new JwtFilter(jwtUtil, userService, false, meterRegistry);
+
+        // Act
+        filter.doFilter(bearer("garbage"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, meterRegistry.get("jwt.verification").tag("outcome", "rejected").timer().count());
+    }
+
+    private static MockHttpServletRequest bearer(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
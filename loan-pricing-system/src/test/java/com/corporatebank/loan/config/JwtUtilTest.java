@@ -0,0 +1,93 @@
+package com.corporatebank.loan.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "ThisIsAVeryLongSecretKeyForTheCorporateBankingAppToSatisfyHS256Requirements";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 3600000, 100);
+    }
+
+    @Test
+    void testVerify_ValidToken() {
+        // Arrange
+        String token = jwtUtil.generateToken("user@bank.com", "USER");
+
+        // Act
+        Optional<JwtPrincipal> principal = jwtUtil.verify(token);
+
+        // Assert
+        assertTrue(principal.isPresent());
+        assertEquals("user@bank.com", principal.get().subject());
+        assertEquals("USER", principal.get().role());
+        assertNotNull(principal.get().expiresAt());
+    }
+
+    @Test
+    void testVerify_CachedTokenReturnsSamePrincipal() {
+        // Arrange
+        String token = jwtUtil.generateToken("admin@bank.com", "ADMIN");
+
+        // Act
+        JwtPrincipal first = jwtUtil.verify(token).orElseThrow();
+        JwtPrincipal second = jwtUtil.verify(token).orElseThrow();
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    void testVerify_CacheDisabled() {
+        // Arrange
+        JwtUtil uncached = new JwtUtil(SECRET, 3600000, 0);
+        String token = uncached.generateToken("user@bank.com", "USER");
+
+        // Act & Assert
+        assertEquals("user@bank.com", uncached.verify(token).orElseThrow().subject());
+    }
+
+    @Test
+    void testVerify_TamperedToken() {
+        // Arrange
+        String token = jwtUtil.generateToken("user@bank.com", "USER");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        // Act & Assert
+        assertTrue(jwtUtil.verify(tampered).isEmpty());
+    }
+
+    @Test
+    void testVerify_ExpiredToken() {
+        // Arrange
+        String expired = Jwts.builder()
+                .setSubject("user@bank.com")
+                .claim("role", "USER")
+                .setIssuedAt(new Date(System.currentTimeMillis() - 120000))
+                .setExpiration(new Date(System.currentTimeMillis() - 60000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        // Act & Assert
+        assertTrue(jwtUtil.verify(expired).isEmpty());
+    }
+
+    @Test
+    void testVerify_Garbage() {
+        assertTrue(jwtUtil.verify("not-a-jwt").isEmpty());
+    }
+}
@@ -0,0 +1,157 @@
+package com.corporatebank.loan.config;
+
+import com.corporatebank.loan.model.LoanActionBucket;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanActionMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> loans;
+
+    @Mock
+    private FindIterable<Document> found;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    @Mock
+    private BulkOperations bucketOps;
+
+    @Mock
+    private BulkOperations loanOps;
+
+    @Test
+    void testRun_DisabledDoesNothing() {
+        // Act
+        new LoanActionMigration(mongoTemplate, false, 2).run(null);
+
+        // Assert
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testRun_UnreachableDatabaseDoesNotStopStartup() {
+        // Arrange
+        when(mongoTemplate.getCollectionName(LoanActionBucket.class)).thenReturn("loan_actions");
+        when(mongoTemplate.getCollection("loans")).thenThrow(new MongoTimeoutException("no server"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> new LoanActionMigration(mongoTemplate, true, 2).run(null));
+    }
+
+    @Test
+    void testRun_CompletedMigrationIsSkipped() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(MigrationMarkers.COLLECTION))).thenReturn(true);
+
+        // Act
+        new LoanActionMigration(mongoTemplate, true, 2).run(null);
+
+        // Assert
+        verify(mongoTemplate, never()).getCollection(anyString());
+    }
+
+    @Test
+    void testRun_RecordsCompletion() {
+        // Arrange
+        when(mongoTemplate.getCollectionName(LoanActionBucket.class)).thenReturn("loan_actions");
+        when(mongoTemplate.getCollection("loans")).thenReturn(loans);
+        when(loans.find(any(Bson.class))).thenReturn(found);
+        when(found.projection(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.cursor()).thenReturn(cursor);
+
+        // Act
+        new LoanActionMigration(mongoTemplate, true, 2).run(null);
+
+        // Assert
+        ArgumentCaptor<Query> marker = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).upsert(marker.capture(), any(Update.class), eq(MigrationMarkers.COLLECTION));
+        assertEquals(LoanActionMigration.MIGRATION, marker.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void testMigrate_SplitsActionsIntoBucketsAndKeepsLast() {
+        // Arrange
+        List<Document> actions = List.of(action("CREATED", 1), action("SUBMITTED", 2), action("APPROVED", 3));
+        Document loan = new Document("_id", "loan1").append("actions", actions);
+        when(mongoTemplate.getCollectionName(LoanActionBucket.class)).thenReturn("loan_actions");
+        when(mongoTemplate.getCollection("loans")).thenReturn(loans);
+        when(loans.find(any(Bson.class))).thenReturn(found);
+        when(found.projection(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(loan);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "loan_actions")).thenReturn(bucketOps);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "loans")).thenReturn(loanOps);
+
+        // Act
+        long migrated = new LoanActionMigration(mongoTemplate, true, 2).migrate();
+
+        // Assert
+        assertEquals(1, migrated);
+        ArgumentCaptor<Query> bucketQueries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> bucketUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(bucketOps, times(2)).upsert(bucketQueries.capture(), bucketUpdates.capture());
+        assertEquals("loan1:legacy:1", bucketQueries.getAllValues().get(1).getQueryObject().get("_id"));
+        Document second = bucketUpdates.getAllValues().get(1).getUpdateObject().get("$setOnInsert", Document.class);
+        assertEquals(1, second.get("count"));
+        assertEquals(List.of(action("APPROVED", 3)), second.get("actions"));
+        // numbered up to -1, before the buckets appended from 0
+        assertEquals(-2, bucketUpdates.getAllValues().get(0).getUpdateObject()
+                .get("$setOnInsert", Document.class).get("sequence"));
+        assertEquals(-1, second.get("sequence"));
+
+        ArgumentCaptor<Query> loanQueries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> loanUpdates = ArgumentCaptor.forClass(Update.class);
+        verify(loanOps, times(2)).updateOne(loanQueries.capture(), loanUpdates.capture());
+        // lastAction only replaces one that is missing or not newer than the legacy entry
+        Document keepLast = loanUpdates.getAllValues().get(0).getUpdateObject();
+        assertEquals(action("APPROVED", 3), keepLast.get("$set", Document.class).get("lastAction"));
+        assertTrue(keepLast.get("$unset", Document.class).containsKey("actions"));
+        String condition = loanQueries.getAllValues().get(0).getQueryObject().toJson();
+        assertTrue(condition.contains("lastAction.timestamp") && condition.contains("$lte"));
+        // a loan acted on since the read only loses its array
+        Document dropArray = loanUpdates.getAllValues().get(1).getUpdateObject();
+        assertFalse(dropArray.containsKey("$set"));
+        assertTrue(dropArray.get("$unset", Document.class).containsKey("actions"));
+        assertTrue(loanQueries.getAllValues().get(1).getQueryObject().containsKey("$nor"));
+        verify(bucketOps).execute();
+        verify(loanOps).execute();
+        verify(cursor).close();
+    }
+
+    private static Document action(String action, long second) {
+        return new Document("by", "user@bank.com").append("action", action)
+                .append("timestamp", new Date(second * 1000));
+    }
+}
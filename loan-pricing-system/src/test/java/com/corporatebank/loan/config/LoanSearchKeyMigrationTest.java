@@ -0,0 +1,122 @@
+package com.corporatebank.loan.config;
+
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanSearchKeyMigrationTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> loans;
+
+    @Mock
+    private FindIterable<Document> found;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    @Mock
+    private BulkOperations loanOps;
+
+    @Test
+    void testRun_DisabledDoesNothing() {
+        // Act
+        new LoanSearchKeyMigration(mongoTemplate, false).run(null);
+
+        // Assert
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void testRun_UnreachableDatabaseDoesNotStopStartup() {
+        // Arrange
+        when(mongoTemplate.getCollection("loans")).thenThrow(new MongoTimeoutException("no server"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> new LoanSearchKeyMigration(mongoTemplate, true).run(null));
+    }
+
+    @Test
+    void testRun_CompletedBackfillIsSkipped() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(MigrationMarkers.COLLECTION))).thenReturn(true);
+
+        // Act
+        new LoanSearchKeyMigration(mongoTemplate, true).run(null);
+
+        // Assert
+        verify(mongoTemplate, never()).getCollection(anyString());
+    }
+
+    @Test
+    void testRun_RecordsCompletion() {
+        // Arrange
+        when(mongoTemplate.getCollection("loans")).thenReturn(loans);
+        when(loans.find(any(Bson.class))).thenReturn(found);
+        when(found.projection(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.cursor()).thenReturn(cursor);
+
+        // Act
+        new LoanSearchKeyMigration(mongoTemplate, true).run(null);
+
+        // Assert
+        ArgumentCaptor<Query> marker = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).upsert(marker.capture(), any(Update.class), eq(MigrationMarkers.COLLECTION));
+        assertEquals(LoanSearchKeyMigration.MIGRATION, marker.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void testBackfill_StampsKeysConditionalOnClientName() {
+        // Arrange
+        when(mongoTemplate.getCollection("loans")).thenReturn(loans);
+        when(loans.find(any(Bson.class))).thenReturn(found);
+        when(found.projection(any(Bson.class))).thenReturn(found);
+        when(found.batchSize(anyInt())).thenReturn(found);
+        when(found.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "loan1").append("clientName", "Acme Steel"));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, "loans")).thenReturn(loanOps);
+
+        // Act
+        long stamped = new LoanSearchKeyMigration(mongoTemplate, true).backfill();
+
+        // Assert
+        assertEquals(1, stamped);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(loanOps).updateOne(query.capture(), update.capture());
+        assertEquals("Acme Steel", query.getValue().getQueryObject().get("clientName"));
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals("acme steel", set.get("searchName"));
+        assertEquals(List.of("a", "ac", "acm", "acme", "s", "st", "ste", "stee", "steel"), set.get("searchKeys"));
+        assertFalse(update.getValue().getUpdateObject().containsKey("$inc"));
+        verify(loanOps).execute();
+        verify(cursor).close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.corporatebank.loan.config;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryingTransactionsTest {
+
+    @Test
+    void testExecute_RetriesTransientAborts() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        RetryingTransactions transactions = new RetryingTransactions(TransactionOperations.withoutTransaction());
+
+        // Act
+        String result = transactions.execute(status -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new DataAccessResourceFailureException("conflict", writeConflict());
+            }
+            return "written";
+        });
+
+        // Assert
+        assertEquals("written", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testExecute_GivesUpAfterMaxAttempts() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        RetryingTransactions transactions = new RetryingTransactions(TransactionOperations.withoutTransaction());
+
+        // Act & Assert: a failed commit is wrapped, the label is found on its cause
+        assertThrows(TransactionSystemException.class, () -> transactions.execute(status -> {
+            attempts.incrementAndGet();
+            throw new TransactionSystemException("commit failed", writeConflict());
+        }));
+        assertEquals(RetryingTransactions.MAX_ATTEMPTS, attempts.get());
+    }
+
+    @Test
+    void testExecute_OtherFailuresAreNotRetried() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+        RetryingTransactions transactions = new RetryingTransactions(TransactionOperations.withoutTransaction());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> transactions.execute(status -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("bug");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    private static MongoException writeConflict() {
+        MongoException conflict = new MongoCommandException(
+                BsonDocument.parse("{ok: 0, code: 112, codeName: 'WriteConflict', errmsg: 'Write conflict'}"),
+                new ServerAddress());
+        conflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        return conflict;
+    }
+}
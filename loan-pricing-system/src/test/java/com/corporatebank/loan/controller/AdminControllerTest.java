@@ -1,9 +1,16 @@
 package com.corporatebank.loan.controller;
 
+import com.corporatebank.loan.dto.LoanDecision;
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.dto.PortfolioReconciliation;
 import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.RepricingJob;
 import com.corporatebank.loan.model.enums.LoanStatus;
 import com.corporatebank.loan.model.enums.LoanType;
 import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
+import com.corporatebank.loan.service.RepricingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +19,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +32,12 @@ class AdminControllerTest {
     @Mock
     private LoanService loanService;
 
+    @Mock
+    private RepricingService repricingService;
+
+    @Mock
+    private PortfolioService portfolioService;
+
     @Mock
     private Authentication authentication;
 
@@ -37,7 +54,7 @@ class AdminControllerTest {
         testLoan.setLoanType(LoanType.TERM_LOAN);
         testLoan.setStatus(LoanStatus.SUBMITTED);
 
-        when(authentication.getName()).thenReturn("admin@bank.com");
+        lenient().when(authentication.getName()).thenReturn("admin@bank.com");
     }
 
     @Test
@@ -77,6 +94,20 @@ class AdminControllerTest {
         verify(loanService, times(1)).approve("loan123", "admin@bank.com", null, null, false);
     }
 
+    @Test
+    void testDecisions_AppliesBatchAsCaller() {
+        // Arrange
+        List<LoanDecision> decisions = List.of(new LoanDecision("loan123", true, 900000.0, null));
+        List<LoanDecisionResult> results = List.of(LoanDecisionResult.applied("loan123", LoanStatus.APPROVED));
+        when(loanService.decideAll(decisions, "admin@bank.com")).thenReturn(results);
+
+        // Act
+        List<LoanDecisionResult> response = adminController.decisions(decisions, authentication);
+
+        // Assert
+        assertSame(results, response);
+    }
+
     @Test
     void testDelete_Success() {
         // Arrange
@@ -88,4 +119,34 @@ class AdminControllerTest {
         // Assert
         verify(loanService, times(1)).softDelete("loan123", "admin@bank.com");
     }
+
+    @Test
+    void testStartRepricing() {
+        // Arrange
+        RepricingJob job = new RepricingJob();
+        job.setId("job1");
+        when(repricingService.start("admin@bank.com")).thenReturn(job);
+
+        // Act
+        RepricingJob result = adminController.startRepricing(authentication);
+
+        // Assert
+        assertSame(job, result);
+        verify(repricingService, times(1)).start("admin@bank.com");
+    }
+
+    @Test
+    void testReconcilePortfolio() {
+        // Arrange
+        PortfolioReconciliation reconciliation = new PortfolioReconciliation(Instant.now(),
+                Map.of("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(1, 1000000.0, 0.0)));
+        when(portfolioService.reconcile()).thenReturn(reconciliation);
+
+        // Act
+        PortfolioReconciliation result = adminController.reconcilePortfolio();
+
+        // Assert
+        assertSame(reconciliation, result);
+        assertFalse(result.isInSync());
+    }
 }
@@ -1,12 +1,28 @@
 package com.corporatebank.loan.controller;
 
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.dto.CursorPage;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.exception.GlobalExceptionHandler;
 import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.PortfolioSummary;
 import com.corporatebank.loan.model.enums.LoanStatus;
 import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.corporatebank.loan.service.AmortizationEngine;
+import com.corporatebank.loan.service.LoanEventService;
+import com.corporatebank.loan.service.LoanExportService;
+import com.corporatebank.loan.service.LoanImportService;
 import com.corporatebank.loan.service.LoanService;
+import com.corporatebank.loan.service.PortfolioService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,15 +30,36 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
 @ExtendWith(MockitoExtension.class)
 class LoanControllerTest {
@@ -30,12 +67,29 @@ class LoanControllerTest {
     @Mock
     private LoanService loanService;
 
+    @Mock
+    private LoanImportService importService;
+
+    @Mock
+    private LoanExportService exportService;
+
+    @Mock
+    private AmortizationEngine amortizationEngine;
+
+    @Mock
+    private PortfolioService portfolioService;
+
+    @Mock
+    private LoanEventService eventService;
+
     @Mock
     private Authentication authentication;
 
     @InjectMocks
     private LoanController loanController;
 
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
     private Loan testLoan;
 
     @BeforeEach
@@ -48,7 +102,7 @@ class LoanControllerTest {
         testLoan.setStatus(LoanStatus.DRAFT);
         testLoan.setCreatedBy("user@bank.com");
 
-        when(authentication.getName()).thenReturn("user@bank.com");
+        lenient().when(authentication.getName()).thenReturn("user@bank.com");
     }
 
     @Test
@@ -65,23 +119,266 @@ class LoanControllerTest {
         verify(loanService, times(1)).createLoan(testLoan, "user@bank.com");
     }
 
+    @Test
+    void testBulkCreate_StreamsNdjson() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/loans/bulk");
+        request.setContent("{}".getBytes());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        loanController.bulkCreate(request, response, authentication);
+
+        // Assert
+        assertEquals("application/x-ndjson;charset=UTF-8", response.getContentType());
+        verify(importService, times(1))
+                .importLoans(request.getInputStream(), response.getOutputStream(), "user@bank.com");
+    }
+
+    @Test
+    void testStats_PassesFilter() {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        filter.setCreatedBy("user@bank.com");
+        PortfolioStats stats = new PortfolioStats();
+        stats.setTotals(new PortfolioStats.Bucket(null, 3, 3000000.0, 0.0, null));
+        when(loanService.getPortfolioStats(filter)).thenReturn(stats);
+
+        // Act
+        PortfolioStats result = loanController.stats(filter);
+
+        // Assert
+        assertEquals(3, result.getTotals().getCount());
+        verify(loanService, times(1)).getPortfolioStats(filter);
+    }
+
+    @Test
+    void testPortfolio_ReturnsSummary() {
+        // Arrange
+        PortfolioSummary summary = new PortfolioSummary();
+        summary.getBuckets().put("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(2, 2000000.0, 0.0));
+        when(portfolioService.getSummary()).thenReturn(summary);
+
+        // Act
+        PortfolioSummary result = loanController.portfolio();
+
+        // Assert
+        assertEquals(2, result.getBuckets().get("DRAFT:TERM_LOAN").getCount());
+    }
+
+    @Test
+    void testActions_ReturnsHistoryPage() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 20);
+        Page<LoanAction> history = new PageImpl<>(
+                List.of(new LoanAction("user@bank.com", "CREATED", Instant.now())), pageable, 1);
+        when(loanService.getLoanActions("loan123", pageable)).thenReturn(history);
+
+        // Act
+        Page<LoanAction> result = loanController.actions("loan123", pageable);
+
+        // Assert
+        assertEquals("CREATED", result.getContent().get(0).getAction());
+    }
+
+    @Test
+    void testEvents_AdminSeesAllLoans() {
+        // Arrange
+        SseEmitter emitter = new SseEmitter();
+        doReturn(List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))).when(authentication).getAuthorities();
+        when(eventService.subscribe("user@bank.com", true, "token1")).thenReturn(emitter);
+
+        // Act
+        SseEmitter result = loanController.events("token1", authentication);
+
+        // Assert
+        assertSame(emitter, result);
+    }
+
+    @Test
+    void testEvents_UserSeesOwnLoans() {
+        // Arrange
+        doReturn(List.of(new SimpleGrantedAuthority("ROLE_USER"))).when(authentication).getAuthorities();
+
+        // Act
+        loanController.events(null, authentication);
+
+        // Assert
+        verify(eventService).subscribe("user@bank.com", false, null);
+    }
+
+    @Test
+    void testExport_CsvAttachment() throws Exception {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        filter.setStatus(LoanStatus.APPROVED);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(exportService.export(eq(filter), eq(LoanExportService.Format.CSV), any(LoanExportService.Output.class)))
+                .thenAnswer(i -> {
+                    assertSame(response.getOutputStream(), i.<LoanExportService.Output>getArgument(2).open());
+                    return 0L;
+                });
+
+        // Act
+        loanController.export("csv", filter, response);
+
+        // Assert
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("attachment; filename=\"loans.csv\"", response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    void testExport_FailedQueryIsAnsweredAsJson() throws Exception {
+        // Arrange
+        when(exportService.export(any(LoanFilter.class), eq(LoanExportService.Format.CSV),
+                any(LoanExportService.Output.class))).thenThrow(new CustomException(HttpStatus.BAD_REQUEST, "bad filter"));
+
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans/export").param("format", "csv")).andReturn();
+
+        // Assert
+        assertEquals(400, result.getResponse().getStatus());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(
+                MediaType.parseMediaType(result.getResponse().getContentType())));
+        assertNull(result.getResponse().getHeader("Content-Disposition"));
+    }
+
+    @Test
+    void testSchedule_UnschedulableLoanIsAnsweredAsJson() throws Exception {
+        // Arrange
+        when(loanService.getLoan("loan123")).thenReturn(testLoan);
+        when(amortizationEngine.schedule(testLoan, null))
+                .thenThrow(new CustomException(HttpStatus.BAD_REQUEST, "Loan has no interest rate to schedule"));
+
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans/loan123/schedule").param("format", "csv")).andReturn();
+
+        // Assert
+        assertEquals(400, result.getResponse().getStatus());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(
+                MediaType.parseMediaType(result.getResponse().getContentType())));
+    }
+
+    @Test
+    void testSchedule_LoanTerms() throws Exception {
+        // Arrange
+        AmortizationSchedule schedule = new AmortizationSchedule(1000.0, 0.0, RepaymentStructure.EMI,
+                new double[]{1000.0}, new double[]{1000.0}, new double[]{0.0}, new double[]{0.0});
+        when(loanService.getLoan("loan123")).thenReturn(testLoan);
+        when(amortizationEngine.schedule(testLoan, null)).thenReturn(schedule);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        loanController.schedule("loan123", null, "json", response);
+
+        // Assert
+        assertEquals("application/json;charset=UTF-8", response.getContentType());
+        verify(amortizationEngine, times(1))
+                .write(schedule, AmortizationEngine.Format.JSON, response.getOutputStream());
+    }
+
     @Test
     void testList_Success() {
         // Arrange
         Pageable pageable = PageRequest.of(0, 10);
-        List<Loan> loans = new ArrayList<>();
-        loans.add(testLoan);
-        Page<Loan> loanPage = new PageImpl<>(loans, pageable, 1);
-        
-        when(loanService.getAllLoans(pageable)).thenReturn(loanPage);
+        LoanSummary summary = new LoanSummary();
+        summary.setId("loan123");
+        summary.setClientName("Test Corp");
+        Page<LoanSummary> summaryPage = new PageImpl<>(List.of(summary), pageable, 1);
+
+        when(loanService.getLoanSummaries(pageable)).thenReturn(summaryPage);
 
         // Act
-        Page<Loan> result = loanController.list(pageable);
+        ResponseEntity<Page<LoanSummary>> response = loanController.list(new LoanFilter(), pageable, webRequest(null));
 
         // Assert
+        Page<LoanSummary> result = response.getBody();
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
-        verify(loanService, times(1)).getAllLoans(pageable);
+        assertEquals("Test Corp", result.getContent().get(0).getClientName());
+        assertNotNull(response.getHeaders().getETag());
+        verify(loanService, times(1)).getLoanSummaries(pageable);
+    }
+
+    @Test
+    void testList_NotModifiedUntilARowChanges() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        LoanSummary summary = new LoanSummary();
+        summary.setId("loan123");
+        summary.setVersion(2L);
+        when(loanService.getLoanSummaries(pageable)).thenReturn(new PageImpl<>(List.of(summary), pageable, 1));
+        String etag = loanController.list(new LoanFilter(), pageable, webRequest(null)).getHeaders().getETag();
+
+        // Act
+        ResponseEntity<Page<LoanSummary>> unchanged = loanController.list(new LoanFilter(), pageable, webRequest(etag));
+        summary.setVersion(3L);
+        ResponseEntity<Page<LoanSummary>> changed = loanController.list(new LoanFilter(), pageable, webRequest(etag));
+
+        // Assert
+        assertNull(unchanged);
+        assertNotNull(changed.getBody());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+    }
+
+    @Test
+    void testList_FilterRunsFilteredQuery() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        LoanFilter filter = new LoanFilter();
+        filter.setApprovedBy("admin@bank.com");
+        filter.setMinAmount(500_000.0);
+        Page<LoanSummary> page = new PageImpl<>(List.of(new LoanSummary()), pageable, 1);
+        when(loanService.getLoanSummaries(filter, pageable)).thenReturn(page);
+
+        // Act
+        ResponseEntity<Page<LoanSummary>> response = loanController.list(filter, pageable, webRequest(null));
+
+        // Assert
+        assertSame(page, response.getBody());
+        verify(loanService, never()).getLoanSummaries(pageable);
+    }
+
+    @Test
+    void testSearch_ReturnsServiceSlice() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 20);
+        Slice<LoanSummary> slice = new SliceImpl<>(List.of(new LoanSummary()), pageable, false);
+        when(loanService.searchLoans("acme st", pageable)).thenReturn(slice);
+
+        // Act
+        Slice<LoanSummary> result = loanController.search("acme st", pageable);
+
+        // Assert
+        assertSame(slice, result);
+    }
+
+    @Test
+    void testListFields_Success() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        Map<String, Object> row = Map.of("id", "loan123", "status", LoanStatus.DRAFT);
+        when(loanService.getLoanFields(List.of("status"), pageable)).thenReturn(new PageImpl<>(List.of(row), pageable, 1));
+
+        // Act
+        Page<Map<String, Object>> result = loanController.listFields(List.of("status"), pageable);
+
+        // Assert
+        assertEquals(row, result.getContent().get(0));
+    }
+
+    @Test
+    void testScroll_ClampsSize() {
+        // Arrange
+        CursorPage<LoanSummary> slice = new CursorPage<>(List.of(new LoanSummary()), null, false, null);
+        when(loanService.scrollLoans("", 200, false)).thenReturn(slice);
+
+        // Act
+        CursorPage<LoanSummary> result = loanController.scroll("", 5000, false);
+
+        // Assert
+        assertSame(slice, result);
+        verify(loanService, times(1)).scrollLoans("", 200, false);
     }
 
     @Test
@@ -89,13 +386,48 @@ class LoanControllerTest {
         // Arrange
         when(loanService.getLoan("loan123")).thenReturn(testLoan);
 
+        testLoan.setVersion(4L);
+
         // Act
-        Loan result = loanController.getOne("loan123");
+        ResponseEntity<Loan> response = loanController.getOne("loan123", webRequest(null));
 
         // Assert
-        assertNotNull(result);
-        assertEquals("loan123", result.getId());
+        assertNotNull(response.getBody());
+        assertEquals("loan123", response.getBody().getId());
+        assertEquals("\"4\"", response.getHeaders().getETag());
         verify(loanService, times(1)).getLoan("loan123");
+        verify(loanService, never()).getLoanVersion(anyString());
+    }
+
+    @Test
+    void testGetOne_NotModifiedReadsOnlyTheVersion() {
+        // Arrange
+        when(loanService.getLoanVersion("loan123")).thenReturn(4L);
+        ServletWebRequest request = webRequest("\"4\"");
+
+        // Act
+        ResponseEntity<Loan> response = loanController.getOne("loan123", request);
+
+        // Assert
+        assertNull(response);
+        assertEquals(304, request.getResponse().getStatus());
+        assertEquals("\"4\"", request.getResponse().getHeader("ETag"));
+        verify(loanService, never()).getLoan(anyString());
+    }
+
+    @Test
+    void testGetOne_StaleETagGetsTheLoan() {
+        // Arrange
+        testLoan.setVersion(5L);
+        when(loanService.getLoanVersion("loan123")).thenReturn(5L);
+        when(loanService.getLoan("loan123")).thenReturn(testLoan);
+
+        // Act
+        ResponseEntity<Loan> response = loanController.getOne("loan123", webRequest("\"4\""));
+
+        // Assert
+        assertSame(testLoan, response.getBody());
+        assertEquals("\"5\"", response.getHeaders().getETag());
     }
 
     @Test
@@ -105,14 +437,169 @@ class LoanControllerTest {
         updatedLoan.setClientName("Updated Corp");
         updatedLoan.setLoanType(LoanType.WORKING_CAPITAL);
         
-        when(loanService.updateLoan("loan123", updatedLoan, "user@bank.com")).thenReturn(testLoan);
+        testLoan.setVersion(1L);
+        when(loanService.updateLoan("loan123", updatedLoan, "user@bank.com", null)).thenReturn(testLoan);
 
         // Act
-        Loan result = loanController.update("loan123", updatedLoan, authentication);
+        ResponseEntity<Loan> result = loanController.update("loan123", updatedLoan, null, authentication, webRequest(null));
 
         // Assert
-        assertNotNull(result);
-        verify(loanService, times(1)).updateLoan("loan123", updatedLoan, "user@bank.com");
+        assertNotNull(result.getBody());
+        assertEquals("\"1\"", result.getHeaders().getETag());
+        verify(loanService, times(1)).updateLoan("loan123", updatedLoan, "user@bank.com", null);
+    }
+
+    @Test
+    void testUpdate_IfMatchPassesVersion() {
+        // Arrange
+        Loan updatedLoan = new Loan();
+        testLoan.setVersion(4L);
+        when(loanService.updateLoan("loan123", updatedLoan, "user@bank.com", 3L)).thenReturn(testLoan);
+
+        // Act
+        ResponseEntity<Loan> result = loanController.update("loan123", updatedLoan, "\"3\"", authentication, webRequest(null));
+
+        // Assert
+        assertEquals("\"4\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void testUpdate_IfMatchAcceptsFormatTag() {
+        // Arrange
+        Loan updatedLoan = new Loan();
+        testLoan.setVersion(4L);
+        when(loanService.updateLoan("loan123", updatedLoan, "user@bank.com", 3L)).thenReturn(testLoan);
+
+        // Act
+        ResponseEntity<Loan> result = loanController.update("loan123", updatedLoan, "\"3+cbor\"", authentication, webRequest(null));
+
+        // Assert
+        assertEquals("\"4\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void testUpdate_WeakOrForeignIfMatchFails() {
+        // Act
+        CustomException weak = assertThrows(CustomException.class,
+                () -> loanController.update("loan123", new Loan(), "W/\"3\"", authentication, webRequest(null)));
+        CustomException foreign = assertThrows(CustomException.class,
+                () -> loanController.update("loan123", new Loan(), "\"abc\"", authentication, webRequest(null)));
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED, weak.getStatus());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, foreign.getStatus());
+        verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void testGetOne_CborHasItsOwnTagAndVariesOnAccept() throws Exception {
+        // Arrange
+        testLoan.setVersion(4L);
+        when(loanService.getLoan("loan123")).thenReturn(testLoan);
+        MockMvc mvc = mockMvc();
+
+        // Act
+        MvcResult cbor = mvc.perform(get("/api/loans/loan123").accept(MediaType.APPLICATION_CBOR)).andReturn();
+        MvcResult json = mvc.perform(get("/api/loans/loan123").accept(MediaType.APPLICATION_JSON)).andReturn();
+
+        // Assert
+        assertEquals(200, cbor.getResponse().getStatus());
+        assertTrue(MediaType.APPLICATION_CBOR.isCompatibleWith(
+                MediaType.parseMediaType(cbor.getResponse().getContentType())));
+        assertEquals("\"4+cbor\"", cbor.getResponse().getHeader("ETag"));
+        assertTrue(cbor.getResponse().getHeaders("Vary").contains("Accept"));
+        Loan decoded = new CBORMapper().readValue(cbor.getResponse().getContentAsByteArray(), Loan.class);
+        assertEquals("Test Corp", decoded.getClientName());
+        assertEquals("\"4\"", json.getResponse().getHeader("ETag"));
+        assertTrue(json.getResponse().getHeaders("Vary").contains("Accept"));
+    }
+
+    @Test
+    void testGetOne_JsonTagDoesNotRevalidateCbor() throws Exception {
+        // Arrange
+        when(loanService.getLoanVersion("loan123")).thenReturn(4L);
+        testLoan.setVersion(4L);
+        when(loanService.getLoan("loan123")).thenReturn(testLoan);
+
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans/loan123")
+                .accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"4\"")).andReturn();
+
+        // Assert
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals("\"4+cbor\"", result.getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    void testGetOne_CborTagRevalidatesCbor() throws Exception {
+        // Arrange
+        when(loanService.getLoanVersion("loan123")).thenReturn(4L);
+
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans/loan123")
+                .accept(MediaType.APPLICATION_CBOR).header("If-None-Match", "\"4+cbor\"")).andReturn();
+
+        // Assert
+        assertEquals(304, result.getResponse().getStatus());
+        assertTrue(result.getResponse().getHeaders("Vary").contains("Accept"));
+        verify(loanService, never()).getLoan(anyString());
+    }
+
+    @Test
+    void testList_SmileBody() throws Exception {
+        // Arrange
+        LoanSummary summary = new LoanSummary();
+        summary.setId("loan123");
+        summary.setClientName("Test Corp");
+        summary.setVersion(2L);
+        when(loanService.getLoanSummaries(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(summary), PageRequest.of(0, 20), 1));
+
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans").accept(SMILE)).andReturn();
+
+        // Assert
+        assertEquals(200, result.getResponse().getStatus());
+        assertTrue(SMILE.isCompatibleWith(MediaType.parseMediaType(result.getResponse().getContentType())));
+        assertTrue(result.getResponse().getHeader("ETag").endsWith("+smile\""));
+        assertTrue(result.getResponse().getHeaders("Vary").contains("Accept"));
+        JsonNode page = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Test Corp", page.get("content").get(0).get("clientName").asString());
+    }
+
+    @Test
+    void testList_FieldsWithCursorIsBadRequest() throws Exception {
+        // Act
+        MvcResult result = mockMvc().perform(get("/api/loans").param("fields", "clientName").param("cursor", ""))
+                .andReturn();
+
+        // Assert
+        assertEquals(400, result.getResponse().getStatus());
+        verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void testCreate_ReadsCborBody() throws Exception {
+        // Arrange
+        Loan request = new Loan();
+        request.setClientName("Cbor Corp");
+        request.setLoanType(LoanType.TERM_LOAN);
+        request.setRequestedAmount(2500000.0);
+        when(loanService.createLoan(any(Loan.class), eq("user@bank.com"))).thenReturn(testLoan);
+
+        // Act
+        MvcResult result = mockMvc().perform(post("/api/loans")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(new CBORMapper().writeValueAsBytes(request))
+                .accept(MediaType.APPLICATION_JSON)
+                .principal(authentication)).andReturn();
+
+        // Assert
+        assertEquals(200, result.getResponse().getStatus());
+        ArgumentCaptor<Loan> created = ArgumentCaptor.forClass(Loan.class);
+        verify(loanService).createLoan(created.capture(), eq("user@bank.com"));
+        assertEquals("Cbor Corp", created.getValue().getClientName());
+        assertEquals(2500000.0, created.getValue().getRequestedAmount());
     }
 
     @Test
@@ -129,4 +616,19 @@ class LoanControllerTest {
         assertEquals(LoanStatus.SUBMITTED, result.getStatus());
         verify(loanService, times(1)).submit("loan123", "user@bank.com");
     }
+
+    private MockMvc mockMvc() {
+        return MockMvcBuilders.standaloneSetup(loanController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/loans");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
@@ -0,0 +1,82 @@
+package com.corporatebank.loan.controller;
+
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.dto.PricingQuote;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import com.corporatebank.loan.service.AmortizationEngine;
+import com.corporatebank.loan.service.PricingEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PricingControllerTest {
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private AmortizationEngine amortizationEngine;
+
+    @InjectMocks
+    private PricingController pricingController;
+
+    @Test
+    void testQuote_Success() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setLoanType(LoanType.TERM_LOAN);
+        loan.setRequestedAmount(1000000.0);
+        PricingQuote quote = new PricingQuote(7.4, 0.7, 0.35, 0.0, 0.2, 8.65);
+        when(pricingEngine.quote(loan)).thenReturn(quote);
+
+        // Act
+        PricingQuote result = pricingController.quote(loan);
+
+        // Assert
+        assertSame(quote, result);
+        verify(pricingEngine, times(1)).quote(loan);
+    }
+
+    @Test
+    void testSchedule_WritesRequestedFormat() throws Exception {
+        // Arrange
+        AmortizationSchedule schedule = new AmortizationSchedule(1000.0, 0.0, RepaymentStructure.BULLET,
+                new double[]{1000.0}, new double[]{1000.0}, new double[]{0.0}, new double[]{0.0});
+        when(amortizationEngine.schedule(1000.0, 0.0, 1, RepaymentStructure.BULLET)).thenReturn(schedule);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        pricingController.schedule(1000.0, 0.0, 1, RepaymentStructure.BULLET, "csv", response);
+
+        // Assert
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        verify(amortizationEngine, times(1))
+                .write(schedule, AmortizationEngine.Format.CSV, response.getOutputStream());
+    }
+
+    @Test
+    void testSchedule_InvalidTermsLeaveTheContentTypeUnset() throws Exception {
+        // Arrange
+        when(amortizationEngine.schedule(-1.0, 0.0, 1, RepaymentStructure.EMI))
+                .thenThrow(new CustomException(HttpStatus.BAD_REQUEST, "amount must be positive"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act & Assert: the error handler picks the type of the JSON error body
+        assertThrows(CustomException.class,
+                () -> pricingController.schedule(-1.0, 0.0, 1, RepaymentStructure.EMI, "csv", response));
+        assertNull(response.getContentType());
+        verify(amortizationEngine, never()).write(any(), any(), any());
+    }
+}
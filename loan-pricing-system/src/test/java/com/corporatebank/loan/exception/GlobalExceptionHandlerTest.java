@@ -0,0 +1,41 @@
+package com.corporatebank.loan.exception;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void testHandleCustom_StatusAndMessage() {
+        // Act
+        ResponseEntity<Map<String, Object>> response =
+                handler.handleCustom(new CustomException(HttpStatus.CONFLICT, "Loan was modified concurrently."));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Loan was modified concurrently.", response.getBody().get("message"));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testHandleCustom_RetryAfterInWholeSecondsRoundedUp() {
+        // Act
+        ResponseEntity<Map<String, Object>> response = handler.handleCustom(
+                new CustomException(HttpStatus.SERVICE_UNAVAILABLE, "busy", Duration.ofMillis(1500)));
+        ResponseEntity<Map<String, Object>> shortWait = handler.handleCustom(
+                new CustomException(HttpStatus.SERVICE_UNAVAILABLE, "busy", Duration.ofMillis(50)));
+
+        // Assert
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("1", shortWait.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+}
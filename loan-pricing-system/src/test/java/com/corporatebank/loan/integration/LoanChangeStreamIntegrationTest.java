@@ -0,0 +1,113 @@
+package com.corporatebank.loan.integration;
+
+import com.corporatebank.loan.dto.LoanEvent;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.service.LoanChangeStream;
+import com.corporatebank.loan.service.LoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MongoDBContainer runs a single-node replica set, which change streams need
+@SpringBootTest(properties = {"loan.actions.migrate=false", "loan.events.max-await-ms=200"})
+@Testcontainers(disabledWithoutDocker = true)
+class LoanChangeStreamIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongoDBContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mongodb.uri", mongoDBContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private LoanChangeStream changeStream;
+
+    @Autowired
+    private LoanService loanService;
+
+    private final BlockingQueue<LoanEvent> events = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        changeStream.stop();
+    }
+
+    @Test
+    void testChangeStream_DeliversCreateAndTransition() throws Exception {
+        // Arrange
+        changeStream.start(new LoanChangeStream.Listener() {
+            @Override
+            public void changed(String token, LoanEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void reset() {
+            }
+        });
+        awaitStreamOpen();
+
+        // Act
+        Loan created = loanService.createLoan(loan("Stream Corp"), "user@bank.com");
+        loanService.submit(created.getId(), "user@bank.com");
+
+        // Assert
+        LoanEvent insert = next(created.getId());
+        assertEquals("insert", insert.getOperation());
+        assertEquals(LoanStatus.DRAFT, insert.getStatus());
+        assertEquals("user@bank.com", insert.getCreatedBy());
+        LoanEvent update = next(created.getId());
+        assertEquals("update", update.getOperation());
+        assertEquals(LoanStatus.SUBMITTED, update.getStatus());
+        assertNotNull(update.getLastAction());
+    }
+
+    // the cursor opens on the reader thread; write probes until one comes through
+    private void awaitStreamOpen() throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            loanService.createLoan(loan("Probe " + attempt), "probe@bank.com");
+            if (events.poll(200, TimeUnit.MILLISECONDS) != null) {
+                Thread.sleep(300);
+                events.clear();
+                return;
+            }
+        }
+        fail("Change stream did not open");
+    }
+
+    private LoanEvent next(String loanId) throws InterruptedException {
+        while (true) {
+            LoanEvent event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event, "No change for loan " + loanId);
+            if (loanId.equals(event.getLoanId())) {
+                return event;
+            }
+        }
+    }
+
+    private static Loan loan(String clientName) {
+        Loan loan = new Loan();
+        loan.setClientName(clientName);
+        loan.setLoanType(LoanType.TERM_LOAN);
+        loan.setRequestedAmount(1_000_000.0);
+        loan.setProposedInterestRate(8.5);
+        loan.setTenureMonths(60);
+        return loan;
+    }
+}
@@ -0,0 +1,61 @@
+package com.corporatebank.loan.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanSearchKeysTest {
+
+    @Test
+    void testWords_FoldsCaseAndAccentsAndSplitsOnPunctuation() {
+        // Act
+        List<String> words = LoanSearchKeys.words("  Société Générale-Énergie & Co. (2024) ");
+
+        // Assert
+        assertEquals(List.of("societe", "generale", "energie", "co", "2024"), words);
+        assertTrue(LoanSearchKeys.words(null).isEmpty());
+        assertTrue(LoanSearchKeys.words(" -- ").isEmpty());
+    }
+
+    @Test
+    void testStamp_SetsNameAndEveryWordPrefix() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setClientName("Acme ACE");
+
+        // Act
+        LoanSearchKeys.stamp(loan);
+
+        // Assert
+        assertEquals("acme ace", loan.getSearchName());
+        assertEquals(List.of("a", "ac", "acm", "acme", "ace"), loan.getSearchKeys());
+    }
+
+    @Test
+    void testKeys_CapsLongWords() {
+        // Arrange
+        String word = "a".repeat(LoanSearchKeys.MAX_PREFIX + 6);
+
+        // Act
+        List<String> keys = LoanSearchKeys.keys(List.of(word));
+        List<String> queryKeys = LoanSearchKeys.queryKeys(List.of("ab", word, "ab"));
+
+        // Assert
+        assertEquals(LoanSearchKeys.MAX_PREFIX, keys.size());
+        assertEquals(List.of(word.substring(0, LoanSearchKeys.MAX_PREFIX), "ab"), queryKeys);
+        assertTrue(keys.contains(queryKeys.get(0)));
+    }
+
+    @Test
+    void testPrefixEnd_BoundsEveryExtension() {
+        // Act
+        String end = LoanSearchKeys.prefixEnd("acme");
+
+        // Assert
+        assertEquals("acmf", end);
+        assertTrue("acme zzz".compareTo(end) < 0);
+        assertTrue("acmf".compareTo(end) >= 0);
+    }
+}
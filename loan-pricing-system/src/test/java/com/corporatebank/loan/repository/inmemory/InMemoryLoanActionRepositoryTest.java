@@ -0,0 +1,105 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanActionBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLoanActionRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private InMemoryLoanActionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryLoanActionRepository(2);
+    }
+
+    @Test
+    void testAppend_FillsBucketsOneAtATime() {
+        // Act
+        for (int i = 0; i < 5; i++) {
+            repository.append(Map.of("loan1", action(i), "loan2", action(i)));
+        }
+
+        // Assert
+        List<LoanActionBucket> buckets = repository.findAll().stream()
+                .filter(bucket -> bucket.getLoanId().equals("loan1"))
+                .toList();
+        assertEquals(3, buckets.size());
+        assertEquals(List.of(1, 2, 2), buckets.stream().map(LoanActionBucket::getCount).sorted().toList());
+        assertEquals(List.of(0, 1, 2), buckets.stream().map(LoanActionBucket::getSequence).sorted().toList());
+        assertEquals(6, repository.count());
+    }
+
+    @Test
+    void testFindHistory_OrdersBucketsBySequenceNotTimestamp() {
+        // Arrange: a writer with a slow clock appends after the first bucket filled
+        repository.append(Map.of("loan1", action(5)));
+        repository.append(Map.of("loan1", action(6)));
+        repository.append(Map.of("loan1", action(1)));
+
+        // Act
+        Page<LoanAction> history = repository.findHistory("loan1", Pageable.unpaged());
+
+        // Assert
+        assertEquals(List.of("A1", "A6", "A5"), history.getContent().stream().map(LoanAction::getAction).toList());
+    }
+
+    @Test
+    void testFindHistory_PagesNewestFirstAcrossBuckets() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            repository.append(Map.of("loan1", action(i)));
+        }
+
+        // Act
+        Page<LoanAction> first = repository.findHistory("loan1", PageRequest.of(0, 3));
+        Page<LoanAction> second = repository.findHistory("loan1", PageRequest.of(1, 3));
+
+        // Assert
+        assertEquals(List.of("A4", "A3", "A2"), first.getContent().stream().map(LoanAction::getAction).toList());
+        assertEquals(List.of("A1", "A0"), second.getContent().stream().map(LoanAction::getAction).toList());
+        assertEquals(5, first.getTotalElements());
+        assertEquals(2, first.getTotalPages());
+    }
+
+    @Test
+    void testFindHistory_UnknownLoanIsEmpty() {
+        // Act
+        Page<LoanAction> page = repository.findHistory("missing", Pageable.unpaged());
+
+        // Assert
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+
+    @Test
+    void testDelete_DropsBucketFromHistory() {
+        // Arrange
+        repository.append(Map.of("loan1", action(0)));
+        String id = repository.findAll().get(0).getId();
+
+        // Act
+        repository.deleteById(id);
+        repository.append(Map.of("loan1", action(1)));
+
+        // Assert
+        assertEquals(List.of("A1"), repository.findHistory("loan1", Pageable.unpaged()).getContent().stream()
+                .map(LoanAction::getAction).toList());
+    }
+
+    private static LoanAction action(int i) {
+        return new LoanAction("user@bank.com", "A" + i, T0.plusSeconds(i));
+    }
+}
@@ -0,0 +1,697 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.LoanSearchKeys;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryLoanRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private InMemoryLoanRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryLoanRepository();
+    }
+
+    @Test
+    void testSave_AssignsIdAndStoresCopy() {
+        // Arrange
+        Loan loan = loan("Acme", 0, LoanStatus.DRAFT);
+
+        // Act
+        Loan saved = repository.save(loan);
+        loan.setClientName("Changed");
+        loan.getLastAction().setAction("EDITED");
+
+        // Assert
+        assertNotNull(saved.getId());
+        Loan stored = repository.findByIdAndDeletedFalse(saved.getId()).orElseThrow();
+        assertEquals("Acme", stored.getClientName());
+        assertEquals("CREATED", stored.getLastAction().getAction());
+    }
+
+    @Test
+    void testFindByDeletedFalse_PagesNewestFirstAndCountsActiveOnly() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            repository.save(loan("C" + i, i, LoanStatus.DRAFT));
+        }
+        Loan deleted = loan("Deleted", 10, LoanStatus.DRAFT);
+        deleted.setDeleted(true);
+        repository.save(deleted);
+
+        // Act
+        Page<Loan> page = repository.findByDeletedFalse(PageRequest.of(1, 2, Sort.by("createdAt").descending()));
+
+        // Assert
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of("C2", "C1"), page.getContent().stream().map(Loan::getClientName).toList());
+        assertEquals(5, repository.countByDeletedFalse());
+    }
+
+    @Test
+    void testFindSummaryByDeletedFalse_SortsOnOtherFields() {
+        // Arrange
+        repository.save(loan("Bravo", 0, LoanStatus.DRAFT));
+        repository.save(loan("Alpha", 1, LoanStatus.DRAFT));
+        repository.save(loan("Charlie", 2, LoanStatus.DRAFT));
+
+        // Act
+        Page<LoanSummary> page = repository.findSummaryByDeletedFalse(PageRequest.of(0, 10, Sort.by("clientName")));
+
+        // Assert
+        assertEquals(List.of("Alpha", "Bravo", "Charlie"),
+                page.getContent().stream().map(LoanSummary::getClientName).toList());
+    }
+
+    @Test
+    void testUpdateIfStatus_AppliesOnlyFromAllowedStatus() {
+        // Arrange
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+        Update submit = new Update().set("status", LoanStatus.SUBMITTED)
+                .set("lastAction", new LoanAction("u", "SUBMITTED", T0));
+
+        // Act
+        Optional<Loan> first = repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT), null, submit);
+        Optional<Loan> second = repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT), null, submit);
+
+        // Assert
+        assertEquals(LoanStatus.SUBMITTED, first.orElseThrow().getStatus());
+        assertEquals("SUBMITTED", first.get().getLastAction().getAction());
+        assertTrue(second.isEmpty());
+        assertEquals(1, repository.countForRepricing(EnumSet.of(LoanStatus.SUBMITTED), T0));
+    }
+
+    @Test
+    void testUpdateIfStatus_LeavesTheCallersUpdateReusable() {
+        // Arrange: the same Update applied twice, as a retried transaction does
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+        Update update = new Update().set("clientName", "Renamed").inc("tenureMonths", 12);
+        String before = update.getUpdateObject().toJson();
+
+        // Act
+        repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT), null, update);
+        Loan second = repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT), null, update).orElseThrow();
+
+        // Assert: one version step and one tenure step per write
+        assertEquals(before, update.getUpdateObject().toJson());
+        assertEquals(2, second.getVersion());
+        assertEquals(36 + 2 * 12, second.getTenureMonths());
+    }
+
+    @Test
+    void testUpdateIfStatusReturningPrevious_ReturnsTheLoanAsItWas() {
+        // Arrange
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+        Update rename = new Update().set("clientName", "Renamed");
+
+        // Act
+        Loan previous = repository.updateIfStatusReturningPrevious(id, EnumSet.of(LoanStatus.DRAFT), null, rename)
+                .orElseThrow();
+
+        // Assert
+        assertEquals("Acme", previous.getClientName());
+        Loan stored = repository.findByIdAndDeletedFalse(id).orElseThrow();
+        assertEquals("Renamed", stored.getClientName());
+        assertEquals(previous.getVersion() + 1, stored.getVersion());
+    }
+
+    @Test
+    void testUpdateIfStatus_RequiresCondition() {
+        // Arrange
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+        Update update = new Update().set("clientName", "Renamed");
+
+        // Act
+        Optional<Loan> stale = repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT),
+                Criteria.where("requestedAmount").is(5.0), update);
+        Optional<Loan> current = repository.updateIfStatus(id, EnumSet.of(LoanStatus.DRAFT),
+                Criteria.where("requestedAmount").is(1_000_000.0).and("sanctionedAmount").is(null), update);
+
+        // Assert
+        assertTrue(stale.isEmpty());
+        assertEquals("Renamed", current.orElseThrow().getClientName());
+    }
+
+    @Test
+    void testUpdateIfStatus_IncrementsVersionAndMatchesOnIt() {
+        // Arrange
+        Loan legacy = loan("Legacy", 1, LoanStatus.DRAFT);
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+        Update rename = new Update().set("clientName", "Renamed");
+
+        // Act
+        long initial = repository.findVersion(id).orElseThrow();
+        Loan renamed = repository.updateIfStatus(id, EnumSet.noneOf(LoanStatus.class),
+                Criteria.where("version").is(0L), rename).orElseThrow();
+        Optional<Loan> stale = repository.updateIfStatus(id, EnumSet.noneOf(LoanStatus.class),
+                Criteria.where("version").is(0L), rename);
+        String legacyId = repository.save(legacy).getId();
+
+        // Assert
+        assertEquals(0, initial);
+        assertEquals(1L, renamed.getVersion());
+        assertTrue(stale.isEmpty());
+        assertEquals(Optional.of(1L), repository.findVersion(id));
+        assertEquals(Optional.of(0L), repository.findVersion(legacyId));
+        assertTrue(repository.findVersion("missing").isEmpty());
+    }
+
+    @Test
+    void testUpdateIfStatus_SoftDeleteLeavesActiveIndexes() {
+        // Arrange
+        String id = repository.save(loan("Acme", 0, LoanStatus.DRAFT)).getId();
+
+        // Act
+        repository.updateIfStatus(id, Set.of(), null, new Update().set("deleted", true));
+
+        // Assert
+        assertTrue(repository.findByIdAndDeletedFalse(id).isEmpty());
+        assertTrue(repository.findById(id).orElseThrow().isDeleted());
+        assertEquals(0, repository.countByDeletedFalse());
+        assertTrue(repository.findActiveAfter(null, 10).isEmpty());
+    }
+
+    @Test
+    void testFindActiveAfter_ScrollsWithTiesOnCreatedAt() {
+        // Arrange
+        for (int i = 0; i < 7; i++) {
+            repository.save(loan("C" + i, i / 2, LoanStatus.DRAFT));
+        }
+        List<String> seen = new ArrayList<>();
+
+        // Act
+        List<LoanSummary> slice = repository.findActiveAfter(null, 3);
+        while (!slice.isEmpty()) {
+            slice.forEach(summary -> seen.add(summary.getId()));
+            LoanSummary last = slice.get(slice.size() - 1);
+            slice = repository.findActiveAfter(new LoanCursor(last.getCreatedAt(), last.getId()), 3);
+        }
+
+        // Assert
+        assertEquals(7, seen.size());
+        assertEquals(7, Set.copyOf(seen).size());
+    }
+
+    @Test
+    void testFindActiveAfter_ScrollsOnToLoansWithoutCreatedAt() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            Loan loan = loan("U" + i, i, LoanStatus.DRAFT);
+            if (i % 2 == 0) {
+                loan.setCreatedAt(null);
+            }
+            repository.save(loan);
+        }
+        List<LoanSummary> seen = new ArrayList<>();
+
+        // Act
+        List<LoanSummary> slice = repository.findActiveAfter(null, 2);
+        while (!slice.isEmpty()) {
+            seen.addAll(slice);
+            LoanSummary last = slice.get(slice.size() - 1);
+            slice = repository.findActiveAfter(
+                    LoanCursor.decode(new LoanCursor(last.getCreatedAt(), last.getId()).encode()), 2);
+        }
+
+        // Assert
+        assertEquals(5, seen.size());
+        assertEquals(List.of("U3", "U1"), seen.subList(0, 2).stream().map(LoanSummary::getClientName).toList());
+        assertTrue(seen.subList(2, 5).stream().allMatch(summary -> summary.getCreatedAt() == null));
+    }
+
+    @Test
+    void testSearchNamePrefix_ReadsRangeInNameOrderActiveOnly() {
+        // Arrange
+        for (String name : List.of("Acme Steel", "Acme Foods", "Acmeville Traders", "Apex Steel", "Acme Deleted")) {
+            Loan loan = searched(name);
+            loan.setDeleted(name.endsWith("Deleted"));
+            repository.save(loan);
+        }
+
+        // Act
+        List<LoanSummary> found = repository.searchNamePrefix("acme", 1, 10);
+        long counted = repository.countNamePrefix("acme", 10);
+        long capped = repository.countNamePrefix("acme", 2);
+
+        // Assert
+        assertEquals(List.of("Acme Steel", "Acmeville Traders"),
+                found.stream().map(LoanSummary::getClientName).toList());
+        assertEquals(3, counted);
+        assertEquals(2, capped);
+    }
+
+    @Test
+    void testSearchNameKeys_MatchesEveryKeyOutsideExcludedPrefix() {
+        // Arrange
+        for (String name : List.of("North Steel Works", "Steel North Ltd", "Northern Steelmakers", "North Foods")) {
+            repository.save(searched(name));
+        }
+
+        // Act
+        List<LoanSummary> all = repository.searchNameKeys(List.of("steel", "north"), null, 0, 10);
+        List<LoanSummary> outside = repository.searchNameKeys(List.of("steel", "north"), "steel north", 0, 10);
+
+        // Assert
+        assertEquals(List.of("North Steel Works", "Northern Steelmakers", "Steel North Ltd"),
+                all.stream().map(LoanSummary::getClientName).toList());
+        assertEquals(List.of("North Steel Works", "Northern Steelmakers"),
+                outside.stream().map(LoanSummary::getClientName).toList());
+    }
+
+    @Test
+    void testSearchNameKeys_FollowsRename() {
+        // Arrange
+        String id = repository.save(searched("Acme Steel")).getId();
+        Loan renamed = searched("Zenith Foods");
+
+        // Act
+        repository.updateIfStatus(id, Set.of(), null, new Update()
+                .set("clientName", renamed.getClientName())
+                .set("searchName", renamed.getSearchName())
+                .set("searchKeys", renamed.getSearchKeys()));
+
+        // Assert
+        assertTrue(repository.searchNameKeys(List.of("steel"), null, 0, 10).isEmpty());
+        assertTrue(repository.searchNamePrefix("acme", 0, 10).isEmpty());
+        assertEquals(id, repository.searchNameKeys(List.of("foo"), null, 0, 10).get(0).getId());
+    }
+
+    @Test
+    void testStreamActive_FiltersRangeAndStatus() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            repository.save(loan("C" + i, i, i % 2 == 0 ? LoanStatus.APPROVED : LoanStatus.DRAFT));
+        }
+        LoanFilter filter = new LoanFilter();
+        filter.setStatus(LoanStatus.APPROVED);
+        filter.setCreatedFrom(T0.plusSeconds(2));
+        filter.setCreatedTo(T0.plusSeconds(8));
+
+        // Act
+        List<Loan> loans = repository.streamActive(filter).toList();
+
+        // Assert
+        assertEquals(List.of("C6", "C4", "C2"), loans.stream().map(Loan::getClientName).toList());
+    }
+
+    @Test
+    void testFindSummaries_FiltersApprovalsAndAmountsAndSorts() {
+        // Arrange
+        for (int i = 0; i < 8; i++) {
+            Loan loan = loan("C" + i, i, i % 2 == 0 ? LoanStatus.APPROVED : LoanStatus.DRAFT);
+            loan.setRequestedAmount(100_000.0 * i);
+            if (loan.getStatus() == LoanStatus.APPROVED) {
+                loan.setApprovedBy(i < 6 ? "admin@bank.com" : "other@bank.com");
+                loan.setApprovedAt(T0.plusSeconds(100 + i));
+            }
+            repository.save(loan);
+        }
+        LoanFilter filter = new LoanFilter();
+        filter.setApprovedBy("admin@bank.com");
+        filter.setApprovedFrom(T0.plusSeconds(101));
+        filter.setMinAmount(200_000.0);
+        filter.setMaxAmount(400_000.0);
+
+        // Act
+        Page<LoanSummary> page = repository.findSummaries(filter, PageRequest.of(0, 1, Sort.by("requestedAmount")));
+
+        // Assert
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of("C2"), page.getContent().stream().map(LoanSummary::getClientName).toList());
+    }
+
+    @Test
+    void testFindSummaries_PagesOffCreatedAtIndexInEitherDirection() {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            repository.save(loan("C" + i, i, i < 4 ? LoanStatus.DRAFT : LoanStatus.SUBMITTED));
+        }
+        LoanFilter filter = new LoanFilter();
+        filter.setStatus(LoanStatus.DRAFT);
+
+        // Act
+        Page<LoanSummary> newest = repository.findSummaries(filter,
+                PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "createdAt")));
+        Page<LoanSummary> oldest = repository.findSummaries(filter, PageRequest.of(0, 3, Sort.by("createdAt", "id")));
+
+        // Assert
+        assertEquals(List.of("C0"), newest.getContent().stream().map(LoanSummary::getClientName).toList());
+        assertEquals(4, newest.getTotalElements());
+        assertEquals(List.of("C0", "C1", "C2"), oldest.getContent().stream().map(LoanSummary::getClientName).toList());
+        assertEquals(4, oldest.getTotalElements());
+    }
+
+    @Test
+    void testFindAllByExample_MatchesProbePropertiesLikeMongo() {
+        // Arrange
+        for (String name : List.of("Acme Steel", "acme foods", "Apex Steel")) {
+            Loan loan = loan(name, 0, LoanStatus.DRAFT);
+            loan.setFinancials(new Loan.Financials());
+            loan.getFinancials().setRating(name.startsWith("Apex") ? "A" : "B");
+            repository.save(loan);
+        }
+        Loan probe = probe();
+        probe.setClientName("ACME");
+        Loan rated = probe();
+        rated.setFinancials(new Loan.Financials());
+        rated.getFinancials().setRating("A");
+        ExampleMatcher startsWith = ExampleMatcher.matching()
+                .withStringMatcher(ExampleMatcher.StringMatcher.STARTING).withIgnoreCase();
+
+        // Act
+        List<Loan> byPrefix = repository.findAll(Example.of(probe, startsWith), Sort.by("clientName"));
+        List<Loan> exact = repository.findAll(Example.of(probe));
+        List<Loan> byNested = repository.findAll(Example.of(rated));
+
+        // Assert
+        assertEquals(List.of("Acme Steel", "acme foods"), byPrefix.stream().map(Loan::getClientName).toList());
+        assertTrue(exact.isEmpty());
+        assertEquals(List.of("Apex Steel"), byNested.stream().map(Loan::getClientName).toList());
+        assertEquals(3, repository.count(Example.of(probe())));
+        assertTrue(repository.exists(Example.of(rated)));
+    }
+
+    @Test
+    void testFindByExample_FluentQueryPagesProjectsAndScrolls() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            repository.save(loan("C" + i, i, LoanStatus.DRAFT));
+        }
+        Example<Loan> drafts = Example.of(probe());
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "createdAt");
+
+        // Act
+        List<LoanSummary> summaries = repository.findBy(drafts, query -> query.sortBy(newestFirst).limit(2)
+                .as(LoanSummary.class).all());
+        List<Loan> names = repository.findBy(drafts, query -> query.sortBy(newestFirst).project("clientName").all());
+        List<String> scrolled = new ArrayList<>();
+        Window<Loan> window = repository.findBy(drafts,
+                query -> query.sortBy(newestFirst).limit(2).scroll(ScrollPosition.keyset()));
+        while (true) {
+            window.forEach(loan -> scrolled.add(loan.getClientName()));
+            if (!window.hasNext()) {
+                break;
+            }
+            ScrollPosition next = window.positionAt(window.size() - 1);
+            window = repository.findBy(drafts, query -> query.sortBy(newestFirst).limit(2).scroll(next));
+        }
+        Window<Loan> offset = repository.findBy(drafts,
+                query -> query.sortBy(newestFirst).limit(2).scroll(ScrollPosition.offset(1)));
+
+        // Assert
+        assertEquals(List.of("C4", "C3"), summaries.stream().map(LoanSummary::getClientName).toList());
+        assertNull(names.get(0).getLoanType());
+        assertNotNull(names.get(0).getId());
+        assertEquals(List.of("C4", "C3", "C2", "C1", "C0"), scrolled);
+        assertEquals(List.of("C2", "C1"), offset.stream().map(Loan::getClientName).toList());
+        assertThrows(IncorrectResultSizeDataAccessException.class,
+                () -> repository.findBy(drafts, FluentQuery.FetchableFluentQuery::oneValue));
+    }
+
+    @Test
+    void testUpdateIfStatus_EvaluatesArrayAndNumericOperators() {
+        // Arrange
+        Loan loan = loan("Acme", 0, LoanStatus.DRAFT);
+        loan.setSearchKeys(List.of("acme", "steel"));
+        loan.setTenureMonths(36);
+        String id = repository.save(loan).getId();
+
+        // Act & Assert
+        assertTrue(repository.updateIfStatus(id, Set.of(), new Criteria().andOperator(
+                Criteria.where("searchKeys").size(2).all("steel", "acme"),
+                Criteria.where("searchKeys").elemMatch(new Criteria().gte("s")),
+                Criteria.where("tenureMonths").mod(12, 0).type(JsonSchemaObject.Type.intType()),
+                Criteria.where("clientName").not().regex("^b"),
+                Criteria.where("clientName").regex("ACME", "i")), new Update()).isPresent());
+        assertTrue(repository.updateIfStatus(id, Set.of(), Criteria.where("searchKeys").size(3), new Update())
+                .isEmpty());
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> repository.updateIfStatus(id, Set.of(),
+                Criteria.where("clientName").is("Acme").and("$where").is("true"), new Update()));
+    }
+
+    @Test
+    void testUpdateIfStatus_AppliesArrayAndArithmeticUpdates() {
+        // Arrange
+        Loan loan = loan("Acme", 0, LoanStatus.DRAFT);
+        loan.setSearchKeys(List.of("b", "d"));
+        loan.setRequestedAmount(1000.0);
+        loan.setTenureMonths(36);
+        String id = repository.save(loan).getId();
+        Update update = new Update()
+                .addToSet("searchKeys").each("a", "b")
+                .multiply("requestedAmount", 1.5)
+                .min("tenureMonths", 24)
+                .max("approvedInterestRate", 9.5)
+                .rename("clientName", "createdBy")
+                .currentDate("pricedAt");
+        update.push("searchKeys").sort(Sort.Direction.ASC).slice(3).each("c");
+
+        // Act
+        Loan updated = repository.updateIfStatus(id, Set.of(), null, update).orElseThrow();
+        Loan popped = repository.updateIfStatus(id, Set.of(), null,
+                new Update().pop("searchKeys", Update.Position.FIRST).pull("searchKeys", "c")).orElseThrow();
+
+        // Assert
+        assertEquals(List.of("a", "b", "c"), updated.getSearchKeys());
+        assertEquals(1500.0, updated.getRequestedAmount());
+        assertEquals(24, updated.getTenureMonths());
+        assertEquals(9.5, updated.getApprovedInterestRate());
+        assertNull(updated.getClientName());
+        assertEquals("Acme", updated.getCreatedBy());
+        assertNotNull(updated.getPricedAt());
+        assertEquals(List.of("b"), popped.getSearchKeys());
+    }
+
+    @Test
+    void testPortfolioStats_GroupsFilteredLoans() {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            Loan loan = loan("C" + i, i, i % 2 == 0 ? LoanStatus.APPROVED : LoanStatus.DRAFT);
+            loan.setCreatedBy(i < 5 ? "a@bank.com" : "b@bank.com");
+            if (loan.getStatus() == LoanStatus.APPROVED) {
+                loan.setSanctionedAmount(500_000.0);
+                loan.setApprovedInterestRate(8.0 + i);
+            }
+            Loan.Financials financials = new Loan.Financials();
+            financials.setRating(i == 1 ? null : "A");
+            loan.setFinancials(financials);
+            repository.save(loan);
+        }
+        LoanFilter filter = new LoanFilter();
+        filter.setCreatedBy("a@bank.com");
+        filter.setCreatedFrom(T0.plusSeconds(1));
+
+        // Act
+        PortfolioStats stats = repository.portfolioStats(filter);
+
+        // Assert
+        assertEquals(4, stats.getTotals().getCount());
+        assertEquals(4_000_000.0, stats.getTotals().getRequestedAmount());
+        assertEquals(1_000_000.0, stats.getTotals().getSanctionedAmount());
+        assertEquals(11.0, stats.getTotals().getAvgApprovedInterestRate());
+        assertEquals(List.of("APPROVED", "DRAFT"),
+                stats.getByStatus().stream().map(PortfolioStats.Bucket::getKey).toList());
+        assertNull(stats.getByStatus().get(1).getAvgApprovedInterestRate());
+        assertNull(stats.getByRating().get(0).getKey());
+        assertEquals(3, stats.getByRating().get(1).getCount());
+    }
+
+    @Test
+    void testPortfolioCounters_PerStatusAndType() {
+        // Arrange
+        repository.save(loan("A", 0, LoanStatus.DRAFT));
+        repository.save(loan("B", 1, LoanStatus.DRAFT));
+        Loan approved = loan("C", 2, LoanStatus.APPROVED);
+        approved.setSanctionedAmount(800_000.0);
+        repository.save(approved);
+        Loan untyped = loan("D", 3, LoanStatus.DRAFT);
+        untyped.setLoanType(null);
+        repository.save(untyped);
+        Loan deleted = loan("E", 4, LoanStatus.DRAFT);
+        deleted.setDeleted(true);
+        repository.save(deleted);
+
+        // Act
+        Map<String, PortfolioSummary.Counter> counters = repository.portfolioCounters();
+
+        // Assert
+        assertEquals(Map.of(
+                "DRAFT:TERM_LOAN", new PortfolioSummary.Counter(2, 2_000_000.0, 0.0),
+                "APPROVED:TERM_LOAN", new PortfolioSummary.Counter(1, 1_000_000.0, 800_000.0),
+                "DRAFT:NONE", new PortfolioSummary.Counter(1, 1_000_000.0, 0.0)), counters);
+    }
+
+    @Test
+    void testPortfolioStats_EmptySelection() {
+        // Arrange
+        repository.save(loan("C0", 0, LoanStatus.DRAFT));
+        LoanFilter filter = new LoanFilter();
+        filter.setCreatedBy("nobody@bank.com");
+
+        // Act
+        PortfolioStats stats = repository.portfolioStats(filter);
+
+        // Assert
+        assertEquals(0, stats.getTotals().getCount());
+        assertTrue(stats.getByStatus().isEmpty());
+    }
+
+    @Test
+    void testFindForRepricing_WalksIdOrderAcrossStatuses() {
+        // Arrange
+        for (int i = 0; i < 6; i++) {
+            Loan loan = loan("C" + i, i, i % 3 == 0 ? LoanStatus.DRAFT : (i % 3 == 1 ? LoanStatus.SUBMITTED
+                    : LoanStatus.UNDER_REVIEW));
+            if (i == 4) {
+                loan.setPricedAt(T0.plusSeconds(3600));
+            }
+            repository.save(loan);
+        }
+        Set<LoanStatus> statuses = EnumSet.of(LoanStatus.SUBMITTED, LoanStatus.UNDER_REVIEW);
+        Instant before = T0.plusSeconds(60);
+
+        // Act
+        List<Loan> first = repository.findForRepricing(statuses, before, null, 2);
+        List<Loan> rest = repository.findForRepricing(statuses, before, first.get(1).getId(), 2);
+
+        // Assert
+        assertEquals(3, repository.countForRepricing(statuses, before));
+        assertEquals(2, first.size());
+        assertEquals(1, rest.size());
+        assertTrue(first.get(0).getId().compareTo(first.get(1).getId()) < 0);
+        assertNull(first.get(0).getClientName());
+        assertEquals(LoanType.TERM_LOAN, first.get(0).getLoanType());
+    }
+
+    @Test
+    void testUpdateEachIfStatus_HonoursCondition() {
+        // Arrange
+        Loan stale = loan("Stale", 0, LoanStatus.SUBMITTED);
+        Loan fresh = loan("Fresh", 1, LoanStatus.SUBMITTED);
+        fresh.setPricedAt(T0.plusSeconds(3600));
+        String staleId = repository.save(stale).getId();
+        String freshId = repository.save(fresh).getId();
+        Update reprice = new Update().set("indicativeRate", 9.0);
+        Criteria condition = new Criteria().orOperator(
+                Criteria.where("pricedAt").lt(T0.plusSeconds(60)), Criteria.where("pricedAt").is(null));
+
+        // Act
+        long modified = repository.updateEachIfStatus(Map.of(staleId, reprice, freshId, reprice),
+                EnumSet.of(LoanStatus.SUBMITTED), condition);
+
+        // Assert
+        assertEquals(1, modified);
+        assertEquals(9.0, repository.findById(staleId).orElseThrow().getIndicativeRate());
+        assertNull(repository.findById(freshId).orElseThrow().getIndicativeRate());
+    }
+
+    @Test
+    void testUpdateEachAtVersion_SkipsLoansChangedSinceRead() {
+        // Arrange
+        String currentId = repository.save(loan("Current", 0, LoanStatus.SUBMITTED)).getId();
+        String changedId = repository.save(loan("Changed", 1, LoanStatus.SUBMITTED)).getId();
+        String deletedId = repository.save(loan("Deleted", 2, LoanStatus.SUBMITTED)).getId();
+        repository.updateIfStatus(deletedId, EnumSet.of(LoanStatus.SUBMITTED), null,
+                new Update().set("deleted", true));
+        List<Loan> read = repository.findForDecision(List.of(currentId, changedId, deletedId, "missing"));
+        repository.updateIfStatus(changedId, EnumSet.of(LoanStatus.SUBMITTED), null,
+                new Update().set("tenureMonths", 48));
+        Instant at = T0.plusSeconds(3600);
+        Map<String, Long> versions = new HashMap<>();
+        read.forEach(loan -> versions.put(loan.getId(), loan.getVersion() == null ? 0 : loan.getVersion()));
+        Update approve = new Update().set("status", LoanStatus.APPROVED).set("lastAction",
+                new LoanAction("admin", "APPROVED", at)).set("decisionBatch", "batch-1");
+
+        // Act
+        long modified = repository.updateEachAtVersion(Map.of(currentId, approve, changedId, approve), versions,
+                EnumSet.of(LoanStatus.SUBMITTED, LoanStatus.UNDER_REVIEW));
+
+        // Assert
+        assertEquals(List.of(currentId, changedId), read.stream().map(Loan::getId).toList());
+        assertNull(read.get(0).getClientName());
+        assertEquals(1, modified);
+        assertEquals(LoanStatus.APPROVED, repository.findById(currentId).orElseThrow().getStatus());
+        assertEquals(LoanStatus.SUBMITTED, repository.findById(changedId).orElseThrow().getStatus());
+        assertEquals(List.of(currentId), repository.findIdsDecidedIn(versions, "batch-1"));
+        assertEquals(List.of(), repository.findIdsDecidedIn(versions, "batch-2"));
+    }
+
+    @Test
+    void testInsertUnordered_ReportsDuplicatesAndKeepsTheRest() {
+        // Arrange
+        String existing = repository.save(loan("Existing", 0, LoanStatus.DRAFT)).getId();
+        Loan duplicate = loan("Duplicate", 1, LoanStatus.DRAFT);
+        duplicate.setId(existing);
+
+        // Act
+        Map<Integer, String> errors = repository.insertUnordered(
+                List.of(loan("A", 2, LoanStatus.DRAFT), duplicate, loan("B", 3, LoanStatus.DRAFT)));
+
+        // Assert
+        assertEquals(Set.of(1), errors.keySet());
+        assertEquals(3, repository.count());
+        assertThrows(DuplicateKeyException.class, () -> repository.insert(duplicate));
+    }
+
+    private static Loan searched(String clientName) {
+        Loan loan = loan(clientName, 0, LoanStatus.DRAFT);
+        LoanSearchKeys.stamp(loan);
+        return loan;
+    }
+
+    // a new Loan stamps createdAt, which an example would otherwise match on
+    private static Loan probe() {
+        Loan probe = new Loan();
+        probe.setCreatedAt(null);
+        return probe;
+    }
+
+    private static Loan loan(String clientName, int createdSecond, LoanStatus status) {
+        Loan loan = new Loan();
+        loan.setClientName(clientName);
+        loan.setLoanType(LoanType.TERM_LOAN);
+        loan.setRequestedAmount(1_000_000.0);
+        loan.setTenureMonths(36);
+        loan.setStatus(status);
+        loan.setCreatedAt(T0.plusSeconds(createdSecond));
+        loan.setLastAction(new LoanAction("u", "CREATED", T0));
+        return loan;
+    }
+}
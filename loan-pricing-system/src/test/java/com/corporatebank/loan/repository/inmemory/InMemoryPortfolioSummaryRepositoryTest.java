@@ -0,0 +1,49 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.PortfolioSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryPortfolioSummaryRepositoryTest {
+
+    private InMemoryPortfolioSummaryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryPortfolioSummaryRepository();
+    }
+
+    @Test
+    void testIncrement_CreatesAndAccumulates() {
+        // Arrange
+        Instant at = Instant.parse("2024-01-01T00:00:00Z");
+
+        // Act
+        repository.increment(Map.of("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(1, 100.0, 0.0)), at);
+        repository.increment(Map.of("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(-1, -100.0, 0.0),
+                "SUBMITTED:TERM_LOAN", new PortfolioSummary.Counter(1, 100.0, 0.0)), at.plusSeconds(1));
+
+        // Assert
+        PortfolioSummary summary = repository.findById(PortfolioSummary.ID).orElseThrow();
+        assertEquals(new PortfolioSummary.Counter(0, 0.0, 0.0), summary.getBuckets().get("DRAFT:TERM_LOAN"));
+        assertEquals(new PortfolioSummary.Counter(1, 100.0, 0.0), summary.getBuckets().get("SUBMITTED:TERM_LOAN"));
+        assertEquals(at.plusSeconds(1), summary.getUpdatedAt());
+    }
+
+    @Test
+    void testFindById_ReturnsCopy() {
+        // Arrange
+        repository.increment(Map.of("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(1, 100.0, 0.0)), Instant.now());
+
+        // Act
+        repository.findById(PortfolioSummary.ID).orElseThrow().getBuckets().clear();
+
+        // Assert
+        assertEquals(1, repository.findById(PortfolioSummary.ID).orElseThrow().getBuckets().size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRepricingJobRepositoryTest {
+
+    private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+    private InMemoryRepricingJobRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryRepricingJobRepository();
+    }
+
+    @Test
+    void testClaimLease_OnlyOnceTheHeartbeatIsStale() {
+        // Arrange
+        RepricingJob job = job(JobStatus.RUNNING, "a", T0);
+
+        // Act
+        boolean whileFresh = repository.claimLease(job.getId(), "b", T0.plusSeconds(60), T0).isPresent();
+        RepricingJob claimed = repository.claimLease(job.getId(), "b", T0.plusSeconds(600), T0.plusSeconds(1))
+                .orElseThrow();
+
+        // Assert
+        assertFalse(whileFresh);
+        assertEquals("b", claimed.getLeaseOwner());
+        assertEquals(T0.plusSeconds(600), claimed.getHeartbeatAt());
+        assertEquals(JobStatus.RUNNING, claimed.getStatus());
+    }
+
+    @Test
+    void testClaimLease_ReleasedJobIsFreeAndCompletedIsNot() {
+        // Arrange
+        RepricingJob failed = job(JobStatus.FAILED, null, T0);
+        failed.setError("connection reset");
+        repository.save(failed);
+        RepricingJob completed = job(JobStatus.COMPLETED, null, T0);
+
+        // Act
+        RepricingJob claimed = repository.claimLease(failed.getId(), "b", T0, T0.minusSeconds(300)).orElseThrow();
+
+        // Assert
+        assertNull(claimed.getError());
+        assertTrue(repository.claimLease(completed.getId(), "b", T0, T0.minusSeconds(300)).isEmpty());
+    }
+
+    @Test
+    void testSaveIfLeased_RefusedOnceTakenOver() {
+        // Arrange
+        RepricingJob job = job(JobStatus.RUNNING, "a", T0);
+        repository.claimLease(job.getId(), "b", T0.plusSeconds(600), T0.plusSeconds(1));
+        job.setProcessed(10);
+
+        // Act
+        boolean saved = repository.saveIfLeased(job, "a");
+
+        // Assert
+        assertFalse(saved);
+        assertEquals("b", repository.findById(job.getId()).orElseThrow().getLeaseOwner());
+        assertEquals(0, repository.findById(job.getId()).orElseThrow().getProcessed());
+    }
+
+    private RepricingJob job(JobStatus status, String owner, Instant heartbeatAt) {
+        RepricingJob job = new RepricingJob();
+        job.setStatus(status);
+        job.setLeaseOwner(owner);
+        job.setHeartbeatAt(heartbeatAt);
+        return repository.insert(job);
+    }
+}
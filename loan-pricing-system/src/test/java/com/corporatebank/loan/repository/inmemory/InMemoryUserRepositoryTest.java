@@ -0,0 +1,62 @@
+package com.corporatebank.loan.repository.inmemory;
+
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.model.enums.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserRepositoryTest {
+
+    private InMemoryUserRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryUserRepository();
+    }
+
+    @Test
+    void testFindByEmail_UsesEmailIndex() {
+        // Arrange
+        repository.save(user("a@bank.com"));
+
+        // Act & Assert
+        assertEquals(Role.USER, repository.findByEmail("a@bank.com").orElseThrow().getRole());
+        assertTrue(repository.findByEmail("b@bank.com").isEmpty());
+    }
+
+    @Test
+    void testSave_RejectsDuplicateEmail() {
+        // Arrange
+        repository.save(user("a@bank.com"));
+
+        // Act & Assert
+        assertThrows(DuplicateKeyException.class, () -> repository.save(user("a@bank.com")));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void testSave_ChangingEmailFreesOldOne() {
+        // Arrange
+        User saved = repository.save(user("a@bank.com"));
+        saved.setEmail("b@bank.com");
+
+        // Act
+        repository.save(saved);
+
+        // Assert
+        assertTrue(repository.findByEmail("a@bank.com").isEmpty());
+        assertEquals(saved.getId(), repository.findByEmail("b@bank.com").orElseThrow().getId());
+        assertDoesNotThrow(() -> repository.save(user("a@bank.com")));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,183 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.AmortizationSchedule;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.model.enums.RepaymentStructure;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationEngineTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private AmortizationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new AmortizationEngine(objectMapper, new PricingProperties(), 100);
+    }
+
+    @Test
+    void testEmi_EqualInstalmentsClearBalance() {
+        // Act
+        AmortizationSchedule schedule = engine.schedule(100000.0, 12.0, 12, RepaymentStructure.EMI);
+
+        // Assert
+        assertEquals(12, schedule.getMonths());
+        assertEquals(8884.88, schedule.payment(0));
+        assertEquals(1000.0, schedule.interest(0));
+        assertEquals(7884.88, schedule.principal(0));
+        assertEquals(8884.88, schedule.payment(10));
+        assertEquals(0.0, schedule.balance(11));
+        assertEquals(100000.0, schedule.getTotalPayment() - schedule.getTotalInterest(), 0.001);
+    }
+
+    @Test
+    void testEqualPrincipal_FallingPayments() {
+        // Act
+        AmortizationSchedule schedule = engine.schedule(120000.0, 12.0, 12, RepaymentStructure.EQUAL_PRINCIPAL);
+
+        // Assert
+        assertEquals(10000.0, schedule.principal(0));
+        assertEquals(11200.0, schedule.payment(0));
+        assertEquals(10100.0, schedule.payment(11));
+        assertEquals(0.0, schedule.balance(11));
+        assertEquals(7800.0, schedule.getTotalInterest());
+    }
+
+    @Test
+    void testBullet_PrincipalAtMaturity() {
+        // Act
+        AmortizationSchedule schedule = engine.schedule(50000.0, 9.6, 6, RepaymentStructure.BULLET);
+
+        // Assert
+        assertEquals(400.0, schedule.payment(0));
+        assertEquals(0.0, schedule.principal(4));
+        assertEquals(50000.0, schedule.balance(4));
+        assertEquals(50400.0, schedule.payment(5));
+        assertEquals(0.0, schedule.balance(5));
+    }
+
+    @Test
+    void testZeroRate_SplitsPrincipalEvenly() {
+        // Act
+        AmortizationSchedule schedule = engine.schedule(1000.0, 0.0, 3, RepaymentStructure.EMI);
+
+        // Assert
+        assertEquals(333.33, schedule.payment(0));
+        assertEquals(333.34, schedule.payment(2));
+        assertEquals(0.0, schedule.getTotalInterest());
+        assertEquals(0.0, schedule.balance(2));
+    }
+
+    @Test
+    void testSchedule_CachedByTerms() {
+        // Act
+        AmortizationSchedule first = engine.schedule(100000.0, 12.0, 12, RepaymentStructure.EMI);
+        AmortizationSchedule second = engine.schedule(100000.0, 12.0, 12, RepaymentStructure.EMI);
+        AmortizationSchedule other = engine.schedule(100000.0, 12.0, 12, RepaymentStructure.BULLET);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, other);
+    }
+
+    @Test
+    void testScheduleForLoan_UsesSanctionedTermsAndTypeStructure() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setLoanType(LoanType.WORKING_CAPITAL);
+        loan.setRequestedAmount(200000.0);
+        loan.setSanctionedAmount(120000.0);
+        loan.setIndicativeRate(9.0);
+        loan.setApprovedInterestRate(12.0);
+        loan.setTenureMonths(12);
+
+        // Act
+        AmortizationSchedule schedule = engine.schedule(loan, null);
+
+        // Assert
+        assertEquals(RepaymentStructure.EQUAL_PRINCIPAL, schedule.getStructure());
+        assertEquals(120000.0, schedule.getAmount());
+        assertEquals(12.0, schedule.getAnnualRate());
+    }
+
+    @Test
+    void testScheduleForLoan_NoTenureUsesPricingDefault() {
+        // Arrange
+        PricingProperties properties = new PricingProperties();
+        properties.setDefaultTenureMonths(6);
+        AmortizationEngine engine = new AmortizationEngine(objectMapper, properties, 100);
+        Loan loan = new Loan();
+        loan.setLoanType(LoanType.OVERDRAFT);
+        loan.setRequestedAmount(200000.0);
+        loan.setIndicativeRate(9.0);
+
+        // Act
+        AmortizationSchedule schedule = engine.schedule(loan, null);
+
+        // Assert
+        assertEquals(6, schedule.getMonths());
+        assertEquals(0.0, schedule.balance(5));
+    }
+
+    @Test
+    void testSchedule_NonFiniteTerms() {
+        // Act & Assert
+        for (double bad : new double[] {Double.NaN, Double.POSITIVE_INFINITY}) {
+            CustomException amount = assertThrows(CustomException.class,
+                    () -> engine.schedule(bad, 12.0, 12, RepaymentStructure.EMI));
+            assertEquals(HttpStatus.BAD_REQUEST, amount.getStatus());
+            CustomException rate = assertThrows(CustomException.class,
+                    () -> engine.schedule(100000.0, bad, 12, RepaymentStructure.EMI));
+            assertEquals(HttpStatus.BAD_REQUEST, rate.getStatus());
+        }
+    }
+
+    @Test
+    void testWriteJson_StreamsRows() throws Exception {
+        // Arrange
+        AmortizationSchedule schedule = engine.schedule(100000.0, 12.0, 12, RepaymentStructure.EMI);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        engine.write(schedule, AmortizationEngine.Format.JSON, out);
+
+        // Assert
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals("EMI", json.get("structure").asString());
+        assertEquals(12, json.get("rows").size());
+        assertEquals(1, json.get("rows").get(0).get("month").asInt());
+        assertEquals(8884.88, json.get("rows").get(0).get("payment").asDouble());
+        assertEquals(0.0, json.get("rows").get(11).get("balance").asDouble());
+    }
+
+    @Test
+    void testWriteCsv_HeaderAndRows() throws Exception {
+        // Arrange
+        AmortizationSchedule schedule = engine.schedule(50000.0, 9.6, 6, RepaymentStructure.BULLET);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        engine.write(schedule, AmortizationEngine.Format.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(7, lines.length);
+        assertEquals(AmortizationEngine.CSV_HEADER, lines[0]);
+        assertEquals("1,400.0,0.0,400.0,50000.0", lines[1]);
+        assertEquals("6,50400.0,50000.0,400.0,0.0", lines[6]);
+    }
+}
@@ -12,7 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessResourceFailureException;
 
 import java.util.Optional;
 
@@ -31,7 +31,10 @@ class AuthServiceTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashing;
+
+    @Mock
+    private UserService userService;
 
     @InjectMocks
     private AuthService authService;
@@ -57,7 +60,7 @@ class AuthServiceTest {
     void testLogin_Success() {
         // Arrange
         when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("password123", "$2a$10$hashedPassword")).thenReturn(true);
+        when(passwordHashing.matches("password123", "$2a$10$hashedPassword")).thenReturn(true);
         when(jwtUtil.generateToken("user@bank.com", "USER")).thenReturn("jwt-token-123");
 
         // Act
@@ -68,8 +71,46 @@ class AuthServiceTest {
         assertEquals("jwt-token-123", response.getToken());
         assertEquals("USER", response.getRole());
         verify(userRepository, times(1)).findByEmail("user@bank.com");
-        verify(passwordEncoder, times(1)).matches("password123", "$2a$10$hashedPassword");
+        verify(passwordHashing, times(1)).matches("password123", "$2a$10$hashedPassword");
         verify(jwtUtil, times(1)).generateToken("user@bank.com", "USER");
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void testLogin_RehashesAtConfiguredCost() {
+        // Arrange
+        when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashing.matches("password123", "$2a$10$hashedPassword")).thenReturn(true);
+        when(passwordHashing.needsRehash("$2a$10$hashedPassword")).thenReturn(true);
+        when(passwordHashing.encode("password123")).thenReturn("$2a$12$rehashedPassword");
+        when(jwtUtil.generateToken("user@bank.com", "USER")).thenReturn("jwt-token-123");
+
+        // Act
+        LoginResponse response = authService.login(loginRequest);
+
+        // Assert
+        assertEquals("jwt-token-123", response.getToken());
+        assertEquals("$2a$12$rehashedPassword", testUser.getPassword());
+        verify(userRepository).save(testUser);
+        verify(userService).invalidate("user@bank.com");
+    }
+
+    @Test
+    void testLogin_RehashFailureDoesNotFailLogin() {
+        // Arrange
+        when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
+        when(passwordHashing.matches("password123", "$2a$10$hashedPassword")).thenReturn(true);
+        when(passwordHashing.needsRehash("$2a$10$hashedPassword")).thenReturn(true);
+        when(passwordHashing.encode("password123")).thenReturn("$2a$12$rehashedPassword");
+        when(userRepository.save(testUser)).thenThrow(new DataAccessResourceFailureException("down"));
+        when(jwtUtil.generateToken("user@bank.com", "USER")).thenReturn("jwt-token-123");
+
+        // Act
+        LoginResponse response = authService.login(loginRequest);
+
+        // Assert
+        assertEquals("jwt-token-123", response.getToken());
+        verify(userService, never()).invalidate(anyString());
     }
 
     @Test
@@ -84,14 +125,14 @@ class AuthServiceTest {
 
         assertEquals("User not found", exception.getMessage());
         verify(userRepository, times(1)).findByEmail("user@bank.com");
-        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(passwordHashing, never()).matches(anyString(), anyString());
     }
 
     @Test
     void testLogin_InvalidPassword() {
         // Arrange
         when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
-        when(passwordEncoder.matches("wrongpassword", "$2a$10$hashedPassword")).thenReturn(false);
+        when(passwordHashing.matches("wrongpassword", "$2a$10$hashedPassword")).thenReturn(false);
 
         loginRequest.setPassword("wrongpassword");
 
@@ -102,7 +143,7 @@ class AuthServiceTest {
 
         assertEquals("Invalid credentials", exception.getMessage());
         verify(userRepository, times(1)).findByEmail("user@bank.com");
-        verify(passwordEncoder, times(1)).matches("wrongpassword", "$2a$10$hashedPassword");
+        verify(passwordHashing, times(1)).matches("wrongpassword", "$2a$10$hashedPassword");
         verify(jwtUtil, never()).generateToken(anyString(), anyString());
     }
 
@@ -110,7 +151,7 @@ class AuthServiceTest {
     void testRegister_Success() {
         // Arrange
         when(userRepository.findByEmail("newuser@bank.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("password123")).thenReturn("$2a$10$encodedPassword");
+        when(passwordHashing.encode("password123")).thenReturn("$2a$10$encodedPassword");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId("new-user-id");
@@ -125,8 +166,9 @@ class AuthServiceTest {
         assertEquals("newuser@bank.com", registered.getEmail());
         assertEquals(Role.USER, registered.getRole());
         verify(userRepository, times(1)).findByEmail("newuser@bank.com");
-        verify(passwordEncoder, times(1)).encode("password123");
+        verify(passwordHashing, times(1)).encode("password123");
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userService, times(1)).invalidate("newuser@bank.com");
     }
 
     @Test
@@ -148,7 +190,7 @@ class AuthServiceTest {
     void testRegister_AdminRole() {
         // Arrange
         when(userRepository.findByEmail("admin@bank.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode("admin123")).thenReturn("$2a$10$encodedPassword");
+        when(passwordHashing.encode("admin123")).thenReturn("$2a$10$encodedPassword");
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
             User user = invocation.getArgument(0);
             user.setId("admin-id");
@@ -0,0 +1,81 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.repository.LoanActionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanAuditServiceTest {
+
+    @Mock
+    private LoanActionRepository actionRepository;
+
+    @InjectMocks
+    private LoanAuditService auditService;
+
+    @Test
+    void testRecorded_AppendsLastActionOfEachLoan() {
+        // Arrange
+        LoanAction created = new LoanAction("user@bank.com", "CREATED", Instant.now());
+        Loan first = loan("loan1", created);
+        Loan withoutAction = loan("loan2", null);
+
+        // Act
+        auditService.recorded(List.of(first, withoutAction));
+
+        // Assert
+        verify(actionRepository, times(1)).append(Map.of("loan1", created));
+    }
+
+    @Test
+    void testRecorded_SameActionForEveryId() {
+        // Arrange
+        LoanAction repriced = new LoanAction("admin@bank.com", "REPRICED", Instant.now());
+
+        // Act
+        auditService.recorded(List.of("loan1", "loan2"), repriced);
+
+        // Assert
+        verify(actionRepository, times(1)).append(Map.of("loan1", repriced, "loan2", repriced));
+    }
+
+    @Test
+    void testRecorded_NothingToAppend() {
+        // Act
+        auditService.recorded(List.of(loan("loan1", null)));
+
+        // Assert
+        verifyNoInteractions(actionRepository);
+    }
+
+    @Test
+    void testRecorded_FailureDoesNotPropagate() {
+        // Arrange
+        doThrow(new DataAccessResourceFailureException("down")).when(actionRepository).append(anyMap());
+
+        // Act & Assert
+        assertDoesNotThrow(() -> auditService.recorded(List.of("loan1"),
+                new LoanAction("u", "DELETED", Instant.now())));
+    }
+
+    private static Loan loan(String id, LoanAction lastAction) {
+        Loan loan = new Loan();
+        loan.setId(id);
+        loan.setLastAction(lastAction);
+        return loan;
+    }
+}
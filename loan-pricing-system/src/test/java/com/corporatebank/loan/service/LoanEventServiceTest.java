@@ -0,0 +1,264 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanEvent;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanEventServiceTest {
+
+    @Mock
+    private ObjectProvider<LoanChangeStream> changeStreamProvider;
+
+    @Mock
+    private LoanChangeStream changeStream;
+
+    private LoanEventService eventService;
+
+    @BeforeEach
+    void setUp() {
+        // sends run inline so each test sees them as soon as they are queued
+        eventService = new LoanEventService(changeStreamProvider, JsonMapper.builder().build(), Runnable::run,
+                Duration.ofMinutes(30), 3, 16);
+        lenient().doAnswer(i -> {
+            i.<Consumer<LoanChangeStream>>getArgument(0).accept(changeStream);
+            return null;
+        }).when(changeStreamProvider).ifAvailable(any());
+    }
+
+    @Test
+    void testSubscribe_StartsSharedChangeStream() {
+        // Act
+        eventService.subscribe(new RecordingEmitter(), "a@bank.com", false, null);
+        eventService.subscribe(new RecordingEmitter(), "b@bank.com", false, null);
+
+        // Assert
+        verify(changeStream, times(2)).start(eventService);
+        assertEquals(2, eventService.subscriberCount());
+    }
+
+    @Test
+    void testChanged_OnlyToSubscribersWhoMaySeeTheLoan() {
+        // Arrange
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        RecordingEmitter admin = new RecordingEmitter();
+        eventService.subscribe(owner, "owner@bank.com", false, null);
+        eventService.subscribe(other, "other@bank.com", false, null);
+        eventService.subscribe(admin, "admin@bank.com", true, null);
+
+        // Act
+        eventService.changed("t1", event("loan1", "owner@bank.com", LoanStatus.APPROVED));
+
+        // Assert
+        assertEquals(1, owner.events.size());
+        assertTrue(owner.events.get(0).contains("id:t1"));
+        assertTrue(owner.events.get(0).contains("event:loan"));
+        assertTrue(owner.events.get(0).contains("\"status\":\"APPROVED\""));
+        assertTrue(other.events.isEmpty());
+        assertEquals(1, admin.events.size());
+    }
+
+    @Test
+    void testSubscribe_ReplaysEventsAfterLastEventId() {
+        // Arrange
+        eventService.changed("t1", event("loan1", "owner@bank.com", LoanStatus.SUBMITTED));
+        eventService.changed("t2", event("loan2", "someone@bank.com", LoanStatus.SUBMITTED));
+        eventService.changed("t3", event("loan1", "owner@bank.com", LoanStatus.APPROVED));
+        RecordingEmitter reconnected = new RecordingEmitter();
+
+        // Act
+        eventService.subscribe(reconnected, "owner@bank.com", false, "t1");
+
+        // Assert
+        assertEquals(1, reconnected.events.size());
+        assertTrue(reconnected.events.get(0).contains("id:t3"));
+        assertEquals(1, eventService.subscriberCount());
+    }
+
+    @Test
+    void testSubscribe_UnknownLastEventIdGetsReset() {
+        // Arrange
+        for (int i = 1; i <= 4; i++) {
+            eventService.changed("t" + i, event("loan" + i, "owner@bank.com", LoanStatus.SUBMITTED));
+        }
+        RecordingEmitter reconnected = new RecordingEmitter();
+
+        // Act: t1 was evicted from the 3-event replay buffer
+        eventService.subscribe(reconnected, "owner@bank.com", false, "t1");
+
+        // Assert
+        assertEquals(1, reconnected.events.size());
+        assertTrue(reconnected.events.get(0).contains("event:reset"));
+    }
+
+    @Test
+    void testReset_NotifiesEverySubscriber() {
+        // Arrange
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        eventService.subscribe(first, "a@bank.com", false, null);
+        eventService.subscribe(second, "admin@bank.com", true, null);
+        eventService.changed("t1", event("loan1", "a@bank.com", LoanStatus.DRAFT));
+
+        // Act
+        eventService.reset();
+
+        // Assert
+        assertTrue(first.events.get(1).contains("event:reset"));
+        assertTrue(second.events.get(1).contains("event:reset"));
+    }
+
+    @Test
+    void testChanged_DropsSubscriberThatWentAway() {
+        // Arrange
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failing = true;
+        eventService.subscribe(gone, "admin@bank.com", true, null);
+
+        // Act
+        eventService.changed("t1", event("loan1", "a@bank.com", LoanStatus.DRAFT));
+
+        // Assert
+        assertEquals(0, eventService.subscriberCount());
+    }
+
+    @Test
+    void testChanged_SlowSubscriberDoesNotHoldUpOthers() throws Exception {
+        // Arrange
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            LoanEventService service = new LoanEventService(changeStreamProvider, JsonMapper.builder().build(),
+                    pool::execute, Duration.ofMinutes(30), 3, 3);
+            CountDownLatch unblock = new CountDownLatch(1);
+            RecordingEmitter slow = new RecordingEmitter();
+            slow.blockedBy = unblock;
+            RecordingEmitter fast = new RecordingEmitter();
+            service.subscribe(slow, "admin@bank.com", true, null);
+            service.subscribe(fast, "admin@bank.com", true, null);
+
+            // Act: the slow client's first send blocks, yet each event still reaches the fast one
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            for (int i = 1; i <= 5; i++) {
+                service.changed("t" + i, event("loan" + i, "a@bank.com", LoanStatus.DRAFT));
+                while (fast.events.size() < i && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+            }
+
+            // Assert
+            assertEquals(5, fast.events.size());
+            // one event in flight and three queued; the fifth overflowed its queue
+            assertEquals(1, service.subscriberCount());
+            unblock.countDown();
+            while (!slow.completed && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(slow.completed);
+            assertEquals(1, slow.events.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testChanged_SubscriberTheSendPoolCannotTakeIsDisconnected() {
+        // Arrange: every send thread busy and max-subscribers already waiting
+        LoanEventService service = new LoanEventService(changeStreamProvider, JsonMapper.builder().build(),
+                task -> {
+                    throw new RejectedExecutionException("full");
+                }, Duration.ofMinutes(30), 3, 3);
+        service.subscribe(new RecordingEmitter(), "admin@bank.com", true, null);
+
+        // Act
+        service.changed("t1", event("loan1", "a@bank.com", LoanStatus.DRAFT));
+
+        // Assert
+        assertEquals(0, service.subscriberCount());
+    }
+
+    @Test
+    void testSubscribe_ReplayLargerThanQueueGetsReset() {
+        // Arrange
+        LoanEventService service = new LoanEventService(changeStreamProvider, JsonMapper.builder().build(),
+                Runnable::run, Duration.ofMinutes(30), 3, 1);
+        for (int i = 1; i <= 3; i++) {
+            service.changed("t" + i, event("loan" + i, "owner@bank.com", LoanStatus.SUBMITTED));
+        }
+        RecordingEmitter reconnected = new RecordingEmitter();
+
+        // Act
+        service.subscribe(reconnected, "owner@bank.com", false, "t1");
+
+        // Assert
+        assertEquals(1, reconnected.events.size());
+        assertTrue(reconnected.events.get(0).contains("event:reset"));
+        assertEquals(1, service.subscriberCount());
+    }
+
+    private static LoanEvent event(String loanId, String createdBy, LoanStatus status) {
+        LoanEvent event = new LoanEvent();
+        event.setOperation("update");
+        event.setAt(Instant.parse("2024-01-01T00:00:00Z"));
+        event.setLoanId(loanId);
+        event.setCreatedBy(createdBy);
+        event.setStatus(status);
+        return event;
+    }
+
+    // records each event as its SSE text instead of writing to a response
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private boolean failing;
+        // a client whose TCP window is full: each send waits for this
+        private CountDownLatch blockedBy;
+        private volatile boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blockedBy != null) {
+                try {
+                    blockedBy.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.add(builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+            super.complete();
+        }
+    }
+}
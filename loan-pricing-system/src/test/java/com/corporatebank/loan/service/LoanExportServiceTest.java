@@ -0,0 +1,120 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanExportServiceTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private LoanExportService exportService;
+
+    private Loan testLoan;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new LoanExportService(loanRepository, objectMapper);
+
+        testLoan = new Loan();
+        testLoan.setId("loan123");
+        testLoan.setClientName("Acme, \"Holdings\"");
+        testLoan.setLoanType(LoanType.TERM_LOAN);
+        testLoan.setRequestedAmount(1000000.0);
+        testLoan.setIndicativeRate(8.65);
+        testLoan.setStatus(LoanStatus.APPROVED);
+        testLoan.setCreatedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        Loan.Financials financials = new Loan.Financials();
+        financials.setRating("A");
+        testLoan.setFinancials(financials);
+    }
+
+    @Test
+    void testExport_NdjsonClosesCursor() throws Exception {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(loanRepository.streamActive(filter))
+                .thenReturn(Stream.of(testLoan, testLoan).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long count = exportService.export(filter, LoanExportService.Format.NDJSON, () -> out);
+
+        // Assert
+        assertEquals(2, count);
+        assertTrue(closed.get());
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        assertEquals("loan123", objectMapper.readTree(lines.get(0)).get("id").asString());
+    }
+
+    @Test
+    void testExport_CsvEscapesValues() throws Exception {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        when(loanRepository.streamActive(filter)).thenReturn(Stream.of(testLoan));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exportService.export(filter, LoanExportService.Format.CSV, () -> out);
+
+        // Assert
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(LoanExportService.CSV_HEADER, lines.get(0));
+        assertEquals("loan123,\"Acme, \"\"Holdings\"\"\",TERM_LOAN,1000000.0,,,8.65,APPROVED,,,,,,"
+                + "2024-01-01T00:00:00Z,,,A", lines.get(1));
+    }
+
+    @Test
+    void testExport_FailingQueryDoesNotOpenTheOutput() {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        when(loanRepository.streamActive(filter)).thenReturn(Stream.<Loan>generate(() -> {
+            throw new DataAccessResourceFailureException("connection reset");
+        }));
+        AtomicBoolean opened = new AtomicBoolean();
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> exportService.export(filter, LoanExportService.Format.CSV, () -> {
+                    opened.set(true);
+                    return new ByteArrayOutputStream();
+                }));
+        assertFalse(opened.get());
+    }
+
+    @Test
+    void testFormat_Unsupported() {
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> LoanExportService.Format.of("xml"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals(LoanExportService.Format.CSV, LoanExportService.Format.of(" CSV "));
+    }
+}
@@ -0,0 +1,214 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanImportSummary;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoanImportServiceTest {
+
+    private static final String VALID = "{\"clientName\":\"Acme\",\"loanType\":\"TERM_LOAN\",\"requestedAmount\":1000000}";
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private PortfolioService portfolioService;
+
+    @Mock
+    private LoanAuditService auditService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private LoanImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new LoanImportService(loanRepository, portfolioService, auditService, objectMapper,
+                TransactionOperations.withoutTransaction(), 2, 200);
+    }
+
+    @Test
+    void testImport_StampsAndBatchesValidLines() throws Exception {
+        // Arrange
+        List<List<Loan>> batches = new ArrayList<>();
+        when(loanRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.getArgument(0)));
+            return Map.of();
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LoanImportSummary summary = importService.importLoans(ndjson(VALID, VALID, "", VALID), out, "user@bank.com");
+
+        // Assert
+        assertEquals(3, summary.getReceived());
+        assertEquals(3, summary.getCreated());
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        Loan loan = batches.get(0).get(0);
+        assertNotNull(loan.getId());
+        assertEquals("user@bank.com", loan.getCreatedBy());
+        assertEquals(LoanStatus.DRAFT, loan.getStatus());
+        assertEquals("CREATED", loan.getLastAction().getAction());
+
+        List<JsonNode> report = report(out);
+        assertEquals(4, report.size());
+        assertEquals(4, report.get(2).get("line").asInt());
+        assertEquals(loan.getId(), report.get(0).get("id").asString());
+        assertEquals(3, report.get(3).get("created").asInt());
+    }
+
+    @Test
+    void testImport_ReportsInvalidLinesInOrder() throws Exception {
+        // Arrange
+        when(loanRepository.insertUnordered(anyList())).thenReturn(Map.of());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LoanImportSummary summary = importService.importLoans(
+                ndjson("{not json", VALID, "{\"clientName\":\"Acme\",\"loanType\":\"TERM_LOAN\"}"), out, "user@bank.com");
+
+        // Assert
+        assertEquals(1, summary.getCreated());
+        assertEquals(2, summary.getRejected());
+        List<JsonNode> report = report(out);
+        assertEquals("REJECTED", report.get(0).get("status").asString());
+        assertTrue(report.get(0).get("error").asString().startsWith("Malformed JSON"));
+        assertEquals("CREATED", report.get(1).get("status").asString());
+        assertEquals("requestedAmount must be positive", report.get(2).get("error").asString());
+    }
+
+    @Test
+    void testImport_InsertErrorsRejectOnlyFailedLoans() throws Exception {
+        // Arrange
+        when(loanRepository.insertUnordered(anyList())).thenReturn(Map.of(1, "E11000 duplicate key"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LoanImportSummary summary = importService.importLoans(ndjson(VALID, VALID), out, "user@bank.com");
+
+        // Assert
+        assertEquals(1, summary.getCreated());
+        assertEquals(1, summary.getRejected());
+        List<JsonNode> report = report(out);
+        assertEquals("CREATED", report.get(0).get("status").asString());
+        assertEquals("E11000 duplicate key", report.get(1).get("error").asString());
+        ArgumentCaptor<List<Loan>> counted = ArgumentCaptor.forClass(List.class);
+        verify(portfolioService, times(1)).added(counted.capture());
+        assertEquals(1, counted.getValue().size());
+        verify(auditService, times(1)).recorded(counted.getValue());
+    }
+
+    @Test
+    void testImport_InsertErrorRollsBackTheBatchAndRetriesWithoutIt() throws Exception {
+        // Arrange: in a transaction, the write error aborted the batch
+        importService = new LoanImportService(loanRepository, portfolioService, auditService, objectMapper,
+                new TransactionOperations() {
+                    @Override
+                    public <T> T execute(TransactionCallback<T> action) {
+                        return action.doInTransaction(new SimpleTransactionStatus(true));
+                    }
+                }, 2, 200);
+        List<List<Loan>> attempts = new ArrayList<>();
+        when(loanRepository.insertUnordered(anyList())).thenAnswer(invocation -> {
+            attempts.add(List.copyOf(invocation.getArgument(0)));
+            return attempts.size() == 1 ? Map.of(0, "E11000 duplicate key") : Map.of();
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LoanImportSummary summary = importService.importLoans(ndjson(VALID, VALID), out, "user@bank.com");
+
+        // Assert
+        assertEquals(1, summary.getCreated());
+        assertEquals(List.of(attempts.get(0).get(1)), attempts.get(1));
+        List<JsonNode> report = report(out);
+        assertEquals("E11000 duplicate key", report.get(0).get("error").asString());
+        assertEquals("CREATED", report.get(1).get("status").asString());
+        verify(portfolioService, times(1)).added(attempts.get(1));
+    }
+
+    @Test
+    void testImport_AllInvalidNeverWrites() throws Exception {
+        // Act
+        LoanImportSummary summary = importService.importLoans(ndjson("[]", "null"), new ByteArrayOutputStream(),
+                "user@bank.com");
+
+        // Assert
+        assertEquals(0, summary.getCreated());
+        assertEquals(2, summary.getRejected());
+        verify(loanRepository, never()).insertUnordered(anyList());
+        verifyNoInteractions(portfolioService, auditService);
+    }
+
+    @Test
+    void testImport_OverlongLineRejectedOnItsOwn() throws Exception {
+        // Arrange
+        when(loanRepository.insertUnordered(anyList())).thenReturn(Map.of());
+        String overlong = "{\"clientName\":\"" + "A".repeat(5000) + "\",\"loanType\":\"TERM_LOAN\"}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        LoanImportSummary summary = importService.importLoans(
+                ndjson(VALID + "\r", overlong + "\r", VALID), out, "user@bank.com");
+
+        // Assert
+        assertEquals(2, summary.getCreated());
+        assertEquals(1, summary.getRejected());
+        List<JsonNode> report = report(out);
+        assertEquals("CREATED", report.get(0).get("status").asString());
+        assertEquals(2, report.get(1).get("line").asLong());
+        assertEquals("Line exceeds 200 characters", report.get(1).get("error").asString());
+        assertEquals("CREATED", report.get(2).get("status").asString());
+    }
+
+    @Test
+    void testLineReader_LimitExcludesTerminator() throws Exception {
+        // Arrange
+        LoanImportService.LineReader reader = new LoanImportService.LineReader(
+                new StringReader("abc\r\nabcd\n\nab"), 3);
+
+        // Act & Assert
+        assertEquals("abc", reader.readLine());
+        assertFalse(reader.tooLong());
+        assertEquals("", reader.readLine());
+        assertTrue(reader.tooLong());
+        assertEquals("", reader.readLine());
+        assertFalse(reader.tooLong());
+        assertEquals("ab", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<JsonNode> report(ByteArrayOutputStream out) {
+        return out.toString(StandardCharsets.UTF_8).lines().map(objectMapper::readTree).toList();
+    }
+}
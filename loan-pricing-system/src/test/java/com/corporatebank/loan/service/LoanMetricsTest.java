@@ -0,0 +1,82 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.service.LoanMetrics.Transition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private final LoanMetrics metrics = new LoanMetrics(registry);
+
+    @Test
+    void testRecord_SuccessTaggedWithResultingStatus() {
+        // Arrange
+        Loan loan = new Loan();
+        loan.setStatus(LoanStatus.SUBMITTED);
+
+        // Act
+        Loan result = metrics.record(Transition.SUBMIT, () -> loan);
+        metrics.record(Transition.SUBMIT, () -> loan);
+
+        // Assert
+        assertSame(loan, result);
+        Timer timer = registry.get(LoanMetrics.TIMER)
+                .tags("transition", "submit", "outcome", "success", "status", "SUBMITTED").timer();
+        assertEquals(2, timer.count());
+        assertEquals(1, registry.find(LoanMetrics.TIMER).timers().size());
+    }
+
+    @Test
+    void testRecord_ConflictRethrown() {
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> metrics.record(Transition.APPROVE,
+                () -> {
+                    throw new CustomException(HttpStatus.CONFLICT, "Only SUBMITTED loans");
+                }));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals(1, registry.get(LoanMetrics.TIMER)
+                .tags("transition", "approve", "outcome", "conflict", "status", "NONE").timer().count());
+    }
+
+    @Test
+    void testRecord_UnexpectedError() {
+        // Act
+        assertThrows(IllegalStateException.class, () -> metrics.record(Transition.CREATE, () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        // Assert
+        assertEquals(1, registry.get(LoanMetrics.TIMER).tags("transition", "create", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void testRecordBatch_OneTimingAndACountPerOutcome() {
+        // Act
+        metrics.recordBatch(List.of(LoanDecisionResult.applied("l1", LoanStatus.APPROVED),
+                LoanDecisionResult.applied("l2", LoanStatus.REJECTED), LoanDecisionResult.notFound("l3")), 2_000);
+
+        // Assert
+        Timer batches = registry.get(LoanMetrics.BATCH_TIMER).timer();
+        assertEquals(1, batches.count());
+        assertEquals(2_000, batches.totalTime(TimeUnit.NANOSECONDS));
+        assertEquals(2, registry.get(LoanMetrics.DECISIONS).tags("outcome", "applied").counter().count());
+        assertEquals(1, registry.get(LoanMetrics.DECISIONS).tags("outcome", "not_found").counter().count());
+        assertNull(registry.find(LoanMetrics.TIMER).timer());
+    }
+}
@@ -1,26 +1,57 @@
 package com.corporatebank.loan.service;
 
+import com.corporatebank.loan.dto.CursorPage;
+import com.corporatebank.loan.dto.LoanCursor;
+import com.corporatebank.loan.dto.LoanDecision;
+import com.corporatebank.loan.dto.LoanDecisionResult;
+import com.corporatebank.loan.dto.LoanFilter;
+import com.corporatebank.loan.dto.LoanSummary;
+import com.corporatebank.loan.dto.PortfolioStats;
+import com.corporatebank.loan.exception.CustomException;
 import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
 import com.corporatebank.loan.model.enums.LoanStatus;
 import com.corporatebank.loan.model.enums.LoanType;
 import com.corporatebank.loan.repository.LoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,6 +60,21 @@ class LoanServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private PortfolioService portfolioService;
+
+    @Mock
+    private LoanAuditService auditService;
+
+    @Spy
+    private LoanMetrics metrics = new LoanMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private TransactionOperations transactions = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private LoanService loanService;
 
@@ -57,7 +103,7 @@ class LoanServiceTest {
     @Test
     void testCreateLoan_Success() {
         // Arrange
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(loanRepository.insert(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // Act
         Loan created = loanService.createLoan(testLoan, "user@bank.com");
@@ -67,9 +113,28 @@ class LoanServiceTest {
         assertEquals(LoanStatus.DRAFT, created.getStatus());
         assertEquals("user@bank.com", created.getCreatedBy());
         assertNotNull(created.getCreatedAt());
-        assertFalse(created.getActions().isEmpty());
-        assertEquals("CREATED", created.getActions().get(0).getAction());
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        assertEquals("CREATED", created.getLastAction().getAction());
+        assertEquals("test corp", created.getSearchName());
+        assertTrue(created.getSearchKeys().containsAll(List.of("t", "test", "corp")));
+        verify(loanRepository, times(1)).insert(any(Loan.class));
+        verify(portfolioService, times(1)).added(List.of(created));
+        verify(auditService, times(1)).recorded(List.of(created));
+    }
+
+    @Test
+    void testGetPortfolioStats_DelegatesToRepository() {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        filter.setStatus(LoanStatus.APPROVED);
+        PortfolioStats stats = new PortfolioStats();
+        when(loanRepository.portfolioStats(filter)).thenReturn(stats);
+
+        // Act
+        PortfolioStats result = loanService.getPortfolioStats(filter);
+
+        // Assert
+        assertSame(stats, result);
+        verifyNoInteractions(metrics);
     }
 
     @Test
@@ -92,6 +157,240 @@ class LoanServiceTest {
         verify(loanRepository, times(1)).findByDeletedFalse(pageable);
     }
 
+    @Test
+    void testGetLoanActions_ReadsTrailOfExistingLoan() {
+        // Arrange
+        Pageable pageable = PageRequest.of(1, 5);
+        Page<LoanAction> history = new PageImpl<>(List.of(new LoanAction("u", "SUBMITTED", Instant.now())),
+                pageable, 6);
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+        when(auditService.history("loan123", pageable)).thenReturn(history);
+
+        // Act
+        Page<LoanAction> result = loanService.getLoanActions("loan123", pageable);
+
+        // Assert
+        assertSame(history, result);
+    }
+
+    @Test
+    void testGetLoanActions_MissingLoan() {
+        // Arrange
+        when(loanRepository.findByIdAndDeletedFalse("missing")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.getLoanActions("missing", PageRequest.of(0, 20)));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verifyNoInteractions(auditService);
+    }
+
+    @Test
+    void testGetLoanSummaries_Success() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<LoanSummary> summaryPage = new PageImpl<>(List.of(summary("loan123", Instant.now())), pageable, 1);
+        when(loanRepository.findSummaryByDeletedFalse(pageable)).thenReturn(summaryPage);
+
+        // Act
+        Page<LoanSummary> result = loanService.getLoanSummaries(pageable);
+
+        // Assert
+        assertSame(summaryPage, result);
+        verify(loanRepository, never()).findByDeletedFalse(any(Pageable.class));
+    }
+
+    @Test
+    void testGetLoanSummaries_FilterWithIndexedPredicate() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("requestedAmount"));
+        LoanFilter filter = new LoanFilter();
+        filter.setStatus(LoanStatus.APPROVED);
+        filter.setMinAmount(100_000.0);
+        filter.setMaxAmount(100_000.0);
+        Page<LoanSummary> summaryPage = new PageImpl<>(List.of(summary("loan123", Instant.now())), pageable, 1);
+        when(loanRepository.findSummaries(filter, pageable)).thenReturn(summaryPage);
+
+        // Act
+        Page<LoanSummary> result = loanService.getLoanSummaries(filter, pageable);
+
+        // Assert
+        assertSame(summaryPage, result);
+    }
+
+    @Test
+    void testGetLoanSummaries_RangesAloneWouldScan() {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        filter.setMinAmount(100_000.0);
+        filter.setApprovedFrom(Instant.parse("2024-01-01T00:00:00Z"));
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.getLoanSummaries(filter, PageRequest.of(0, 10)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void testGetLoanSummaries_InvertedAmountRange() {
+        // Arrange
+        LoanFilter filter = new LoanFilter();
+        filter.setCreatedBy("user@bank.com");
+        filter.setMinAmount(2.0);
+        filter.setMaxAmount(1.0);
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.getLoanSummaries(filter, PageRequest.of(0, 10)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void testGetLoanFields_OnlyRequestedFields() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, 10);
+        when(loanRepository.findActiveWithFields(anyCollection(), eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(testLoan), pageable, 1));
+
+        // Act
+        Page<Map<String, Object>> result = loanService.getLoanFields(List.of("clientName", " status"), pageable);
+
+        // Assert
+        Map<String, Object> row = result.getContent().get(0);
+        assertEquals(List.of("id", "clientName", "status"), List.copyOf(row.keySet()));
+        assertEquals("loan123", row.get("id"));
+        assertEquals("Test Corp", row.get("clientName"));
+        assertEquals(LoanStatus.DRAFT, row.get("status"));
+        verify(loanRepository, times(1))
+                .findActiveWithFields(new LinkedHashSet<>(List.of("id", "clientName", "status")), pageable);
+    }
+
+    @Test
+    void testGetLoanFields_UnknownField() {
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            loanService.getLoanFields(List.of("clientName", "password"), PageRequest.of(0, 10));
+        });
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Unknown field: password", exception.getMessage());
+    }
+
+    @Test
+    void testScrollLoans_FirstSliceHasNext() {
+        // Arrange
+        LoanSummary first = summary("loan123", Instant.parse("2024-01-02T00:00:00Z"));
+        LoanSummary second = summary("loan122", Instant.parse("2024-01-01T00:00:00Z"));
+        LoanSummary third = summary("loan121", Instant.parse("2024-01-01T00:00:00Z"));
+        when(loanRepository.findActiveAfter(null, 3)).thenReturn(new ArrayList<>(List.of(first, second, third)));
+
+        // Act
+        CursorPage<LoanSummary> result = loanService.scrollLoans("", 2, false);
+
+        // Assert
+        assertEquals(2, result.getContent().size());
+        assertTrue(result.isHasNext());
+        assertNull(result.getTotalElements());
+        LoanCursor next = LoanCursor.decode(result.getNextCursor());
+        assertEquals("loan122", next.id());
+        assertEquals(second.getCreatedAt(), next.createdAt());
+        verify(loanRepository, never()).countByDeletedFalse();
+    }
+
+    @Test
+    void testScrollLoans_LastSliceWithTotal() {
+        // Arrange
+        LoanCursor cursor = new LoanCursor(Instant.parse("2024-01-02T00:00:00Z"), "loan124");
+        when(loanRepository.findActiveAfter(cursor, 11)).thenReturn(List.of(summary("loan123", Instant.now())));
+        when(loanRepository.countByDeletedFalse()).thenReturn(42L);
+
+        // Act
+        CursorPage<LoanSummary> result = loanService.scrollLoans(cursor.encode(), 10, true);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        assertEquals(42L, result.getTotalElements());
+    }
+
+    @Test
+    void testScrollLoans_LastRowWithoutCreatedAt() {
+        // Arrange
+        LoanSummary dated = summary("loan123", Instant.parse("2024-01-02T00:00:00Z"));
+        LoanSummary undated = summary("loan122", null);
+        when(loanRepository.findActiveAfter(null, 3))
+                .thenReturn(new ArrayList<>(List.of(dated, undated, summary("loan121", null))));
+
+        // Act
+        CursorPage<LoanSummary> result = loanService.scrollLoans(null, 2, false);
+
+        // Assert
+        LoanCursor next = LoanCursor.decode(result.getNextCursor());
+        assertEquals(new LoanCursor(null, "loan122"), next);
+    }
+
+    @Test
+    void testScrollLoans_InvalidCursor() {
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            loanService.scrollLoans("%%%", 10, false);
+        });
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void testSearchLoans_PrefixMatchesRankFirstThenWordMatches() {
+        // Arrange
+        LoanSummary prefixMatch = summary("p1", Instant.now());
+        LoanSummary wordMatch = summary("w1", Instant.now());
+        when(loanRepository.countNamePrefix("acme st", 3)).thenReturn(1L);
+        when(loanRepository.searchNamePrefix("acme st", 0, 3)).thenReturn(List.of(prefixMatch));
+        when(loanRepository.searchNameKeys(List.of("acme", "st"), "acme st", 0, 2))
+                .thenReturn(List.of(wordMatch, summary("w2", Instant.now())));
+
+        // Act
+        Slice<LoanSummary> result = loanService.searchLoans(" ACME-St ", PageRequest.of(0, 2));
+
+        // Assert
+        assertEquals(List.of(prefixMatch, wordMatch), result.getContent());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    void testSearchLoans_LaterPageSkipsPastPrefixMatches() {
+        // Arrange
+        LoanSummary wordMatch = summary("w3", Instant.now());
+        when(loanRepository.countNamePrefix("acme", 7)).thenReturn(3L);
+        when(loanRepository.searchNameKeys(List.of("acme"), "acme", 1, 3)).thenReturn(List.of(wordMatch));
+
+        // Act
+        Slice<LoanSummary> result = loanService.searchLoans("acme", PageRequest.of(2, 2));
+
+        // Assert
+        assertEquals(List.of(wordMatch), result.getContent());
+        assertFalse(result.hasNext());
+        verify(loanRepository, never()).searchNamePrefix(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testSearchLoans_RejectsEmptyQueryAndDeepPages() {
+        // Act & Assert
+        CustomException empty = assertThrows(CustomException.class,
+                () -> loanService.searchLoans(" -- ", PageRequest.of(0, 20)));
+        CustomException deep = assertThrows(CustomException.class,
+                () -> loanService.searchLoans("acme", PageRequest.of(50, 20)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, deep.getStatus());
+        verifyNoInteractions(loanRepository);
+    }
+
     @Test
     void testGetLoan_Success() {
         // Arrange
@@ -124,35 +423,45 @@ class LoanServiceTest {
     @Test
     void testUpdateLoan_Success() {
         // Arrange
-        testLoan.setStatus(LoanStatus.DRAFT);
         Loan updatedLoan = new Loan();
         updatedLoan.setClientName("Updated Corp");
         updatedLoan.setLoanType(LoanType.WORKING_CAPITAL);
         updatedLoan.setRequestedAmount(2000000.0);
-        
+
         Loan.Financials newFinancials = new Loan.Financials();
         newFinancials.setRevenue(10000000.0);
         newFinancials.setEbitda(1000000.0);
         newFinancials.setRating("B");
         updatedLoan.setFinancials(newFinancials);
 
-        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(loanRepository.updateIfStatusReturningPrevious(eq("loan123"), eq(EnumSet.of(LoanStatus.DRAFT)), isNull(),
+                any(Update.class))).thenReturn(Optional.of(testLoan));
 
         // Act
         Loan result = loanService.updateLoan("loan123", updatedLoan, "user@bank.com");
 
         // Assert
-        assertNotNull(result);
         assertEquals("Updated Corp", result.getClientName());
         assertEquals(LoanType.WORKING_CAPITAL, result.getLoanType());
         assertEquals(2000000.0, result.getRequestedAmount());
-        assertNotNull(result.getFinancials());
-        assertEquals("B", result.getFinancials().getRating());
-        assertFalse(result.getActions().isEmpty());
-        assertEquals("UPDATED", result.getActions().get(result.getActions().size() - 1).getAction());
-        verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        assertSame(newFinancials, result.getFinancials());
+        assertEquals(LoanStatus.DRAFT, result.getStatus());
+        assertEquals(1L, result.getVersion());
+        Document update = capturePreviousUpdate(EnumSet.of(LoanStatus.DRAFT));
+        Document set = update.get("$set", Document.class);
+        assertEquals("Updated Corp", set.get("clientName"));
+        assertEquals("updated corp", set.get("searchName"));
+        assertTrue(((List<?>) set.get("searchKeys")).contains("corp"));
+        assertEquals(LoanType.WORKING_CAPITAL, set.get("loanType"));
+        assertEquals(2000000.0, set.get("requestedAmount"));
+        assertSame(newFinancials, set.get("financials"));
+        assertEquals("UPDATED", lastAction(update).getAction());
+        assertSame(lastAction(update), result.getLastAction());
+        verify(portfolioService, times(1)).changed(testLoan, result);
+        verify(auditService, times(1)).recorded(List.of(result));
+        // one round trip: the write returns the loan as it was
+        verify(loanRepository, never()).findByIdAndDeletedFalse(anyString());
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
@@ -165,93 +474,420 @@ class LoanServiceTest {
         when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+        CustomException exception = assertThrows(CustomException.class, () -> {
             loanService.updateLoan("loan123", updatedLoan, "user@bank.com");
         });
 
-        assertEquals("Only DRAFT loans can be edited.", exception.getMessage());
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertEquals("Only DRAFT loans can be edited. Current status: SUBMITTED.", exception.getMessage());
         verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
         verify(loanRepository, never()).save(any(Loan.class));
+        verifyNoInteractions(portfolioService, auditService);
+    }
+
+    @Test
+    void testUpdateLoan_IfMatchVersionConditionsTheWrite() {
+        // Arrange
+        testLoan.setVersion(3L);
+        ArgumentCaptor<Criteria> condition = ArgumentCaptor.forClass(Criteria.class);
+        when(loanRepository.updateIfStatusReturningPrevious(eq("loan123"), eq(EnumSet.of(LoanStatus.DRAFT)),
+                condition.capture(), any(Update.class))).thenReturn(Optional.of(testLoan));
+
+        // Act
+        Loan result = loanService.updateLoan("loan123", new Loan(), "user@bank.com", 3L);
+
+        // Assert
+        assertEquals(4L, result.getVersion());
+        assertEquals(3L, condition.getValue().getCriteriaObject().get("version"));
+        verify(loanRepository, never()).findVersion(anyString());
+        verify(loanRepository, never()).findByIdAndDeletedFalse(anyString());
+    }
+
+    @Test
+    void testUpdateLoan_StaleVersionFails() {
+        // Arrange
+        testLoan.setVersion(4L);
+        when(loanRepository.updateIfStatusReturningPrevious(anyString(), anyCollection(), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.empty());
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.updateLoan("loan123", new Loan(), "user@bank.com", 3L));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+        assertEquals("Loan was modified since version 3. Current version: 4.", exception.getMessage());
+        verify(loanRepository, times(1)).updateIfStatusReturningPrevious(anyString(), anyCollection(),
+                any(Criteria.class), any(Update.class));
+        verifyNoInteractions(portfolioService, auditService);
+    }
+
+    @Test
+    void testGetLoanVersion_NotFound() {
+        // Arrange
+        when(loanRepository.findVersion("nonexistent")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.getLoanVersion("nonexistent"));
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+    }
+
+    @Test
+    void testUpdateLoan_NotFound() {
+        // Arrange
+        when(loanRepository.findByIdAndDeletedFalse("nonexistent")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            loanService.updateLoan("nonexistent", new Loan(), "user@bank.com");
+        });
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        assertEquals("Loan not found", exception.getMessage());
     }
 
     @Test
     void testSubmit_Success() {
         // Arrange
-        testLoan.setStatus(LoanStatus.DRAFT);
+        Loan submitted = new Loan();
+        submitted.setStatus(LoanStatus.SUBMITTED);
         when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(pricingEngine.rate(testLoan)).thenReturn(8.65);
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.DRAFT)), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.of(submitted));
 
         // Act
         Loan result = loanService.submit("loan123", "user@bank.com");
 
         // Assert
-        assertNotNull(result);
         assertEquals(LoanStatus.SUBMITTED, result.getStatus());
-        assertFalse(result.getActions().isEmpty());
-        assertEquals("SUBMITTED", result.getActions().get(result.getActions().size() - 1).getAction());
-        verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        Document update = captureUpdate(EnumSet.of(LoanStatus.DRAFT));
+        Document set = update.get("$set", Document.class);
+        assertEquals(LoanStatus.SUBMITTED, set.get("status"));
+        assertEquals(8.65, set.get("indicativeRate"));
+        assertNotNull(set.get("pricedAt"));
+        assertEquals("SUBMITTED", lastAction(update).getAction());
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
-    void testApprove_Success() {
+    void testSubmit_AlreadySubmitted() {
         // Arrange
         testLoan.setStatus(LoanStatus.SUBMITTED);
         when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            loanService.submit("loan123", "user@bank.com");
+        });
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(pricingEngine, never()).rate(any(Loan.class));
+        verify(loanRepository, never()).updateIfStatus(anyString(), anyCollection(), any(), any(Update.class));
+    }
+
+    @Test
+    void testApprove_DefaultsToIndicativeRate() {
+        // Arrange
+        testLoan.setStatus(LoanStatus.SUBMITTED);
+        testLoan.setIndicativeRate(8.65);
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.SUBMITTED)), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.of(testLoan));
+
+        // Act
+        loanService.approve("loan123", "admin@bank.com", 1000000.0, null, true);
+
+        // Assert
+        Document set = captureUpdate(EnumSet.of(LoanStatus.SUBMITTED)).get("$set", Document.class);
+        assertEquals(8.65, set.get("approvedInterestRate"));
+        verify(pricingEngine, never()).rate(any(Loan.class));
+    }
+
+    @Test
+    void testDecideAll_OutcomePerItemFromOneReadAndOneBulkWrite() {
+        // Arrange
+        Loan submitted = decidable("l1", LoanStatus.SUBMITTED, 3L);
+        submitted.setIndicativeRate(9.25);
+        Loan underReview = decidable("l2", LoanStatus.UNDER_REVIEW, null);
+        Loan approved = decidable("l3", LoanStatus.APPROVED, 5L);
+        List<LoanDecision> decisions = List.of(
+                new LoanDecision("l1", true, 900_000.0, null),
+                new LoanDecision("l2", false, null, null),
+                new LoanDecision("l3", true, 1.0, 1.0),
+                new LoanDecision("missing", true, 1.0, 1.0),
+                new LoanDecision("l1", false, null, null),
+                new LoanDecision(" ", true, 1.0, 1.0));
+        when(loanRepository.findForDecision(Set.of("l1", "l2", "l3", "missing")))
+                .thenReturn(List.of(submitted, underReview, approved));
+        when(loanRepository.updateEachAtVersion(anyMap(), anyMap(), eq(EnumSet.of(LoanStatus.SUBMITTED,
+                LoanStatus.UNDER_REVIEW)))).thenReturn(2L);
+
+        // Act
+        List<LoanDecisionResult> results = loanService.decideAll(decisions, "admin@bank.com");
+
+        // Assert
+        assertEquals(List.of(LoanDecisionResult.APPLIED, LoanDecisionResult.APPLIED, LoanDecisionResult.CONFLICT,
+                        LoanDecisionResult.NOT_FOUND, LoanDecisionResult.INVALID, LoanDecisionResult.INVALID),
+                results.stream().map(LoanDecisionResult::getOutcome).toList());
+        assertEquals(LoanStatus.APPROVED, results.get(0).getStatus());
+        assertEquals(LoanStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(LoanStatus.APPROVED, results.get(2).getStatus());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Update>> updates = ArgumentCaptor.forClass(Map.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Long>> versions = ArgumentCaptor.forClass(Map.class);
+        verify(loanRepository).updateEachAtVersion(updates.capture(), versions.capture(), anyCollection());
+        assertEquals(Map.of("l1", 3L, "l2", 0L), versions.getValue());
+        Document approval = updates.getValue().get("l1").getUpdateObject().get("$set", Document.class);
+        assertEquals(900_000.0, approval.get("sanctionedAmount"));
+        assertEquals(9.25, approval.get("approvedInterestRate"));
+        assertEquals(LoanStatus.REJECTED,
+                updates.getValue().get("l2").getUpdateObject().get("$set", Document.class).get("status"));
+        assertEquals(approval.get("decisionBatch"),
+                updates.getValue().get("l2").getUpdateObject().get("$set", Document.class).get("decisionBatch"));
+        verify(loanRepository, never()).findIdsDecidedIn(anyMap(), anyString());
+        verify(portfolioService).changed(eq(List.of(submitted, underReview)), anyCollection());
+        verify(auditService).recorded(anyCollection());
+    }
+
+    @Test
+    void testDecideAll_LoanChangedSinceTheReadIsAConflict() {
+        // Arrange
+        Loan first = decidable("l1", LoanStatus.SUBMITTED, 1L);
+        Loan second = decidable("l2", LoanStatus.SUBMITTED, 1L);
+        when(loanRepository.findForDecision(anyCollection())).thenReturn(List.of(first, second));
+        when(loanRepository.updateEachAtVersion(anyMap(), anyMap(), anyCollection())).thenReturn(1L);
+        when(loanRepository.findIdsDecidedIn(eq(Map.of("l1", 1L, "l2", 1L)), anyString())).thenReturn(List.of("l2"));
+
+        // Act
+        List<LoanDecisionResult> results = loanService.decideAll(List.of(
+                new LoanDecision("l1", false, null, null), new LoanDecision("l2", false, null, null)),
+                "admin@bank.com");
+
+        // Assert
+        assertEquals(LoanDecisionResult.CONFLICT, results.get(0).getOutcome());
+        assertEquals(LoanDecisionResult.APPLIED, results.get(1).getOutcome());
+        verify(portfolioService).changed(eq(List.of(second)), anyCollection());
+    }
+
+    @Test
+    void testDecideAll_TooManyDecisions() {
+        // Arrange
+        List<LoanDecision> decisions = new ArrayList<>();
+        for (int i = 0; i <= LoanService.MAX_DECISIONS; i++) {
+            decisions.add(new LoanDecision("l" + i, false, null, null));
+        }
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.decideAll(decisions, "admin@bank.com"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void testApprove_Success() {
+        // Arrange
+        testLoan.setStatus(LoanStatus.UNDER_REVIEW);
+        Loan approved = new Loan();
+        approved.setStatus(LoanStatus.APPROVED);
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.UNDER_REVIEW)),
+                any(Criteria.class), any(Update.class))).thenReturn(Optional.of(approved));
 
         // Act
         Loan result = loanService.approve("loan123", "admin@bank.com", 1000000.0, 7.5, true);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(LoanStatus.APPROVED, result.getStatus());
-        assertEquals(1000000.0, result.getSanctionedAmount());
-        assertEquals(7.5, result.getApprovedInterestRate());
-        assertEquals("admin@bank.com", result.getApprovedBy());
-        assertNotNull(result.getApprovedAt());
-        assertFalse(result.getActions().isEmpty());
-        assertEquals("APPROVED", result.getActions().get(result.getActions().size() - 1).getAction());
-        verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        assertSame(approved, result);
+        Document update = captureUpdate(EnumSet.of(LoanStatus.UNDER_REVIEW));
+        Document set = update.get("$set", Document.class);
+        assertEquals(LoanStatus.APPROVED, set.get("status"));
+        assertEquals(1000000.0, set.get("sanctionedAmount"));
+        assertEquals(7.5, set.get("approvedInterestRate"));
+        assertEquals("admin@bank.com", set.get("approvedBy"));
+        assertNotNull(set.get("approvedAt"));
+        assertEquals("APPROVED", lastAction(update).getAction());
+        verify(portfolioService, times(1)).changed(testLoan, approved);
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
     void testReject_Success() {
         // Arrange
         testLoan.setStatus(LoanStatus.SUBMITTED);
+        Loan rejected = new Loan();
+        rejected.setStatus(LoanStatus.REJECTED);
         when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.SUBMITTED)), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.of(rejected));
 
         // Act
         Loan result = loanService.approve("loan123", "admin@bank.com", null, null, false);
 
         // Assert
-        assertNotNull(result);
         assertEquals(LoanStatus.REJECTED, result.getStatus());
-        assertEquals("admin@bank.com", result.getApprovedBy());
-        assertNull(result.getSanctionedAmount());
-        assertNull(result.getApprovedInterestRate());
-        assertFalse(result.getActions().isEmpty());
-        assertEquals("REJECTED", result.getActions().get(result.getActions().size() - 1).getAction());
-        verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        Document update = captureUpdate(EnumSet.of(LoanStatus.SUBMITTED));
+        Document set = update.get("$set", Document.class);
+        assertEquals(LoanStatus.REJECTED, set.get("status"));
+        assertEquals("admin@bank.com", set.get("approvedBy"));
+        assertFalse(set.containsKey("sanctionedAmount"));
+        assertFalse(set.containsKey("approvedInterestRate"));
+        assertEquals("REJECTED", lastAction(update).getAction());
     }
 
     @Test
-    void testSoftDelete_Success() {
+    void testApprove_AlreadyDecided() {
         // Arrange
+        testLoan.setStatus(LoanStatus.APPROVED);
         when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
-        when(loanRepository.save(any(Loan.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> {
+            loanService.approve("loan123", "admin@bank.com", 1000000.0, 7.5, true);
+        });
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    void testSoftDelete_Success() {
+        // Arrange
+        when(loanRepository.updateIfStatusReturningPrevious(eq("loan123"), eq(EnumSet.noneOf(LoanStatus.class)),
+                isNull(), any(Update.class))).thenReturn(Optional.of(testLoan));
 
         // Act
         loanService.softDelete("loan123", "admin@bank.com");
 
         // Assert
-        assertTrue(testLoan.isDeleted());
-        assertFalse(testLoan.getActions().isEmpty());
-        assertEquals("DELETED", testLoan.getActions().get(testLoan.getActions().size() - 1).getAction());
-        verify(loanRepository, times(1)).findByIdAndDeletedFalse("loan123");
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        Document update = capturePreviousUpdate(EnumSet.noneOf(LoanStatus.class));
+        assertEquals(true, update.get("$set", Document.class).get("deleted"));
+        assertEquals("DELETED", lastAction(update).getAction());
+        ArgumentCaptor<Loan> after = ArgumentCaptor.forClass(Loan.class);
+        verify(portfolioService, times(1)).changed(eq(testLoan), after.capture());
+        assertTrue(after.getValue().isDeleted());
+        assertEquals(LoanStatus.DRAFT, after.getValue().getStatus());
+        verify(loanRepository, never()).findByIdAndDeletedFalse(anyString());
+        verify(loanRepository, never()).save(any(Loan.class));
+    }
+
+    @Test
+    void testSoftDelete_NotFound() {
+        // Arrange
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.softDelete("loan123", "admin@bank.com"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+        verifyNoInteractions(portfolioService, auditService);
+    }
+
+    @Test
+    void testTransition_ComputedWritePinsTheVersionRead() {
+        // Arrange
+        testLoan.setVersion(2L);
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+        when(pricingEngine.rate(testLoan)).thenReturn(8.65);
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.DRAFT)), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.of(testLoan));
+
+        // Act
+        loanService.submit("loan123", "user@bank.com");
+
+        // Assert
+        ArgumentCaptor<Criteria> captor = ArgumentCaptor.forClass(Criteria.class);
+        verify(loanRepository).updateIfStatus(eq("loan123"), anyCollection(), captor.capture(), any(Update.class));
+        assertEquals(2L, captor.getValue().getCriteriaObject().get("version"));
+    }
+
+    @Test
+    void testTransition_RetryRebuildsTheUpdateFromTheReRead() {
+        // Arrange
+        Loan changed = new Loan();
+        changed.setId("loan123");
+        changed.setStatus(LoanStatus.DRAFT);
+        changed.setLoanType(LoanType.TERM_LOAN);
+        changed.setRequestedAmount(5000000.0);
+        changed.setVersion(1L);
+        Loan submitted = new Loan();
+        submitted.setStatus(LoanStatus.SUBMITTED);
+        when(loanRepository.findByIdAndDeletedFalse("loan123"))
+                .thenReturn(Optional.of(testLoan), Optional.of(changed));
+        when(pricingEngine.rate(testLoan)).thenReturn(8.65);
+        when(pricingEngine.rate(changed)).thenReturn(9.4);
+        when(loanRepository.updateIfStatus(eq("loan123"), eq(EnumSet.of(LoanStatus.DRAFT)), any(Criteria.class),
+                any(Update.class))).thenReturn(Optional.empty(), Optional.of(submitted));
+
+        // Act
+        loanService.submit("loan123", "user@bank.com");
+
+        // Assert
+        ArgumentCaptor<Criteria> conditions = ArgumentCaptor.forClass(Criteria.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(loanRepository, times(2)).updateIfStatus(eq("loan123"), anyCollection(), conditions.capture(),
+                updates.capture());
+        assertEquals(1L, conditions.getAllValues().get(1).getCriteriaObject().get("version"));
+        assertEquals(9.4, updates.getAllValues().get(1).getUpdateObject().get("$set", Document.class)
+                .get("indicativeRate"));
+        verify(portfolioService, times(1)).changed(changed, submitted);
+    }
+
+    @Test
+    void testTransition_GivesUpUnderContention() {
+        // Arrange
+        when(loanRepository.findByIdAndDeletedFalse("loan123")).thenReturn(Optional.of(testLoan));
+        when(loanRepository.updateIfStatus(eq("loan123"), anyCollection(), any(Criteria.class), any(Update.class)))
+                .thenReturn(Optional.empty());
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class,
+                () -> loanService.submit("loan123", "user@bank.com"));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(loanRepository, times(3)).updateIfStatus(eq("loan123"), anyCollection(), any(Criteria.class),
+                any(Update.class));
+        verifyNoInteractions(portfolioService, auditService);
+    }
+
+    private static LoanSummary summary(String id, Instant createdAt) {
+        LoanSummary summary = new LoanSummary();
+        summary.setId(id);
+        summary.setCreatedAt(createdAt);
+        return summary;
+    }
+
+    private Document captureUpdate(Set<LoanStatus> expectedFrom) {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(loanRepository, times(1)).updateIfStatus(eq("loan123"), eq(expectedFrom), any(Criteria.class),
+                captor.capture());
+        return captor.getValue().getUpdateObject();
+    }
+
+    private Document capturePreviousUpdate(Set<LoanStatus> expectedFrom) {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(loanRepository, times(1)).updateIfStatusReturningPrevious(eq("loan123"), eq(expectedFrom), any(),
+                captor.capture());
+        return captor.getValue().getUpdateObject();
+    }
+
+    private static LoanAction lastAction(Document update) {
+        return (LoanAction) update.get("$set", Document.class).get("lastAction");
+    }
+
+    private static Loan decidable(String id, LoanStatus status, Long version) {
+        Loan loan = new Loan();
+        loan.setId(id);
+        loan.setStatus(status);
+        loan.setVersion(version);
+        loan.setLoanType(LoanType.TERM_LOAN);
+        loan.setRequestedAmount(1_000_000.0);
+        return loan;
     }
 }
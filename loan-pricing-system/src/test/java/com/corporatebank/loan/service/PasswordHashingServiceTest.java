@@ -0,0 +1,136 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.exception.CustomException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PasswordHashingServiceTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private PasswordHashingService hashing;
+
+    @AfterEach
+    void tearDown() {
+        hashing.shutdown();
+    }
+
+    @Test
+    void testEncodeAndMatches_OnPoolAndTimed() {
+        // Arrange
+        hashing = new PasswordHashingService(new BCryptPasswordEncoder(4), 4, 1, 4, Duration.ofSeconds(5));
+        hashing.bindTo(registry);
+
+        // Act
+        String hash = hashing.encode("password123");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(hashing.matches("password123", hash));
+        assertFalse(hashing.matches("wrong", hash));
+        assertEquals(1, registry.get(PasswordHashingService.TIMER).tag("operation", "encode").timer().count());
+        assertEquals(2, registry.get(PasswordHashingService.TIMER).tag("operation", "matches").timer().count());
+        assertEquals(1, registry.get("executor.pool.max").tag("name", PasswordHashingService.TIMER)
+                .gauge().value());
+    }
+
+    @Test
+    void testNeedsRehash_OnlyBcryptAtAnotherCost() {
+        // Arrange
+        hashing = new PasswordHashingService(new BCryptPasswordEncoder(12), 12, 1, 1, Duration.ofSeconds(1));
+
+        // Act & Assert
+        assertTrue(hashing.needsRehash("$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+        assertTrue(hashing.needsRehash("$2b$14$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+        assertFalse(hashing.needsRehash("$2a$12$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234"));
+        assertFalse(hashing.needsRehash("plain"));
+        assertFalse(hashing.needsRehash(null));
+    }
+
+    @Test
+    void testEncode_RejectedAtOnceWhenQueueFull() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        hashing = new PasswordHashingService(encoder, 10, 1, 1, Duration.ofSeconds(5));
+        hashing.bindTo(registry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashing.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hashing.encode("b"));
+        while (registry.get("executor.queued").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> hashing.encode("c"));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(1, registry.get(PasswordHashingService.TIMER + ".rejected").functionCounter().count());
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testMatches_NotStartedWithinMaxWaitIsRefused() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        hashing = new PasswordHashingService(encoder, 10, 1, 1, Duration.ofMillis(50));
+        hashing.bindTo(registry);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hashing.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> hashing.matches("b", "hash"));
+
+        // Assert: refused with a retry hint, and its queue slot is free for the next caller
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(Duration.ofMillis(50), exception.getRetryAfter());
+        assertEquals(0, registry.get("executor.queued").gauge().value());
+        release.countDown();
+        assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        verify(encoder, never()).matches(any(), any());
+    }
+
+    @Test
+    void testMatches_StartedHashFinishesPastMaxWait() {
+        // Arrange
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.matches(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return true;
+        });
+        hashing = new PasswordHashingService(encoder, 10, 1, 1, Duration.ofMillis(50));
+
+        // Act & Assert
+        assertTrue(hashing.matches("a", "hash"));
+    }
+}
@@ -0,0 +1,183 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.PortfolioReconciliation;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.PortfolioSummary;
+import com.corporatebank.loan.model.enums.LoanStatus;
+import com.corporatebank.loan.model.enums.LoanType;
+import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.repository.PortfolioSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioServiceTest {
+
+    @Mock
+    private PortfolioSummaryRepository summaryRepository;
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Spy
+    private TransactionOperations transactions = TransactionOperations.withoutTransaction();
+
+    @InjectMocks
+    private PortfolioService portfolioService;
+
+    @Test
+    void testAdded_SumsLoansPerBucket() {
+        // Act
+        portfolioService.added(List.of(loan(LoanStatus.DRAFT, LoanType.TERM_LOAN, 100.0, null),
+                loan(LoanStatus.DRAFT, LoanType.TERM_LOAN, 50.0, null),
+                loan(LoanStatus.DRAFT, null, null, null)));
+
+        // Assert
+        Map<String, PortfolioSummary.Counter> deltas = captureIncrement();
+        assertEquals(new PortfolioSummary.Counter(2, 150.0, 0.0), deltas.get("DRAFT:TERM_LOAN"));
+        assertEquals(new PortfolioSummary.Counter(1, 0.0, 0.0), deltas.get("DRAFT:NONE"));
+    }
+
+    @Test
+    void testChanged_MovesLoanBetweenBuckets() {
+        // Arrange
+        Loan before = loan(LoanStatus.SUBMITTED, LoanType.TERM_LOAN, 100.0, null);
+        Loan after = loan(LoanStatus.APPROVED, LoanType.TERM_LOAN, 100.0, 80.0);
+
+        // Act
+        portfolioService.changed(before, after);
+
+        // Assert
+        Map<String, PortfolioSummary.Counter> deltas = captureIncrement();
+        assertEquals(new PortfolioSummary.Counter(-1, -100.0, 0.0), deltas.get("SUBMITTED:TERM_LOAN"));
+        assertEquals(new PortfolioSummary.Counter(1, 100.0, 80.0), deltas.get("APPROVED:TERM_LOAN"));
+    }
+
+    @Test
+    void testChanged_BatchIsOneIncrement() {
+        // Arrange
+        List<Loan> before = List.of(loan(LoanStatus.SUBMITTED, LoanType.TERM_LOAN, 100.0, null),
+                loan(LoanStatus.UNDER_REVIEW, LoanType.TERM_LOAN, 50.0, null));
+        List<Loan> after = List.of(loan(LoanStatus.APPROVED, LoanType.TERM_LOAN, 100.0, 80.0),
+                loan(LoanStatus.APPROVED, LoanType.TERM_LOAN, 50.0, 50.0));
+
+        // Act
+        portfolioService.changed(before, after);
+
+        // Assert
+        Map<String, PortfolioSummary.Counter> deltas = captureIncrement();
+        assertEquals(new PortfolioSummary.Counter(-1, -100.0, 0.0), deltas.get("SUBMITTED:TERM_LOAN"));
+        assertEquals(new PortfolioSummary.Counter(-1, -50.0, 0.0), deltas.get("UNDER_REVIEW:TERM_LOAN"));
+        assertEquals(new PortfolioSummary.Counter(2, 150.0, 130.0), deltas.get("APPROVED:TERM_LOAN"));
+    }
+
+    @Test
+    void testChanged_SoftDeleteLeavesBucket() {
+        // Arrange
+        Loan before = loan(LoanStatus.DRAFT, LoanType.OVERDRAFT, 100.0, null);
+        Loan after = loan(LoanStatus.DRAFT, LoanType.OVERDRAFT, 100.0, null);
+        after.setDeleted(true);
+
+        // Act
+        portfolioService.changed(before, after);
+
+        // Assert
+        assertEquals(Map.of("DRAFT:OVERDRAFT", new PortfolioSummary.Counter(-1, -100.0, 0.0)), captureIncrement());
+    }
+
+    @Test
+    void testChanged_SameBucketWritesNothing() {
+        // Arrange
+        Loan before = loan(LoanStatus.DRAFT, LoanType.TERM_LOAN, 100.0, null);
+        Loan after = loan(LoanStatus.DRAFT, LoanType.TERM_LOAN, 100.0, null);
+
+        // Act
+        portfolioService.changed(before, after);
+
+        // Assert
+        verifyNoInteractions(summaryRepository);
+    }
+
+    @Test
+    void testChanged_IncrementFailureFailsTheWrite() {
+        // Arrange
+        doThrow(new DataAccessResourceFailureException("down")).when(summaryRepository).increment(anyMap(), any());
+
+        // Act & Assert: thrown into the loan write's transaction, which rolls back with it
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> portfolioService.changed(null, loan(LoanStatus.DRAFT, LoanType.TERM_LOAN, 1.0, null)));
+    }
+
+    @Test
+    void testReconcile_ReportsAndCorrectsDrift() {
+        // Arrange
+        PortfolioSummary stored = new PortfolioSummary();
+        stored.getBuckets().put("DRAFT:TERM_LOAN", new PortfolioSummary.Counter(3, 300.0, 0.0));
+        stored.getBuckets().put("SUBMITTED:TERM_LOAN", new PortfolioSummary.Counter(1, 0.1 + 0.2, 0.0));
+        stored.getBuckets().put("REJECTED:TERM_LOAN", new PortfolioSummary.Counter(1, 10.0, 0.0));
+        when(summaryRepository.findById(PortfolioSummary.ID)).thenReturn(Optional.of(stored));
+        when(loanRepository.portfolioCounters()).thenReturn(Map.of(
+                "DRAFT:TERM_LOAN", new PortfolioSummary.Counter(2, 250.0, 0.0),
+                "SUBMITTED:TERM_LOAN", new PortfolioSummary.Counter(1, 0.3, 0.0),
+                "APPROVED:TERM_LOAN", new PortfolioSummary.Counter(1, 100.0, 90.0)));
+
+        // Act
+        PortfolioReconciliation result = portfolioService.reconcile();
+
+        // Assert
+        Map<String, PortfolioSummary.Counter> drift = Map.of(
+                "DRAFT:TERM_LOAN", new PortfolioSummary.Counter(-1, -50.0, 0.0),
+                "REJECTED:TERM_LOAN", new PortfolioSummary.Counter(-1, -10.0, 0.0),
+                "APPROVED:TERM_LOAN", new PortfolioSummary.Counter(1, 100.0, 90.0));
+        assertEquals(drift, result.getDrift());
+        assertFalse(result.isInSync());
+        assertEquals(drift, captureIncrement());
+        verify(transactions).execute(any());
+    }
+
+    @Test
+    void testReconcile_InSync() {
+        // Arrange
+        when(summaryRepository.findById(PortfolioSummary.ID)).thenReturn(Optional.empty());
+        when(loanRepository.portfolioCounters()).thenReturn(Map.of());
+
+        // Act
+        PortfolioReconciliation result = portfolioService.reconcile();
+
+        // Assert
+        assertTrue(result.isInSync());
+    }
+
+    private Map<String, PortfolioSummary.Counter> captureIncrement() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, PortfolioSummary.Counter>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(summaryRepository, times(1)).increment(captor.capture(), any(Instant.class));
+        return captor.getValue();
+    }
+
+    private static Loan loan(LoanStatus status, LoanType loanType, Double requested, Double sanctioned) {
+        Loan loan = new Loan();
+        loan.setStatus(status);
+        loan.setLoanType(loanType);
+        loan.setRequestedAmount(requested);
+        loan.setSanctionedAmount(sanctioned);
+        return loan;
+    }
+}
@@ -0,0 +1,153 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.config.PricingProperties;
+import com.corporatebank.loan.dto.PricingQuote;
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.enums.LoanType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    private PricingEngine pricingEngine;
+
+    private Loan testLoan;
+
+    @BeforeEach
+    void setUp() {
+        pricingEngine = new PricingEngine(new PricingProperties());
+
+        testLoan = new Loan();
+        testLoan.setLoanType(LoanType.TERM_LOAN);
+        testLoan.setRequestedAmount(1000000.0);
+        testLoan.setTenureMonths(36);
+        Loan.Financials financials = new Loan.Financials();
+        financials.setRevenue(5000000.0);
+        financials.setEbitda(500000.0);
+        financials.setRating("A");
+        testLoan.setFinancials(financials);
+    }
+
+    @Test
+    void testQuote_SumsComponents() {
+        // Act
+        PricingQuote quote = pricingEngine.quote(testLoan);
+
+        // Assert
+        assertEquals(7.40, quote.getBaseRate(), 1e-9);
+        assertEquals(0.70, quote.getRatingSpread(), 1e-9);
+        assertEquals(0.35, quote.getTypeSpread(), 1e-9);
+        assertEquals(0.0, quote.getMarginAdjustment(), 1e-9);
+        assertEquals(0.20, quote.getExposureAdjustment(), 1e-9);
+        assertEquals(8.65, quote.getRate());
+        assertEquals(quote.getRate(), pricingEngine.rate(testLoan));
+    }
+
+    @Test
+    void testBaseRate_InterpolatesAndFlattens() {
+        // Act & Assert
+        assertEquals(7.00, pricingEngine.baseRate(1), 1e-9);
+        assertEquals(7.20, pricingEngine.baseRate(24), 1e-9);
+        assertEquals(9.20, pricingEngine.baseRate(240), 1e-9);
+        assertEquals(9.20, pricingEngine.baseRate(600), 1e-9);
+    }
+
+    @Test
+    void testRatingSpread_NotchesCaseAndUnrated() {
+        // Act & Assert
+        assertEquals(1.60, pricingEngine.ratingSpread("B-"), 1e-9);
+        assertEquals(3.20, pricingEngine.ratingSpread("c+"), 1e-9);
+        assertEquals(4.50, pricingEngine.ratingSpread("NR"), 1e-9);
+        assertEquals(4.50, pricingEngine.ratingSpread(null), 1e-9);
+    }
+
+    @Test
+    void testRatingSpread_WidensFromAToD() {
+        // Act
+        double a = pricingEngine.ratingSpread("A");
+        double b = pricingEngine.ratingSpread("B");
+        double c = pricingEngine.ratingSpread("C");
+        double d = pricingEngine.ratingSpread("D");
+
+        // Assert
+        assertTrue(a < b, "A " + a + " vs B " + b);
+        assertTrue(b < c, "B " + b + " vs C " + c);
+        assertTrue(c < d, "C " + c + " vs D " + d);
+    }
+
+    @Test
+    void testMissingFinancials_PricedAsWorstBands() {
+        // Arrange
+        testLoan.setFinancials(null);
+        testLoan.setTenureMonths(null);
+        testLoan.setLoanType(LoanType.OVERDRAFT);
+
+        // Act
+        PricingQuote quote = pricingEngine.quote(testLoan);
+
+        // Assert
+        assertEquals(7.00, quote.getBaseRate(), 1e-9);
+        assertEquals(4.50, quote.getRatingSpread(), 1e-9);
+        assertEquals(1.50, quote.getMarginAdjustment(), 1e-9);
+        assertEquals(1.10, quote.getExposureAdjustment(), 1e-9);
+        assertEquals(15.35, quote.getRate());
+    }
+
+    @Test
+    void testRate_ClampedToFloor() {
+        // Arrange
+        PricingProperties properties = new PricingProperties();
+        properties.setMinRate(9.0);
+
+        // Act & Assert
+        assertEquals(9.0, new PricingEngine(properties).rate(testLoan));
+    }
+
+    @Test
+    void testQuote_RequiresLoanType() {
+        // Arrange
+        testLoan.setLoanType(null);
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> pricingEngine.quote(testLoan));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void testInvalidBands_RejectedAtStartup() {
+        // Arrange
+        PricingProperties properties = new PricingProperties();
+        properties.setExposureAdjustments(new double[] {0.0, 0.5});
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new PricingEngine(properties));
+    }
+
+    @Test
+    void testRate_DoesNotAllocate() {
+        // Arrange
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        double sink = 0;
+        for (int i = 0; i < 1000; i++) {
+            sink += pricingEngine.rate(testLoan);
+        }
+
+        // Act
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100000; i++) {
+            sink += pricingEngine.rate(LoanType.WORKING_CAPITAL, i % 400, 250000.0 + i, 4000000.0, 300000.0, "B+");
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        // Assert
+        assertTrue(sink > 0);
+        assertTrue(allocated < 100000, "allocated " + allocated + " bytes over 100k quotes");
+    }
+}
@@ -0,0 +1,386 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.exception.CustomException;
+import com.corporatebank.loan.model.Loan;
+import com.corporatebank.loan.model.LoanAction;
+import com.corporatebank.loan.model.RepricingJob;
+import com.corporatebank.loan.model.enums.JobStatus;
+import com.corporatebank.loan.repository.LoanRepository;
+import com.corporatebank.loan.repository.RepricingJobRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RepricingServiceTest {
+
+    @Mock
+    private LoanRepository loanRepository;
+
+    @Mock
+    private RepricingJobRepository jobRepository;
+
+    @Mock
+    private PricingEngine pricingEngine;
+
+    @Mock
+    private LoanAuditService auditService;
+
+    private RepricingService repricingService;
+
+    private static final long LEASE_MS = 60_000;
+
+    @BeforeEach
+    void setUp() {
+        repricingService = new RepricingService(loanRepository, jobRepository, pricingEngine, auditService,
+                new SyncTaskExecutor(), 2, 2, 2, LEASE_MS);
+        lenient().when(jobRepository.insert(any(RepricingJob.class))).thenAnswer(i -> {
+            RepricingJob job = i.getArgument(0);
+            job.setId("job1");
+            return job;
+        });
+        lenient().when(jobRepository.saveIfLeased(any(RepricingJob.class), anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repricingService.shutdown();
+    }
+
+    @Test
+    void testStart_RepricesAllChunks() {
+        // Arrange
+        Loan first = loan("loan1");
+        Loan second = loan("loan2");
+        Loan unpriceable = loan("loan3");
+        when(jobRepository.findFirstByStatus(JobStatus.RUNNING)).thenReturn(Optional.empty());
+        when(loanRepository.countForRepricing(eq(RepricingService.REPRICEABLE), any(Instant.class))).thenReturn(3L);
+        when(loanRepository.findForRepricing(eq(RepricingService.REPRICEABLE), any(Instant.class), isNull(), eq(2)))
+                .thenReturn(List.of(first, second));
+        when(loanRepository.findForRepricing(eq(RepricingService.REPRICEABLE), any(Instant.class), eq("loan2"), eq(2)))
+                .thenReturn(List.of(unpriceable));
+        when(loanRepository.findForRepricing(eq(RepricingService.REPRICEABLE), any(Instant.class), eq("loan3"), eq(2)))
+                .thenReturn(List.of());
+        when(pricingEngine.rate(first)).thenReturn(8.1);
+        when(pricingEngine.rate(second)).thenReturn(9.2);
+        when(pricingEngine.rate(unpriceable)).thenThrow(new CustomException(HttpStatus.BAD_REQUEST, "no type"));
+        when(loanRepository.updateEachIfStatus(anyMap(), eq(RepricingService.REPRICEABLE), any(Criteria.class)))
+                .thenAnswer(i -> (long) ((Map<?, ?>) i.getArgument(0)).size());
+
+        // Act
+        RepricingJob job = repricingService.start("admin@bank.com");
+
+        // Assert
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertEquals(3, job.getTotal());
+        assertEquals(3, job.getProcessed());
+        assertEquals(2, job.getRepriced());
+        assertEquals(1, job.getSkipped());
+        assertEquals("loan3", job.getLastLoanId());
+        assertNotNull(job.getFinishedAt());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Update>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(loanRepository, times(2)).updateEachIfStatus(captor.capture(), eq(RepricingService.REPRICEABLE),
+                any(Criteria.class));
+        Document update = captor.getAllValues().get(0).get("loan2").getUpdateObject();
+        assertEquals(9.2, update.get("$set", Document.class).get("indicativeRate"));
+        LoanAction action = (LoanAction) update.get("$set", Document.class).get("lastAction");
+        assertEquals("REPRICED", action.getAction());
+        assertEquals("admin@bank.com", action.getBy());
+        assertEquals(action.getTimestamp(), update.get("$set", Document.class).get("pricedAt"));
+        assertTrue(captor.getAllValues().get(1).isEmpty());
+        verify(auditService, times(1)).recorded(Set.of("loan1", "loan2"), action);
+        verify(loanRepository, never()).findIdsPricedAt(anyCollection(), any(Instant.class));
+    }
+
+    @Test
+    void testStart_AlreadyRunning() {
+        // Arrange
+        RepricingJob running = new RepricingJob();
+        running.setId("job0");
+        when(jobRepository.findFirstByStatus(JobStatus.RUNNING)).thenReturn(Optional.of(running));
+
+        // Act & Assert
+        CustomException exception = assertThrows(CustomException.class, () -> repricingService.start("admin@bank.com"));
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(loanRepository, never()).findForRepricing(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testStart_ConcurrentStartsSaveOneJob() throws Exception {
+        // Arrange
+        List<Runnable> launched = new CopyOnWriteArrayList<>();
+        repricingService = new RepricingService(loanRepository, jobRepository, pricingEngine, auditService,
+                launched::add, 2, 2, 2, LEASE_MS);
+        CountDownLatch refused = new CountDownLatch(1);
+        when(jobRepository.findFirstByStatus(JobStatus.RUNNING)).thenReturn(Optional.empty());
+        when(jobRepository.insert(any(RepricingJob.class))).thenAnswer(i -> {
+            // the other start must be refused while this one is still being recorded
+            assertTrue(refused.await(5, TimeUnit.SECONDS));
+            RepricingJob job = i.getArgument(0);
+            job.setId("job1");
+            return job;
+        });
+        Callable<RepricingJob> start = () -> {
+            try {
+                return repricingService.start("admin@bank.com");
+            } catch (CustomException e) {
+                refused.countDown();
+                throw e;
+            }
+        };
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // Act
+        List<Future<RepricingJob>> results = callers.invokeAll(List.of(start, start), 10, TimeUnit.SECONDS);
+        callers.shutdown();
+
+        // Assert
+        int started = 0;
+        for (Future<RepricingJob> result : results) {
+            try {
+                assertEquals("job1", result.get().getId());
+                started++;
+            } catch (ExecutionException e) {
+                assertEquals(HttpStatus.CONFLICT, ((CustomException) e.getCause()).getStatus());
+            }
+        }
+        assertEquals(1, started);
+        assertEquals(1, launched.size());
+        verify(jobRepository, times(1)).insert(any(RepricingJob.class));
+    }
+
+    @Test
+    void testStart_RejectedLaunchMarksJobFailedAndReleases() {
+        // Arrange
+        repricingService = new RepricingService(loanRepository, jobRepository, pricingEngine, auditService,
+                task -> {
+                    throw new TaskRejectedException("queue full");
+                }, 2, 2, 2, LEASE_MS);
+        when(jobRepository.findFirstByStatus(JobStatus.RUNNING)).thenReturn(Optional.empty());
+
+        // Act
+        assertThrows(TaskRejectedException.class, () -> repricingService.start("admin@bank.com"));
+        assertThrows(TaskRejectedException.class, () -> repricingService.start("admin@bank.com"));
+
+        // Assert
+        verify(jobRepository, times(2)).insert(any(RepricingJob.class));
+        ArgumentCaptor<RepricingJob> saved = ArgumentCaptor.forClass(RepricingJob.class);
+        verify(jobRepository, times(2)).saveIfLeased(saved.capture(), anyString());
+        assertEquals(JobStatus.FAILED, saved.getAllValues().get(1).getStatus());
+        assertNull(saved.getAllValues().get(1).getLeaseOwner());
+    }
+
+    @Test
+    void testResume_RefusedWhileRunningLeavesCheckpoint() {
+        // Arrange
+        List<Runnable> launched = new ArrayList<>();
+        repricingService = new RepricingService(loanRepository, jobRepository, pricingEngine, auditService,
+                launched::add, 2, 2, 2, LEASE_MS);
+        RepricingJob failed = new RepricingJob();
+        failed.setId("job1");
+        failed.setStatus(JobStatus.FAILED);
+        when(jobRepository.findById("job1")).thenReturn(Optional.of(failed));
+        when(jobRepository.claimLease(eq("job1"), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.of(running(failed)));
+        repricingService.resume("job1");
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> repricingService.resume("job1"));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        verify(jobRepository, times(1)).findById("job1");
+        verify(jobRepository, times(1)).claimLease(eq("job1"), anyString(), any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    void testResume_RefusedWhileAnotherInstanceHoldsTheLease() {
+        // Arrange
+        RepricingJob running = new RepricingJob();
+        running.setId("job1");
+        running.setLeaseOwner("other");
+        running.setHeartbeatAt(Instant.now());
+        when(jobRepository.findById("job1")).thenReturn(Optional.of(running));
+        when(jobRepository.claimLease(eq("job1"), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.empty());
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> repricingService.resume("job1"));
+
+        // Assert
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        ArgumentCaptor<Instant> now = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> expiredBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(jobRepository).claimLease(eq("job1"), anyString(), now.capture(), expiredBefore.capture());
+        assertEquals(now.getValue().minusMillis(LEASE_MS), expiredBefore.getValue());
+        verify(loanRepository, never()).findForRepricing(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testStart_RefusedWhenAnotherInstanceRecordedAJobFirst() {
+        // Arrange
+        when(jobRepository.findFirstByStatus(JobStatus.RUNNING)).thenReturn(Optional.empty());
+        when(jobRepository.insert(any(RepricingJob.class))).thenThrow(new DuplicateKeyException("running"));
+
+        // Act
+        CustomException exception = assertThrows(CustomException.class, () -> repricingService.start("admin@bank.com"));
+
+        // Assert: the in-process claim is released, so a later start is checked again
+        assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+        assertThrows(CustomException.class, () -> repricingService.start("admin@bank.com"));
+        verify(jobRepository, times(2)).insert(any(RepricingJob.class));
+        verify(loanRepository, never()).findForRepricing(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testResume_ContinuesFromCheckpoint() {
+        // Arrange
+        RepricingJob failed = new RepricingJob();
+        failed.setId("job1");
+        failed.setStatus(JobStatus.FAILED);
+        failed.setStartedAt(Instant.parse("2024-01-01T00:00:00Z"));
+        failed.setLastLoanId("loan2");
+        failed.setProcessed(2);
+        when(jobRepository.findById("job1")).thenReturn(Optional.of(failed));
+        when(jobRepository.claimLease(eq("job1"), anyString(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Optional.of(running(failed)));
+        when(loanRepository.findForRepricing(RepricingService.REPRICEABLE, failed.getStartedAt(), "loan2", 2))
+                .thenReturn(List.of());
+
+        // Act
+        RepricingJob job = repricingService.resume("job1");
+
+        // Assert
+        assertEquals(JobStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getProcessed());
+        verify(loanRepository, never()).findForRepricing(any(), any(), isNull(), anyInt());
+    }
+
+    @Test
+    void testRun_AuditsOnlyLoansItModified() {
+        // Arrange
+        RepricingJob job = new RepricingJob();
+        job.setId("job1");
+        job.setStartedBy("admin@bank.com");
+        job.setStartedAt(Instant.now());
+        Loan first = loan("loan1");
+        Loan decided = loan("loan2");
+        when(loanRepository.findForRepricing(RepricingService.REPRICEABLE, job.getStartedAt(), null, 2))
+                .thenReturn(List.of(first, decided));
+        when(pricingEngine.rate(any(Loan.class))).thenReturn(8.0);
+        when(loanRepository.updateEachIfStatus(anyMap(), any(), any(Criteria.class))).thenReturn(1L);
+        when(loanRepository.findIdsPricedAt(eq(Set.of("loan1", "loan2")), any(Instant.class)))
+                .thenReturn(List.of("loan1"));
+
+        // Act
+        repricingService.run(job);
+
+        // Assert
+        assertEquals(1, job.getRepriced());
+        assertEquals(1, job.getSkipped());
+        ArgumentCaptor<LoanAction> action = ArgumentCaptor.forClass(LoanAction.class);
+        verify(auditService, times(1)).recorded(eq(List.of("loan1")), action.capture());
+        assertEquals("REPRICED", action.getValue().getAction());
+    }
+
+    @Test
+    void testRun_WriteFailureMarksJobFailed() {
+        // Arrange
+        RepricingJob job = new RepricingJob();
+        job.setId("job1");
+        job.setStartedAt(Instant.now());
+        Loan loan = loan("loan1");
+        when(loanRepository.findForRepricing(RepricingService.REPRICEABLE, job.getStartedAt(), null, 2))
+                .thenReturn(List.of(loan));
+        when(pricingEngine.rate(loan)).thenReturn(8.0);
+        when(loanRepository.updateEachIfStatus(anyMap(), any(), any(Criteria.class)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        // Act
+        repricingService.run(job);
+
+        // Assert
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertTrue(job.getError().contains("connection reset"));
+        assertNull(job.getLastLoanId());
+    }
+
+    @Test
+    void testRun_StopsWhenTheLeaseWasTakenOver() {
+        // Arrange
+        RepricingJob job = new RepricingJob();
+        job.setId("job1");
+        job.setStartedAt(Instant.now());
+        Loan first = loan("loan1");
+        when(loanRepository.findForRepricing(RepricingService.REPRICEABLE, job.getStartedAt(), null, 2))
+                .thenReturn(List.of(first, loan("loan2")));
+        when(pricingEngine.rate(any(Loan.class))).thenReturn(8.0);
+        when(loanRepository.updateEachIfStatus(anyMap(), any(), any(Criteria.class))).thenReturn(2L);
+        when(jobRepository.saveIfLeased(any(RepricingJob.class), anyString())).thenReturn(false);
+        repricingService = new RepricingService(loanRepository, jobRepository, pricingEngine, auditService,
+                new SyncTaskExecutor(), 2, 1, 2, LEASE_MS);
+
+        // Act
+        repricingService.run(job);
+
+        // Assert: the first checkpoint finds the lease gone and nothing more is read
+        verify(loanRepository, times(1)).findForRepricing(any(), any(), any(), anyInt());
+        assertEquals(JobStatus.FAILED, job.getStatus());
+        assertTrue(job.getError().contains("taken over"));
+    }
+
+    private static RepricingJob running(RepricingJob job) {
+        RepricingJob claimed = new RepricingJob();
+        claimed.setId(job.getId());
+        claimed.setStartedAt(job.getStartedAt());
+        claimed.setLastLoanId(job.getLastLoanId());
+        claimed.setProcessed(job.getProcessed());
+        claimed.setLeaseOwner("this");
+        claimed.setHeartbeatAt(Instant.now());
+        return claimed;
+    }
+
+    private static Loan loan(String id) {
+        Loan loan = new Loan();
+        loan.setId(id);
+        return loan;
+    }
+}
@@ -0,0 +1,114 @@
+package com.corporatebank.loan.service;
+
+import com.corporatebank.loan.dto.UserCacheStats;
+import com.corporatebank.loan.model.User;
+import com.corporatebank.loan.model.enums.Role;
+import com.corporatebank.loan.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserService userService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, Duration.ofMinutes(1), 100);
+
+        testUser = new User();
+        testUser.setId("user123");
+        testUser.setEmail("user@bank.com");
+        testUser.setRole(Role.USER);
+    }
+
+    @Test
+    void testFindByEmail_CachesHits() {
+        // Arrange
+        when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.findByEmail("user@bank.com");
+        Optional<User> second = userService.findByEmail("user@bank.com");
+
+        // Assert
+        assertTrue(second.isPresent());
+        verify(userRepository, times(1)).findByEmail("user@bank.com");
+        UserCacheStats stats = userService.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    void testFindByEmail_UnknownUserNotCached() {
+        // Arrange
+        when(userRepository.findByEmail("new@bank.com")).thenReturn(Optional.empty());
+
+        // Act
+        assertTrue(userService.findByEmail("new@bank.com").isEmpty());
+        assertTrue(userService.findByEmail("new@bank.com").isEmpty());
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail("new@bank.com");
+    }
+
+    @Test
+    void testInvalidate_ReloadsUser() {
+        // Arrange
+        when(userRepository.findByEmail("user@bank.com")).thenReturn(Optional.of(testUser));
+        userService.findByEmail("user@bank.com");
+
+        // Act
+        userService.invalidate("user@bank.com");
+        userService.findByEmail("user@bank.com");
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail("user@bank.com");
+    }
+
+    @Test
+    void testInvalidate_DuringLoadIsNotOverwritten() throws Exception {
+        // Arrange
+        User deactivated = new User();
+        deactivated.setEmail("user@bank.com");
+        deactivated.setActive(false);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByEmail("user@bank.com")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(testUser);
+        }).thenReturn(Optional.of(deactivated));
+
+        // Act: deactivation invalidates while the first lookup is still reading the old user
+        Thread reader = new Thread(() -> userService.findByEmail("user@bank.com"));
+        reader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // the invalidate does not wait on the read in flight
+        Thread invalidator = new Thread(() -> userService.invalidate("user@bank.com"));
+        invalidator.start();
+        invalidator.join(5000);
+        assertFalse(invalidator.isAlive());
+        release.countDown();
+        reader.join(5000);
+
+        // Assert
+        assertFalse(userService.findByEmail("user@bank.com").orElseThrow().isActive());
+    }
+}